@@ -45,6 +45,9 @@ public class BistroEchoClient extends AbstractClient {
     // Server -> BistroEchoClient -> ClientController -> ClientUIHandler -> show alert / swap screen / update UI
     @Override
     protected void handleMessageFromServer(Object msg) {
+        if (StartupProbe.responseReceived()) {
+            return;
+        }
         if (controller != null) {
             controller.handleServerResponse(msg);
         } else {
@@ -0,0 +1,392 @@
+package client;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+
+import requests.BillRequest;
+import requests.BillRequest.BillRequestType;
+import requests.GuestRequest;
+import requests.LoginRequest;
+import requests.LoginRequest.UserCommand;
+import requests.ManagerRequest;
+import requests.ManagerRequest.ManagerCommand;
+import requests.Request;
+import requests.ReservationRequest;
+import requests.ReservationRequest.ReservationRequestType;
+import requests.SeatingRequest;
+import requests.SeatingRequest.SeatingRequestType;
+import responses.ReservationResponse;
+import responses.ReservationResponse.ReservationResponseType;
+import responses.Response;
+
+/**
+ * LoadTestClient
+ *
+ * Headless load generator: opens N concurrent {@link LoadTestSession}s against a running server and
+ * replays a weighted mix of terminal/host/manager operations over the real OCSF + Kryo protocol.
+ * No JavaFX is started, so run it on the plain classpath:
+ *
+ *   java -cp bin:../bistro_Common/bin:../OCSF/bin:libs/* client.LoadTestClient host=127.0.0.1 sessions=50 duration=120
+ *
+ * Arguments (key=value, all optional):
+ *   host, port               server address (default 127.0.0.1:5555)
+ *   sessions                 concurrent connections (default 20)
+ *   duration                 run time in seconds (default 60)
+ *   warmup                   seconds excluded from the statistics (default 5)
+ *   mix                      operation weights, e.g. book:40,checkin:20,pay:10,lostcode:20,manager:10
+ *   managerUser, managerPass credentials for manager views (default user1/pass1, as created by WorkloadGenerator)
+ *   timeout                  per-request timeout in ms (default 30000)
+ *   seed                     random seed (default 42)
+ *
+ * At the end a table is printed per request label (command / sub-type): count, app-level failures,
+ * errors (timeouts, broken connections), throughput and latency percentiles.
+ */
+public class LoadTestClient {
+
+    private enum Operation { BOOK, CHECKIN, PAY, LOSTCODE, MANAGER }
+
+    private static final ManagerCommand[] MANAGER_VIEWS = {
+            ManagerCommand.VIEW_ALL_TABLES,
+            ManagerCommand.VIEW_CURRENT_SEATING,
+            ManagerCommand.VIEW_WAITING_LIST,
+            ManagerCommand.VIEW_RESERVATIONS,
+            ManagerCommand.VIEW_ALL_OPENING_HOURS
+    };
+
+    private final String host;
+    private final int port;
+    private final int sessions;
+    private final long durationMillis;
+    private final long warmupMillis;
+    private final long timeoutMillis;
+    private final long seed;
+    private final String managerUser;
+    private final String managerPass;
+    private final Operation[] weightedOps;
+
+    // label -> recorder, shared by all sessions
+    private final Map<String, LatencyRecorder> recorders = new ConcurrentHashMap<>();
+    private volatile long measureFrom;
+
+    public LoadTestClient(Map<String, String> args) {
+        this.host = args.getOrDefault("host", "127.0.0.1");
+        this.port = Integer.parseInt(args.getOrDefault("port", "5555"));
+        this.sessions = Integer.parseInt(args.getOrDefault("sessions", "20"));
+        this.durationMillis = Long.parseLong(args.getOrDefault("duration", "60")) * 1000L;
+        this.warmupMillis = Long.parseLong(args.getOrDefault("warmup", "5")) * 1000L;
+        this.timeoutMillis = Long.parseLong(args.getOrDefault("timeout", "30000"));
+        this.seed = Long.parseLong(args.getOrDefault("seed", "42"));
+        this.managerUser = args.getOrDefault("managerUser", "user1");
+        this.managerPass = args.getOrDefault("managerPass", "pass1");
+        this.weightedOps = parseMix(args.getOrDefault("mix", "book:40,checkin:20,pay:10,lostcode:20,manager:10"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> parsed = new TreeMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("Ignoring argument (expected key=value): " + arg);
+                continue;
+            }
+            parsed.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        new LoadTestClient(parsed).run();
+    }
+
+    /**
+     * runs all sessions until the duration elapses, then prints the report
+     * @throws InterruptedException
+     */
+    public void run() throws InterruptedException {
+        System.out.println("Load test: " + sessions + " sessions against " + host + ":" + port
+                + " for " + durationMillis / 1000 + "s (warm-up " + warmupMillis / 1000 + "s)");
+
+        long start = System.currentTimeMillis();
+        measureFrom = start + warmupMillis;
+        long deadline = start + durationMillis;
+        CountDownLatch done = new CountDownLatch(sessions);
+
+        for (int i = 0; i < sessions; i++) {
+            final int sessionNo = i;
+            Thread t = new Thread(() -> {
+                try {
+                    runSession(sessionNo, deadline);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-session-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        done.await();
+        long measured = Math.max(1, System.currentTimeMillis() - Math.max(start, measureFrom));
+        printReport(measured);
+    }
+
+    private void runSession(int sessionNo, long deadline) {
+        Random rnd = new Random(seed + sessionNo);
+        LoadTestSession session = new LoadTestSession(host, port);
+        SessionState state = new SessionState(String.format("load%04d@bistro.test", sessionNo));
+
+        try {
+            session.openConnection();
+        } catch (Exception e) {
+            System.err.println("[load-session-" + sessionNo + "] could not connect: " + e.getMessage());
+            recorder("CONNECT").error();
+            return;
+        }
+
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                Operation op = weightedOps[rnd.nextInt(weightedOps.length)];
+                try {
+                    switch (op) {
+                        case BOOK -> book(session, state, rnd);
+                        case CHECKIN -> checkIn(session, state, rnd);
+                        case PAY -> pay(session, state, rnd);
+                        case LOSTCODE -> lostCode(session, state);
+                        case MANAGER -> managerView(session, state, rnd);
+                    }
+                } catch (TimeoutException e) {
+                    // a late response would be read as the answer to the next request
+                    session.reconnect();
+                    state.reset();
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("[load-session-" + sessionNo + "] stopped: " + e.getMessage());
+        } finally {
+            try {
+                session.closeConnection();
+            } catch (Exception ignore) {
+            }
+        }
+    }
+
+    // ---------- scenarios ----------
+
+    private void book(LoadTestSession session, SessionState state, Random rnd) throws Exception {
+        ensureGuest(session, state);
+
+        LocalDate date = LocalDate.now().plusDays(1 + rnd.nextInt(7));
+        LocalTime time = LocalTime.of(12 + rnd.nextInt(8), rnd.nextBoolean() ? 0 : 30);
+        int partySize = 1 + rnd.nextInt(6);
+
+        Response<?> first = timed(session, "RESERVATION/FIRST_PHASE", Request.Command.RESERVATION_REQUEST,
+                new ReservationRequest(ReservationRequestType.FIRST_PHASE, date, time, partySize, null, state.contact, 0));
+        if (first == null || !(first.getData() instanceof ReservationResponse availability)
+                || availability.getType() != ReservationResponseType.FIRST_PHASE_SHOW_AVAILABILITY
+                || availability.getAvailableTimes() == null || availability.getAvailableTimes().isEmpty()) {
+            return;
+        }
+
+        List<LocalTime> times = availability.getAvailableTimes();
+        LocalTime chosen = times.get(rnd.nextInt(times.size()));
+        Response<?> second = timed(session, "RESERVATION/SECOND_PHASE", Request.Command.RESERVATION_REQUEST,
+                new ReservationRequest(ReservationRequestType.SECOND_PHASE, date, chosen, partySize, null, state.contact, 0));
+        if (second != null && second.isSuccess() && second.getData() instanceof ReservationResponse confirmed
+                && confirmed.getConfirmationCode() != null) {
+            state.codes.add(confirmed.getConfirmationCode());
+        }
+    }
+
+    private void checkIn(LoadTestSession session, SessionState state, Random rnd) throws Exception {
+        ensureGuest(session, state);
+        int code = state.codes.isEmpty() ? 1_000_000 + rnd.nextInt(1_000_000) : state.codes.get(rnd.nextInt(state.codes.size()));
+        Response<?> resp = timed(session, "SEATING/BY_CONFIRMATIONCODE", Request.Command.SEATING_REQUEST,
+                new SeatingRequest(SeatingRequestType.BY_CONFIRMATIONCODE, code, null));
+        if (resp != null && resp.isSuccess()) {
+            state.seated.add(code);
+        }
+    }
+
+    private void pay(LoadTestSession session, SessionState state, Random rnd) throws Exception {
+        ensureGuest(session, state);
+        if (state.seated.isEmpty()) {
+            // nothing seated by this session yet: seat someone first so the payment has a bill
+            checkIn(session, state, rnd);
+            if (state.seated.isEmpty()) return;
+        }
+        Integer code = state.seated.remove(rnd.nextInt(state.seated.size()));
+        timed(session, "BILLING/PAY_BILL", Request.Command.BILLING_REQUEST,
+                new BillRequest(BillRequestType.PAY_BILL, code));
+    }
+
+    private void lostCode(LoadTestSession session, SessionState state) throws Exception {
+        ensureGuest(session, state);
+        timed(session, "LOST_CODE", Request.Command.LOST_CODE, state.contact);
+    }
+
+    private void managerView(LoadTestSession session, SessionState state, Random rnd) throws Exception {
+        if (!state.manager) {
+            Response<?> login = timed(session, "USER/LOGIN_REQUEST", Request.Command.USER_REQUEST,
+                    new LoginRequest(managerUser, managerPass, UserCommand.LOGIN_REQUEST));
+            if (login == null || !login.isSuccess()) return;
+            state.manager = true;
+            state.guest = false;
+        }
+        ManagerCommand view = MANAGER_VIEWS[rnd.nextInt(MANAGER_VIEWS.length)];
+        ManagerRequest req = view == ManagerCommand.VIEW_RESERVATIONS
+                ? new ManagerRequest(view, LocalDate.now())
+                : new ManagerRequest(view);
+        timed(session, "MANAGER/" + view, Request.Command.MANAGER_REQUEST, req);
+    }
+
+    /**
+     * identifies the session as a guest terminal (GUEST_REQUEST) unless it already is one
+     */
+    private void ensureGuest(LoadTestSession session, SessionState state) throws Exception {
+        if (state.guest) return;
+        Response<?> resp = timed(session, "GUEST", Request.Command.GUEST_REQUEST, new GuestRequest(state.contact));
+        if (resp != null && resp.isSuccess()) {
+            state.guest = true;
+            state.manager = false;
+        }
+    }
+
+    /**
+     * sends one request and records its latency under {@code label}
+     * @return the response, or null when the request failed with an exception other than a timeout
+     * @throws TimeoutException so the caller can reconnect
+     */
+    private Response<?> timed(LoadTestSession session, String label, Request.Command command, Object data) throws TimeoutException {
+        LatencyRecorder recorder = recorder(label);
+        long t0 = System.nanoTime();
+        try {
+            Response<?> resp = session.call(command, data, timeoutMillis);
+            if (System.currentTimeMillis() >= measureFrom) {
+                recorder.record(System.nanoTime() - t0, resp.isSuccess());
+            }
+            return resp;
+        } catch (TimeoutException e) {
+            recorder.error();
+            throw e;
+        } catch (Exception e) {
+            recorder.error();
+            return null;
+        }
+    }
+
+    private LatencyRecorder recorder(String label) {
+        return recorders.computeIfAbsent(label, k -> new LatencyRecorder());
+    }
+
+    // ---------- report ----------
+
+    private void printReport(long measuredMillis) {
+        double seconds = measuredMillis / 1000.0;
+        String header = String.format("%-32s %8s %7s %6s %9s %9s %9s %9s %9s",
+                "request", "count", "failed", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        System.out.println();
+        System.out.println(header);
+        System.out.println("-".repeat(header.length()));
+
+        long totalCount = 0;
+        for (Map.Entry<String, LatencyRecorder> entry : new TreeMap<>(recorders).entrySet()) {
+            LatencyRecorder r = entry.getValue();
+            long[] samples = r.snapshot();
+            totalCount += samples.length;
+            System.out.println(String.format("%-32s %8d %7d %6d %9.1f %9.2f %9.2f %9.2f %9.2f",
+                    entry.getKey(), samples.length, r.getFailed(), r.getErrors(), samples.length / seconds,
+                    percentile(samples, 50), percentile(samples, 90), percentile(samples, 99),
+                    samples.length == 0 ? 0.0 : samples[samples.length - 1] / 1_000_000.0));
+        }
+        System.out.println("-".repeat(header.length()));
+        System.out.println(String.format("total %d requests in %.1fs = %.1f req/s", totalCount, seconds, totalCount / seconds));
+    }
+
+    /**
+     * @param sorted latencies in nanoseconds, ascending
+     * @param p percentile (0-100)
+     * @return latency in milliseconds (nearest-rank)
+     */
+    private static double percentile(long[] sorted, int p) {
+        if (sorted.length == 0) return 0.0;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+
+    private static Operation[] parseMix(String mix) {
+        List<Operation> ops = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Bad mix entry '" + part + "', expected name:weight");
+            }
+            Operation op = Operation.valueOf(kv[0].trim().toUpperCase());
+            int weight = Integer.parseInt(kv[1].trim());
+            ops.addAll(Collections.nCopies(weight, op));
+        }
+        if (ops.isEmpty()) {
+            throw new IllegalArgumentException("Mix has no operations: " + mix);
+        }
+        return ops.toArray(new Operation[0]);
+    }
+
+    // ---------- helpers ----------
+
+    /** Per-session memory: identity and the codes this session booked/seated. */
+    private static class SessionState {
+        private final String contact;
+        private final List<Integer> codes = new ArrayList<>();
+        private final List<Integer> seated = new ArrayList<>();
+        private boolean guest;
+        private boolean manager;
+
+        SessionState(String contact) {
+            this.contact = contact;
+        }
+
+        /** after a reconnect the server has forgotten the session's role */
+        void reset() {
+            guest = false;
+            manager = false;
+        }
+    }
+
+    /** Collects raw latencies of one request label; sorted once when the report is printed. */
+    private static class LatencyRecorder {
+        private long[] samples = new long[1024];
+        private int size;
+        private long failed;
+        private long errors;
+
+        synchronized void record(long nanos, boolean success) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+            if (!success) failed++;
+        }
+
+        synchronized void error() {
+            errors++;
+        }
+
+        synchronized long[] snapshot() {
+            long[] copy = Arrays.copyOf(samples, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+
+        synchronized long getFailed() {
+            return failed;
+        }
+
+        synchronized long getErrors() {
+            return errors;
+        }
+    }
+}
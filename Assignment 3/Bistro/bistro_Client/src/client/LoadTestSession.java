@@ -0,0 +1,87 @@
+package client;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import kryo.KryoUtil;
+import requests.Request;
+import responses.Response;
+
+/**
+ * LoadTestSession
+ *
+ * One simulated terminal/host/manager connection used by {@link LoadTestClient}.
+ * Reuses {@link BistroEchoClient} for the OCSF socket and {@link KryoUtil} for the wire format,
+ * but replaces the UI callback with a queue so requests can be sent synchronously.
+ *
+ * The server answers the requests of one connection in order, so the next message
+ * received is always the response to the last request sent.
+ */
+public class LoadTestSession extends BistroEchoClient {
+
+    // responses from the OCSF reader thread, consumed by the session's driver thread
+    private final BlockingQueue<Object> responses = new LinkedBlockingQueue<>();
+
+    public LoadTestSession(String host, int port) {
+        super(host, port);
+    }
+
+    /**
+     * sends a request and waits for its response
+     * @param command request command
+     * @param data command payload
+     * @param timeoutMillis how long to wait for the response
+     * @return decoded response
+     * @throws TimeoutException if no response arrived in time (the session should then be reconnected)
+     * @throws Exception on send or decode failures
+     */
+    public Response<?> call(Request.Command command, Object data, long timeoutMillis) throws Exception {
+        responses.clear();
+        sendToServer(KryoUtil.serialize(new Request<>(command, data)));
+
+        Object msg = responses.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (msg == null) {
+            throw new TimeoutException(command + " timed out after " + timeoutMillis + " ms");
+        }
+        Object decoded = msg instanceof byte[] bytes ? KryoUtil.deserialize(bytes) : msg;
+        if (!(decoded instanceof Response<?> response)) {
+            throw new IllegalStateException("Unexpected message " + (decoded == null ? "null" : decoded.getClass().getSimpleName()));
+        }
+        return response;
+    }
+
+    /**
+     * drops the current connection and opens a new one (used after a timeout)
+     * @throws Exception
+     */
+    public void reconnect() throws Exception {
+        try {
+            closeConnection();
+        } catch (Exception ignore) {
+        }
+        responses.clear();
+        openConnection();
+    }
+
+    @Override
+    protected void handleMessageFromServer(Object msg) {
+        responses.offer(msg);
+    }
+
+    @Override
+    protected void connectionEstablished() {
+        // quiet: hundreds of sessions connect at once
+    }
+
+    @Override
+    protected void connectionClosed() {
+        // quiet: sessions are closed when the run ends
+    }
+
+    @Override
+    protected void connectionException(Exception exception) {
+        System.err.println("[LoadTestSession] Connection error: " + exception.getMessage());
+    }
+}
@@ -0,0 +1,224 @@
+package client;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.net.ConnectException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import requests.Request;
+
+/**
+ * StartupBenchmark
+ *
+ * Measures the time from process launch to the first {@code Response}, without and with an application
+ * class-data-sharing (AppCDS) archive, and creates the archive on the way (the training run):
+ *
+ *   java -cp bin:../bistro_Common/bin:../OCSF/bin:libs/* client.StartupBenchmark target=client runs=5 archive=G13_client.jsa -- \
+ *        java --module-path $FX_HOME/lib --add-modules javafx.controls,javafx.fxml,javafx.graphics -cp "G13_client.jar:G13_client_lib/*" client.ClientMain
+ *
+ * Everything after "--" is the normal launch command; the benchmark inserts -Dbistro.startupProbe=true and the
+ * CDS flags right after the java executable. In probe mode the launched process exits after its first response
+ * ({@link StartupProbe} on the client, StartupStats on the server), which is also when the archive is written.
+ *
+ * Arguments (key=value, before "--"):
+ *   target      client (the client sends a request itself) or server (the benchmark sends LOST_CODE once it accepts connections)
+ *   runs        launches per variant (default 5)
+ *   archive     archive file to create and use (default G13_&lt;target&gt;.jsa)
+ *   host, port  server address for target=server (default 127.0.0.1:5555)
+ *   timeout     per-launch timeout in ms (default 120000)
+ *
+ * Run it on the machine (and JDK) the launchers use: archives are only valid for the JDK and class path they were created with.
+ */
+public class StartupBenchmark {
+
+    private final String target;
+    private final int runs;
+    private final String archive;
+    private final String host;
+    private final int port;
+    private final long timeoutMillis;
+    private final List<String> command;
+
+    public StartupBenchmark(Map<String, String> args, List<String> command) {
+        this.target = args.getOrDefault("target", "client");
+        if (!target.equals("client") && !target.equals("server")) {
+            throw new IllegalArgumentException("target must be client or server: " + target);
+        }
+        this.runs = Integer.parseInt(args.getOrDefault("runs", "5"));
+        this.archive = args.getOrDefault("archive", "G13_" + target + ".jsa");
+        this.host = args.getOrDefault("host", "127.0.0.1");
+        this.port = Integer.parseInt(args.getOrDefault("port", "5555"));
+        this.timeoutMillis = Long.parseLong(args.getOrDefault("timeout", "120000"));
+        if (command.isEmpty()) {
+            throw new IllegalArgumentException("Missing launch command after --");
+        }
+        this.command = command;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> parsed = new TreeMap<>();
+        int i = 0;
+        for (; i < args.length && !args[i].equals("--"); i++) {
+            int eq = args[i].indexOf('=');
+            if (eq <= 0) {
+                System.err.println("Ignoring argument (expected key=value): " + args[i]);
+                continue;
+            }
+            parsed.put(args[i].substring(0, eq), args[i].substring(eq + 1));
+        }
+        List<String> command = i < args.length ? Arrays.asList(args).subList(i + 1, args.length) : List.of();
+        new StartupBenchmark(parsed, command).run();
+    }
+
+    /**
+     * baseline runs, training run, archive runs, then the report
+     * @throws Exception
+     */
+    public void run() throws Exception {
+        System.out.println("Startup benchmark (" + target + "): " + runs + " launches per variant");
+
+        long[] baseline = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            baseline[i] = launch(List.of());
+            System.out.println("  no archive   #" + (i + 1) + ": " + baseline[i] + " ms");
+        }
+
+        File archiveFile = new File(archive);
+        if (archiveFile.exists() && !archiveFile.delete()) {
+            throw new IllegalStateException("Cannot replace " + archiveFile.getAbsolutePath());
+        }
+        long training = launch(List.of("-XX:ArchiveClassesAtExit=" + archive));
+        if (!archiveFile.exists()) {
+            throw new IllegalStateException("Training run did not write " + archiveFile.getAbsolutePath());
+        }
+        System.out.println("  training run: " + training + " ms, wrote " + archiveFile.getAbsolutePath()
+                + " (" + archiveFile.length() / 1024 + " KB)");
+
+        long[] shared = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            shared[i] = launch(List.of("-XX:SharedArchiveFile=" + archive));
+            System.out.println("  with archive #" + (i + 1) + ": " + shared[i] + " ms");
+        }
+
+        Arrays.sort(baseline);
+        Arrays.sort(shared);
+        System.out.println();
+        System.out.printf("%-22s %8s %8s %8s%n", "time to first response", "min", "median", "max");
+        System.out.printf("%-22s %8d %8d %8d%n", "no archive (ms)", baseline[0], baseline[runs / 2], baseline[runs - 1]);
+        System.out.printf("%-22s %8d %8d %8d%n", "with archive (ms)", shared[0], shared[runs / 2], shared[runs - 1]);
+        System.out.printf("median improvement: %.1f%%%n",
+                100.0 * (baseline[runs / 2] - shared[runs / 2]) / Math.max(1, baseline[runs / 2]));
+    }
+
+    /**
+     * launches the command once and waits for its first response
+     * @param cdsFlags JVM flags for class-data sharing (empty for the baseline)
+     * @return wall-clock milliseconds from launch to the first response
+     * @throws Exception if the process exits or times out before responding
+     */
+    private long launch(List<String> cdsFlags) throws Exception {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(command.get(0));
+        cmd.add("-D" + StartupProbe.PROPERTY + "=true");
+        cmd.addAll(cdsFlags);
+        cmd.addAll(command.subList(1, command.size()));
+
+        ProcessBuilder pb = new ProcessBuilder(cmd).redirectErrorStream(true);
+        long start = System.nanoTime();
+        Process process = pb.start();
+        OutputWatcher output = new OutputWatcher(process, start);
+        output.start();
+        try {
+            long elapsed = target.equals("client") ? output.marker.get(timeoutMillis, TimeUnit.MILLISECONDS) : probeServer(process, start);
+            // the archive is written when the process exits
+            if (!process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Process did not exit after its first response");
+            }
+            return elapsed;
+        } catch (Exception e) {
+            System.err.println("Launch failed: " + e.getMessage() + "\nLast output:\n" + output.tail());
+            throw e;
+        } finally {
+            process.destroy();
+        }
+    }
+
+    /**
+     * connects to the launched server as soon as it accepts connections and sends one LOST_CODE request
+     * @return wall-clock milliseconds from launch to the response
+     */
+    private long probeServer(Process process, long start) throws Exception {
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        LoadTestSession session = new LoadTestSession(host, port);
+        while (true) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Server exited with status " + process.exitValue());
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Server did not accept connections in time");
+            }
+            try {
+                session.openConnection();
+                break;
+            } catch (ConnectException e) {
+                Thread.sleep(20);
+            }
+        }
+        try {
+            session.call(Request.Command.LOST_CODE, "startup-probe", timeoutMillis);
+            return (System.nanoTime() - start) / 1_000_000;
+        } finally {
+            try {
+                session.closeConnection();
+            } catch (Exception ignore) {
+            }
+        }
+    }
+
+    /** Drains the child's output, completes when the client prints the {@link StartupProbe} marker, keeps the last lines. */
+    private static class OutputWatcher extends Thread {
+        private final Process process;
+        private final long start;
+        private final CompletableFuture<Long> marker = new CompletableFuture<>();
+        private final Deque<String> last = new ArrayDeque<>();
+
+        OutputWatcher(Process process, long start) {
+            this.process = process;
+            this.start = start;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(StartupProbe.MARKER)) {
+                        marker.complete((System.nanoTime() - start) / 1_000_000);
+                    }
+                    synchronized (last) {
+                        if (last.size() == 30) last.removeFirst();
+                        last.addLast(line);
+                    }
+                }
+            } catch (Exception ignore) {
+            }
+            marker.completeExceptionally(new IllegalStateException("Process exited without a response"));
+        }
+
+        String tail() {
+            synchronized (last) {
+                return String.join("\n", last);
+            }
+        }
+    }
+}
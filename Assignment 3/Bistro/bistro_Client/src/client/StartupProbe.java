@@ -0,0 +1,63 @@
+package client;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import controllers.ClientController;
+import requests.Request;
+
+/**
+ * StartupProbe
+ *
+ * Prints the time from JVM start to the first {@code Response} received (JVM uptime, once per run):
+ *
+ *   [STARTUP] first-response-ms=1234
+ *
+ * With -Dbistro.startupProbe=true the client sends one LOST_CODE request as soon as the main screen is
+ * shown and exits after the response. {@link StartupBenchmark} and the class-data-sharing training run
+ * (see README) start the client this way.
+ */
+public final class StartupProbe {
+
+    public static final String PROPERTY = "bistro.startupProbe";
+    public static final String MARKER = "[STARTUP] first-response-ms=";
+
+    private static final AtomicBoolean reported = new AtomicBoolean();
+
+    private StartupProbe() {}
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(PROPERTY);
+    }
+
+    /**
+     * called once the main screen is visible; sends the probe request in probe mode
+     * @param controller shared client controller
+     */
+    public static void uiShown(ClientController controller) {
+        if (!isEnabled()) return;
+        if (!controller.isConnected()) {
+            System.err.println("[STARTUP] probe: not connected, exiting");
+            exit(1);
+            return;
+        }
+        controller.sendRequest(new Request<>(Request.Command.LOST_CODE, "startup-probe"));
+    }
+
+    /**
+     * called for every message from the server; reports the first one
+     * @return true if the client is exiting (probe mode) and the message should not reach the UI
+     */
+    public static boolean responseReceived() {
+        if (reported.get() || !reported.compareAndSet(false, true)) return false;
+        System.out.println(MARKER + ManagementFactory.getRuntimeMXBean().getUptime());
+        if (!isEnabled()) return false;
+        exit(0);
+        return true;
+    }
+
+    // System.exit from a separate thread: the caller is the OCSF reader thread
+    private static void exit(int status) {
+        new Thread(() -> System.exit(status), "startup-probe-exit").start();
+    }
+}
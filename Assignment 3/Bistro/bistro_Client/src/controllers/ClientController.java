@@ -342,7 +342,9 @@ public class ClientController {
             safeUiInfo("Check-in", seatingMessage);
         } else if (seatingResponse.getType() == SeatingResponse.SeatingResponseType.CUSTOMER_IN_WAITINGLIST) {
             // no tables available, customer added to waitlist
-            safeUiInfo("Check-in", "No table available. You were added to the waiting list.");
+            Integer wait = seatingResponse.getEstimatedWaitMinutes();
+            safeUiInfo("Check-in", "No table available. You were added to the waiting list."
+                    + (wait != null ? (" Estimated wait: about " + wait + " min.") : ""));
         }
 
         ui.onSeatingResponse(seatingResponse);
@@ -102,6 +102,10 @@ public class MainScreenController extends Application {
             stage.setTitle("Bistro Client");
             stage.show();
 
+            if (controller != null) {
+                StartupProbe.uiShown(controller);
+            }
+
             if (!connected) {
                 showAlert("Offline Mode", "Server connection failed. UI is running offline.", Alert.AlertType.WARNING);
             }
@@ -28,7 +28,8 @@ import javafx.scene.control.TextFormatter;
  * <ul>
  *   <li>Displays the restaurant tables list in a {@link TableView}.</li>
  *   <li>Allows inline editing of table capacity (seats) and sending updates to the server.</li>
- *   <li>Allows adding a new table by table number and capacity.</li>
+ *   <li>Allows adding a new table by table number and capacity, optionally in a combine group (tables of a group
+ *       stand in a row by table number and can be pushed together for a large party).</li>
  *   <li>Allows disabling (deleting) a table; server handles any related reservation cancellations.</li>
  *   <li>Receives server responses via {@link #handleManagerResponse(ManagerResponse)} and updates the UI.</li>
  * </ul>
@@ -41,6 +42,8 @@ public class EditTableScreenController implements ClientControllerAware {
     @FXML private TextField newTableNumberField;
     /** Input field for the new table capacity (add table flow). */
     @FXML private TextField newCapacityField;
+    /** Optional input field for the combine group of the new table (add table flow); empty means the table stands alone. */
+    @FXML private TextField newCombineGroupField;
 
     /** Table view that displays existing tables. */
     @FXML private TableView<TableRow> tablesTable;
@@ -167,6 +170,7 @@ public class EditTableScreenController implements ClientControllerAware {
 
         initNumericField(newTableNumberField, 4);
         initNumericField(newCapacityField, 3);
+        initNumericField(newCombineGroupField, 3);
         setInfo("Load tables to begin editing.");
     }
 
@@ -209,8 +213,15 @@ public class EditTableScreenController implements ClientControllerAware {
         Integer capacity = parsePositiveInt(newCapacityField, "Seats");
         if (capacity == null) return;
 
+        Integer combineGroup = null;
+        if (newCombineGroupField != null && newCombineGroupField.getText() != null
+                && !newCombineGroupField.getText().isBlank()) {
+            combineGroup = parsePositiveInt(newCombineGroupField, "Group");
+            if (combineGroup == null) return;
+        }
+
         clientController.requestManagerAction(
-                new ManagerRequest(ManagerCommand.ADD_NEW_TABLE, tableNumber, capacity)
+                new ManagerRequest(ManagerCommand.ADD_NEW_TABLE, tableNumber, capacity, combineGroup)
         );
         setInfo("Adding table " + tableNumber + "...");
         clearAddFields();
@@ -354,6 +365,7 @@ public class EditTableScreenController implements ClientControllerAware {
     private void clearAddFields() {
         if (newTableNumberField != null) newTableNumberField.clear();
         if (newCapacityField != null) newCapacityField.clear();
+        if (newCombineGroupField != null) newCombineGroupField.clear();
     }
 
     /**
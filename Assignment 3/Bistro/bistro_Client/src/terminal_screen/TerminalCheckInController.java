@@ -153,7 +153,8 @@ public class TerminalCheckInController implements ClientControllerAware {
      * Expected behaviors (based on {@code response.getType()}):
      * <ul>
      *   <li>{@code CUSTOMER_CHECKED_IN}: shows a success message, including table number/capacity if provided</li>
-     *   <li>{@code CUSTOMER_IN_WAITINGLIST}: indicates no table was available and the customer was added to waiting list</li>
+     *   <li>{@code CUSTOMER_IN_WAITINGLIST}: indicates no table was available and the customer was added to waiting list,
+     *       with the estimated wait when the server has one</li>
      * </ul>
      * For any other type, an "Unknown seating response" message is shown.
      * </p>
@@ -178,7 +179,9 @@ public class TerminalCheckInController implements ClientControllerAware {
                 setStatus(msg);
             }
             case CUSTOMER_IN_WAITINGLIST -> {
-                setStatus("No table available. You were added to the waiting list.");
+                Integer wait = response.getEstimatedWaitMinutes();
+                setStatus("No table available. You were added to the waiting list."
+                        + (wait != null ? (" Estimated wait: about " + wait + " min.") : ""));
             }
             default -> setStatus("Unknown seating response.");
         }
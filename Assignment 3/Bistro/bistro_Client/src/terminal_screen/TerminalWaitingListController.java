@@ -136,7 +136,8 @@ public class TerminalWaitingListController implements ClientControllerAware {
      * Expected behaviors (based on {@code response.getType()}):
      * <ul>
      *   <li>{@code CUSTOMER_CHECKED_IN}: indicates seating succeeded; may include table number</li>
-     *   <li>{@code CUSTOMER_IN_WAITINGLIST}: indicates the customer was added to the waiting list</li>
+     *   <li>{@code CUSTOMER_IN_WAITINGLIST}: indicates the customer was added to the waiting list, with the estimated
+     *       wait when the server has one</li>
      * </ul>
      * </p>
      *
@@ -149,7 +150,11 @@ public class TerminalWaitingListController implements ClientControllerAware {
                 Integer table = response.getTableNumberl();
                 setStatus("Table ready! You're seated" + (table != null ? " at table " + table + "." : "."));
             }
-            case CUSTOMER_IN_WAITINGLIST -> setStatus("You're on the take-a-seat list. We'll notify you soon.");
+            case CUSTOMER_IN_WAITINGLIST -> {
+                Integer wait = response.getEstimatedWaitMinutes();
+                setStatus("You're on the take-a-seat list. "
+                        + (wait != null ? "Estimated wait: about " + wait + " min." : "We'll notify you soon."));
+            }
         }
     }
 }
@@ -23,6 +23,14 @@ public class KryoUtil {
      return kryo;
  });
 
+ // Builds the serializers of the given classes on this thread's Kryo instance ahead of the first message
+ public static void warmUp(Class<?>... types) {
+     Kryo kryo = kryoThreadLocal.get();
+     for (Class<?> type : types) {
+         kryo.getRegistration(type);
+     }
+ }
+
  public static byte[] serialize(Object object) {
      Kryo kryo = kryoThreadLocal.get();
      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
@@ -16,6 +16,7 @@ public class ManagerRequest {
 	//for new table/edit table/delete
 	private int tableNumber;
 	private int newCap;
+	private Integer combineGroup;//null: the new table stands alone
 	
 	//for opening hours edit
 	private LocalDate newDate;//also to be used for fetching opening hours by date
@@ -85,6 +86,12 @@ public class ManagerRequest {
 		this.newCap = newCap;
 	}
 
+	//for adding a table that can be pushed together with the tables of its group
+	public ManagerRequest(ManagerCommand managerCommand,int tableNumber,int newCap,Integer combineGroup) {
+		this(managerCommand, tableNumber, newCap);
+		this.combineGroup = combineGroup;
+	}
+
 	public ManagerCommand getManagerCommand() {
 		return managerCommand;
 	}
@@ -113,6 +120,10 @@ public class ManagerRequest {
 		return newCap;
 	}
 
+	public Integer getCombineGroup() {
+		return combineGroup;
+	}
+
 	public LocalDate getNewDate() {
 		return newDate;
 	}
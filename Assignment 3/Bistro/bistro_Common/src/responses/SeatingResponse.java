@@ -7,7 +7,7 @@ import java.time.LocalTime;
  *
  * <p>Main idea:
  * Returned after attempting to seat a customer (check-in) or placing them into the waiting list.
- * Includes table number/capacity (if seated) and check-in time.</p>
+ * Includes table number/capacity (if seated) and check-in time, or the estimated wait (if placed in the waiting list).</p>
  */
 public class SeatingResponse {
 	public enum SeatingResponseType{
@@ -18,6 +18,8 @@ public class SeatingResponse {
 	private Integer tableNumberl;
 	private Integer tableCapacity;
 	private LocalTime checkInTime;
+	/** Estimated minutes until a table is ready, null when seated or when no estimate is available. */
+	private Integer estimatedWaitMinutes;
 	
 	public SeatingResponse() {}
 	
@@ -48,5 +50,11 @@ public class SeatingResponse {
 	public SeatingResponseType getType() {
 		return this.type;
 	}
+	public Integer getEstimatedWaitMinutes() {
+		return estimatedWaitMinutes;
+	}
+	public void setEstimatedWaitMinutes(Integer estimatedWaitMinutes) {
+		this.estimatedWaitMinutes = estimatedWaitMinutes;
+	}
 	
 }
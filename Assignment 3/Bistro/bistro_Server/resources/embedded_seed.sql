@@ -0,0 +1,19 @@
+-- Seed of the embedded profile (DBManager): runs after G13_Assignment3_DB.sql and the schema migrations.
+-- Gives every run the same accounts, dining room and opening hours, so benchmarks stay comparable.
+
+-- one account per role (user name = password)
+INSERT INTO user (userID, username, password, role, phone, email) VALUES
+('U-00001', 'manager', 'manager', 'MANAGER', '0500000001', 'manager@bistro.test'),
+('U-00002', 'rep', 'rep', 'REPRESENTATIVE', '0500000002', 'rep@bistro.test'),
+('U-00003', 'subscriber', 'subscriber', 'SUBSCRIBER', '0500000003', 'subscriber@bistro.test');
+
+-- a row of three 2-tops and a row of three 4-tops that can be pushed together, and single 6-, 8- and 10-tops
+INSERT INTO restaurant_table (tableNumber, capacity, isActive, combineGroup) VALUES
+(1, 2, 1, 1), (2, 2, 1, 1), (3, 2, 1, 1),
+(4, 4, 1, 2), (5, 4, 1, 2), (6, 4, 1, 2),
+(7, 6, 1, NULL), (8, 6, 1, NULL), (9, 8, 1, NULL), (10, 10, 1, NULL);
+
+-- regular opening hours for the 30-day booking window, from the day the database is built
+INSERT INTO opening_hours (date, day, openTime, closeTime, occasion)
+WITH RECURSIVE days (n) AS (SELECT 0 UNION ALL SELECT n + 1 FROM days WHERE n < 29)
+SELECT CURDATE() + INTERVAL n DAY, DAYNAME(CURDATE() + INTERVAL n DAY), '10:00:00', '23:00:00', 'REGULAR' FROM days;
@@ -0,0 +1,66 @@
+package allocation;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Decides at which table(s) a party is seated.
+ *
+ * <p>Policies are pure functions of the floor state: {@link database.FloorModel} calls them while holding its lock,
+ * with the layout and the free flag of every position, and claims the returned tables. They must not block and
+ * should finish in microseconds. Implementations:
+ * <ul>
+ *   <li>{@code smallest} - {@link SmallestFitPolicy}: smallest free table that fits, never combines (the former behaviour)</li>
+ *   <li>{@code bestfit} - {@link BestFitPolicy}: tightest fit over single tables and rows of free neighbours (default)</li>
+ *   <li>{@code lookahead} - {@link LookAheadPolicy}: best fit that keeps the tables needed by reservations starting
+ *       within {@code seating_LookAheadMinutes} (default {@value LookAheadPolicy#DEFAULT_MINUTES})</li>
+ * </ul>
+ * Compare them with {@link AllocationSimulation}.
+ */
+public interface AllocationPolicy {
+
+	/**
+	 * picks the tables for a party
+	 * @param floor table layout
+	 * @param free free flag per layout position (not modified)
+	 * @param partySize party to seat
+	 * @param upcoming party sizes of the reservations expected while this party is seated (empty when not applicable)
+	 * @return layout positions of the chosen tables (the table that carries the seating first), or null if the party should wait
+	 */
+	int[] allocate(Floor floor, boolean[] free, int partySize, List<Integer> upcoming);
+
+	/**
+	 * @return most tables this policy pushes together for one party (1 when it never combines)
+	 */
+	int maxTables();
+
+	/**
+	 * @return how far ahead (minutes) the caller should collect upcoming reservations, 0 if the policy ignores them
+	 */
+	default int lookAheadMinutes() {
+		return 0;
+	}
+
+	/**
+	 * @param name {@code smallest}, {@code bestfit} or {@code lookahead}
+	 * @param lookAheadMinutes horizon of the {@code lookahead} policy
+	 * @return new policy instance
+	 */
+	static AllocationPolicy byName(String name, int lookAheadMinutes) {
+		return switch (name.trim().toLowerCase(Locale.ROOT)) {
+			case "smallest" -> new SmallestFitPolicy();
+			case "bestfit" -> new BestFitPolicy(Floor.MAX_COMBINED);
+			case "lookahead" -> new LookAheadPolicy(new BestFitPolicy(Floor.MAX_COMBINED), lookAheadMinutes);
+			default -> throw new IllegalArgumentException("Unknown allocation policy: " + name);
+		};
+	}
+
+	/**
+	 * @return policy selected by the {@code seating_Allocation} (default {@code bestfit}) and
+	 *         {@code seating_LookAheadMinutes} system properties
+	 */
+	static AllocationPolicy configured() {
+		return byName(System.getProperty("seating_Allocation", "bestfit"),
+				Integer.getInteger("seating_LookAheadMinutes", LookAheadPolicy.DEFAULT_MINUTES));
+	}
+}
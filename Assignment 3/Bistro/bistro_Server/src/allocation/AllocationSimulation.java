@@ -0,0 +1,283 @@
+package allocation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import entities.Table;
+
+/**
+ * Offline simulation that compares allocation policies on the same synthetic services (no database needed).
+ *
+ * <p>Main idea: every service (an evening of {@link #SERVICE_MIN} minutes) gets booking requests and walk-ins drawn
+ * from a fixed seed, so each policy sees exactly the same guests:
+ * <ul>
+ *   <li>Booking requests are admitted like {@code ReservationControl} does: booked against
+ *       {@link Floor#capacityFor(int, int)}, as long as fewer than {@link Floor#units(int, int)} overlapping
+ *       reservations hold that capacity</li>
+ *   <li>Reserved parties arrive around their slot, walk-ins at random; both queue until the policy seats them,
+ *       and leave after {@link #PATIENCE_MIN} minutes without a table. Walk-ins pass the reservations expected within
+ *       the policy's {@link AllocationPolicy#lookAheadMinutes()} (and the queued ones) as look-ahead, as {@code SeatingControl} does</li>
+ *   <li>Every {@link AllocationPolicy#allocate} call is timed</li>
+ * </ul>
+ *
+ * <p>Run ({@code key=value} arguments, all optional):
+ * {@code java -cp bin allocation.AllocationSimulation services=500 bookings=35 walkIns=30 floor=2x8,4x6,6x3,8x2 row=4 lookAhead=30 seed=42}.
+ * {@code floor} lists capacity x count; 2- and 4-tops stand in rows of {@code row} tables that can be pushed together.</p>
+ */
+public class AllocationSimulation {
+
+	private static final int SERVICE_MIN = 360;
+	private static final int STAY_MIN = 120;
+	private static final int SLOT_STEP_MIN = 30;
+	private static final int PATIENCE_MIN = 30;
+	private static final int[] PARTY_SIZES = {1, 2, 3, 4, 5, 6, 7, 8, 10, 12, 14};
+	private static final double[] PARTY_SHARE = {0.05, 0.36, 0.12, 0.22, 0.06, 0.07, 0.03, 0.03, 0.03, 0.02, 0.01};
+	private static final String[] POLICIES = {"smallest", "bestfit", "lookahead"};
+
+	private int services = 500;
+	private int bookings = 35;
+	private int walkIns = 30;
+	private String floorSpec = "2x8,4x6,6x3,8x2";
+	private int rowLength = 4;
+	private long seed = 42;
+	private int lookAhead = LookAheadPolicy.DEFAULT_MINUTES;
+
+	/** One party of guests; {@code slot} is the booked start minute, -1 for walk-ins. */
+	private static final class Party {
+		final int size;
+		final int arrival;
+		final int dine;
+		final int slot;
+
+		Party(int size, int arrival, int dine, int slot) {
+			this.size = size;
+			this.arrival = arrival;
+			this.dine = dine;
+			this.slot = slot;
+		}
+
+		boolean reserved() {
+			return slot >= 0;
+		}
+	}
+
+	/** Totals of one policy over all services. */
+	private static final class Result {
+		long covers;
+		long bookingsRejected;
+		long reservedSeated;
+		long reservedLost;
+		long reservedWaitMin;
+		long walkInsSeated;
+		long walkInsLost;
+		long combined;
+		long guestMinutes;
+		long usedSeatMinutes;
+		long calls;
+		long[] nanos = new long[1 << 16];
+
+		void recordCall(long elapsed) {
+			if (calls == nanos.length) nanos = Arrays.copyOf(nanos, nanos.length * 2);
+			nanos[(int) calls++] = elapsed;
+		}
+	}
+
+	public static void main(String[] args) {
+		AllocationSimulation simulation = new AllocationSimulation();
+		for (String arg : args) {
+			String[] kv = arg.split("=", 2);
+			if (kv.length != 2) throw new IllegalArgumentException("expected key=value, got " + arg);
+			switch (kv[0]) {
+				case "services": simulation.services = Integer.parseInt(kv[1]); break;
+				case "bookings": simulation.bookings = Integer.parseInt(kv[1]); break;
+				case "walkIns": simulation.walkIns = Integer.parseInt(kv[1]); break;
+				case "floor": simulation.floorSpec = kv[1]; break;
+				case "row": simulation.rowLength = Integer.parseInt(kv[1]); break;
+				case "seed": simulation.seed = Long.parseLong(kv[1]); break;
+				case "lookAhead": simulation.lookAhead = Integer.parseInt(kv[1]); break;
+				default: throw new IllegalArgumentException("unknown option " + kv[0]);
+			}
+		}
+		simulation.run();
+	}
+
+	/**
+	 * simulates every policy on the same services and prints the comparison
+	 */
+	public void run() {
+		Floor floor = new Floor(buildTables());
+		int seats = 0;
+		for (int i = 0; i < floor.size(); i++) seats += floor.capacity(i);
+		List<List<Party>> requests = generate();
+
+		System.out.println("Allocation simulation: " + services + " services, " + floor.size() + " tables / " + seats
+				+ " seats (" + floorSpec + ", rows of " + rowLength + "), " + bookings + " booking requests + "
+				+ walkIns + " walk-ins per service, seed " + seed);
+		System.out.printf("%-10s %9s %9s %9s %9s %9s %9s %9s %9s %8s %8s %8s%n", "policy", "covers/sv", "bk-reject",
+				"res-seat", "res-lost", "res-wait", "walk-in", "walk-lost", "combined", "fill%", "mean-ns", "p99-ns");
+		for (String name : POLICIES) {
+			// first pass warms up the JIT, the second is reported
+			simulate(AllocationPolicy.byName(name, lookAhead), floor, requests.subList(0, Math.min(50, requests.size())));
+			Result r = simulate(AllocationPolicy.byName(name, lookAhead), floor, requests);
+			long[] sorted = Arrays.copyOf(r.nanos, (int) r.calls);
+			Arrays.sort(sorted);
+			long total = 0;
+			for (long n : sorted) total += n;
+			System.out.printf("%-10s %9.1f %9d %9d %9d %9.1f %9d %9d %9d %8.1f %8d %8d%n", name,
+					r.covers / (double) services, r.bookingsRejected, r.reservedSeated, r.reservedLost,
+					r.reservedWaitMin / (double) Math.max(1, r.reservedSeated), r.walkInsSeated, r.walkInsLost, r.combined,
+					100.0 * r.guestMinutes / Math.max(1, r.usedSeatMinutes),
+					sorted.length == 0 ? 0 : total / sorted.length,
+					sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * 0.99) - 1)]);
+		}
+		System.out.println("res-wait: mean minutes a seated reservation waited; fill%: guests / seats of the tables in use;"
+				+ " ns: per allocate() call");
+	}
+
+	private List<Table> buildTables() {
+		List<Table> tables = new ArrayList<>();
+		int number = 1;
+		int group = 0;
+		for (String part : floorSpec.split(",")) {
+			String[] cx = part.trim().split("x");
+			int capacity = Integer.parseInt(cx[0]);
+			int count = Integer.parseInt(cx[1]);
+			for (int i = 0; i < count; i++) {
+				if (i % rowLength == 0) group++;
+				tables.add(new Table(number, number, capacity, capacity <= 4 ? group : null));
+				number++;
+			}
+		}
+		return tables;
+	}
+
+	/**
+	 * @return per service: booking requests (with their slot) followed by walk-ins, in request order
+	 */
+	private List<List<Party>> generate() {
+		SplittableRandom random = new SplittableRandom(seed);
+		int lastSlot = (SERVICE_MIN - STAY_MIN) / SLOT_STEP_MIN;
+		List<List<Party>> all = new ArrayList<>(services);
+		for (int s = 0; s < services; s++) {
+			List<Party> parties = new ArrayList<>(bookings + walkIns);
+			for (int i = 0; i < bookings; i++) {
+				int slot = random.nextInt(lastSlot + 1) * SLOT_STEP_MIN;
+				int arrival = Math.max(0, slot + random.nextInt(-10, 11));
+				parties.add(new Party(partySize(random), arrival, random.nextInt(75, 121), slot));
+			}
+			for (int i = 0; i < walkIns; i++) {
+				parties.add(new Party(partySize(random), random.nextInt(SERVICE_MIN - 60), random.nextInt(60, 106), -1));
+			}
+			all.add(parties);
+		}
+		return all;
+	}
+
+	private static int partySize(SplittableRandom random) {
+		double r = random.nextDouble();
+		for (int i = 0; i < PARTY_SHARE.length; i++) {
+			r -= PARTY_SHARE[i];
+			if (r < 0) return PARTY_SIZES[i];
+		}
+		return PARTY_SIZES[PARTY_SIZES.length - 1];
+	}
+
+	private Result simulate(AllocationPolicy policy, Floor floor, List<List<Party>> requests) {
+		Result result = new Result();
+		for (List<Party> service : requests) {
+			simulateService(policy, floor, service, result);
+		}
+		return result;
+	}
+
+	private void simulateService(AllocationPolicy policy, Floor floor, List<Party> requests, Result result) {
+		// booking: admit like ReservationControl
+		List<Party> arrivals = new ArrayList<>();
+		List<int[]> booked = new ArrayList<>(); // {slot, capacity}
+		for (Party p : requests) {
+			if (!p.reserved()) {
+				arrivals.add(p);
+				continue;
+			}
+			int capacity = floor.capacityFor(p.size, policy.maxTables());
+			Map<Integer, Integer> overlapping = new HashMap<>();
+			for (int[] b : booked) {
+				if (b[0] < p.slot + STAY_MIN && p.slot < b[0] + STAY_MIN) overlapping.merge(b[1], 1, Integer::sum);
+			}
+			if (!floor.admits(overlapping, capacity, policy.maxTables())) {
+				result.bookingsRejected++;
+				continue;
+			}
+			booked.add(new int[] { p.slot, capacity });
+			arrivals.add(p);
+		}
+		// reserved parties are served first (as the waiting-list priority does), then by arrival
+		arrivals.sort((a, b) -> a.arrival != b.arrival ? Integer.compare(a.arrival, b.arrival)
+				: Boolean.compare(b.reserved(), a.reserved()));
+
+		boolean[] free = new boolean[floor.size()];
+		Arrays.fill(free, true);
+		int[] freeAt = new int[floor.size()];
+		List<Party> queue = new ArrayList<>();
+		int next = 0;
+		for (int minute = 0; minute < SERVICE_MIN || !queue.isEmpty(); minute++) {
+			for (int i = 0; i < free.length; i++) {
+				if (!free[i] && freeAt[i] == minute) free[i] = true;
+			}
+			while (next < arrivals.size() && arrivals.get(next).arrival == minute) {
+				queue.add(arrivals.get(next++));
+			}
+			for (int q = 0; q < queue.size(); q++) {
+				Party p = queue.get(q);
+				List<Integer> upcoming = p.reserved() || policy.lookAheadMinutes() == 0 ? List.of()
+						: upcoming(arrivals, next, queue, minute, policy.lookAheadMinutes());
+				long start = System.nanoTime();
+				int[] chosen = policy.allocate(floor, free, p.size, upcoming);
+				result.recordCall(System.nanoTime() - start);
+				if (chosen == null) {
+					if (minute - p.arrival >= PATIENCE_MIN) {
+						if (p.reserved()) result.reservedLost++;
+						else result.walkInsLost++;
+						queue.remove(q--);
+					}
+					continue;
+				}
+				int seats = 0;
+				for (int position : chosen) {
+					free[position] = false;
+					freeAt[position] = minute + p.dine;
+					seats += floor.capacity(position);
+				}
+				if (chosen.length > 1) result.combined++;
+				result.covers += p.size;
+				result.guestMinutes += (long) p.size * p.dine;
+				result.usedSeatMinutes += (long) seats * p.dine;
+				if (p.reserved()) {
+					result.reservedSeated++;
+					result.reservedWaitMin += minute - p.arrival;
+				} else {
+					result.walkInsSeated++;
+				}
+				queue.remove(q--);
+			}
+		}
+	}
+
+	/**
+	 * @return sizes of the reserved parties that are queued or arrive within {@code horizon} minutes
+	 */
+	private static List<Integer> upcoming(List<Party> arrivals, int next, List<Party> queue, int minute, int horizon) {
+		List<Integer> sizes = new ArrayList<>();
+		for (Party p : queue) {
+			if (p.reserved()) sizes.add(p.size);
+		}
+		for (int i = next; i < arrivals.size() && arrivals.get(i).arrival < minute + horizon; i++) {
+			if (arrivals.get(i).reserved()) sizes.add(arrivals.get(i).size);
+		}
+		return sizes;
+	}
+}
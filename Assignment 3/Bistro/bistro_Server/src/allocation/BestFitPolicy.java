@@ -0,0 +1,102 @@
+package allocation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Best fit with table combining: considers every free table and every row of up to {@code maxTables} free neighbours
+ * that seats the party, and takes the one with the fewest tables, then the fewest empty seats, then the lowest
+ * table number.
+ *
+ * <p>So a party that fits a free table gets the tightest one, a party of 5 whose 6-tops are all taken can sit at 4+2
+ * instead of waiting, and a party of 10 sits at 4+4+4 instead of being turned away. Preferring fewer tables over
+ * fewer empty seats keeps tables free for the next parties ({@link AllocationSimulation} seats more covers that way).
+ * Only the shortest fitting run from each start is a candidate, so the work is O(tables x maxTables).</p>
+ */
+public class BestFitPolicy implements AllocationPolicy {
+
+	private final int maxTables;
+
+	/**
+	 * @param maxTables most tables pushed together for one party
+	 */
+	public BestFitPolicy(int maxTables) {
+		if (maxTables < 1) throw new IllegalArgumentException("maxTables must be at least 1");
+		this.maxTables = maxTables;
+	}
+
+	@Override
+	public int[] allocate(Floor floor, boolean[] free, int partySize, List<Integer> upcoming) {
+		long best = Long.MAX_VALUE;
+		int bestStart = -1;
+		int bestLength = 0;
+		for (int i = 0; i < floor.size(); i++) {
+			int length = fittingRun(floor, free, i, partySize);
+			if (length == 0) continue;
+			long score = score(floor, i, length, partySize);
+			if (score < best) {
+				best = score;
+				bestStart = i;
+				bestLength = length;
+			}
+		}
+		return bestStart == -1 ? null : positions(floor, bestStart, bestLength);
+	}
+
+	/**
+	 * every allocation this policy would accept, best first
+	 * @param floor table layout
+	 * @param free free flag per layout position
+	 * @param partySize party to seat
+	 * @return layout positions per candidate (empty when nothing fits)
+	 */
+	public List<int[]> candidates(Floor floor, boolean[] free, int partySize) {
+		List<long[]> scored = new ArrayList<>();
+		for (int i = 0; i < floor.size(); i++) {
+			int length = fittingRun(floor, free, i, partySize);
+			if (length > 0) scored.add(new long[] { score(floor, i, length, partySize), i, length });
+		}
+		scored.sort((a, b) -> Long.compare(a[0], b[0]));
+		List<int[]> candidates = new ArrayList<>(scored.size());
+		for (long[] s : scored) {
+			candidates.add(positions(floor, (int) s[1], (int) s[2]));
+		}
+		return candidates;
+	}
+
+	@Override
+	public int maxTables() {
+		return maxTables;
+	}
+
+	/**
+	 * @return number of tables of the shortest run of free neighbours starting at {@code start} that seats the party, 0 if none
+	 */
+	private int fittingRun(Floor floor, boolean[] free, int start, int partySize) {
+		int seats = 0;
+		int length = 0;
+		for (int j = start; j != -1 && free[j] && length < maxTables; j = floor.next(j)) {
+			seats += floor.capacity(j);
+			length++;
+			if (seats >= partySize) return length;
+		}
+		return 0;
+	}
+
+	/** number of tables, then empty seats, then table number; lower is better */
+	private static long score(Floor floor, int start, int length, int partySize) {
+		int seats = 0;
+		for (int j = start, n = 0; n < length; j = floor.next(j), n++) {
+			seats += floor.capacity(j);
+		}
+		return ((long) length << 56) | ((long) (seats - partySize) << 32) | floor.table(start).getTableNumber();
+	}
+
+	private static int[] positions(Floor floor, int start, int length) {
+		int[] chosen = new int[length];
+		for (int j = start, n = 0; n < length; j = floor.next(j), n++) {
+			chosen[n] = j;
+		}
+		return chosen;
+	}
+}
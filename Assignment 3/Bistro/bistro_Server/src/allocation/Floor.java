@@ -0,0 +1,255 @@
+package allocation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import entities.Table;
+
+/**
+ * Layout of the active tables, as seen by an {@link AllocationPolicy}.
+ *
+ * <p>Main idea: tables that share a {@code combineGroup} stand in a row, ordered by table number, and neighbours in
+ * a row can be pushed together for one party. A table without a group stands alone. Positions are indexes into
+ * the layout order (rows first, then the tables that stand alone); policies receive the free state of each
+ * position as a {@code boolean[]}, so one layout serves every allocation until a table changes.</p>
+ *
+ * <p>Immutable; {@link database.FloorModel} builds it once and rebuilds it when tables are added, resized or removed.</p>
+ */
+public final class Floor {
+
+	/** Most tables pushed together for one party. */
+	public static final int MAX_COMBINED = 3;
+
+	private static final Comparator<Table> LAYOUT_ORDER = Comparator
+			.comparing((Table t) -> t.getCombineGroup() == null)
+			.thenComparing(t -> t.getCombineGroup() == null ? 0 : t.getCombineGroup())
+			.thenComparingInt(Table::getTableNumber);
+
+	private final Table[] tables;
+	/** Position of the next table in the same row, -1 at the end of a row and for tables that stand alone. */
+	private final int[] next;
+	private final int maxSingleCapacity;
+
+	/**
+	 * @param active active tables, in any order
+	 */
+	public Floor(Collection<Table> active) {
+		List<Table> sorted = new ArrayList<>(active);
+		sorted.sort(LAYOUT_ORDER);
+		tables = sorted.toArray(new Table[0]);
+		next = new int[tables.length];
+		int max = 0;
+		for (int i = 0; i < tables.length; i++) {
+			Integer group = tables[i].getCombineGroup();
+			boolean sameRow = group != null && i + 1 < tables.length && group.equals(tables[i + 1].getCombineGroup());
+			next[i] = sameRow ? i + 1 : -1;
+			max = Math.max(max, tables[i].getCapacity());
+		}
+		maxSingleCapacity = max;
+	}
+
+	public int size() {
+		return tables.length;
+	}
+
+	public Table table(int position) {
+		return tables[position];
+	}
+
+	public int capacity(int position) {
+		return tables[position].getCapacity();
+	}
+
+	/**
+	 * @param position
+	 * @return position of the neighbour that can be pushed against this table, or -1
+	 */
+	public int next(int position) {
+		return next[position];
+	}
+
+	public int getMaxSingleCapacity() {
+		return maxSingleCapacity;
+	}
+
+	/**
+	 * capacity a reservation of this size is booked against: the smallest single table that fits, otherwise the
+	 * smallest row of at most {@code maxTables} neighbours that fits (whether free or not)
+	 * @param partySize
+	 * @param maxTables 1 to disable combining
+	 * @return booked capacity, or -1 if the party does not fit anywhere
+	 */
+	public int capacityFor(int partySize, int maxTables) {
+		int best = Integer.MAX_VALUE;
+		for (Table t : tables) {
+			if (t.getCapacity() >= partySize) best = Math.min(best, t.getCapacity());
+		}
+		if (best != Integer.MAX_VALUE) return best;
+		for (int i = 0; i < tables.length; i++) {
+			int sum = 0;
+			for (int j = i, n = 0; j != -1 && n < maxTables; j = next[j], n++) {
+				sum += tables[j].getCapacity();
+				if (sum >= partySize) {
+					best = Math.min(best, sum);
+					break;
+				}
+			}
+		}
+		return best == Integer.MAX_VALUE ? -1 : best;
+	}
+
+	/**
+	 * how many parties booked against {@code capacity} the floor can seat at the same time: the tables of at least
+	 * that size, or, for a capacity larger than every table, the disjoint runs of neighbours that reach it
+	 * @param capacity booked capacity from {@link #capacityFor(int, int)}
+	 * @param maxTables 1 to disable combining
+	 * @return number of parties
+	 */
+	public int units(int capacity, int maxTables) {
+		if (capacity > maxSingleCapacity) return runs(capacity, maxTables).size();
+		int count = 0;
+		for (Table t : tables) {
+			if (t.getCapacity() >= capacity) count++;
+		}
+		return count;
+	}
+
+	/**
+	 * whether one more party booked against {@code capacity} can be seated together with the parties already booked
+	 * for the same time. Every party needs tables of its own:
+	 * <ul>
+	 *   <li>a single table of at least its capacity, or, for a capacity larger than every table, all tables of a run
+	 *       of neighbours (so a combined party also counts against the smaller capacities)</li>
+	 *   <li>a combined party needs a whole run; single parties that the tables outside the runs cannot take sit in a
+	 *       run and block it</li>
+	 * </ul>
+	 * The check covers every booked party, not only the new one's capacity: a small party that is pushed to a bigger
+	 * table by the new booking is counted as well.
+	 * @param booked parties already booked for the time, by booked capacity
+	 * @param capacity booked capacity of the new party, from {@link #capacityFor(int, int)}
+	 * @param maxTables 1 to disable combining
+	 * @return true if all parties, the new one included, still fit
+	 */
+	public boolean admits(Map<Integer, Integer> booked, int capacity, int maxTables) {
+		if (capacity <= 0) return false;
+		List<Integer> singles = new ArrayList<>();
+		List<Integer> combined = new ArrayList<>();
+		(capacity > maxSingleCapacity ? combined : singles).add(capacity);
+		for (Map.Entry<Integer, Integer> e : booked.entrySet()) {
+			List<Integer> kind = e.getKey() > maxSingleCapacity ? combined : singles;
+			for (int n = 0; n < e.getValue(); n++) {
+				kind.add(e.getKey());
+			}
+		}
+
+		List<Integer> needs = new ArrayList<>(singles);
+		for (int partyCapacity : combined) {
+			needs.addAll(runCapacities(partyCapacity, maxTables));
+		}
+		List<Integer> all = new ArrayList<>(tables.length);
+		for (Table t : tables) {
+			all.add(t.getCapacity());
+		}
+		if (matched(needs, all) < needs.size()) return false;
+
+		for (int partyCapacity : new TreeSet<>(combined)) {
+			List<int[]> runs = runs(partyCapacity, maxTables);
+			boolean[] inRun = new boolean[tables.length];
+			for (int[] run : runs) {
+				for (int position : run) {
+					inRun[position] = true;
+				}
+			}
+			List<Integer> spare = new ArrayList<>();
+			for (int i = 0; i < tables.length; i++) {
+				if (!inRun[i]) spare.add(tables[i].getCapacity());
+			}
+			int singlesInRuns = singles.size() - matched(singles, spare);
+			// every combined party is counted, a smaller run may still stand in the way of a bigger one
+			if (combined.size() + singlesInRuns > runs.size()) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @param capacity capacity larger than every table
+	 * @param maxTables
+	 * @return positions of the disjoint runs of at most {@code maxTables} neighbours that reach the capacity, each run
+	 *         as short as it can be from its first table
+	 */
+	private List<int[]> runs(int capacity, int maxTables) {
+		List<int[]> runs = new ArrayList<>();
+		for (int i = 0; i < tables.length; i++) {
+			int sum = 0;
+			int j = i;
+			int n = 0;
+			for (; j != -1 && n < maxTables; n++) {
+				sum += tables[j].getCapacity();
+				if (sum >= capacity) break;
+				j = next[j];
+			}
+			if (j != -1 && sum >= capacity) {
+				int[] run = new int[n + 1];
+				for (int k = 0, p = i; k <= n; k++, p = next[p]) {
+					run[k] = p;
+				}
+				runs.add(run);
+				i = j; // the run ends at j; the next run starts after it
+			}
+		}
+		return runs;
+	}
+
+	/**
+	 * @param capacity booked capacity larger than every table
+	 * @param maxTables
+	 * @return table capacities of the smallest run that reaches it; if no run does any more (the tables changed since
+	 *         the booking), {@code maxTables} of the largest tables
+	 */
+	private List<Integer> runCapacities(int capacity, int maxTables) {
+		int[] best = null;
+		int bestSum = Integer.MAX_VALUE;
+		for (int[] run : runs(capacity, maxTables)) {
+			int sum = 0;
+			for (int position : run) {
+				sum += tables[position].getCapacity();
+			}
+			if (sum < bestSum) {
+				best = run;
+				bestSum = sum;
+			}
+		}
+		List<Integer> capacities = new ArrayList<>();
+		if (best == null) {
+			for (int n = 0; n < Math.max(1, maxTables); n++) {
+				capacities.add(maxSingleCapacity);
+			}
+			return capacities;
+		}
+		for (int position : best) {
+			capacities.add(tables[position].getCapacity());
+		}
+		return capacities;
+	}
+
+	/**
+	 * @param needs smallest table capacity each party needs
+	 * @param capacities table capacities
+	 * @return most parties seated at once, one table each: the largest party takes the largest table, while it fits
+	 */
+	private static int matched(List<Integer> needs, List<Integer> capacities) {
+		List<Integer> parties = new ArrayList<>(needs);
+		List<Integer> free = new ArrayList<>(capacities);
+		parties.sort(Comparator.reverseOrder());
+		free.sort(Comparator.reverseOrder());
+		int seated = 0;
+		for (int party : parties) {
+			if (seated < free.size() && free.get(seated) >= party) seated++;
+		}
+		return seated;
+	}
+}
@@ -0,0 +1,82 @@
+package allocation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Best fit that protects upcoming reservations.
+ *
+ * <p>Main idea: before seating a walk-in, count how many of the reservations expected during its stay could still
+ * be seated on the remaining free tables (largest party first, with the base policy). The walk-in gets the best
+ * candidate that does not lower that count; if every candidate would take a table a reservation needs, the walk-in
+ * waits. Without upcoming reservations this is exactly the base policy.</p>
+ *
+ * <p>The table state does not say when occupied tables free up, so a long horizon is too cautious: it turns walk-ins
+ * away for reservations that will find a table anyway. {@link AllocationSimulation} shows the trade-off per horizon.</p>
+ *
+ * <p>Cost: at most {@link #MAX_CANDIDATES} candidates, each replaying the upcoming parties on a copy of the free flags.</p>
+ */
+public class LookAheadPolicy implements AllocationPolicy {
+
+	/** Candidates tried before the party is sent to wait. */
+	static final int MAX_CANDIDATES = 8;
+	/** Default horizon: reservations starting within this many minutes are protected. */
+	public static final int DEFAULT_MINUTES = 30;
+
+	private final BestFitPolicy base;
+	private final int minutes;
+
+	/**
+	 * @param base policy that ranks the candidates and replays the upcoming parties
+	 * @param minutes look-ahead horizon in minutes
+	 */
+	public LookAheadPolicy(BestFitPolicy base, int minutes) {
+		this.base = base;
+		this.minutes = minutes;
+	}
+
+	@Override
+	public int[] allocate(Floor floor, boolean[] free, int partySize, List<Integer> upcoming) {
+		if (upcoming == null || upcoming.isEmpty()) return base.allocate(floor, free, partySize, upcoming);
+
+		int[] parties = new int[upcoming.size()];
+		for (int i = 0; i < parties.length; i++) parties[i] = upcoming.get(i);
+		Arrays.sort(parties);
+
+		int protectedParties = seatable(floor, free.clone(), parties);
+		List<int[]> candidates = base.candidates(floor, free, partySize);
+		for (int c = 0; c < candidates.size() && c < MAX_CANDIDATES; c++) {
+			int[] chosen = candidates.get(c);
+			boolean[] remaining = free.clone();
+			for (int position : chosen) remaining[position] = false;
+			if (seatable(floor, remaining, parties) >= protectedParties) return chosen;
+		}
+		return null;
+	}
+
+	@Override
+	public int maxTables() {
+		return base.maxTables();
+	}
+
+	@Override
+	public int lookAheadMinutes() {
+		return minutes;
+	}
+
+	/**
+	 * seats the parties largest first on {@code free} (which is consumed)
+	 * @param parties party sizes, ascending
+	 * @return number of parties that found tables
+	 */
+	private int seatable(Floor floor, boolean[] free, int[] parties) {
+		int seated = 0;
+		for (int i = parties.length - 1; i >= 0; i--) {
+			int[] chosen = base.allocate(floor, free, parties[i], null);
+			if (chosen == null) continue;
+			for (int position : chosen) free[position] = false;
+			seated++;
+		}
+		return seated;
+	}
+}
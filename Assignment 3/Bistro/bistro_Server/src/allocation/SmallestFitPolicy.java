@@ -0,0 +1,28 @@
+package allocation;
+
+import java.util.List;
+
+/**
+ * Smallest free table with enough seats, lowest table number first; parties larger than every table wait.
+ * This is the allocation the server used before the policies existed.
+ */
+public class SmallestFitPolicy implements AllocationPolicy {
+
+	@Override
+	public int[] allocate(Floor floor, boolean[] free, int partySize, List<Integer> upcoming) {
+		int best = -1;
+		for (int i = 0; i < floor.size(); i++) {
+			if (!free[i] || floor.capacity(i) < partySize) continue;
+			if (best == -1 || floor.capacity(i) < floor.capacity(best)
+					|| (floor.capacity(i) == floor.capacity(best) && floor.table(i).getTableNumber() < floor.table(best).getTableNumber())) {
+				best = i;
+			}
+		}
+		return best == -1 ? null : new int[] { best };
+	}
+
+	@Override
+	public int maxTables() {
+		return 1;
+	}
+}
@@ -0,0 +1,82 @@
+package controllers;
+
+import database.ArchiveDAO;
+import database.DBManager;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Controls archiving of finished reservations into the history tables.
+ *
+ * This controller handles:
+ *
+ *   Moving COMPLETED/CANCELLED/NO_SHOW reservations older than the retention period
+ *   (with their seatings, bills and waiting-list rows) out of the hot tables
+ *
+ * Work is done in batches, one transaction per batch, so row locks are held only briefly
+ * and a failure loses at most the current batch (it is retried on the next run).
+ * Readers of past data (user history, monthly reports) query both the hot and the history tables.
+ */
+public class ArchiveControl {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveControl.class);
+
+    /** Finished reservations stay in the hot tables for this many days (matches the 30-day booking window). */
+    private static final int DEFAULT_RETENTION_DAYS = 30;
+    private static final int BATCH_SIZE = 500;
+
+    private final ArchiveDAO archiveDAO;
+    private final int retentionDays;
+
+    public ArchiveControl() {
+        this(new ArchiveDAO(), DEFAULT_RETENTION_DAYS);
+    }
+
+    public ArchiveControl(ArchiveDAO archiveDAO, int retentionDays) {
+        this.archiveDAO = archiveDAO;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Archives all finished reservations dated before {@code today - retentionDays}.
+     *
+     * @return number of reservations moved to the history tables
+     */
+    public int archiveFinishedReservations() {
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        int total = 0;
+
+        try (Connection conn = DBManager.getConnection()) {
+            if (conn == null) {
+                log.warn("archive failed: conn is null");
+                return 0;
+            }
+            conn.setAutoCommit(false);
+
+            while (true) {
+                try {
+                    List<Integer> ids = archiveDAO.lockArchivableReservationIDs(conn, cutoff, BATCH_SIZE);
+                    if (ids.isEmpty()) {
+                        conn.commit();
+                        break;
+                    }
+                    total += archiveDAO.moveToHistory(conn, ids);
+                    conn.commit();
+                    if (ids.size() < BATCH_SIZE) break;
+                } catch (Exception e) {
+                    try { conn.rollback(); } catch (Exception ignore) {}
+                    log.warn("archive batch failed (rolled back), {} reservation(s) archived so far", total, e);
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("archive failed", e);
+        }
+        return total;
+    }
+}
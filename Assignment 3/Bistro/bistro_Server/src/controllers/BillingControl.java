@@ -18,10 +18,14 @@ import responses.BillResponse.BillResponseType;
 import responses.Response;
 import database.SeatingDAO;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * BillingControl handles bill-related client requests:
  * - Creating / returning an open bill for a reservation (by confirmation code).
- * - Paying an existing open bill and finalizing the reservation + seating.
+ * - Paying an existing open bill and finalizing the reservation + seating
+ *   (the committed checkout makes {@link WaitingListPromoter} call the next waiting customer).
  * - Sending bills automatically (scheduler flow) using a claim/mark mechanism in seating.
  *
  * Notes:
@@ -29,6 +33,7 @@ import database.SeatingDAO;
  * - Notification failures are handled separately in some flows (after commit).
  */
 public class BillingControl {
+	private static final Logger log = LoggerFactory.getLogger(BillingControl.class);
 	private final ReservationDAO reservationDAO;
 	private final SeatingDAO seatingDAO;
 	private final NotificationControl notificationControl;
@@ -51,7 +56,7 @@ public class BillingControl {
 	 * @param notificationControl notification sender
 	 * @param userDAO DAO for retrieving user contact details
 	 * @param billDAO DAO for bill CRUD/updates
-	 * @param seatingControl SeatingControl used for checkout and assigning next waiting customer
+	 * @param seatingControl SeatingControl used for checkout
 	 */
 	public BillingControl(ReservationDAO reservationDAO, SeatingDAO seatingDAO,NotificationControl notificationControl,UserDAO userDAO,BillDAO billDAO,SeatingControl seatingControl) {
 		
@@ -131,7 +136,7 @@ public class BillingControl {
 		        try {
 		            notificationSent = sendBillToCorrectContact(conn,r.getGuestContact(), r.getUserID(),buildBillMessage(),finalBill);
 		        } catch (Exception e) {
-		            System.err.println("Notification failed: " + e.getMessage());
+		            log.warn("Notification failed for seating {}", seatingId, e);
 		        }
 		        BillResponse br = new BillResponse(BillResponseType.ANSWER_TO_REQUEST_TO_SEE_BILL,finalBill,notificationSent);
 		        return successResponse("Bill Created", br);
@@ -148,7 +153,7 @@ public class BillingControl {
 
 	/**
 	 * Marks the bill as paid and finalizes the reservation.
-	 * Also performs checkout and tries to call the next customer from the waiting list.
+	 * Also performs checkout; once it commits, {@link WaitingListPromoter} calls the next customer from the waiting list.
 	 *
 	 *
 	 * @param req BillRequest containing confirmationCode
@@ -196,28 +201,12 @@ public class BillingControl {
 	                conn.rollback(); return failResponse("Failed to check out seating");
 	            }
 	            
+	            // the committed checkout raises "table freed"; WaitingListPromoter calls the next customer
 	            conn.commit();          
-	            conn.setAutoCommit(false);
-	            boolean hasCalledNext=true;
-	            try {
-	                boolean ok=seatingControl.tryAssignNextFromWaitingList(conn, tableId);
-	                if(ok)
-	                conn.commit();
-	                else {
-	                	hasCalledNext=false;
-	                	conn.rollback();
-	                	
-	                }
-	            } catch (Exception e) {
-	            	hasCalledNext=false;
-	                try { conn.rollback(); } catch (Exception ignore) {}
-	                System.out.println("Assign-next failed (payment already committed): " + e.getMessage());
-	            }
-	            
 	            conn.setAutoCommit(true);
 	            
-	            BillResponse br = new BillResponse(BillResponse.BillResponseType.ANSWER_TO_PAY_BILL,bill.getTotalPrice(),notificationSent,hasCalledNext);
-	            return successResponse(hasCalledNext?"Payment Fulfilled":"Payment fulfilled but failed to call next customer in waiting list", br);
+	            BillResponse br = new BillResponse(BillResponse.BillResponseType.ANSWER_TO_PAY_BILL,bill.getTotalPrice(),notificationSent,true);
+	            return successResponse("Payment Fulfilled", br);
 
 	        } catch (Exception e) {
 	            try { conn.rollback(); } catch (Exception ignore) {}
@@ -278,24 +267,7 @@ public class BillingControl {
                     conn.rollback();
                     return false;
                 }
-                Integer reservationId = seatingDAO.getReservationIdBySeatingId(conn, seatingId);
-                if (reservationId == null) {
-                    seatingDAO.updateBillSent(conn, seatingId,0); 
-                    conn.commit();
-                    return false;
-                }
-                Reservation res = reservationDAO.getReservationByReservationID(conn, reservationId);
-                if (res == null) {
-                    seatingDAO.updateBillSent(conn, seatingId,0);
-                    conn.commit();
-                    return false;
-                }
-
-                String guestContact = res.getGuestContact();
-                String userId = res.getUserID();
-                String billMessage = buildBillMessage();
-                double bill=generateRandomBillSum();
-                boolean sentOk = sendBillToCorrectContact(conn, guestContact, userId, billMessage,bill);
+                boolean sentOk = sendClaimedBill(conn, seatingId);
                 if (!sentOk) {
                     seatingDAO.updateBillSent(conn, seatingId,0); // 2->0 so it can retry
                     conn.rollback();
@@ -316,6 +288,23 @@ public class BillingControl {
     }
 
 	/**
+     * Sends the bill of a seating already claimed for automatic billing ({@code billSent = 2}).
+     * Writes nothing: the caller records the outcome.
+     *
+     * @param conn active JDBC connection
+     * @param seatingId claimed seating
+     * @return true if the bill was sent; false if the seating has no reservation/contact or the send failed
+     * @throws SQLException if a lookup fails
+     */
+    public boolean sendClaimedBill(Connection conn, int seatingId) throws SQLException {
+        Integer reservationId = seatingDAO.getReservationIdBySeatingId(conn, seatingId);
+        if (reservationId == null) return false;
+        Reservation res = reservationDAO.getReservationByReservationID(conn, reservationId);
+        if (res == null) return false;
+        return sendBillToCorrectContact(conn, res.getGuestContact(), res.getUserID(), buildBillMessage(), generateRandomBillSum());
+    }
+
+	/**
 	 * Builds the default bill message text used for sending notifications.
 	 */
     private String buildBillMessage() {
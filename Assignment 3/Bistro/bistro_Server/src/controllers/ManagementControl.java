@@ -21,11 +21,16 @@ import responses.ManagerResponse.ManagerResponseCommand;
 import responses.ReservationResponse;
 import responses.Response;
 import responses.WaitingListResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 /**
  * class controller to handle all the requests related to representitve and manager(without reports)
  */
 public class ManagementControl {
 
+	private static final Logger log = LoggerFactory.getLogger(ManagementControl.class);
+
 	private TableDAO tableDAO;
 	private SeatingDAO seatingDAO;
 	private ReservationDAO reservationDAO;
@@ -96,8 +101,7 @@ public class ManagementControl {
 			}
 			return new Response<>(false,"Failed registration",null);
 		}catch(SQLException e) {
-			System.err.println("NEW REGISTRAION DB ERROR: " + e.getMessage());
-    		e.printStackTrace();
+			log.error("NEW REGISTRAION DB ERROR", e);
     		return new Response<>(false, "username used or a general db error", null);
 		}
 	}
@@ -123,8 +127,7 @@ public class ManagementControl {
 			ManagerResponse resp = new ManagerResponse(ManagerResponseCommand.SHOW_ALL_TABLES_RESPONSE,tables);
 			return new Response<>(true,"Restaurant tables",resp);
 		}catch(SQLException e) {
-			System.err.println("fetching all tables DB ERROR: " + e.getMessage());
-    		e.printStackTrace();
+			log.error("fetching all tables DB ERROR", e);
     		return new Response<>(false, "failed fetching all tables", null);
 		}
 	}
@@ -146,25 +149,25 @@ public class ManagementControl {
 			Integer currentCap = tableDAO.getCapacityByTableNumber(conn, req.getTableNumber());
 			if (currentCap == null) {
 				conn.rollback();
-				System.out.println("table not found for number: " + req.getTableNumber());
+				log.info("table not found for number: {}", req.getTableNumber());
 				return new Response<>(false, "table not found for number: " + req.getTableNumber(), null);
 			}
 			if (req.getNewCap() == currentCap) {
 				conn.rollback();
-				System.out.println("we are here");
+				log.debug("we are here");
 				ManagerResponse resp = new ManagerResponse(ManagerResponseCommand.EDIT_TABLE_RESPONSE,new TableInfo(req.getTableNumber(), req.getNewCap()),List.of());
 																
 				return new Response<>(true, "No changes needed (capacity unchanged).", resp);
 			}
 			if (req.getNewCap() < currentCap) {
 				int newTotal = computeNewTotalAfterReduction(conn, currentCap);
-				System.out.println(victimContacts+"req.getNewCap");
+				log.debug("{}req.getNewCap", victimContacts);
 				cancelVictimsForOverbookedSlots(conn, currentCap, newTotal, cancelledReservation, victimContacts);
 			}
 
 			if (!tableDAO.updateTableByTableNumber(conn, req.getTableNumber(), req.getNewCap())) {
 				conn.rollback();
-				System.out.println("failed to edit table number: ");
+				log.info("failed to edit table number: {}", req.getTableNumber());
 				return new Response<>(false, "failed to edit table number: " + req.getTableNumber(), null);
 			}
 
@@ -202,21 +205,23 @@ public class ManagementControl {
 	
 	/**
 	 * method to add new table to the data base
-	 * @param req contain the capacity for the new table
+	 * @param req contain the capacity for the new table, and optionally the combine group it can be pushed together in
 	 * @return Response with TableInfo object containing the new added table details
 	 */
 	public Response<ManagerResponse> addNewTable(ManagerRequest req){
+		if (req.getCombineGroup() != null && req.getCombineGroup() <= 0) {
+			return new Response<>(false, "Combine group must be a positive number", null);
+		}
 		try(Connection conn  = DBManager.getConnection()){
 			
-			if(!tableDAO.insertNewTable(conn, req.getTableNumber(), req.getNewCap())){
+			if(!tableDAO.insertNewTable(conn, req.getTableNumber(), req.getNewCap(), req.getCombineGroup())){
 				return new Response<>(false, "Table number already exists", null);
 			}
 			ManagerResponse resp = new ManagerResponse(ManagerResponseCommand.NEW_TABLE_RESPONSE,new TableInfo(req.getTableNumber(),req.getNewCap()));
 			return new Response<>(true,"Table Number: "+req.getTableNumber()+"was added",resp);
 						
 		}catch(SQLException e) {
-			System.err.println("fetching all tables DB ERROR: " + e.getMessage());
-    		e.printStackTrace();
+			log.error("fetching all tables DB ERROR", e);
     		return new Response<>(false, "DB fail to add new table", null);
 		}
 	}
@@ -233,8 +238,7 @@ public class ManagementControl {
 			ManagerResponse resp = new ManagerResponse(ManagerResponseCommand.VIEW_CURRENT_SEATING_RESPONSE,currentSeatingList);
 			return new Response<>(true,"Current seating",resp);			
 		}catch(SQLException e) {
-			System.err.println("fetching seating DB ERROR: " + e.getMessage());
-    		e.printStackTrace();
+			log.error("fetching seating DB ERROR", e);
     		return new Response<>(false, "DB fail to fetch seatings", null);
 		}
 	}
@@ -246,7 +250,7 @@ public class ManagementControl {
 	 * @return the list of contacts that were affected (cancelled reservation)
 	 */
 	public Response<ManagerResponse> deactivateTableByNumber(int tableNumber) {
-		System.out.println("[DEACTIVATE] start table=" + tableNumber);
+		log.info("[DEACTIVATE] start table={}", tableNumber);
 		Connection conn = null;
 
 	    // collect victims in-memory
@@ -266,14 +270,14 @@ public class ManagementControl {
 	        	        	           
 	        cancelVictimsForOverbookedSlots(conn, cap, newTotal, cancelledReservation, victimContacts);
 	        
-	        System.out.println("[DEACTIVATE] deactivating table...");
+	        log.info("[DEACTIVATE] deactivating table...");
 	        if (!deactivateTable(conn, tableNumber)) safeRollback(conn, "Failed to deactivate table");
 	            
 
 	        conn.commit();
 
 	    } catch (Exception e) {	    	
-	        e.printStackTrace();
+	        log.error("[DEACTIVATE] failed for table {}", tableNumber, e);
 	        safeRollback(conn, "DB error: " + e.getMessage());
 	        return new Response<>(false, "Deactivate failed: " + e.getMessage(), null);	        
 	    } finally {closeQuietly(conn);}
@@ -336,9 +340,9 @@ public class ManagementControl {
 	        	        	        	        	
 	    List<ReservationDAO.SlotOverbook> overbooked =reservationDAO.findOverbookedSlots(conn, cap, newTotal);
 	    var slots = reservationDAO.findOverbookedSlots(conn, cap, newTotal);
-	    System.out.println("cap=" + cap + " newTotal=" + newTotal + " overbookedSlots=" + slots.size());
+	    log.debug("cap={} newTotal={} overbookedSlots={}", cap, newTotal, slots.size());
 	    for (var s : slots) {
-	        System.out.println(s.getDate() + " " + s.getSlotStart() + " booked=" + s.getBooked());
+	        log.debug("{} {} booked={}", s.getDate(), s.getSlotStart(), s.getBooked());
 	    }
 
 	            
@@ -415,7 +419,7 @@ public class ManagementControl {
 	        conn.setAutoCommit(false);
 
 	        reservationsToCancel = reservationDAO.pickReservationToCancelDueToOpenHours(conn, req.getNewDate(), req.getNewOpenTime(), req.getNewCloseTime());
-	        System.out.println("[EDIT HOURS] conflicts=" + (reservationsToCancel == null ? "null" : reservationsToCancel.size()));
+	        log.info("[EDIT HOURS] conflicts={}", (reservationsToCancel == null ? "null" : reservationsToCancel.size()));
 
 	        if (reservationsToCancel == null) reservationsToCancel = List.of(); // treat as empty
 
@@ -447,6 +451,7 @@ public class ManagementControl {
 
 	        conn.commit();
 	        committed = true;
+	        OpeningHoursCache.update(req.getNewDate(), req.getNewOpenTime(), req.getNewCloseTime(), req.getOccasion());
 
 	    } catch (Exception e) {
 	        safeRollback(conn, "Edit open hours failed: " + e.getMessage());
@@ -488,7 +493,7 @@ public class ManagementControl {
 	        return new Response<>(true, "Here are the opening hours for the next 30 days", resp);
 
 	    } catch (Exception e) {
-	    	System.err.println("failed to view opening hours in manager control");
+	    	log.error("failed to view opening hours in manager control", e);
 	        return new Response<>(false, "DB error: " + e.getMessage(), null);
 	    }
 	}
@@ -518,7 +523,7 @@ public class ManagementControl {
 			return new Response<>(true,"Current customer in the waiting list",resp);
 			
 		}catch(Exception e) {
-			System.err.println("failed to view waiting list hours in manager control");
+			log.error("failed to view waiting list hours in manager control", e);
 	        return new Response<>(false, "DB error: " + e.getMessage(), null);
 		}
 		
@@ -548,7 +553,7 @@ public class ManagementControl {
 			ManagerResponse resp = new ManagerResponse(ManagerResponseCommand.RESERVATION_BY_DATE_RESPONSE,currRes);
 			return new Response<>(true,"Current customer in the waiting list",resp);
 		}catch(Exception e) {
-			System.err.println("failed to view reservations hours in manager control");
+			log.error("failed to view reservations hours in manager control", e);
 	        return new Response<>(false, "DB error: " + e.getMessage(), null);
 		}
 		
@@ -572,7 +577,7 @@ public class ManagementControl {
 			return new Response<>(true,"Current customer in the waiting list",resp);
 			
 		}catch(Exception e) {
-			System.err.println("failed to view subscribers in manager control");
+			log.error("failed to view subscribers in manager control", e);
 	        return new Response<>(false, "DB error: " + e.getMessage(), null);
 		}
 	}
@@ -615,8 +620,7 @@ public class ManagementControl {
 	        if (conn != null) conn.rollback();
 	        return new Response<>(false, msg, null);
 	    } catch (Exception e) {
-	    	System.out.println("[DEACTIVATE] EXCEPTION: " + e);
-	        e.printStackTrace();
+	    	log.error("[DEACTIVATE] EXCEPTION", e);
 	        safeRollback(conn, "DB error: " + e.getMessage());
 	        return new Response<>(false, msg + " (rollback failed: " + e.getMessage() + ")", null);
 	    }
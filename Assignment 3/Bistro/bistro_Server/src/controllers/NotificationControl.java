@@ -2,6 +2,9 @@ package controllers;
 
 import entities.User;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * Notification service/controller used to simulate sending messages to users and guests.
  *
@@ -23,15 +26,17 @@ import entities.User;
  * of email/SMS sending.
  */
 public class NotificationControl {
+
+	private static final Logger log = LoggerFactory.getLogger(NotificationControl.class);
 	
 	public boolean sendAutomaticEmailTwoHourPrior(String email) {
 			
-			System.out.println("Sending email reminder to "+email);
+			log.info("Sending email reminder to {}", email);
 			return true;
 	}
 	public boolean sendAutomaticSMSTwoHourPrior(String phoneNumber) {
 		
-		System.out.println("Sending SMS reminder to "+phoneNumber);
+		log.info("Sending SMS reminder to {}", phoneNumber);
 		return true;
 }
 	
@@ -40,7 +45,7 @@ public class NotificationControl {
      */
     public boolean sendConfirmationToUser(User user, int confirmationCode) {
     	String username=user.getUsername();
-    	System.out.println("Hey "+username+"\nYour confirmation code is: "+confirmationCode);
+    	log.info("Hey {}\nYour confirmation code is: {}", username, confirmationCode);
     	return true;
     }
     /**
@@ -48,7 +53,7 @@ public class NotificationControl {
      * guestContact may be an email or a phone number.
      */
     public boolean sendConfirmationToGuest(String guestContact, int confirmationCode) {
-    	System.out.println("Hey "+guestContact+ "\nYour confirmation code is: "+confirmationCode);
+    	log.info("Hey {}\nYour confirmation code is: {}", guestContact, confirmationCode);
     	return true;
     }
 
@@ -65,9 +70,9 @@ public class NotificationControl {
      * Replace this with JavaMail / SMTP / provider API when needed.
      */
     private boolean sendEmail(String to, String subject, String body) {
-        System.out.println("To: " + to);
-        System.out.println("Subject: " + subject);
-        System.out.println("Body: " + body);
+        log.info("To: {}", to);
+        log.info("Subject: {}", subject);
+        log.info("Body: {}", body);
         return true;
     }
     /**
@@ -75,48 +80,48 @@ public class NotificationControl {
      * Replace this with an SMS provider API when needed.
      */
     private boolean sendSms(String phoneNumber, String message) {
-        System.out.println("[SMS] To: " + phoneNumber);
-        System.out.println("[SMS] Message: " + message);
+        log.info("[SMS] To: {}", phoneNumber);
+        log.info("[SMS] Message: {}", message);
         return true;
     }
 
 	public boolean sendBillToGuest(String guestContact, String billMessage,double bill) {
-		System.out.println("SentBillToGuest");
+		log.info("SentBillToGuest");
 		return true;
 	}
 	
 	public boolean sendBillToUser(User user, String billMessage,double bill) {
-		System.out.println("SentBillToUser");
+		log.info("SentBillToUser");
 		return true;
 	}
 	public boolean sendBillConfirmationToGuest(String guestContact, String billMessage) {
-		System.out.println("SentBillConfirmationToGuest");
+		log.info("SentBillConfirmationToGuest");
 		return true;
 	}
 	public boolean sendBillConfirmationToUser(User user, String billMessage) {
-		System.out.println("SentBillConfirmationToUser");
+		log.info("SentBillConfirmationToUser");
 		return true;
 	}
 	
 	public boolean sendCancelledReservation(String contact,String msg) {
-		System.out.println(msg);
+		log.info("{}", msg);
 		return true;
 	}
 	public boolean sendInviteToTable(String email,String phone, String msg) {
-		System.out.println(msg);
+		log.info("{}", msg);
 		return true;
 		
 	}
 	public boolean sendInviteToTable(String guestContact, String msg) {
-		System.out.println(msg);
+		log.info("{}", msg);
 		return true;
 	}
 	public boolean sendNotificationEnteringWaitingList(String guestContact,String msg) {
-		System.out.println(msg);
+		log.info("{}", msg);
 		return true;
 	}
 	public boolean sendNotificationEnteringWaitingList(String email,String phone,String msg) {
-		System.out.println(msg);
+		log.info("{}", msg);
 		return true;
 	}
 }
@@ -1,5 +1,6 @@
 package controllers;
 
+import allocation.AllocationPolicy;
 import database.*;
 import entities.OpeningHours;
 import entities.Reservation;
@@ -16,6 +17,9 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * Controller that manages the full reservation workflow.
  *
@@ -28,10 +32,12 @@ import java.util.*;
  * <p>Uses / collaborates with:
  * <ul>
  *   <li>{@link database.ReservationDAO} - reservation CRUD, overlap queries, confirmation-code helpers</li>
- *   <li>{@link database.TableDAO} - capacity rounding and table-count by capacity</li>
- *   <li>{@link database.OpeningHoursDAO} - open/close time per day</li>
+ *   <li>{@link allocation.AllocationPolicy} / {@link database.FloorModel} - capacity rounding (including pushed-together
+ *       tables for large parties) and how many parties of a capacity the floor seats at once</li>
+ *   <li>{@link database.OpeningHoursDAO} / {@link database.OpeningHoursCache} - open/close time per day</li>
  *   <li>{@link database.UserDAO} - fetching user contact details for notifications</li>
  *   <li>{@link database.WaitingListDAO} - cancels related waiting-list entries when cancelling reservations</li>
+ *   <li>{@link database.SeatingDAO} - releases the held table of a called reservation that is cancelled</li>
  *   <li>{@link controllers.NotificationControl} - sends confirmation code (stubbed in this stage)</li>
  * </ul>
  *
@@ -54,29 +60,34 @@ import java.util.*;
  */
 public class ReservationControl {
 
+    private static final Logger log = LoggerFactory.getLogger(ReservationControl.class);
+
     private static final int RESERVATION_DURATION_MIN = 120;
     private static final int TIME_SLOT_STEP_MIN = 30;
 
     private final ReservationDAO reservationDAO;
-    private final TableDAO tableDAO;
+    private final AllocationPolicy allocationPolicy;
     private final OpeningHoursDAO openingHoursDAO;
     private final UserDAO userDAO; 
     private final NotificationControl notificationControl;
     private final WaitingListDAO waitingListDAO;
+    private final SeatingDAO seatingDAO;
 
     public ReservationControl() {
-        this(new ReservationDAO(), new TableDAO(), new OpeningHoursDAO(),
-                new UserDAO(), new NotificationControl(),new WaitingListDAO());
+        this(new ReservationDAO(), AllocationPolicy.configured(), new OpeningHoursDAO(),
+                new UserDAO(), new NotificationControl(),new WaitingListDAO(),new SeatingDAO());
     }
 
-    public ReservationControl(ReservationDAO reservationDAO, TableDAO tableDAO,OpeningHoursDAO openingHoursDAO,
-                             UserDAO userDAO,  NotificationControl notificationControl,WaitingListDAO waitingListDAO) {                                                                                      
+    public ReservationControl(ReservationDAO reservationDAO, AllocationPolicy allocationPolicy,OpeningHoursDAO openingHoursDAO,
+                             UserDAO userDAO,  NotificationControl notificationControl,WaitingListDAO waitingListDAO,
+                             SeatingDAO seatingDAO) {                                                                                      
         this.reservationDAO = reservationDAO;
-        this.tableDAO = tableDAO;
+        this.allocationPolicy = allocationPolicy;
         this.openingHoursDAO = openingHoursDAO;
         this.userDAO = userDAO;
         this.notificationControl = notificationControl;
         this.waitingListDAO=waitingListDAO;
+        this.seatingDAO=seatingDAO;
     }
     
     /**
@@ -191,8 +202,13 @@ public class ReservationControl {
         try (Connection conn = DBManager.getConnection()) {
             conn.setAutoCommit(false);
             try {
-                int allocatedCapacity = roundToCapacity(conn, partySize);
+                int allocatedCapacity = roundToCapacity(partySize);
 
+                // admissions for one date run one at a time (the lock is released by commit/rollback)
+                if (!openingHoursDAO.lockOpeningHour(conn, req.getReservationDate())) {
+                    conn.rollback();
+                    return failResponse("Selected date is not open for reservations");
+                }
                 if (!isStillAvailable(conn, req.getReservationDate(), req.getStartTime(), allocatedCapacity)) {
                     conn.rollback();
                     return failResponse("Selected time is no longer available");
@@ -266,6 +282,12 @@ public class ReservationControl {
         try (Connection conn = DBManager.getConnection()) {
             conn.setAutoCommit(false);
             try {
+                // first statement of the transaction: the availability check below must see every booking
+                // committed while this edit waited for the date
+                if (!openingHoursDAO.lockOpeningHour(conn, reservationDate)) {
+                    conn.rollback();
+                    return new Response<>(false, "Requested date is not open for reservations", null);
+                }
                 Reservation existing = reservationDAO.getReservationByConfirmationCode(conn, confirmationCode);
                 
                 if (existing == null) {
@@ -286,7 +308,7 @@ public class ReservationControl {
                     guestContactToSave = newGuestContact;
                 }
 
-                int newAllocatedCapacity = roundToCapacity(conn, partySize);
+                int newAllocatedCapacity = roundToCapacity(partySize);
 
                 
                 boolean available = isStillAvailable(conn, reservationDate, startTime, newAllocatedCapacity);
@@ -367,6 +389,14 @@ public class ReservationControl {
                 	}
                 }
 
+                // a called party that cancels gives its held table back; the committed checkout calls the next party
+                Integer heldSeatingId = seatingDAO.getSeatingIdByReservationId(conn, reservation.getReservationID());
+                if (heldSeatingId != null && seatingDAO.isCheckInNull(conn, heldSeatingId)
+                        && !seatingDAO.checkOutBySeatingId(conn, heldSeatingId)) {
+                    conn.rollback();
+                    return new Response<>(false, "Failed to release the held table", null);
+                }
+
                 conn.commit();
 
                 String userID = reservation.getUserID();
@@ -435,6 +465,7 @@ public class ReservationControl {
     
     /**
      * method to check second time if a reservation can be made incase of race conditions
+     * (the caller holds the date's lock, see {@link OpeningHoursDAO#lockOpeningHour})
      * @param conn
      * @param date
      * @param startTime
@@ -446,15 +477,9 @@ public class ReservationControl {
 
         LocalTime end = startTime.plusMinutes(RESERVATION_DURATION_MIN);
 
-        Map<Integer, Integer> totals = tableDAO.getTotalTablesByCapacity(conn);
-        int totalForCap = getTotalTablesForParty(totals, allocatedCapacity);
-        if (totalForCap <= 0) return false;
-
         Map<Integer, Integer> booked = reservationDAO.getBookedTablesByCapacity(conn, date, startTime, end);
-        int bookedForCap = getBookedTablesForParty(booked, allocatedCapacity);
-
-
-        return bookedForCap < totalForCap;
+        // combined parties take every table of their run, single parties in a row block its runs
+        return FloorModel.admits(booked, allocatedCapacity, allocationPolicy.maxTables());
     }
     
     
@@ -469,7 +494,7 @@ public class ReservationControl {
     public List<LocalTime> getAvailableTimes(Connection conn, LocalDate date, int partySize) throws SQLException {
         if (date == null) return new ArrayList<>();
 
-        OpeningHours openHour = openingHoursDAO.getOpeningHour(conn, date);
+        OpeningHours openHour = OpeningHoursCache.getOpeningHour(conn, date, openingHoursDAO);
         if (openHour == null) return new ArrayList<>();
 
         LocalTime open = openHour.getOpenTime();
@@ -484,17 +509,10 @@ public class ReservationControl {
         }
         
         open = ceilToStep(open, TIME_SLOT_STEP_MIN);
-        int cap = roundToCapacity(conn, partySize);
+        int cap = roundToCapacity(partySize);
 
         List<LocalTime> available = new ArrayList<>();
 
-        Map<Integer, Integer> totalTablesByCapacity = tableDAO.getTotalTablesByCapacity(conn);
-        int total = getTotalTablesForParty(totalTablesByCapacity, cap);
-        if (total <= 0) {
-            return available;
-        }
-
-
         for (LocalTime start = open;
              !start.plusMinutes(RESERVATION_DURATION_MIN).isAfter(close);
              start = start.plusMinutes(TIME_SLOT_STEP_MIN)) {
@@ -504,34 +522,12 @@ public class ReservationControl {
             Map<Integer, Integer> alreadyBooked =
                     reservationDAO.getBookedTablesByCapacity(conn, date, start, end);
 
-            int booked = getBookedTablesForParty(alreadyBooked, cap);
-
-            if (booked < total) available.add(start);
+            if (FloorModel.admits(alreadyBooked, cap, allocationPolicy.maxTables())) available.add(start);
         }
 
         return available;
     }
     
-    private int getTotalTablesForParty(Map<Integer, Integer> totals, int minCapacity) {
-        int total = 0;
-        for (Map.Entry<Integer, Integer> entry : totals.entrySet()) {
-            if (entry.getKey() >= minCapacity) {
-                total += entry.getValue();
-            }
-        }
-        return total;
-    }
-
-    private int getBookedTablesForParty(Map<Integer, Integer> booked, int minCapacity) {
-        int total = 0;
-        for (Map.Entry<Integer, Integer> entry : booked.entrySet()) {
-            if (entry.getKey() >= minCapacity) {
-                total += entry.getValue();
-            }
-        }
-        return total;
-    }
-
     /**
      * creates a map of dates as its key and list of available times for that date
      * @param conn
@@ -551,9 +547,17 @@ public class ReservationControl {
         return suggestions;
     }
 
-    private int roundToCapacity(Connection conn, int partySize) throws SQLException {
-        // Controller owns the connection -> pass conn
-        return tableDAO.getMinimalTableSize(conn, partySize);
+    /**
+     * capacity a party is booked against: the smallest table that fits, or for a party larger than every table
+     * the smallest row of neighbouring tables that can be pushed together
+     * @param partySize
+     * @return allocated capacity
+     * @throws IllegalArgumentException if the party fits nowhere ("Party too large")
+     */
+    private int roundToCapacity(int partySize) {
+        int capacity = FloorModel.capacityFor(partySize, allocationPolicy.maxTables());
+        if (capacity <= 0) throw new IllegalArgumentException("Party too large");
+        return capacity;
     }
     
     /**
@@ -569,7 +573,7 @@ public class ReservationControl {
                 try (Connection conn = DBManager.getConnection()) {
                     var user = userDAO.getUserByUserID(conn, userID);
                     if (user == null) {
-                        System.err.println("User not found for userID=" + userID);
+                        log.warn("[NOTIFY] User not found for userID={}", userID);
                         return;
                     }
                     notificationControl.sendConfirmationToUser(user, confirmationCode);
@@ -578,7 +582,7 @@ public class ReservationControl {
                 notificationControl.sendConfirmationToGuest(guestContact, confirmationCode);
             }
         } catch (SQLException e) {
-            System.err.println("[NOTIFY] Failed while notifying: " + e.getMessage());
+            log.warn("[NOTIFY] Failed while notifying", e);
         }
     }
     
@@ -601,39 +605,26 @@ public class ReservationControl {
             if (key.isEmpty()) {
                 return new Response<>(false, "Missing input", null);
             }          
-            int code;
             boolean looksLikeUserId = key.matches("U-\\d{5}");
-            if (waitlistLookup) {
-                code = reservationDAO.fetchWaitingListConfirmationCodeByUserId(conn, key);
-                if (code <= 0 && !looksLikeUserId) {
-                    code = reservationDAO.fetchWaitingListConfirmationCodeByGuestContact(conn, key);
-                }
-                if (code <= 0) return new Response<>(false, "No relevant waiting list reservation found", null);
-            } else {
-            	code = reservationDAO.fetchBestConfirmationCodeByUserId(conn, key);
-                if (code > 0) {
+            // one ranked query covers userID/contact x reservation/waiting-list; a userID is never treated as a contact
+            ReservationDAO.CodeMatch match = reservationDAO.fetchConfirmationCodeByUserOrContact(
+                    conn, key, looksLikeUserId ? null : key, waitlistLookup);
+
+            if (match == null) {
+                return new Response<>(false, waitlistLookup ? "No relevant waiting list reservation found" : "No relevant reservation found", null);
+            }
+            int code = match.getConfirmationCode();
+            if (!waitlistLookup && match.isActiveReservation()) {
+                if (match.isMatchedByUser()) {
                     sendConfirmationNotification(key, null, code);
-                    return new Response<>(true, "Here is your code", code);                    
-                }
-                
-                code = reservationDAO.fetchBestConfirmationCodeByGuestContact(conn, key);
-                if (code > 0) {
+                } else {
                     sendConfirmationNotification(null, key, code);
-                    return new Response<>(true, "Here is your code", code);
-                }
-                code = reservationDAO.fetchWaitingListConfirmationCodeByUserId(conn, key);
-                if (code <= 0) {
-                    code = reservationDAO.fetchWaitingListConfirmationCodeByGuestContact(conn, key);
                 }
-                if (code <= 0) {
-                    return new Response<>(false, "No relevant reservation found", null);
-                }
-
             }
 
             return new Response<>(true, "Here is your code", code);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("retrieving confirmation code failed", e);
             return new Response<>(false, "Failed to fetch code", null);
         }
     }
@@ -5,8 +5,12 @@ import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
 
+import allocation.AllocationPolicy;
 import database.DBManager;
+import database.FloorModel;
 import database.ReservationDAO;
 import database.SeatingDAO;
 import database.TableDAO;
@@ -22,6 +26,9 @@ import responses.Response;
 import responses.SeatingResponse;
 import responses.SeatingResponse.SeatingResponseType;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * SeatingControl is responsible for check-in / check-out flows.
  *
@@ -31,23 +38,36 @@ import responses.SeatingResponse.SeatingResponseType;
  * - Coordinate notifications (confirmation code, waiting list, table ready invites).
  *
  * Notes:
+ * - Tables are chosen by the configured {@link AllocationPolicy}; a large party may get several pushed-together tables,
+ *   which share one seating (the seating row is on the first table).
  * - This class uses explicit transactions (conn.setAutoCommit(false)) and commits/rollbacks manually.
+ * - Check-in by confirmation code keeps round trips to a minimum: one joined read
+ *   ({@link ReservationDAO#getCheckInByConfirmationCode}) and one or two writes, whose status update is guarded
+ *   by the status that was read, so concurrent check-ins of the same reservation cannot both succeed.
  * - Some helpers commit internally (e.g., seatNow/moveToWaiting) based on your current design.
  */
 public class SeatingControl {
 
+    private static final Logger log = LoggerFactory.getLogger(SeatingControl.class);
+
+    /** Reservations may still check in this long after their start time. */
+    private static final int LATE_ARRIVAL_MIN = 15;
+
     private final ReservationDAO reservationDAO;
     private final TableDAO tableDAO;
     private final SeatingDAO seatingDAO;
     private final WaitingListDAO waitingListDAO;
     private final NotificationControl notificationControl;
     private final UserDAO userDAO;
+    private final AllocationPolicy allocationPolicy;
+    private final WaitTimeEstimator waitTimeEstimator = new WaitTimeEstimator();
 
     /**
      * default constructor for kryo
      */
     public SeatingControl() {
-        this(new ReservationDAO(), new TableDAO(), new SeatingDAO(), new WaitingListDAO(),new NotificationControl(),new UserDAO());
+        this(new ReservationDAO(), new TableDAO(), new SeatingDAO(), new WaitingListDAO(),new NotificationControl(),new UserDAO(),
+                AllocationPolicy.configured());
     }
 
     /**
@@ -58,14 +78,17 @@ public class SeatingControl {
      * @param waitingListDAO
      * @param notificationControl
      * @param userDAO
+     * @param allocationPolicy picks the table(s) for a party
      */
-    public SeatingControl(ReservationDAO reservationDAO, TableDAO tableDAO, SeatingDAO seatingDAO,WaitingListDAO waitingListDAO,NotificationControl notificationControl,UserDAO userDAO) {
+    public SeatingControl(ReservationDAO reservationDAO, TableDAO tableDAO, SeatingDAO seatingDAO,WaitingListDAO waitingListDAO,NotificationControl notificationControl,UserDAO userDAO,
+            AllocationPolicy allocationPolicy) {
         this.reservationDAO = reservationDAO;
         this.tableDAO = tableDAO;
         this.seatingDAO = seatingDAO;
         this.waitingListDAO = waitingListDAO;
         this.notificationControl=notificationControl;
         this.userDAO=userDAO;
+        this.allocationPolicy=allocationPolicy;
     }
 
     /**
@@ -91,7 +114,8 @@ public class SeatingControl {
     /**
      * Check-in router for a customer arriving with a confirmation code.
      *
-     * 
+     * - Reservation, open seating and user are read in one query.
+     * - "CALLED" reservation with a held seating: check it in.
      * - Otherwise: run the normal check-in flow (validate, seat if table available, else waiting list).
      *
      * @param confirmationCode confirmation code provided by the customer
@@ -103,28 +127,28 @@ public class SeatingControl {
             conn.setAutoCommit(false);
 
             try {
-                // 1) Load reservation
-                Reservation r = reservationDAO.getReservationByConfirmationCode(conn, confirmationCode);
-                if (r == null) {
+                // 1) Load reservation, its open seating and its user (one query)
+                ReservationDAO.CheckIn checkIn = reservationDAO.getCheckInByConfirmationCode(conn, confirmationCode);
+                if (checkIn == null) {
                     conn.rollback();
                     return new Response<>(false, "Reservation not found", null);
                 }
+                Reservation r = checkIn.getReservation();
 
                 // 2) Detect "CALLED" flow: reservation already called from waiting list and has held seating
-                Integer seatingId = seatingDAO.getSeatingIdByReservationId(conn, r.getReservationID());
                 boolean isCalled = "CALLED".equalsIgnoreCase(r.getStatus());
 
-                if (isCalled && seatingId != null && seatingDAO.isCheckInNull(conn, seatingId)) {
+                if (isCalled && checkIn.getSeatingID() != null && checkIn.isHeld()) {
 
                     // 2a) Complete the called-customer check-in (updates seating + waiting list + reservation status)
-                    Response<SeatingResponse> resp = checkInForCalledCustomer(conn, r, seatingId);
+                    Response<SeatingResponse> resp = checkInForCalledCustomer(conn, r, checkIn.getSeatingID());
                     if (!resp.isSuccess()) { conn.rollback(); return resp; }
                     conn.commit();
                     return resp;
                 }
 
                 // 3) Normal flow: validate, seat if possible, otherwise add to waiting list when relevant
-                Response<SeatingResponse> resp = checkInByConfirmationCode(conn, r);
+                Response<SeatingResponse> resp = checkInByConfirmationCode(conn, checkIn);
                 if (!resp.isSuccess()) { conn.rollback(); return resp; }
                 conn.commit();
                 return resp;
@@ -155,24 +179,12 @@ public class SeatingControl {
             return new Response<>(false, "Customer is not in CALLED status", null);
         }
 
-        // 1) Set check-in time on the existing held seating row
-        boolean ok = seatingDAO.markCheckInNow(conn, seatingId);
+        // 1) Set check-in time on the held seating, waiting list entry -> ASSIGNED, reservation -> SEATED (one statement)
+        boolean ok = seatingDAO.checkInCalled(conn, seatingId);
         if (!ok) return new Response<>(false, "Failed to check in seating", null);
 
-        // 2) Update waiting list bookkeeping for called customer
-        boolean updatedWaitingList=waitingListDAO.markAssignedIfCalled(conn, r.getReservationID());
-        if(!updatedWaitingList) return new Response<>(false, "Failed to update waiting list status", null);
-
-        // 3) Reservation status moves to SEATED
-        boolean updated = reservationDAO.updateStatusByReservationID(conn, r.getReservationID(), "SEATED");
-        if (!updated) return new Response<>(false, "Failed to update reservation status", null);
-
-        // 4) Return table information
-        Integer tableId=seatingDAO.getTableIDBySeatingID(conn, seatingId);
-        if(tableId==null) {
-            return new Response<>(false, "failed to return a response", null);
-        }
-        Table table=tableDAO.fetchTableByID(conn, tableId);
+        // 2) Return table information
+        FloorModel.TableState table = FloorModel.getTableBySeating(seatingId);
         if(table==null) {
             return new Response<>(false, "failed to return a response", null);
         }
@@ -218,15 +230,21 @@ public class SeatingControl {
                 LocalDate today = LocalDate.now();
                 LocalTime nowTime = LocalTime.now();
 
-                // 4) Decide which table sizes can fit this party
-                int allocatedCapacity = tableDAO.getMinimalTableSize(conn, partySize);
+                // 4) Decide which table sizes (or pushed-together tables) can fit this party
+                int allocatedCapacity = FloorModel.capacityFor(partySize, allocationPolicy.maxTables());
                 if (allocatedCapacity <= 0) {
                     rollback(conn);
                     return new Response<>(false, "No suitable table size exists", null);
                 }
 
-                // 5) Try to find free table
-                Table table = tableDAO.findAvailableTable(conn, allocatedCapacity);
+                // 5) Try to find free tables, keeping the ones needed by reservations due soon (look-ahead policy only)
+                List<Integer> upcoming = List.of();
+                if (allocationPolicy.lookAheadMinutes() > 0) {
+                    LocalDateTime now = LocalDateTime.now();
+                    upcoming = reservationDAO.getUpcomingPartySizes(conn, now.minusMinutes(LATE_ARRIVAL_MIN),
+                            now.plusMinutes(allocationPolicy.lookAheadMinutes()));
+                }
+                List<Table> tables = tableDAO.findAvailableTables(conn, allocationPolicy, partySize, upcoming);
 
                 // 6) Create reservation
                 int confirmationCode = reservationDAO.generateConfirmationCode(conn);
@@ -239,14 +257,15 @@ public class SeatingControl {
                 }
 
                 // 7) If no table now -> waiting list flow (priority 0 in your current code)
-                if (table == null) {
-                    return moveToWaiting(conn,reservationId,confirmationCode,0,"No available table right now - added to waiting list");
+                if (tables == null) {
+                    Reservation r = new Reservation(reservationId, today, "CONFIRMED", partySize, allocatedCapacity,
+                            confirmationCode, guestContact, userID, nowTime, null);
+                    return moveToWaiting(conn, r, null, 0, "No available table right now - added to waiting list");
                 }
 
                 // 8) Send confirmation code to user/guest
-                Reservation r=reservationDAO.getReservationByReservationID(conn, reservationId);
                 boolean isSent;
-                if(r.getGuestContact()==null || r.getGuestContact().isBlank()) {
+                if(guestContact==null || guestContact.isBlank()) {
                     User user=userDAO.getUserByUserID(conn, userID);
                     if(user==null) {
                         rollback(conn);
@@ -267,7 +286,7 @@ public class SeatingControl {
                 }
 
                 // 9) Create seating and mark reservation as SEATED
-                int seatingId = seatingDAO.checkIn(conn, table.getTableID(), reservationId);
+                int seatingId = insertSeating(conn, tables, reservationId);
                 if (seatingId == -1) {
                     rollback(conn);
                     return new Response<>(false, "Failed to create seating record", null);
@@ -281,10 +300,10 @@ public class SeatingControl {
 
                 conn.commit();
 
-                SeatingResponse seatingResponse =new SeatingResponse(table.getTableNumber(), table.getCapacity(), nowTime,
+                SeatingResponse seatingResponse =new SeatingResponse(tables.get(0).getTableNumber(), totalCapacity(tables), nowTime,
                         SeatingResponse.SeatingResponseType.CUSTOMER_CHECKED_IN);
 
-                return new Response<>(true,"Bon appetite! Your table number: " + table.getTableNumber(),seatingResponse);
+                return new Response<>(true,"Bon appetite! Your table number: " + tableNumbers(tables),seatingResponse);
 
             } catch (Exception e) {
                 rollback(conn);
@@ -301,30 +320,30 @@ public class SeatingControl {
      *
      *
      * @param conn active transaction connection
-     * @param r reservation entity
+     * @param checkIn reservation with its user, from {@link ReservationDAO#getCheckInByConfirmationCode}
      * @return SeatingResponse (seated/waiting/failure)
      */
-    public Response<SeatingResponse> checkInByConfirmationCode(Connection conn,Reservation r) {
+    public Response<SeatingResponse> checkInByConfirmationCode(Connection conn,ReservationDAO.CheckIn checkIn) {
         try  {
-            if(r==null) return new Response<>(false, "reservation is null error" ,null);
-            Integer confirmationCode=r.getConfirmationCode();
+            if(checkIn==null) return new Response<>(false, "reservation is null error" ,null);
+            Reservation r=checkIn.getReservation();
 
             // 1) Validate reservation check-in rules
             String validationMsg= validateReservationForCheckIn(r);
 
             if (validationMsg!=null) {
-                return handleValidationFailure(conn, r, confirmationCode, validationMsg);
+                return handleValidationFailure(conn, r, checkIn.getUser(), validationMsg);
             }
 
-            // 2) Try to seat immediately
-            Table table = tableDAO.findAvailableTable(conn, r.getAllocatedCapacity());
-            if (table != null) {
-                System.out.println("Found table,seating the customer now.");
-                return seatNow(conn, r, confirmationCode, table);
+            // 2) Try to seat immediately (the reservation itself is what the look-ahead protects, so no upcoming parties)
+            List<Table> tables = tableDAO.findAvailableTables(conn, allocationPolicy, r.getPartySize(), List.of());
+            if (tables != null) {
+                log.debug("Found table,seating the customer now.");
+                return seatNow(conn, r, tables);
             }
 
             // 3) Otherwise -> waiting flow
-            return handleNoTableAvailable(conn, r, confirmationCode);
+            return handleNoTableAvailable(conn, r, checkIn.getUser());
 
         } catch (Exception e) {
             return new Response<>(false, "Check-in failed: " + e.getMessage(), null);
@@ -332,7 +351,8 @@ public class SeatingControl {
     }
 
     /**
-     * Checks out the currently seated reservation on a given table:
+     * Checks out the currently seated reservation on a given table
+     * (with all tables pushed together for it; they become free when the transaction commits):
      *
      * @param conn active transaction connection
      * @param tableID table id to checkout
@@ -342,16 +362,12 @@ public class SeatingControl {
     public boolean checkOutCurrentSeating(Connection conn, int tableID) throws SQLException {
         if (conn == null) return false;
 
-        Table table = tableDAO.fetchTableByID(conn, tableID);
-        if (table == null) return false;
-
-        Integer seatingID = seatingDAO.fetchOpenSeatingID(conn, tableID);
-        Integer seatedReservationID = seatingDAO.findOpenSeatingReservationId(conn, tableID);
-        if (seatingID == null || seatedReservationID == null) return false;
+        FloorModel.TableState table = FloorModel.getTable(tableID);
+        if (table == null || table.getSeatingID() == null) return false;
 
-        if (!seatingDAO.checkOutBySeatingId(conn, seatingID)) return false;
+        if (!seatingDAO.checkOutBySeatingId(conn, table.getSeatingID())) return false;
 
-        if (!reservationDAO.updateStatusByReservationID(conn, seatedReservationID, "COMPLETED")) return false;
+        if (!reservationDAO.updateStatusByReservationID(conn, table.getReservationID(), "COMPLETED")) return false;
 
         return true;
     }
@@ -363,6 +379,9 @@ public class SeatingControl {
      * Important:
      * - This method returns boolean only; caller is expected to commit/rollback.
      * - If any step fails, returning false allows caller to rollback so the held seating is removed.
+     * - The party next in line that fits the table alone is called first. If nobody does, the parties booked for
+     *   more seats (pushed-together tables) are tried in line order: the allocation policy picks their tables over
+     *   the whole free floor, which now includes this table.
      *
      * @param conn active transaction connection
      * @param tableID table id that became available
@@ -372,18 +391,55 @@ public class SeatingControl {
     public boolean tryAssignNextFromWaitingList(Connection conn, int tableID) throws SQLException {
         if (conn == null) return false;
 
-        Table table = tableDAO.fetchTableByID(conn, tableID);
+        FloorModel.TableState table = FloorModel.getTable(tableID);
         if (table == null) return false;
 
+        // take the table for this transaction; false -> someone (e.g. a walk-in) was seated there meanwhile
+        if (!tableDAO.claimTable(conn, tableID)) return true;
+
         WaitingList nextInLine = waitingListDAO.getNextWaitingThatFits(conn, table.getCapacity());
-        if (nextInLine == null) return true;
+        if (nextInLine != null) {
+            Reservation r = waitingListDAO.getReservationByWaitingID(conn, nextInLine.getWaitID());
+            if (r == null) return false;
+            return callToTables(conn, nextInLine.getWaitID(), r, List.of(table.toTable()));
+        }
 
-        Reservation r = waitingListDAO.getReservationByWaitingID(conn, nextInLine.getWaitID());
-        if (r == null) return false;
+        // nobody fits this table alone: give it back to the floor and try the parties that need more seats
+        tableDAO.releaseTables(conn, List.of(table.toTable()));
+        for (WaitingList waiting : waitingListDAO.getWaitingNeedingMoreThan(table.getCapacity())) {
+            Reservation r = waitingListDAO.getReservationByWaitingID(conn, waiting.getWaitID());
+            if (r == null) continue;
+            List<Table> tables = tableDAO.findAvailableTables(conn, allocationPolicy, r.getPartySize(), List.of());
+            if (tables == null) continue;
+            if (!waitingListDAO.claimWaiting(conn, waiting.getWaitID())) {
+                tableDAO.releaseTables(conn, tables);
+                continue;
+            }
+            return callToTables(conn, waiting.getWaitID(), r, tables);
+        }
+        return true;
+    }
 
+    /**
+     * Holds the tables for a waiting party and calls it: held seating, invitation, waiting entry CALLED and
+     * reservation CALLED, all in the caller's transaction.
+     *
+     * @param conn active transaction connection
+     * @param waitID waiting entry claimed by this transaction
+     * @param r reservation of the entry
+     * @param tables tables taken by this transaction, the one that carries the seating first
+     * @return true on success, false on failure (caller should rollback)
+     * @throws SQLException
+     */
+    private boolean callToTables(Connection conn, int waitID, Reservation r, List<Table> tables) throws SQLException {
         // 1) create held seating first (so you don't "call" someone without holding a slot)
-        int heldSeatingId = seatingDAO.insertHeldSeating(conn, tableID, r.getReservationID());
+        int heldSeatingId = seatingDAO.insertHeldSeating(conn, tables.get(0).getTableID(), r.getReservationID());
         if (heldSeatingId == -1) return false;
+        List<Integer> joined = new ArrayList<>();
+        for (Table t : tables.subList(1, tables.size())) {
+            joined.add(t.getTableID());
+        }
+        if (!seatingDAO.joinHeldTables(conn, heldSeatingId, r.getReservationID(), joined)) return false;
 
         // 2) send notification (if this fails, caller should rollback, and held seating won't exist)
         boolean hasSent;
@@ -405,7 +461,7 @@ public class SeatingControl {
         if (!hasSent) return false;
 
         // 3) mark waiting list called
-        if (!waitingListDAO.markCalled(conn, nextInLine.getWaitID())) return false;
+        if (!waitingListDAO.markCalled(conn, waitID)) return false;
 
         // 4) update reservation status
         if (!reservationDAO.updateStatusByReservationID(conn, r.getReservationID(), "CALLED")) return false;
@@ -454,15 +510,15 @@ public class SeatingControl {
      *
      * @param conn active JDBC connection (transaction)
      * @param r the fetched reservation (can be null)
-     * @param confirmationCode reservation confirmation code
+     * @param user the reservation's user if already read, else null
      * @param msg validation failure message (may include special token {@code "EARLY"})
      * @return failure response with message, or waiting-list response when applicable
      * @throws SQLException
      */
     public Response<SeatingResponse> handleValidationFailure(
-            Connection conn, Reservation r, int confirmationCode, String msg) throws SQLException{
+            Connection conn, Reservation r, User user, String msg) throws SQLException{
         if ("EARLY".equals(msg) && r != null && !"WAITING".equalsIgnoreCase(r.getStatus())) {
-            return moveToWaiting(conn, r.getReservationID(), confirmationCode, 1, "Arrived early - added to waiting list");
+            return moveToWaiting(conn, r, user, 1, "Arrived early - added to waiting list");
         }
         rollback(conn);
         return new Response<>(false,msg,null);
@@ -473,19 +529,19 @@ public class SeatingControl {
      *
      * @param conn active JDBC connection (transaction)
      * @param r reservation entity
-     * @param confirmationCode reservation confirmation code
+     * @param user the reservation's user if already read, else null
      * @return waiting-list response or failure
      * @throws SQLException
      */
     private Response<SeatingResponse> handleNoTableAvailable(
-            Connection conn, Reservation r, int confirmationCode) throws SQLException {
+            Connection conn, Reservation r, User user) throws SQLException {
 
         // If already waiting, don't insert again
         if (r != null && "WAITING".equalsIgnoreCase(r.getStatus())) {
             rollback(conn);
             return new Response<>(false, "Still no available table", null);
         }
-        return moveToWaiting(conn, r.getReservationID(), confirmationCode,1, "No table right now - added to waiting list");
+        return moveToWaiting(conn, r, user, 1, "No table right now - added to waiting list");
     }
 
     /**
@@ -496,68 +552,101 @@ public class SeatingControl {
      *
      * @param conn active JDBC connection (transaction)
      * @param r reservation entity
-     * @param confirmationCode reservation confirmation code
-     * @param table chosen available table
+     * @param tables chosen available table(s), the one that carries the seating first
      * @return seated response or failure
      * @throws SQLException
      */
     private Response<SeatingResponse> seatNow(
-            Connection conn, Reservation r, int confirmationCode, Table table) throws SQLException {
+            Connection conn, Reservation r, List<Table> tables) throws SQLException {
 
-        int seatingId = seatingDAO.checkIn(conn, table.getTableID(), r.getReservationID());
-        if (seatingId == -1) {
+        // guarded by the status read at check-in: a concurrent check-in of the same reservation updates no row
+        if (!reservationDAO.updateStatusIf(conn, r.getReservationID(), r.getStatus(), "SEATED")) {
             rollback(conn);
-            return new Response<>(false, "Failed to create seating record", null);
+            return new Response<>(false, "Failed to update reservation status", null);
         }
 
-        if (!reservationDAO.updateStatus(conn, confirmationCode, "SEATED")) {
+        int seatingId = insertSeating(conn, tables, r.getReservationID());
+        if (seatingId == -1) {
             rollback(conn);
-            return new Response<>(false, "Failed to update reservation status", null);
+            return new Response<>(false, "Failed to create seating record", null);
         }
 
         conn.commit();
-        SeatingResponse seatingResponse =new SeatingResponse(table.getTableNumber(), table.getCapacity(), LocalTime.now(),SeatingResponseType.CUSTOMER_CHECKED_IN);
+        SeatingResponse seatingResponse =new SeatingResponse(tables.get(0).getTableNumber(), totalCapacity(tables), LocalTime.now(),SeatingResponseType.CUSTOMER_CHECKED_IN);
 
         return new Response<>(true,
-                "Bon apetite your table number: " + table.getTableNumber(),
+                "Bon apetite your table number: " + tableNumbers(tables),
                 seatingResponse);
     }
 
+    /**
+     * Inserts the seating on the first table and records the other (pushed-together) tables.
+     *
+     * @param conn active JDBC connection (transaction)
+     * @param tables tables from {@link TableDAO#findAvailableTables}
+     * @param reservationId reservation being seated
+     * @return seating ID, or -1 on failure
+     * @throws SQLException
+     */
+    private int insertSeating(Connection conn, List<Table> tables, int reservationId) throws SQLException {
+        int seatingId = seatingDAO.checkIn(conn, tables.get(0).getTableID(), reservationId);
+        if (seatingId == -1) return -1;
+
+        List<Integer> joined = new ArrayList<>();
+        for (Table t : tables.subList(1, tables.size())) {
+            joined.add(t.getTableID());
+        }
+        return seatingDAO.joinTables(conn, seatingId, reservationId, joined) ? seatingId : -1;
+    }
+
+    private static int totalCapacity(List<Table> tables) {
+        int seats = 0;
+        for (Table t : tables) {
+            seats += t.getCapacity();
+        }
+        return seats;
+    }
+
+    /** "4", or "4+5" for pushed-together tables */
+    private static String tableNumbers(List<Table> tables) {
+        StringBuilder sb = new StringBuilder();
+        for (Table t : tables) {
+            if (sb.length() > 0) sb.append('+');
+            sb.append(t.getTableNumber());
+        }
+        return sb.toString();
+    }
+
     /**
      * Moves a reservation into the waiting list within the current transaction
      *
      * @param conn active JDBC connection (transaction)
-     * @param reservationId reservation id to insert into waiting list
-     * @param confirmationCode confirmation code to include in the message
+     * @param r reservation to insert into waiting list (its status is the one expected in the database)
+     * @param user the reservation's user if already read, else null (looked up when the reservation has no guest contact)
      * @param priority waiting list priority used by your DAO
      * @param msg success message returned to the client
-     * @return CUSTOMER_IN_WAITINGLIST response on success; failure otherwise
+     * @return CUSTOMER_IN_WAITINGLIST response with the estimated wait on success; failure otherwise
      * @throws SQLException
      */
     private Response<SeatingResponse> moveToWaiting(
-            Connection conn, int reservationId, int confirmationCode, int priority, String msg) throws SQLException {
+            Connection conn, Reservation r, User user, int priority, String msg) throws SQLException {
+        int reservationId = r.getReservationID();
+        int confirmationCode = r.getConfirmationCode();
 
-        boolean waitInserted = waitingListDAO.insertNewWait(conn, reservationId, "WAITING", priority);
-        if (!waitInserted) {
-            rollback(conn);
-            return new Response<>(false, "Failed to add to waiting list", null);
-        }
-
-        boolean statusUpdated = reservationDAO.updateStatusByReservationID(conn, reservationId, "WAITING");
+        boolean statusUpdated = reservationDAO.updateStatusIf(conn, reservationId, r.getStatus(), "WAITING");
         if (!statusUpdated) {
             rollback(conn);
             return new Response<>(false, "Failed to update reservation status", null);
         }
 
-        // Reload reservation so we can decide how to notify (user vs guest)
-        Reservation r=reservationDAO.getReservationByConfirmationCode(conn, confirmationCode);
-        if (r==null) {
+        boolean waitInserted = waitingListDAO.insertNewWait(conn, reservationId, "WAITING", priority, r.getAllocatedCapacity());
+        if (!waitInserted) {
             rollback(conn);
-            return new Response<>(false, "Failed to update reservation status", null);
+            return new Response<>(false, "Failed to add to waiting list", null);
         }
 
         if(r.getGuestContact()==null ||r.getGuestContact().isBlank()) {
-            User user=userDAO.getUserByUserID(conn, r.getUserID());
+            if(user==null) user=userDAO.getUserByUserID(conn, r.getUserID());
             if(user==null) {
                 rollback(conn);
                 return new Response<>(false, "failed to get user details", null);
@@ -576,9 +665,15 @@ public class SeatingControl {
             }
         }
 
+        // estimated before the commit, while the new entry is not in the queue yet: it waits behind everyone in line
+        LocalDateTime start = r.getReservationDate() == null || r.getStartTime() == null ? null
+                : LocalDateTime.of(r.getReservationDate(), r.getStartTime());
+        Integer estimatedWait = waitTimeEstimator.estimateMinutes(r.getAllocatedCapacity(), priority, start);
+
         conn.commit();
         SeatingResponse seatingResponse =
                 new SeatingResponse(null, null, null, SeatingResponse.SeatingResponseType.CUSTOMER_IN_WAITINGLIST);
+        seatingResponse.setEstimatedWaitMinutes(estimatedWait);
         return new Response<>(true, msg, seatingResponse);
     }
 
@@ -16,6 +16,9 @@ import responses.Response;
 import responses.UserHistoryResponse;
 import requests.LoginRequest;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * Controller for user-related workflows.
  *
@@ -43,6 +46,7 @@ import requests.LoginRequest;
  * </ul>
  */
 public class UserControl {
+	private static final Logger log = LoggerFactory.getLogger(UserControl.class);
 	private final UserDAO userDAO;
 	private final ReservationDAO reservationDAO;
 	
@@ -72,7 +76,7 @@ public class UserControl {
     public Response<LoginResponse> login(LoginRequest req)  {
     	
     	try (Connection conn=DBManager.getConnection()){
-    		System.out.println("DB connection OK: " + conn.getMetaData().getURL());    		
+    		log.debug("DB connection OK: {}", conn.getMetaData().getURL());
     		User user = userDAO.getUserByUsernameAndPassword(conn,req.getUsername(), req.getPassword());
 
     		if (user == null) {
@@ -83,12 +87,10 @@ public class UserControl {
     		return new Response<>(true, "Hello"+user.getUsername(), data);
     		
     	}catch(SQLException e) {
-    		System.err.println("LOGIN DB ERROR: " + e.getMessage());
-    		e.printStackTrace();
+    		log.warn("LOGIN DB ERROR", e);
     		return new Response<>(false, "login db error", null);
     	}catch(Exception e) {
-    		System.err.println("LOGIN ERROR: " + e.getMessage());
-            e.printStackTrace();
+    		log.warn("LOGIN ERROR", e);
             return new Response<>(false, "login server error", null);
     	}
         
@@ -109,12 +111,10 @@ public class UserControl {
     		
     		return new Response<>(true,"details edited successfully",loginResponse);
     	}catch(SQLException e) {
-    		System.err.println("LOGIN DB ERROR: " + e.getMessage());
-    		e.printStackTrace();
+    		log.warn("LOGIN DB ERROR", e);
     		return new Response<>(false, "login db error", null);
     	}catch(Exception e) {
-    		System.err.println("LOGIN ERROR: " + e.getMessage());
-            e.printStackTrace();
+    		log.warn("LOGIN ERROR", e);
             return new Response<>(false, "login server error", null);
     	}
     }
@@ -133,12 +133,10 @@ public class UserControl {
     		LoginResponse userHistory = new LoginResponse(UserReponseCommand.HISTORY_RESPONSE,history);
     		return new Response<>(true,"History",userHistory);
     	}catch(SQLException e) {
-    		System.err.println("history DB ERROR: " + e.getMessage());
-    		e.printStackTrace();
+    		log.warn("history DB ERROR", e);
     		return new Response<>(false, "history db error", null);
     	}catch(Exception e) {
-    		System.err.println("history DB ERROR: " + e.getMessage());
-    		e.printStackTrace();
+    		log.warn("history DB ERROR", e);
     		return new Response<>(false, "history server error", null);
     	}
     }
@@ -157,7 +155,7 @@ public class UserControl {
             return userID;
 
         } catch (SQLException e) {
-            System.out.println("generating userID db fail");
+            log.warn("generating userID db fail", e);
             return null;
         }
     }
@@ -173,8 +171,7 @@ public class UserControl {
     		LoginResponse resp = new LoginResponse(UserReponseCommand.SHOW_DETAIL_RESPONSE,user.getEmail(),user.getPhone());
     		return new Response<>(true,"Your current details",resp);
     	}catch(Exception e) {
-    		System.err.println("user DB ERROR: " + e.getMessage());
-    		e.printStackTrace();
+    		log.warn("user DB ERROR", e);
     		return new Response<>(false, "user details server error", null);
     	}
     }
@@ -212,12 +209,10 @@ public class UserControl {
     		LoginResponse resp = new LoginResponse(UserReponseCommand.UPCOMING_RESERVATIONS_RESPONSE, upcomingReservations, true);
     		return new Response<>(true, "Upcoming reservations", resp);
     	}catch(SQLException e) {
-    		System.err.println("upcoming reservations DB ERROR: " + e.getMessage());
-    		e.printStackTrace();
+    		log.warn("upcoming reservations DB ERROR", e);
     		return new Response<>(false, "upcoming reservations db error", null);
     	}catch(Exception e) {
-    		System.err.println("upcoming reservations ERROR: " + e.getMessage());
-    		e.printStackTrace();
+    		log.warn("upcoming reservations ERROR", e);
     		return new Response<>(false, "upcoming reservations server error", null);
     	}
     }
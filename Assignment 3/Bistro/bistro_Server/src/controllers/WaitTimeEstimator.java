@@ -0,0 +1,141 @@
+package controllers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import database.FloorModel;
+import database.SeatingDurations;
+import database.WaitingQueue;
+
+/**
+ * Estimates how long a party joining the waiting list will wait for a table.
+ *
+ * <p>Main idea: replay the next table turns from the in-memory models only, so an estimate costs no query:
+ * <ul>
+ *   <li>Every seating on the floor frees its table(s) at an expected time: a free table now, a claimed or held one
+ *       (a party being seated or called) after a median seating, an occupied one when its check-in plus the median
+ *       duration from {@link SeatingDurations} is reached, or plus the 90th percentile once the median has passed</li>
+ *   <li>The earliest freed table goes to the first party in line that fits it, as {@link WaitingQueue} would call it;
+ *       that party then stays for a median seating, after which the table turns again</li>
+ *   <li>The estimate is the time the new party (last among its priority) gets a table. When no single table fits it,
+ *       it is the time enough seats are free to push tables together</li>
+ * </ul>
+ * Reservations arriving meanwhile are not foreseen, so the estimate is a lower bound on a busy evening.</p>
+ */
+public class WaitTimeEstimator {
+
+	/** Remaining minutes assumed for a party that already stayed past its 90th percentile. */
+	private static final double MIN_REMAINING_MINUTES = 5;
+
+	/** Expected moment a table (or a group of pushed-together tables) is free. */
+	private static final class Turn {
+		final double atMinutes;
+		final int capacity;
+
+		Turn(double atMinutes, int capacity) {
+			this.atMinutes = atMinutes;
+			this.capacity = capacity;
+		}
+	}
+
+	/**
+	 * @param capacity booked capacity of the new waiting party
+	 * @param priority waiting-list priority of the new party
+	 * @param notBefore the party cannot be seated before this time (an early reservation's start), null if none
+	 * @return estimated wait in whole minutes, or null if no table on the floor can take the party
+	 */
+	public Integer estimateMinutes(int capacity, int priority, LocalDateTime notBefore) {
+		LocalDateTime now = LocalDateTime.now();
+		Double minutes = simulate(capacity, WaitingQueue.capacitiesAhead(priority), floorTurns(now), now);
+		if (minutes == null) return null;
+		if (notBefore != null) minutes = Math.max(minutes, Duration.between(now, notBefore).getSeconds() / 60.0);
+		return (int) Math.ceil(Math.max(0, minutes));
+	}
+
+	/** one turn per table, or per seating for pushed-together tables */
+	private List<Turn> floorTurns(LocalDateTime now) {
+		List<Turn> turns = new ArrayList<>();
+		Map<Integer, Integer> seatsBySeating = new HashMap<>();
+		Map<Integer, LocalDateTime> checkInBySeating = new HashMap<>();
+		for (FloorModel.TableState table : FloorModel.snapshot()) {
+			switch (table.getStatus()) {
+				case FREE:
+					turns.add(new Turn(0, table.getCapacity()));
+					break;
+				case CLAIMED:
+					turns.add(new Turn(SeatingDurations.medianMinutes(table.getCapacity(), now), table.getCapacity()));
+					break;
+				default:
+					seatsBySeating.merge(table.getSeatingID(), table.getCapacity(), Integer::sum);
+					if (table.getCheckInTime() != null) checkInBySeating.put(table.getSeatingID(), table.getCheckInTime());
+			}
+		}
+		for (Map.Entry<Integer, Integer> seating : seatsBySeating.entrySet()) {
+			int seats = seating.getValue();
+			LocalDateTime checkIn = checkInBySeating.get(seating.getKey());
+			if (checkIn == null) {
+				turns.add(new Turn(SeatingDurations.medianMinutes(seats, now), seats));
+				continue;
+			}
+			double elapsed = Duration.between(checkIn, now).getSeconds() / 60.0;
+			double median = SeatingDurations.medianMinutes(seats, checkIn);
+			double expected = elapsed < median ? median : SeatingDurations.p90Minutes(seats, checkIn);
+			turns.add(new Turn(Math.max(MIN_REMAINING_MINUTES, expected - elapsed), seats));
+		}
+		return turns;
+	}
+
+	/**
+	 * replays the table turns against the line
+	 * @param capacity seats the new party needs
+	 * @param ahead seats needed by the parties in line before it, next first
+	 * @return minutes from now until the new party gets a table, null if nothing on the floor fits it
+	 */
+	private Double simulate(int capacity, List<Integer> ahead, List<Turn> turns, LocalDateTime now) {
+		int largest = 0;
+		for (Turn t : turns) {
+			largest = Math.max(largest, t.capacity);
+		}
+		if (largest < capacity) return combinedSeatsFree(capacity, turns);
+
+		List<Integer> line = new ArrayList<>(ahead);
+		line.add(capacity);
+		int self = line.size() - 1;
+		PriorityQueue<Turn> next = new PriorityQueue<>((a, b) -> Double.compare(a.atMinutes, b.atMinutes));
+		next.addAll(turns);
+		while (!next.isEmpty()) {
+			Turn turn = next.poll();
+			int seated = -1;
+			for (int i = 0; i < line.size(); i++) {
+				Integer seats = line.get(i);
+				if (seats != null && seats <= turn.capacity) {
+					seated = i;
+					break;
+				}
+			}
+			if (seated == self) return turn.atMinutes;
+			if (seated < 0) continue; // fits nobody left in line
+			line.set(seated, null);
+			LocalDateTime seatedAt = now.plusSeconds((long) (turn.atMinutes * 60));
+			next.add(new Turn(turn.atMinutes + SeatingDurations.medianMinutes(turn.capacity, seatedAt), turn.capacity));
+		}
+		return null;
+	}
+
+	/** minutes until the free seats, taken in the order tables turn, reach {@code capacity} */
+	private Double combinedSeatsFree(int capacity, List<Turn> turns) {
+		List<Turn> ordered = new ArrayList<>(turns);
+		ordered.sort((a, b) -> Double.compare(a.atMinutes, b.atMinutes));
+		int seats = 0;
+		for (Turn t : ordered) {
+			seats += t.capacity;
+			if (seats >= capacity) return t.atMinutes;
+		}
+		return null;
+	}
+}
@@ -1,7 +1,7 @@
 package controllers;
 
 import java.sql.Connection;
-import java.util.List;
+import java.time.LocalDateTime;
 
 import database.DBManager;
 import database.ReservationDAO;
@@ -12,20 +12,23 @@ import entities.WaitingList;
 import requests.WaitingListRequest;
 import responses.Response;
 import responses.WaitingListResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 /**
  * Controller that manages waiting-list workflows.
  *
  * <p>Main idea:
  * Coordinates waiting-list cancellation and timeout handling, while delegating all persistence to DAOs.
- * It also collaborates with {@link SeatingControl} to free tables and assign the next eligible
- * waiting-list reservation when a previously "CALLED" reservation expires.</p>
+ * It also collaborates with {@link SeatingControl} to free the held table when a previously "CALLED" reservation
+ * expires; the committed checkout makes {@link WaitingListPromoter} call the next eligible reservation.</p>
  *
  * <p>Uses / collaborates with:
  * <ul>
- *   <li>{@link database.WaitingListDAO} - update/fetch waiting list entries (cancel, expired-called queries)</li>
+ *   <li>{@link database.WaitingListDAO} - update/fetch waiting list entries (cancel, called-entry lookups)</li>
  *   <li>{@link database.ReservationDAO} - fetch/cancel reservations tied to waiting list entries</li>
  *   <li>{@link database.SeatingDAO} - find seating/table information for a reservation</li>
- *   <li>{@link controllers.SeatingControl} - check out a seating and assign the next waiting-list entry to a table</li>
+ *   <li>{@link controllers.SeatingControl} - check out a seating</li>
  *   <li>{@link database.DBManager} - obtain JDBC connections and manage transactions</li>
  * </ul>
  *
@@ -33,8 +36,8 @@ import responses.WaitingListResponse;
  * <ul>
  *   <li>{@link #cancelWaitingList(requests.WaitingListRequest)} - cancels a waiting list entry and its reservation
  *       using a confirmation code (transactional)</li>
- *   <li>{@link #cancelLateArrivalsFromWaitingListToTable()} - processes expired "CALLED" waiting-list entries:
- *       cancels them, frees their table (if any), and attempts to assign the next waiting reservation</li>
+ *   <li>{@link #expireCalled(int)} - cancels a "CALLED" waiting-list entry whose timeout fired (scheduled by
+ *       {@link server.BillingScheduler} on a timer wheel) and frees its table (if any)</li>
  * </ul>
  *
  * <p>Notes:
@@ -45,6 +48,11 @@ import responses.WaitingListResponse;
  */
 public class WaitingListControl {
 
+	private static final Logger log = LoggerFactory.getLogger(WaitingListControl.class);
+
+	/** Minutes a "CALLED" party has to arrive before its entry is cancelled. */
+	public static final int CALLED_TIMEOUT_MINUTES = 15;
+
 	private final WaitingListDAO waitingListDAO;
 	private final ReservationDAO reservationDAO;
 	private final SeatingDAO seatingDAO;
@@ -99,106 +107,80 @@ public class WaitingListControl {
 		
 	}
 		catch (Exception e) {
-	        System.out.println("processCalledTimeouts failed: " + e.getMessage());
+	        log.warn("leaving the waiting list failed", e);
 	        return new Response<>(false,"SQL failure",null);
 	    }
 	}
 	
 	/**
-	 * Cancels expired called reservations, frees associated seating, and tries to
-	 * assign the next waiting list reservation to freed tables.
+	 * Cancels a "CALLED" waiting-list entry whose 15 minutes ran out, with its reservation, and frees the held table
+	 * (the freed table is offered to the next waiting reservation by {@link WaitingListPromoter}).
+	 * Called by the scheduler when the entry's timeout fires; the entry is re-checked against the database first.
+	 * @param waitID waiting list primary key
+	 * @return the entry's deadline if it is still "CALLED" but not due yet, otherwise null
 	 */
-	public void cancelLateArrivalsFromWaitingListToTable() {
+	public LocalDateTime expireCalled(int waitID) {
 	    try (Connection conn = DBManager.getConnection()) {
 	        if (conn == null) {
-	            System.out.println("processCalledTimeouts: DB connection failed");
-	            return;
+	            log.warn("expireCalled: DB connection failed");
+	            return null;
 	        }
 
 	        conn.setAutoCommit(false);
+	        try {
+	            Reservation reservation = waitingListDAO.getReservationByWaitingID(conn, waitID);
+	            if (reservation == null || !"CALLED".equalsIgnoreCase(reservation.getStatus())) {
+	                conn.rollback();
+	                return null;
+	            }
+	            int reservationId = reservation.getReservationID();
 
-	        List<WaitingList> expired = waitingListDAO.fetchExpiredCalled(conn);
-	        if (expired == null || expired.isEmpty()) {
-	            conn.rollback();
-	            return;
-	        }
+	            WaitingList w = waitingListDAO.getWaitingListByReservationId(conn, reservationId);
+	            if (w == null || w.getWaitID() != waitID || !"CALLED".equalsIgnoreCase(w.getStatus())
+	                    || w.getAssignedAt() == null) {
+	                conn.rollback();
+	                return null;
+	            }
 
-	        for (WaitingList w : expired) {
-	            try {
-	                int reservationId = w.getReservationID();
-
-	                Integer seatingId = seatingDAO.getSeatingIdByReservationId(conn, reservationId);
-	                Integer tableId = (seatingId != null) ? seatingDAO.getTableIDBySeatingID(conn, seatingId) : null;
-
-	                Reservation reservation = reservationDAO.getReservationByReservationID(conn, reservationId);
-	                if (reservation == null || reservation.getStatus() == null) {
-	                    
-	                    conn.rollback();
-	                    conn.setAutoCommit(false);
-	                    continue;
-	                }
-
-	                if (!"CALLED".equalsIgnoreCase(reservation.getStatus())) {
-	                    
-	                    conn.rollback();
-	                    conn.setAutoCommit(false);
-	                    continue;
-	                }
-
-	                
-	                boolean waitingCancelled = waitingListDAO.updateWaitingStatus(conn, reservationId, "CANCELLED");
-	                if (!waitingCancelled) {
-	                    conn.rollback();
-	                    conn.setAutoCommit(false);
-	                    continue;
-	                }
-	                
-	                // 2) cancel reservation
-	                boolean reservationCancelled = reservationDAO.updateStatusByReservationID(conn, reservationId, "CANCELLED");
-	                if (!reservationCancelled) {
-	                    conn.rollback();
-	                    conn.setAutoCommit(false);
-	                    continue;
-	                }
-
-	                
-	                conn.commit();
-	                conn.setAutoCommit(false);
-
-	               
-	                if (tableId != null) {
-	                    boolean freed = seatingControl.checkOutCurrentSeating(conn, tableId);
-	                    if (!freed) {
-	                        conn.rollback();
-	                        conn.setAutoCommit(false);
-	                        continue;
-	                    }
-	                    try {
-	                        seatingControl.tryAssignNextFromWaitingList(conn, tableId);
-	                        conn.commit();
-	                        conn.setAutoCommit(false);
-	                    } catch (Exception e) {
-	                        try { conn.rollback(); } catch (Exception ignore) {}
-	                        conn.setAutoCommit(false);
-	                        System.out.println("tryAssignNextFromWaitingList failed for tableId=" + tableId + ": " + e.getMessage());
-	                        
-	                    }
-	                } else {
-	                    conn.rollback();
-	                    conn.setAutoCommit(false);
-	                }
-
-	            } catch (Exception perRow) {
-	                try { conn.rollback(); } catch (Exception ignore) {}
-	                conn.setAutoCommit(false);
-	                System.out.println("processCalledTimeouts per-row failed: " + perRow.getMessage());
+	            LocalDateTime deadline = w.getAssignedAt().plusMinutes(CALLED_TIMEOUT_MINUTES);
+	            if (deadline.isAfter(LocalDateTime.now())) {
+	                conn.rollback();
+	                return deadline;
 	            }
+
+	            Integer seatingId = seatingDAO.getSeatingIdByReservationId(conn, reservationId);
+	            Integer tableId = (seatingId != null) ? seatingDAO.getTableIDBySeatingID(conn, seatingId) : null;
+
+	            // 1) cancel waiting list entry
+	            if (!waitingListDAO.updateWaitingStatus(conn, reservationId, "CANCELLED")) {
+	                conn.rollback();
+	                return null;
+	            }
+
+	            // 2) cancel reservation
+	            if (!reservationDAO.updateStatusByReservationID(conn, reservationId, "CANCELLED")) {
+	                conn.rollback();
+	                return null;
+	            }
+
+	            // 3) free the held table
+	            if (tableId != null && !seatingControl.checkOutCurrentSeating(conn, tableId)) {
+	                conn.rollback();
+	                return null;
+	            }
+
+	            conn.commit();
+	            return null;
+	        } catch (Exception e) {
+	            conn.rollback();
+	            throw e;
+	        } finally {
+	            conn.setAutoCommit(true);
 	        }
-	        
-	        try { conn.commit(); } catch (Exception ignore) {}
 
 	    } catch (Exception e) {
-	        System.out.println("processCalledTimeouts failed: " + e.getMessage());
+	        log.atWarn().setCause(e).log("expireCalled failed for waitID={}", waitID);
+	        return null;
 	    }
 	}
 
@@ -0,0 +1,123 @@
+package controllers;
+
+import java.sql.Connection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import database.DBManager;
+import database.FloorModel;
+
+/**
+ * Calls the next waiting party as soon as a table is freed.
+ *
+ * <p>Main idea: {@link FloorModel} raises "table freed" when a checkout commits, whatever closed the seating (payment in
+ * {@link BillingControl}, a cancelled held seating in {@link ReservationControl}, a CALLED timeout in
+ * {@link WaitingListControl}), once for every table of a pushed-together seating. The promoter runs
+ * {@link SeatingControl#tryAssignNextFromWaitingList(Connection, int)} for that table in its own transaction on a
+ * small worker pool, so the party is called within milliseconds and the request that freed the table does not wait
+ * for the notification.</p>
+ *
+ * <p>Rules:
+ * <ul>
+ *   <li>Per-table serialization: at most one promotion per table runs at a time; events for a table that arrive
+ *       meanwhile are coalesced into one more run after it</li>
+ *   <li>Events are not persisted. {@link #start()} raises one for every free table, so parties left waiting by a
+ *       restart are called too</li>
+ *   <li>Workers: {@code seating_PromoterThreads} (default {@value #DEFAULT_THREADS})</li>
+ * </ul>
+ */
+public class WaitingListPromoter {
+
+	private static final Logger log = LoggerFactory.getLogger(WaitingListPromoter.class);
+
+	private static final int DEFAULT_THREADS = 2;
+
+	private final SeatingControl seatingControl;
+	/** Tables with a promotion queued or running; TRUE when another run was requested meanwhile. */
+	private final ConcurrentHashMap<Integer, Boolean> pending = new ConcurrentHashMap<>();
+	/** Set and cleared under the monitor; read without it by {@link #tableFreed(int)} on committing threads. */
+	private volatile ExecutorService workers;
+
+	public WaitingListPromoter(SeatingControl seatingControl) {
+		this.seatingControl = seatingControl;
+	}
+
+	/**
+	 * starts the workers, subscribes to table-freed events and queues every table that is free right now
+	 */
+	public synchronized void start() {
+		if (workers != null) return;
+		AtomicInteger threadNumber = new AtomicInteger();
+		workers = Executors.newFixedThreadPool(Math.max(1, Integer.getInteger("seating_PromoterThreads", DEFAULT_THREADS)), r -> {
+			Thread t = new Thread(r, "waitingListPromoter-" + threadNumber.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		FloorModel.setTableFreedListener(this::tableFreed);
+		for (FloorModel.TableState table : FloorModel.snapshot()) {
+			if (table.getStatus() == FloorModel.TableStatus.FREE) tableFreed(table.getTableID());
+		}
+	}
+
+	/**
+	 * unsubscribes and stops the workers (a running promotion is interrupted and rolled back)
+	 */
+	public synchronized void stop() {
+		if (workers == null) return;
+		FloorModel.setTableFreedListener(null);
+		workers.shutdownNow();
+		workers = null;
+		pending.clear();
+	}
+
+	/**
+	 * queues a promotion for a freed table; returns at once
+	 * @param tableID table that became free
+	 */
+	public void tableFreed(int tableID) {
+		ExecutorService executor = workers;
+		if (executor == null) return;
+		pending.compute(tableID, (id, rerun) -> {
+			if (rerun != null) return Boolean.TRUE;
+			try {
+				executor.execute(() -> drain(id));
+			} catch (RejectedExecutionException e) {
+				return null; // stopping
+			}
+			return Boolean.FALSE;
+		});
+	}
+
+	private void drain(int tableID) {
+		do {
+			promote(tableID);
+		} while (pending.compute(tableID, (id, rerun) -> Boolean.TRUE.equals(rerun) ? Boolean.FALSE : null) != null);
+	}
+
+	private void promote(int tableID) {
+		try (Connection conn = DBManager.getConnection()) {
+			conn.setAutoCommit(false);
+			try {
+				if (seatingControl.tryAssignNextFromWaitingList(conn, tableID)) {
+					conn.commit();
+				} else {
+					conn.rollback();
+					log.warn("waiting-list promotion failed for tableID={}, rolled back", tableID);
+				}
+			} catch (Exception e) {
+				conn.rollback();
+				throw e;
+			} finally {
+				conn.setAutoCommit(true);
+			}
+		} catch (Exception e) {
+			log.warn("waiting-list promotion failed for tableID={}", tableID, e);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DAO that moves finished reservations from the hot tables into the history ("cold") tables.
+ *
+ * <p>Main idea: {@code reservation}, {@code seating}, {@code bill} and {@code waiting_list} only hold rows that
+ * are still relevant to day-to-day flows. Finished reservations are copied, together with their seatings, bills and
+ * waiting-list entries, into {@code reservation_history}, {@code seating_history}, {@code bill_history} and
+ * {@code waiting_list_history} (same columns, created by migration V5) and deleted from the hot tables.
+ * The extra tables of a combined seating go to {@code seating_joined_table_history} (V11), so archived seatings
+ * keep their full capacity.</p>
+ *
+ * <p>Rules:
+ * <ul>
+ *   <li>Only COMPLETED/CANCELLED/NO_SHOW reservations older than the cutoff date are archived</li>
+ *   <li>Reservations that still have an open seating are never archived</li>
+ *   <li>A reservation and all its child rows move in the same transaction (the caller commits)</li>
+ * </ul>
+ */
+public class ArchiveDAO {
+
+	private static final String RESERVATION_COLUMNS =
+			"reservationID, reservationDate, status, partySize, allocatedCapacity, confirmationCode, "
+			+ "guestContact, userID, startTime, timeOfCreation, contactKey";
+
+	//SELECT
+	private static final String SELECT_ARCHIVABLE_RESERVATION_IDS =
+			"SELECT r.reservationID FROM reservation r "
+			+ "WHERE r.status IN ('COMPLETED','CANCELLED','NO_SHOW') AND r.reservationDate < ? "
+			+ "AND NOT EXISTS (SELECT 1 FROM seating s WHERE s.reservationID = r.reservationID AND s.checkOutTime IS NULL) "
+			+ "ORDER BY r.reservationID "
+			+ "LIMIT ? FOR UPDATE";
+
+	//COPY (the id list is appended as "(?, ?, ...)")
+	private static final String COPY_RESERVATIONS =
+			"INSERT INTO reservation_history (" + RESERVATION_COLUMNS + ") "
+			+ "SELECT " + RESERVATION_COLUMNS + " FROM reservation WHERE reservationID IN ";
+	private static final String COPY_SEATINGS =
+			"INSERT INTO seating_history SELECT * FROM seating WHERE reservationID IN ";
+	private static final String COPY_JOINED_TABLES =
+			"INSERT INTO seating_joined_table_history SELECT j.* FROM seating_joined_table j "
+			+ "JOIN seating s ON s.seatingID = j.seatingID WHERE s.reservationID IN ";
+	private static final String COPY_BILLS =
+			"INSERT INTO bill_history SELECT b.* FROM bill b JOIN seating s ON s.seatingID = b.seatingID WHERE s.reservationID IN ";
+	private static final String COPY_WAITING_LIST =
+			"INSERT INTO waiting_list_history SELECT * FROM waiting_list WHERE reservationID IN ";
+
+	//DELETE (children first, because of the foreign keys)
+	private static final String DELETE_BILLS =
+			"DELETE b FROM bill b JOIN seating s ON s.seatingID = b.seatingID WHERE s.reservationID IN ";
+	private static final String DELETE_JOINED_TABLES =
+			"DELETE j FROM seating_joined_table j JOIN seating s ON s.seatingID = j.seatingID WHERE s.reservationID IN ";
+	private static final String DELETE_SEATINGS = "DELETE FROM seating WHERE reservationID IN ";
+	private static final String DELETE_WAITING_LIST = "DELETE FROM waiting_list WHERE reservationID IN ";
+	private static final String DELETE_RESERVATIONS = "DELETE FROM reservation WHERE reservationID IN ";
+
+	/**
+	 * locks and returns a batch of reservation IDs that can be archived
+	 * @param conn connection with auto-commit disabled
+	 * @param cutoffDate only reservations dated before this day are returned
+	 * @param limit batch size
+	 * @return reservation IDs (empty when nothing is left to archive)
+	 * @throws SQLException
+	 */
+	public List<Integer> lockArchivableReservationIDs(Connection conn, LocalDate cutoffDate, int limit) throws SQLException {
+		if (conn == null) throw new IllegalArgumentException("conn is null");
+
+		List<Integer> ids = new ArrayList<>();
+		try (PreparedStatement ps = conn.prepareStatement(SELECT_ARCHIVABLE_RESERVATION_IDS)) {
+			ps.setDate(1, java.sql.Date.valueOf(cutoffDate));
+			ps.setInt(2, limit);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					ids.add(rs.getInt("reservationID"));
+				}
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * copies the reservations (and their seatings, joined tables, bills and waiting-list rows) to the history tables
+	 * and deletes them from the hot tables
+	 * @param conn connection with auto-commit disabled, the caller commits or rolls back
+	 * @param reservationIDs IDs returned by {@link #lockArchivableReservationIDs(Connection, LocalDate, int)}
+	 * @return number of reservations moved
+	 * @throws SQLException
+	 */
+	public int moveToHistory(Connection conn, List<Integer> reservationIDs) throws SQLException {
+		if (conn == null) throw new IllegalArgumentException("conn is null");
+		if (reservationIDs == null || reservationIDs.isEmpty()) return 0;
+
+		String in = inList(reservationIDs.size());
+
+		executeForIDs(conn, COPY_RESERVATIONS + in, reservationIDs);
+		executeForIDs(conn, COPY_SEATINGS + in, reservationIDs);
+		executeForIDs(conn, COPY_JOINED_TABLES + in, reservationIDs);
+		executeForIDs(conn, COPY_BILLS + in, reservationIDs);
+		executeForIDs(conn, COPY_WAITING_LIST + in, reservationIDs);
+
+		executeForIDs(conn, DELETE_BILLS + in, reservationIDs);
+		executeForIDs(conn, DELETE_JOINED_TABLES + in, reservationIDs);
+		executeForIDs(conn, DELETE_SEATINGS + in, reservationIDs);
+		executeForIDs(conn, DELETE_WAITING_LIST + in, reservationIDs);
+		return executeForIDs(conn, DELETE_RESERVATIONS + in, reservationIDs);
+	}
+
+	/**
+	 * @param conn
+	 * @param sql statement ending with an IN list of {@code ids.size()} placeholders
+	 * @param ids
+	 * @return update count
+	 * @throws SQLException
+	 */
+	private int executeForIDs(Connection conn, String sql, List<Integer> ids) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			int idx = 1;
+			for (int id : ids) {
+				ps.setInt(idx++, id);
+			}
+			return ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * @param size
+	 * @return "(?, ?, ...)" with {@code size} placeholders
+	 */
+	private static String inList(int size) {
+		StringBuilder sb = new StringBuilder("(");
+		for (int i = 0; i < size; i++) {
+			sb.append(i == 0 ? "?" : ", ?");
+		}
+		return sb.append(')').toString();
+	}
+}
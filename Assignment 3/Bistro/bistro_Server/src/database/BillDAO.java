@@ -9,6 +9,9 @@ import java.sql.Timestamp;
 import java.time.LocalDateTime;
 
 import entities.Bill;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 /**
  * DAO for the {@code bill} table.
  *
@@ -18,6 +21,8 @@ import entities.Bill;
  */
 public class BillDAO {
 
+	private static final Logger log = LoggerFactory.getLogger(BillDAO.class);
+
 	private static final String INSERT_NEW_BILL ="INSERT INTO bill (seatingID, totalPrice, status, createdAt, paidAt) VALUES (?, ?, ?, ?, ?)";
 	private static final String SELECT_OPEN_BILL_TOTAL_BY_SEATING_ID =
 			"SELECT totalPrice FROM bill WHERE seatingID = ? AND status = 'OPEN' ORDER BY createdAt DESC LIMIT 1";
@@ -53,7 +58,7 @@ public class BillDAO {
 			return rs.next() ? rs.getInt(1) : -1;
 
 		} catch (SQLException e) {
-			System.err.println("Database error: could not insert new bill");
+			log.error("Database error: could not insert new bill");
 			throw e;
 		}
 	}
@@ -123,7 +128,7 @@ public class BillDAO {
 	            return rs.getDouble("totalPrice");
 	        }
 	    } catch (SQLException e) {
-	        System.err.println("DB error fetching OPEN bill total by seatingID=" + seatingId);
+	        log.error("DB error fetching OPEN bill total by seatingID={}", seatingId);
 	        throw e;
 	    }
 	}
@@ -0,0 +1,23 @@
+package database;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for the time {@link DBManager#getConnection()} waits for the connection pool.
+ * Long borrow waits mean the pool is exhausted (see also {@code server.ServerEvents}).
+ */
+@Name("bistro.ConnectionBorrow")
+@Label("DB Connection Borrow")
+@Category({ "Bistro", "Database" })
+@StackTrace(false)
+public class ConnectionBorrowEvent extends jdk.jfr.Event {
+
+	@Label("Pool")
+	public String pool;
+
+	@Label("Success")
+	public boolean success;
+}
@@ -0,0 +1,56 @@
+package database;
+
+import java.util.Locale;
+
+/**
+ * Normalized form of a guest contact (email or phone), stored in {@code reservation.contactKey}.
+ *
+ * <p>Main idea: guests type the same contact in different ways ("Dana@Mail.com ", "050-123 4567", "+972501234567").
+ * Lookups compare the normalized key instead of the raw string, so near-duplicates still match.</p>
+ *
+ * <p>Rules:
+ * <ul>
+ *   <li>Email (contains {@code @}): trimmed and lower-cased</li>
+ *   <li>Phone: reduced to digits in E.164 form; local numbers (leading {@code 0}) and numbers without a
+ *       country code get the default {@code +972} prefix, {@code 00} is treated as the international prefix</li>
+ *   <li>Anything else: trimmed and lower-cased</li>
+ * </ul>
+ */
+public class ContactKey {
+
+	private static final String DEFAULT_COUNTRY_CODE = "972";
+
+	private ContactKey() {}
+
+	/**
+	 * @param raw contact as typed by the guest
+	 * @return normalized key, or null for a null/blank contact
+	 */
+	public static String normalize(String raw) {
+		if (raw == null || raw.isBlank()) return null;
+		String c = raw.trim();
+
+		if (c.contains("@")) {
+			return c.toLowerCase(Locale.ROOT);
+		}
+
+		String digits = c.replaceAll("[^0-9]", "");
+		if (digits.isEmpty()) {
+			return c.toLowerCase(Locale.ROOT);
+		}
+
+		if (c.startsWith("+")) {
+			return "+" + digits;
+		}
+		if (digits.startsWith("00")) {
+			return "+" + digits.substring(2);
+		}
+		if (digits.startsWith("0")) {
+			return "+" + DEFAULT_COUNTRY_CODE + digits.substring(1);
+		}
+		if (digits.startsWith(DEFAULT_COUNTRY_CODE)) {
+			return "+" + digits;
+		}
+		return "+" + DEFAULT_COUNTRY_CODE + digits;
+	}
+}
@@ -4,16 +4,57 @@ import com.zaxxer.hikari.HikariDataSource;
 
 
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Static holder of the JDBC connection pool.
+ *
+ * <p>Profiles (property {@code db_Profile}, or the {@code -Ddb_Profile=...} system property):
+ * <ul>
+ *   <li>{@code mysql} (default): the MySQL server given by {@code db_Url}/{@code db_User}/{@code db_Pass}</li>
+ *   <li>{@code embedded}: a throw-away MariaDB run by the server process itself ({@link EmbeddedDatabase},
+ *       {@code embedded_BaseDir}/{@code embedded_DataDir}/{@code embedded_Port}), or the local database given by
+ *       {@code embedded_Url}. On every start it is wiped and rebuilt by {@link SchemaBootstrap} from
+ *       {@code embedded_Schema} (default {@code G13_Assignment3_DB.sql}) and {@code embedded_Seed} (default
+ *       {@code embedded_seed.sql} on the classpath, blank to skip), so benchmark runs are comparable.
+ *       {@link SchemaBootstrap} refuses a URL that is not local or a schema not marked as throw-away.
+ *       {@code embedded_GenerateReservations} additionally fills it with that many synthetic reservations
+ *       ({@link WorkloadGenerator})</li>
+ * </ul>
+ * {@code db_SlowQueryMillis} (default 200) sets the threshold of the slow-query log of {@link SqlStatistics};
+ * {@code db_LogSqlBinds} (default false) shows bind values in it instead of masking them.
+ * {@code db_PoolSize} (default 10) and {@code db_MinIdle} (default 2) size the connection pool.
+ * Any property can also be given as a system property, which wins over the file.
+ */
 public class DBManager {
+	private static final Logger log = LoggerFactory.getLogger(DBManager.class);
+
+	public static final String PROFILE_MYSQL = "mysql";
+	public static final String PROFILE_EMBEDDED = "embedded";
+	
 	private static HikariDataSource dataSource;
+	private static String db_Profile;
 	private static String db_Url;
 	private static String db_User;
 	private static String db_Pass;
+	private static String embedded_Schema;
+	private static String embedded_Seed;
+	private static String embedded_BaseDir;
+	private static String embedded_DataDir;
+	private static int embedded_Port;
+	private static boolean embeddedStarted;
+	private static long embedded_GenerateReservations;
+	private static int db_PoolSize;
+	private static int db_MinIdle;
 	private DBManager() {}
 	
 	
@@ -25,6 +66,9 @@ public class DBManager {
 		if (dataSource != null) return;
 		
 		dbLoadDetails();
+		if (PROFILE_EMBEDDED.equals(db_Profile) && db_Url == null) {
+			startEmbedded();
+		}
 		
 		HikariConfig config = new HikariConfig();		
 		
@@ -32,8 +76,8 @@ public class DBManager {
 		config.setUsername(db_User);
 		config.setPassword(db_Pass);
 		
-		config.setMaximumPoolSize(10);
-		config.setMinimumIdle(2);
+		config.setMaximumPoolSize(db_PoolSize);
+		config.setMinimumIdle(Math.min(db_MinIdle, db_PoolSize));
 		
 		config.setConnectionTimeout(10_000);
         config.setIdleTimeout(60_000);
@@ -42,11 +86,119 @@ public class DBManager {
         config.setPoolName("BistroPool");
 	     
 		dataSource = new HikariDataSource(config);
+		
+		if (PROFILE_EMBEDDED.equals(db_Profile)) {
+			rebuildEmbedded();
+		} else {
+			runMigrations();
+		}
+		loadInMemoryModels();
+	}
+	
+	/**
+	 * opens {@code db_MinIdle} physical connections before the first request
+	 * (Hikari otherwise creates them in the background while clients are already waiting)
+	 * @return number of connections held open at once
+	 * @throws SQLException
+	 */
+	public static int fillPool() throws SQLException {
+		if(dataSource ==null) 
+			throw new IllegalStateException("DBManager not initialized");
+		List<Connection> held = new ArrayList<>();
+		try {
+			for (int i = 0; i < Math.min(db_MinIdle, db_PoolSize); i++) {
+				held.add(dataSource.getConnection());
+			}
+		} finally {
+			for (Connection conn : held) {
+				conn.close();
+			}
+		}
+		return held.size();
+	}
+	
+	/**
+	 * @return the active profile ({@link #PROFILE_MYSQL} or {@link #PROFILE_EMBEDDED}), null before {@link #init()}
+	 */
+	public static String getProfile() {
+		return db_Profile;
+	}
+	
+	/**
+	 * embedded profile without {@code embedded_Url}: starts the embedded MariaDB and connects to its schema
+	 */
+	private static void startEmbedded() {
+		try {
+			db_Url = EmbeddedDatabase.start(embedded_BaseDir, embedded_DataDir, embedded_Port);
+			embeddedStarted = true;
+		} catch (SQLException e) {
+			throw new RuntimeException("Failed to start embedded database.", e);
+		}
+	}
+	
+	/**
+	 * embedded profile: wipes the database and rebuilds it from the schema and seed scripts
+	 */
+	private static void rebuildEmbedded() {
+		try (Connection conn = dataSource.getConnection()) {
+			buildEmbedded(conn, embedded_Schema, embedded_Seed, embedded_GenerateReservations);
+		} catch (SQLException | IOException e) {
+			dbShutDown();
+			throw new RuntimeException("Failed to build embedded database.", e);
+		}
+	}
+
+	/**
+	 * rebuilds a throw-away schema from the schema and seed scripts, then fills it with synthetic reservations,
+	 * which continue after the seed's rows
+	 * @param conn connection to the schema
+	 * @param schemaScript the schema dump
+	 * @param seedScript seed script, null or blank to skip
+	 * @param generateReservations synthetic reservations to generate, 0 for none
+	 * @throws SQLException
+	 * @throws IOException if a script cannot be read
+	 */
+	static void buildEmbedded(Connection conn, String schemaScript, String seedScript, long generateReservations)
+			throws SQLException, IOException {
+		SchemaBootstrap.rebuild(conn, schemaScript, seedScript);
+		if (generateReservations > 0) {
+			new WorkloadGenerator().reservations(generateReservations).generate(conn);
+		}
+	}
+	
+	/**
+	 * brings the schema up to date with {@link SchemaMigrator} before the server starts serving requests
+	 */
+	private static void runMigrations() {
+		try (Connection conn = dataSource.getConnection()) {
+			int applied = SchemaMigrator.migrate(conn);
+			log.info("Schema up to date ({} migration(s) applied).", applied);
+		} catch (SQLException e) {
+			dbShutDown();
+			throw new RuntimeException("Failed to migrate database schema.", e);
+		}
+	}
+	
+	/**
+	 * builds the in-memory {@link FloorModel} (tables and open seatings), {@link WaitingQueue} (WAITING entries) and
+	 * {@link SeatingDurations} (recent seating lengths) before the server serves requests
+	 */
+	private static void loadInMemoryModels() {
+		try (Connection conn = dataSource.getConnection()) {
+			FloorModel.reload(conn, new TableDAO(), new SeatingDAO());
+			WaitingQueue.reload(conn, new WaitingListDAO());
+			SeatingDurations.reload(conn, new SeatingDAO());
+		} catch (SQLException e) {
+			dbShutDown();
+			throw new RuntimeException("Failed to load the floor model, waiting list and seating durations.", e);
+		}
 	}
 	
 	/**
 	 * method to retrieve a JDBC connection from the connection pool
 	 * THE CONNECTION MUST BE CLOSED AFTER USE TO RETURN IT TO THE POOL
+	 * the connection is wrapped by {@link JdbcTiming} so request metrics can report database time,
+	 * the pool wait is recorded as a {@link ConnectionBorrowEvent}
 	 * 
 	 * @return a pooled connection ready for database use
 	 * @throws SQLException when database access error occurs
@@ -55,7 +207,21 @@ public class DBManager {
 	public static Connection getConnection() throws SQLException{
 		if(dataSource ==null) 
 			throw new IllegalStateException("DBManager not initialized");
-		return dataSource.getConnection();			
+		ConnectionBorrowEvent borrow = new ConnectionBorrowEvent();
+		borrow.begin();
+		long start = System.nanoTime();
+		Connection conn = null;
+		try {
+			conn = dataSource.getConnection();
+		} finally {
+			borrow.end();
+			if (borrow.shouldCommit()) {
+				borrow.pool = dataSource.getPoolName();
+				borrow.success = conn != null;
+				borrow.commit();
+			}
+		}
+		return JdbcTiming.wrap(conn, System.nanoTime() - start);
 	}
 	
 	
@@ -67,6 +233,10 @@ public class DBManager {
 			dataSource.close();
 			dataSource=null;
 		}
+		if (embeddedStarted) {
+			EmbeddedDatabase.stop();
+			embeddedStarted = false;
+		}
 	}
 	
 	/**
@@ -98,13 +268,37 @@ public class DBManager {
 				}
 			}
 			
+			db_Profile = property(props, "db_Profile", PROFILE_MYSQL).toLowerCase();
+			if (!PROFILE_MYSQL.equals(db_Profile) && !PROFILE_EMBEDDED.equals(db_Profile))
+				throw new RuntimeException("Unknown db_Profile: " + db_Profile);
+			
 			//read values from file
-			db_Url = props.getProperty("db_Url").trim();
-            db_User = props.getProperty("db_User").trim();
-            db_Pass = props.getProperty("db_Pass").trim();
+			if (PROFILE_EMBEDDED.equals(db_Profile)) {
+				db_Url = property(props, "embedded_Url", null);
+				if (db_Url != null && db_Url.isBlank()) db_Url = null;
+				if (db_Url != null && !SchemaBootstrap.isLocalUrl(db_Url))
+					throw new RuntimeException("embedded_Url must point to this machine, its schema is wiped on start: " + db_Url);
+				db_User = property(props, "embedded_User", "root");
+				db_Pass = property(props, "embedded_Pass", "");
+				embedded_Schema = property(props, "embedded_Schema", "G13_Assignment3_DB.sql");
+				embedded_Seed = property(props, "embedded_Seed", "embedded_seed.sql");
+				embedded_BaseDir = property(props, "embedded_BaseDir", null);
+				embedded_DataDir = property(props, "embedded_DataDir", null);
+				embedded_Port = Integer.parseInt(property(props, "embedded_Port", "0"));
+				embedded_GenerateReservations = Long.parseLong(property(props, "embedded_GenerateReservations", "0"));
+				System.out.println("Using EMBEDDED database profile.");
+			} else {
+				db_Url = property(props, "db_Url", null);
+				db_User = property(props, "db_User", null);
+				db_Pass = property(props, "db_Pass", null);
+			}
+			db_PoolSize = Integer.parseInt(property(props, "db_PoolSize", "10"));
+			db_MinIdle = Integer.parseInt(property(props, "db_MinIdle", "2"));
+			SqlStatistics.setSlowThresholdMillis(Long.parseLong(property(props, "db_SlowQueryMillis", "200")));
+			SqlStatistics.setLogBindValues(Boolean.parseBoolean(property(props, "db_LogSqlBinds", "false")));
             
             //validate that got the details from file
-            if (db_Url == null || db_Url.isBlank()) throw new RuntimeException("Missing property: db_Url");
+            if (!PROFILE_EMBEDDED.equals(db_Profile) && (db_Url == null || db_Url.isBlank())) throw new RuntimeException("Missing property: db_Url");
                
             if (db_User == null || db_User.isBlank()) throw new RuntimeException("Missing property: db_User");
                
@@ -112,7 +306,7 @@ public class DBManager {
                
 
             //debugging 
-            System.out.println(db_Url);
+            System.out.println(db_Url == null ? "(embedded MariaDB)" : db_Url);
             System.out.println(db_User);                                    						
 				
 		}catch(Exception e) {
@@ -120,5 +314,15 @@ public class DBManager {
 		}
 	}
 	
+	/**
+	 * @param props values loaded from dbDetails.properties
+	 * @param key
+	 * @param defaultValue
+	 * @return trimmed value of the system property, else of the file, else the default
+	 */
+	private static String property(Properties props, String key, String defaultValue) {
+		String value = System.getProperty(key, props.getProperty(key, defaultValue));
+		return value == null ? null : value.trim();
+	}
 	
 }
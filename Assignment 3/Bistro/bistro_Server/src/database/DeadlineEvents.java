@@ -0,0 +1,59 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Deadlines created by DAO writes, reported to the scheduler that acts on them once the write is committed.
+ *
+ * <p>Main idea: reminders, no-show cutoffs and CALLED timeouts follow from rows in the database (a reservation's
+ * {@code startAt}, a waiting-list entry's {@code assignedAt}). The scheduler rebuilds its timers from those rows at
+ * startup; afterwards the DAOs report new and moved deadlines here, through {@link TransactionSync}, so nothing is
+ * scheduled for a write that rolls back. Reports may repeat or go stale (an edited reservation reports its new
+ * start only), so the scheduler re-checks the database when a deadline fires.</p>
+ */
+public class DeadlineEvents {
+
+	/** Receives the deadlines; called on the committing thread and must only hand them off. */
+	public interface Listener {
+
+		/**
+		 * a NEW/CONFIRMED reservation starts at {@code startAt}
+		 * @param startAt start of the reservation
+		 */
+		void reservationScheduled(LocalDateTime startAt);
+
+		/**
+		 * a waiting-list entry was marked CALLED
+		 * @param waitID waiting list primary key
+		 * @param calledAt time of the call
+		 */
+		void waitingCalled(int waitID, LocalDateTime calledAt);
+	}
+
+	private static volatile Listener listener;
+
+	private DeadlineEvents() {}
+
+	/**
+	 * @param newListener receives the deadlines, null to remove
+	 */
+	public static void setListener(Listener newListener) {
+		listener = newListener;
+	}
+
+	static void reservationScheduled(Connection conn, LocalDateTime startAt) throws SQLException {
+		TransactionSync.register(conn, () -> {
+			Listener l = listener;
+			if (l != null) l.reservationScheduled(startAt);
+		}, null);
+	}
+
+	static void waitingCalled(Connection conn, int waitID, LocalDateTime calledAt) throws SQLException {
+		TransactionSync.register(conn, () -> {
+			Listener l = listener;
+			if (l != null) l.waitingCalled(waitID, calledAt);
+		}, null);
+	}
+}
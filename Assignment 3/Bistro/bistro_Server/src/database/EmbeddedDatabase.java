@@ -0,0 +1,88 @@
+package database;
+
+import java.io.File;
+import java.sql.SQLException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+/**
+ * MariaDB server run by the server process itself, for the {@code embedded} profile of {@link DBManager}.
+ *
+ * <p>Main idea: MariaDB4j starts the MariaDB binaries as a child process on a free local port, with a data directory
+ * of its own, and stops them when the JVM exits. Nothing has to be installed or running on the machine. The schema
+ * it serves is throw-away: {@link SchemaBootstrap} rebuilds it on every start.</p>
+ *
+ * <p>Binaries, in this order:
+ * <ul>
+ *   <li>{@code embedded_BaseDir}: an unpacked MariaDB distribution (for example the Windows zip), used as is</li>
+ *   <li>otherwise the {@code mariaDB4j-db-<platform>} jar on the classpath, unpacked to the temp directory. It is too
+ *       large for the repository, see the README for where to put it</li>
+ * </ul>
+ * {@code embedded_DataDir} keeps the data files in a fixed directory (default: a temp directory deleted on exit),
+ * {@code embedded_Port} fixes the port (default: any free port).</p>
+ */
+public class EmbeddedDatabase {
+
+	/** Schema created in the embedded server. */
+	public static final String SCHEMA = "bistro_embedded";
+
+	private static final Logger log = LoggerFactory.getLogger(EmbeddedDatabase.class);
+	private static DB db;
+
+	private EmbeddedDatabase() {}
+
+	/**
+	 * starts the embedded server (once per process) and creates {@link #SCHEMA}
+	 * @param baseDir unpacked MariaDB distribution, null to unpack the binaries from the classpath
+	 * @param dataDir data directory, null for a temp directory
+	 * @param port TCP port, 0 for any free port
+	 * @return JDBC URL of {@link #SCHEMA}
+	 * @throws SQLException if the server does not start
+	 */
+	static synchronized String start(String baseDir, String dataDir, int port) throws SQLException {
+		DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+		config.setPort(port);
+		if (baseDir != null && !baseDir.isBlank()) {
+			config.setUnpackingFromClasspath(false);
+			config.setBaseDir(new File(baseDir));
+		}
+		if (dataDir != null && !dataDir.isBlank()) {
+			config.setDataDir(new File(dataDir));
+		}
+		// mariadbd refuses to run as root unless told to
+		if (!config.isWindows() && "root".equals(System.getProperty("user.name"))) {
+			config.addArg("--user=root");
+		}
+		try {
+			if (db == null) {
+				DB started = DB.newEmbeddedDB(config.build());
+				started.start();
+				db = started;
+				log.info("Embedded DB: MariaDB started on port {}", db.getConfiguration().getPort());
+			}
+			db.createDB(SCHEMA);
+		} catch (ManagedProcessException e) {
+			throw new SQLException("Could not start the embedded MariaDB server", e);
+		}
+		return "jdbc:mysql://localhost:" + db.getConfiguration().getPort() + "/" + SCHEMA
+				+ "?useSSL=false&allowPublicKeyRetrieval=true";
+	}
+
+	/**
+	 * stops the embedded server, if it runs
+	 */
+	static synchronized void stop() {
+		if (db == null) return;
+		try {
+			db.stop();
+		} catch (ManagedProcessException e) {
+			log.atWarn().setCause(e).log("Embedded DB: stop failed");
+		}
+		db = null;
+	}
+}
@@ -0,0 +1,677 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+import allocation.AllocationPolicy;
+import allocation.Floor;
+import entities.Seating;
+import entities.Table;
+
+/**
+ * Authoritative in-memory model of the restaurant floor: every active table with its current state.
+ *
+ * <p>Main idea: check-in, walk-in, checkout and waiting-list promotion only need "which table is free" and
+ * "who sits at table X". Instead of querying {@code seating} each time, the model keeps that state:
+ * <ul>
+ *   <li>{@link TableStatus#FREE} - no open seating; handed to an {@link AllocationPolicy} together with the
+ *       table layout ({@link #claimTables(Connection, AllocationPolicy, int, List)})</li>
+ *   <li>{@link TableStatus#CLAIMED} - owned by an open transaction: picked for a new seating that is not inserted yet,
+ *       or being checked out</li>
+ *   <li>{@link TableStatus#HELD} - open seating without check-in time (waiting-list customer was called)</li>
+ *   <li>{@link TableStatus#OCCUPIED} - open seating with check-in time</li>
+ * </ul>
+ * A party seated at pushed-together tables has one seating; each of those tables carries its seating ID,
+ * and the seating's own table ({@code seating.tableID}) comes first in {@link #getTablesBySeating(int)}.
+ *
+ * <p>Free tables are not indexed by capacity: a policy weighs runs of neighbours in a row against single tables,
+ * so it is handed the whole layout with a free mask, built per allocation in one pass over the tables (tens on a
+ * restaurant floor).</p>
+ *
+ * <p>Consistency with the database:
+ * <ul>
+ *   <li>Rebuilt from {@code restaurant_table}, the open {@code seating} rows and their {@code seating_joined_table} rows by
+ *       {@link #reload(Connection, TableDAO, SeatingDAO)} when {@link DBManager#init()} runs</li>
+ *   <li>Changed only by the DAO writes, through {@link TransactionSync}. Taking a table (claim, seat, hold) is applied at once,
+ *       so concurrent transactions cannot pick the same table, and undone on rollback. A checkout keeps the tables claimed by
+ *       its transaction (which may seat the next waiting customer there) and frees them on commit, so nobody else is seated
+ *       at a table whose checkout may still roll back. Table edits are applied on commit</li>
+ *   <li>Several servers sharing the database each keep their own model. {@link TableDAO} locks the rows of the tables it
+ *       takes and checks them for open seatings; a seating another server opened is recorded here with
+ *       {@link #seatedElsewhere(int, int, int, LocalDateTime)}, so a table is never seated twice. Checkouts and table edits
+ *       on another server are picked up by {@link #reconcile(Connection, TableDAO, SeatingDAO)}, which the scheduler
+ *       runs every minute while other servers are alive: a table taken here without an open seating in the database
+ *       is freed</li>
+ * </ul>
+ *
+ * <p>Tables that become free because a checkout committed (or because a table was added) are reported to the
+ * {@link #setTableFreedListener(IntConsumer) table-freed listener}, which calls the next waiting party.
+ * The committed checkout of a checked-in seating is also recorded in {@link SeatingDurations}.</p>
+ *
+ * <p>Like {@link DBManager}, this is a process-wide static holder, since controllers create their own DAO instances.</p>
+ */
+public class FloorModel {
+
+	public enum TableStatus { FREE, CLAIMED, HELD, OCCUPIED }
+
+	/** Immutable state of one table; a change replaces the instance. */
+	public static final class TableState {
+		private final int tableID;
+		private final int tableNumber;
+		private final int capacity;
+		private final Integer combineGroup;
+		private final TableStatus status;
+		private final Integer seatingID;
+		private final Integer reservationID;
+		private final LocalDateTime checkInTime;
+		/** Transaction holding a {@link TableStatus#CLAIMED} table. */
+		private final TransactionSync owner;
+
+		TableState(Table table, TableStatus status, Integer seatingID, Integer reservationID) {
+			this(table.getTableID(), table.getTableNumber(), table.getCapacity(), table.getCombineGroup(),
+					status, seatingID, reservationID, null, null);
+		}
+
+		private TableState(int tableID, int tableNumber, int capacity, Integer combineGroup, TableStatus status,
+				Integer seatingID, Integer reservationID, LocalDateTime checkInTime, TransactionSync owner) {
+			this.tableID = tableID;
+			this.tableNumber = tableNumber;
+			this.capacity = capacity;
+			this.combineGroup = combineGroup;
+			this.status = status;
+			this.seatingID = seatingID;
+			this.reservationID = reservationID;
+			this.checkInTime = checkInTime;
+			this.owner = owner;
+		}
+
+		public int getTableID() {
+			return tableID;
+		}
+
+		public int getTableNumber() {
+			return tableNumber;
+		}
+
+		public int getCapacity() {
+			return capacity;
+		}
+
+		public TableStatus getStatus() {
+			return status;
+		}
+
+		/** @return open seating on the table, null when free or claimed */
+		public Integer getSeatingID() {
+			return seatingID;
+		}
+
+		/** @return reservation of the open seating, null when free or claimed */
+		public Integer getReservationID() {
+			return reservationID;
+		}
+
+		/** @return check-in time of the open seating, null unless {@link TableStatus#OCCUPIED} */
+		public LocalDateTime getCheckInTime() {
+			return checkInTime;
+		}
+
+		public Table toTable() {
+			return new Table(tableID, tableNumber, capacity, combineGroup);
+		}
+
+		private TableState with(TableStatus newStatus, Integer newSeatingID, Integer newReservationID, LocalDateTime newCheckInTime) {
+			return new TableState(tableID, tableNumber, capacity, combineGroup, newStatus, newSeatingID, newReservationID,
+					newCheckInTime, null);
+		}
+
+		private TableState claimedBy(TransactionSync claimant) {
+			return new TableState(tableID, tableNumber, capacity, combineGroup, TableStatus.CLAIMED, null, null, null, claimant);
+		}
+
+		private TableState withCapacity(int newCapacity) {
+			return new TableState(tableID, tableNumber, newCapacity, combineGroup, status, seatingID, reservationID,
+					checkInTime, owner);
+		}
+	}
+
+	private static final Comparator<TableState> BY_NUMBER = Comparator.comparingInt(TableState::getTableNumber);
+
+	private static final Map<Integer, TableState> tables = new HashMap<>();
+	private static final Map<Integer, Integer> tableIdByNumber = new HashMap<>();
+	/** Tables of each open seating, the seating's own table first. */
+	private static final Map<Integer, List<Integer>> tableIdsBySeating = new HashMap<>();
+	/** Layout handed to the allocation policies; reset by table edits and rebuilt by the next allocation. */
+	private static Floor layout;
+	private static boolean loaded;
+	/** Seatings inserted by transactions that have not ended: not visible to other connections yet. */
+	private static final Set<Integer> uncommittedSeatings = new HashSet<>();
+	private static volatile IntConsumer tableFreedListener;
+
+	private FloorModel() {}
+
+	/**
+	 * rebuilds the model from the active tables and the open seatings
+	 * @param conn active JDBC connection
+	 * @param tableDAO DAO used to read the tables
+	 * @param seatingDAO DAO used to read the open seatings
+	 * @throws SQLException
+	 */
+	public static synchronized void reload(Connection conn, TableDAO tableDAO, SeatingDAO seatingDAO) throws SQLException {
+		Map<Integer, TableState> stored = readDatabase(conn, tableDAO, seatingDAO);
+
+		tables.clear();
+		tableIdByNumber.clear();
+		tableIdsBySeating.clear();
+		layout = null;
+		for (TableState state : stored.values()) {
+			put(state);
+			tableIdByNumber.put(state.getTableNumber(), state.getTableID());
+		}
+		loaded = true;
+	}
+
+	/**
+	 * brings the model in line with the database after other servers wrote to it, without disturbing the transactions
+	 * of this server: tables claimed by an open transaction, or carrying a seating it has not committed yet, are left
+	 * alone. Every other table takes the state of the database, so a table taken here whose seating was closed
+	 * elsewhere becomes free (and is reported to the table-freed listener), a seating opened elsewhere is recorded, and
+	 * tables added, edited or deactivated elsewhere follow. Reads the database under the model lock, like
+	 * {@link #reload(Connection, TableDAO, SeatingDAO)}, so commits of this server are applied before or after it.
+	 * @param conn active JDBC connection (auto-commit, so it reads the latest committed state)
+	 * @param tableDAO DAO used to read the tables
+	 * @param seatingDAO DAO used to read the open seatings
+	 * @return number of tables whose state changed
+	 * @throws SQLException
+	 */
+	public static int reconcile(Connection conn, TableDAO tableDAO, SeatingDAO seatingDAO) throws SQLException {
+		List<Integer> freed = new ArrayList<>();
+		int changed = 0;
+		synchronized (FloorModel.class) {
+			checkLoaded();
+			Map<Integer, TableState> stored = readDatabase(conn, tableDAO, seatingDAO);
+			for (TableState current : new ArrayList<>(tables.values())) {
+				if (stored.containsKey(current.getTableID()) || busyHere(current)) continue;
+				unmapSeating(current);
+				tables.remove(current.getTableID());
+				tableIdByNumber.remove(current.getTableNumber(), current.getTableID());
+				layout = null;
+				changed++;
+			}
+			for (TableState target : stored.values()) {
+				TableState current = tables.get(target.getTableID());
+				if (current == null) {
+					put(target);
+					tableIdByNumber.put(target.getTableNumber(), target.getTableID());
+					layout = null;
+					if (target.getStatus() == TableStatus.FREE) freed.add(target.getTableID());
+					changed++;
+					continue;
+				}
+				if (busyHere(current)) continue;
+				boolean sameTable = current.getTableNumber() == target.getTableNumber()
+						&& current.getCapacity() == target.getCapacity()
+						&& Objects.equals(current.combineGroup, target.combineGroup);
+				boolean sameSeating = current.getStatus() == target.getStatus()
+						&& Objects.equals(current.getSeatingID(), target.getSeatingID());
+				if (sameTable && sameSeating) continue;
+				if (!sameTable) {
+					tableIdByNumber.remove(current.getTableNumber(), current.getTableID());
+					tableIdByNumber.put(target.getTableNumber(), target.getTableID());
+					layout = null;
+				}
+				// same seating: keep the check-in time recorded here, the database only has the time of day
+				put(sameSeating ? new TableState(target.getTableID(), target.getTableNumber(), target.getCapacity(),
+						target.combineGroup, current.getStatus(), current.getSeatingID(), current.getReservationID(),
+						current.getCheckInTime(), null) : target);
+				if (target.getStatus() == TableStatus.FREE && current.getStatus() != TableStatus.FREE) freed.add(target.getTableID());
+				changed++;
+			}
+		}
+		for (int tableID : freed) {
+			tableFreed(tableID);
+		}
+		return changed;
+	}
+
+	/**
+	 * reports every free table to the table-freed listener, e.g. after waiting parties were added to
+	 * {@link WaitingQueue} by its reconciliation
+	 */
+	public static void announceFreeTables() {
+		List<Integer> free = new ArrayList<>();
+		synchronized (FloorModel.class) {
+			checkLoaded();
+			for (TableState state : tables.values()) {
+				if (state.getStatus() == TableStatus.FREE) free.add(state.getTableID());
+			}
+		}
+		for (int tableID : free) {
+			tableFreed(tableID);
+		}
+	}
+
+	/**
+	 * lets the policy pick free tables for a party and takes them for the current transaction.
+	 * Tables are released again when the transaction ends without seating anyone at them.
+	 * @param conn connection of the check-in transaction
+	 * @param policy allocation policy
+	 * @param partySize party to seat
+	 * @param upcoming party sizes of the reservations expected while this party is seated (empty when not applicable)
+	 * @return the claimed tables (the one that carries the seating first), or null if the party should wait
+	 * @throws SQLException
+	 */
+	public static List<Table> claimTables(Connection conn, AllocationPolicy policy, int partySize, List<Integer> upcoming)
+			throws SQLException {
+		TransactionSync owner = TransactionSync.of(conn);
+		List<Table> claimed = new ArrayList<>();
+		synchronized (FloorModel.class) {
+			checkLoaded();
+			Floor floor = layout();
+			boolean[] free = new boolean[floor.size()];
+			for (int i = 0; i < free.length; i++) {
+				free[i] = tables.get(floor.table(i).getTableID()).getStatus() == TableStatus.FREE;
+			}
+			int[] chosen = policy.allocate(floor, free, partySize, upcoming);
+			if (chosen == null) return null;
+			for (int position : chosen) {
+				TableState state = tables.get(floor.table(position).getTableID());
+				put(state.claimedBy(owner));
+				claimed.add(state.toTable());
+			}
+		}
+		for (Table table : claimed) {
+			Runnable release = () -> releaseClaim(table.getTableID(), owner);
+			TransactionSync.register(conn, release, release);
+		}
+		return claimed;
+	}
+
+	/**
+	 * takes a specific table for the current transaction, if it is free (or already claimed by this transaction,
+	 * e.g. because it checked the table out)
+	 * @param conn connection of the transaction
+	 * @param tableID table to take
+	 * @return true if the table is now claimed by this transaction
+	 * @throws SQLException
+	 */
+	public static boolean claimTable(Connection conn, int tableID) throws SQLException {
+		TransactionSync owner = TransactionSync.of(conn);
+		synchronized (FloorModel.class) {
+			checkLoaded();
+			TableState state = tables.get(tableID);
+			if (state == null) return false;
+			if (state.getStatus() == TableStatus.CLAIMED && owner != null && state.owner == owner) return true;
+			if (state.getStatus() != TableStatus.FREE) return false;
+			put(state.claimedBy(owner));
+		}
+		Runnable release = () -> releaseClaim(tableID, owner);
+		TransactionSync.register(conn, release, release);
+		return true;
+	}
+
+	/**
+	 * gives back tables the current transaction claimed but will not seat anyone at
+	 * @param conn connection of the transaction
+	 * @param claimed tables from {@link #claimTables(Connection, AllocationPolicy, int, List)}
+	 * @throws SQLException
+	 */
+	static void releaseClaims(Connection conn, List<Table> claimed) throws SQLException {
+		TransactionSync owner = TransactionSync.of(conn);
+		for (Table table : claimed) {
+			releaseClaim(table.getTableID(), owner);
+		}
+	}
+
+	/**
+	 * records an open seating found in the database on a table this model had as free or claimed: another server
+	 * seated it. The table takes the seating's state (dropping any claim on it), so it is not picked again.
+	 * @param tableID table of the seating
+	 * @param seatingID open seating
+	 * @param reservationID reservation of the seating
+	 * @param checkInTime check-in time, null for a held seating
+	 */
+	static synchronized void seatedElsewhere(int tableID, int seatingID, int reservationID, LocalDateTime checkInTime) {
+		checkLoaded();
+		TableState state = tables.get(tableID);
+		if (state == null) return;
+		put(state.with(checkInTime == null ? TableStatus.HELD : TableStatus.OCCUPIED, seatingID, reservationID, checkInTime));
+	}
+
+	/**
+	 * @param partySize
+	 * @param maxTables most tables pushed together ({@link AllocationPolicy#maxTables()})
+	 * @return capacity a reservation of this size is booked against, or -1 if it fits nowhere ({@link Floor#capacityFor(int, int)})
+	 */
+	public static synchronized int capacityFor(int partySize, int maxTables) {
+		checkLoaded();
+		return layout().capacityFor(partySize, maxTables);
+	}
+
+	/**
+	 * @param booked parties already booked for the time, by booked capacity
+	 * @param capacity booked capacity of the new party, from {@link #capacityFor(int, int)}
+	 * @param maxTables most tables pushed together ({@link AllocationPolicy#maxTables()})
+	 * @return true if the floor seats the new party together with the booked ones ({@link Floor#admits(Map, int, int)})
+	 */
+	public static synchronized boolean admits(Map<Integer, Integer> booked, int capacity, int maxTables) {
+		checkLoaded();
+		return layout().admits(booked, capacity, maxTables);
+	}
+
+	/**
+	 * records a seating inserted by the current transaction (undone on rollback); called for every table of the seating
+	 * @param conn connection the seating was inserted on
+	 * @param tableID table of the seating
+	 * @param seatingID generated seating id
+	 * @param reservationID reservation of the seating
+	 * @param held true for a held seating (no check-in time yet)
+	 * @throws SQLException
+	 */
+	static void seatingInserted(Connection conn, int tableID, int seatingID, int reservationID, boolean held) throws SQLException {
+		TableState previous;
+		synchronized (FloorModel.class) {
+			checkLoaded();
+			previous = tables.get(tableID);
+			if (previous == null) return;
+			put(previous.with(held ? TableStatus.HELD : TableStatus.OCCUPIED, seatingID, reservationID,
+					held ? null : LocalDateTime.now()));
+			uncommittedSeatings.add(seatingID);
+		}
+		TransactionSync.register(conn, () -> {
+			synchronized (FloorModel.class) {
+				uncommittedSeatings.remove(seatingID);
+			}
+		}, () -> {
+			synchronized (FloorModel.class) {
+				uncommittedSeatings.remove(seatingID);
+				TableState current = tables.get(tableID);
+				if (current == null || !Integer.valueOf(seatingID).equals(current.getSeatingID())) return;
+				put(previous);
+			}
+		});
+	}
+
+	/**
+	 * records the check-in of a held seating (applied on commit)
+	 * @param conn connection the update ran on
+	 * @param seatingID seating that was checked in
+	 * @throws SQLException
+	 */
+	static void seatingCheckedIn(Connection conn, int seatingID) throws SQLException {
+		TransactionSync.register(conn, () -> {
+			LocalDateTime now = LocalDateTime.now();
+			synchronized (FloorModel.class) {
+				for (TableState current : tablesOfSeating(seatingID)) {
+					if (current.getStatus() == TableStatus.HELD) {
+						put(current.with(TableStatus.OCCUPIED, current.getSeatingID(), current.getReservationID(), now));
+					}
+				}
+			}
+		}, null);
+	}
+
+	/**
+	 * records a checkout: the tables of the seating stay claimed by the transaction and become free when it commits
+	 * (unless the transaction seated someone else there)
+	 * @param conn connection the update ran on
+	 * @param seatingID seating that was closed
+	 * @throws SQLException
+	 */
+	static void seatingCheckedOut(Connection conn, int seatingID) throws SQLException {
+		TransactionSync owner = TransactionSync.of(conn);
+		List<TableState> previous;
+		synchronized (FloorModel.class) {
+			checkLoaded();
+			previous = tablesOfSeating(seatingID);
+			for (TableState state : previous) {
+				put(state.claimedBy(owner));
+			}
+		}
+		if (previous.isEmpty()) return;
+		TransactionSync.register(conn, () -> {
+			LocalDateTime checkInTime = previous.get(0).getCheckInTime();
+			if (checkInTime != null) {
+				int capacity = 0;
+				for (TableState state : previous) {
+					capacity += state.getCapacity();
+				}
+				SeatingDurations.record(capacity, checkInTime, LocalDateTime.now());
+			}
+			for (TableState state : previous) {
+				if (releaseClaim(state.getTableID(), owner)) tableFreed(state.getTableID());
+			}
+		}, () -> {
+			synchronized (FloorModel.class) {
+				// in seating order, so the seating's own table stays first
+				for (TableState state : previous) {
+					TableState current = tables.get(state.getTableID());
+					if (current != null && current.getStatus() == TableStatus.CLAIMED && current.owner == owner) put(state);
+				}
+			}
+		});
+	}
+
+	/**
+	 * records a new table (applied on commit)
+	 * @throws SQLException
+	 */
+	static void tableAdded(Connection conn, int tableID, int tableNumber, int capacity, Integer combineGroup) throws SQLException {
+		TransactionSync.register(conn, () -> {
+			synchronized (FloorModel.class) {
+				put(new TableState(new Table(tableID, tableNumber, capacity, combineGroup), TableStatus.FREE, null, null));
+				tableIdByNumber.put(tableNumber, tableID);
+				layout = null;
+			}
+			tableFreed(tableID);
+		}, null);
+	}
+
+	/**
+	 * records a capacity change (applied on commit)
+	 * @throws SQLException
+	 */
+	static void capacityChanged(Connection conn, int tableNumber, int capacity) throws SQLException {
+		TransactionSync.register(conn, () -> {
+			synchronized (FloorModel.class) {
+				TableState current = byNumber(tableNumber);
+				if (current == null) return;
+				put(current.withCapacity(capacity));
+				layout = null;
+			}
+		}, null);
+	}
+
+	/**
+	 * records a deactivated table (applied on commit)
+	 * @throws SQLException
+	 */
+	static void tableDeactivated(Connection conn, int tableNumber) throws SQLException {
+		TransactionSync.register(conn, () -> {
+			synchronized (FloorModel.class) {
+				TableState current = byNumber(tableNumber);
+				if (current == null) return;
+				unmapSeating(current);
+				tables.remove(current.getTableID());
+				tableIdByNumber.remove(tableNumber);
+				layout = null;
+			}
+		}, null);
+	}
+
+	/**
+	 * @param tableID
+	 * @return current state of an active table, or null
+	 */
+	public static synchronized TableState getTable(int tableID) {
+		checkLoaded();
+		return tables.get(tableID);
+	}
+
+	/**
+	 * @param seatingID
+	 * @return state of the table the open seating is on (its own table if tables were pushed together),
+	 *         or null if the seating is not open
+	 */
+	public static synchronized TableState getTableBySeating(int seatingID) {
+		checkLoaded();
+		List<TableState> states = tablesOfSeating(seatingID);
+		return states.isEmpty() ? null : states.get(0);
+	}
+
+	/**
+	 * @param seatingID
+	 * @return states of all tables of the open seating, its own table first (empty if the seating is not open)
+	 */
+	public static synchronized List<TableState> getTablesBySeating(int seatingID) {
+		checkLoaded();
+		return tablesOfSeating(seatingID);
+	}
+
+	/**
+	 * @param tableNumber
+	 * @return true if an open (held or checked-in) seating is on the table
+	 */
+	public static synchronized boolean isOccupied(int tableNumber) {
+		checkLoaded();
+		TableState state = byNumber(tableNumber);
+		return state != null && state.getSeatingID() != null;
+	}
+
+	/**
+	 * @return states of all active tables, ordered by table number
+	 */
+	public static synchronized List<TableState> snapshot() {
+		checkLoaded();
+		List<TableState> all = new ArrayList<>(tables.values());
+		all.sort(BY_NUMBER);
+		return all;
+	}
+
+	/**
+	 * sets the listener told about every table that became free after a committed checkout or a new table.
+	 * It runs on the committing thread, outside the model lock, and must only hand the table ID off.
+	 * @param listener receives the table ID, null to remove
+	 */
+	public static void setTableFreedListener(IntConsumer listener) {
+		tableFreedListener = listener;
+	}
+
+	private static void tableFreed(int tableID) {
+		IntConsumer listener = tableFreedListener;
+		if (listener != null) listener.accept(tableID);
+	}
+
+	/** @return true if the table was claimed by {@code owner} and is free now */
+	private static boolean releaseClaim(int tableID, TransactionSync owner) {
+		synchronized (FloorModel.class) {
+			TableState current = tables.get(tableID);
+			if (current == null || current.getStatus() != TableStatus.CLAIMED || current.owner != owner) return false;
+			put(current.with(TableStatus.FREE, null, null, null));
+			return true;
+		}
+	}
+
+	/**
+	 * reads the active tables and the open seatings
+	 * @return state of every active table as stored, by table ID
+	 */
+	private static Map<Integer, TableState> readDatabase(Connection conn, TableDAO tableDAO, SeatingDAO seatingDAO)
+			throws SQLException {
+		List<Table> active = tableDAO.fetchActiveTables(conn);
+		List<Seating> open = seatingDAO.fetchOpenSeatings(conn);
+		Map<Integer, List<Integer>> joined = seatingDAO.fetchOpenJoinedTables(conn);
+
+		Map<Integer, TableState> stored = new HashMap<>();
+		for (Table t : active) {
+			stored.put(t.getTableID(), new TableState(t, TableStatus.FREE, null, null));
+		}
+		// ordered by check-in time: the latest open seating of a table wins, as in the former SQL lookups
+		LocalDateTime now = LocalDateTime.now();
+		for (Seating s : open) {
+			TableStatus status = s.getCheckInTime() == null ? TableStatus.HELD : TableStatus.OCCUPIED;
+			// the seating row only carries the time of day: a time later than now was yesterday's
+			LocalDateTime checkInTime = null;
+			if (s.getCheckInTime() != null) {
+				checkInTime = LocalDate.now().atTime(s.getCheckInTime());
+				if (checkInTime.isAfter(now)) checkInTime = checkInTime.minusDays(1);
+			}
+			List<Integer> seatingTables = new ArrayList<>();
+			seatingTables.add(s.getTableID());
+			seatingTables.addAll(joined.getOrDefault(s.getSeatingID(), List.of()));
+			for (int tableID : seatingTables) {
+				TableState state = stored.get(tableID);
+				if (state != null) stored.put(tableID, state.with(status, s.getSeatingID(), s.getReservationID(), checkInTime));
+			}
+		}
+		return stored;
+	}
+
+	/** @return true if a transaction of this server claimed the table or seated someone there without committing yet */
+	private static boolean busyHere(TableState state) {
+		return state.getStatus() == TableStatus.CLAIMED
+				|| (state.getSeatingID() != null && uncommittedSeatings.contains(state.getSeatingID()));
+	}
+
+	private static Floor layout() {
+		if (layout == null) {
+			List<Table> active = new ArrayList<>(tables.size());
+			for (TableState state : tables.values()) {
+				active.add(state.toTable());
+			}
+			layout = new Floor(active);
+		}
+		return layout;
+	}
+
+	private static List<TableState> tablesOfSeating(int seatingID) {
+		List<Integer> tableIDs = tableIdsBySeating.get(seatingID);
+		if (tableIDs == null) return List.of();
+		List<TableState> states = new ArrayList<>(tableIDs.size());
+		for (int tableID : tableIDs) {
+			TableState state = tables.get(tableID);
+			if (state != null && Integer.valueOf(seatingID).equals(state.getSeatingID())) states.add(state);
+		}
+		return states;
+	}
+
+	private static TableState byNumber(int tableNumber) {
+		Integer tableID = tableIdByNumber.get(tableNumber);
+		return tableID == null ? null : tables.get(tableID);
+	}
+
+	/** replaces the state of a table and keeps the seating index in step */
+	private static void put(TableState state) {
+		TableState previous = tables.put(state.getTableID(), state);
+		if (previous != null && previous.getSeatingID() != null && !previous.getSeatingID().equals(state.getSeatingID())) {
+			unmapSeating(previous);
+		}
+		if (state.getSeatingID() != null) {
+			List<Integer> tableIDs = tableIdsBySeating.computeIfAbsent(state.getSeatingID(), s -> new ArrayList<>(1));
+			if (!tableIDs.contains(state.getTableID())) tableIDs.add(state.getTableID());
+		}
+	}
+
+	private static void unmapSeating(TableState state) {
+		if (state.getSeatingID() == null) return;
+		List<Integer> tableIDs = tableIdsBySeating.get(state.getSeatingID());
+		if (tableIDs == null) return;
+		tableIDs.remove(Integer.valueOf(state.getTableID()));
+		if (tableIDs.isEmpty()) tableIdsBySeating.remove(state.getSeatingID());
+	}
+
+	private static void checkLoaded() {
+		if (!loaded) throw new IllegalStateException("FloorModel not loaded");
+	}
+}
@@ -0,0 +1,197 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Thin JDBC instrumentation layer installed by {@link DBManager#getConnection()}.
+ *
+ * <p>Main idea: {@link DBManager#getConnection()} returns connections wrapped by {@link #wrap(Connection, long)}.
+ * <ul>
+ *   <li>The pool borrow time, commits/rollbacks and every {@code execute*} call are added to a per-thread counter.
+ *       The request handler reads it with {@link #takeNanos()} to split controller time into "database" and "everything else"</li>
+ *   <li>Every execution is also recorded in {@link SqlStatistics} under its SQL constant, together with the rows
+ *       fetched from its result set and, for slow executions, the bind values</li>
+ *   <li>Commit, rollback and close run the {@link TransactionSync} callbacks registered by DAO writes</li>
+ * </ul>
+ *
+ * <p>Like {@link DBManager}, this is a process-wide static holder, since controllers open their own connections.</p>
+ */
+public class JdbcTiming {
+
+	/** Nanoseconds spent in JDBC calls by the current thread since the last {@link #takeNanos()}. */
+	private static final ThreadLocal<long[]> ELAPSED = ThreadLocal.withInitial(() -> new long[1]);
+
+	private JdbcTiming() {}
+
+	/**
+	 * @return DB nanoseconds accumulated by this thread, resetting the counter
+	 */
+	public static long takeNanos() {
+		long[] elapsed = ELAPSED.get();
+		long value = elapsed[0];
+		elapsed[0] = 0;
+		return value;
+	}
+
+	/**
+	 * adds time to the current thread's counter
+	 * @param nanos
+	 */
+	static void add(long nanos) {
+		ELAPSED.get()[0] += nanos;
+	}
+
+	/**
+	 * wraps a pooled connection so statements created from it are timed
+	 * @param conn connection from the pool
+	 * @param borrowNanos time spent waiting for the pool
+	 * @return timed connection (closing it returns the pooled connection)
+	 */
+	static Connection wrap(Connection conn, long borrowNanos) {
+		add(borrowNanos);
+		return (Connection) Proxy.newProxyInstance(JdbcTiming.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new ConnectionHandler(conn));
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	/** Times commit/rollback, runs the transaction callbacks and wraps the statements a connection creates. */
+	static class ConnectionHandler implements InvocationHandler {
+		private final Connection target;
+		final TransactionSync sync = new TransactionSync();
+
+		ConnectionHandler(Connection target) {
+			this.target = target;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.equals("commit") || name.equals("rollback")) {
+				long start = System.nanoTime();
+				try {
+					Object result = JdbcTiming.invoke(target, method, args);
+					if (name.equals("commit")) {
+						sync.committed();
+					} else if (args == null) {
+						sync.rolledBack();
+					}
+					return result;
+				} finally {
+					add(System.nanoTime() - start);
+				}
+			}
+			if (name.equals("setAutoCommit") && Boolean.TRUE.equals(args[0]) && sync.isPending() && !target.getAutoCommit()) {
+				// switching auto-commit on commits the open transaction
+				Object result = JdbcTiming.invoke(target, method, args);
+				sync.committed();
+				return result;
+			}
+			if (name.equals("close") && sync.isPending()) {
+				// the pool rolls back what was not committed
+				try {
+					return JdbcTiming.invoke(target, method, args);
+				} finally {
+					sync.rolledBack();
+				}
+			}
+			Object result = JdbcTiming.invoke(target, method, args);
+			if (result instanceof Statement st) {
+				Class<?> type = st instanceof CallableStatement ? CallableStatement.class
+						: st instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+				String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+				return Proxy.newProxyInstance(JdbcTiming.class.getClassLoader(),
+						new Class<?>[] { type }, new StatementHandler(st, sql));
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Times {@code execute}, {@code executeQuery}, {@code executeUpdate}, {@code executeBatch}...,
+	 * remembers bind values for the slow-query log and counts the rows of returned result sets.
+	 */
+	private static class StatementHandler implements InvocationHandler {
+		private final Statement target;
+		/** SQL of a prepared statement, null for plain statements (their SQL is the execute argument). */
+		private final String preparedSql;
+		private final SqlStatistics.StatementStats preparedStats;
+		private final Map<Integer, Object> binds;
+
+		StatementHandler(Statement target, String preparedSql) {
+			this.target = target;
+			this.preparedSql = preparedSql;
+			this.preparedStats = preparedSql == null ? null : SqlStatistics.statsFor(preparedSql);
+			this.binds = preparedSql == null ? null : new TreeMap<>();
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (binds != null && name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+				binds.put(index, args[1]);
+			} else if (binds != null && name.equals("clearParameters")) {
+				binds.clear();
+			}
+			if (!name.startsWith("execute")) {
+				return JdbcTiming.invoke(target, method, args);
+			}
+
+			SqlStatistics.StatementStats entry = preparedStats;
+			if (entry == null) {
+				entry = SqlStatistics.statsFor(args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql);
+			}
+			long start = System.nanoTime();
+			boolean failed = true;
+			try {
+				Object result = JdbcTiming.invoke(target, method, args);
+				failed = false;
+				if (result instanceof ResultSet rs) {
+					return Proxy.newProxyInstance(JdbcTiming.class.getClassLoader(),
+							new Class<?>[] { ResultSet.class }, new ResultSetHandler(rs, entry));
+				}
+				return result;
+			} finally {
+				long elapsed = System.nanoTime() - start;
+				add(elapsed);
+				SqlStatistics.recordExecution(entry, elapsed, failed, binds);
+			}
+		}
+	}
+
+	/** Counts the rows read through {@code next()}. */
+	private static class ResultSetHandler implements InvocationHandler {
+		private final ResultSet target;
+		private final SqlStatistics.StatementStats entry;
+
+		ResultSetHandler(ResultSet target, SqlStatistics.StatementStats entry) {
+			this.target = target;
+			this.entry = entry;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = JdbcTiming.invoke(target, method, args);
+			if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+				entry.recordRow();
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package database;
+
+import java.sql.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DAO for the {@code job_lease} and {@code scheduler_node} tables.
+ *
+ * <p>Main idea: a background job runs only on the server instance that holds its lease. A lease is one row per job
+ * with an owner and an expiry; the owner renews it by heartbeat, and any node may take it once it expired. Every node
+ * also heartbeats a {@code scheduler_node} row, so the nodes know how many of them share the jobs.</p>
+ *
+ * <p>Rules:
+ * <ul>
+ *   <li>Expiry is computed with the database clock ({@code NOW(3)}), so the nodes' clocks do not need to agree</li>
+ *   <li>Taking and renewing are one guarded {@code UPDATE} (free, expired or already ours), so two nodes can never
+ *       both succeed</li>
+ *   <li>All statements run in auto-commit mode</li>
+ * </ul>
+ */
+public class JobLeaseDAO {
+    //INSERT
+    private static final String INSERT_LEASE_IF_MISSING = "INSERT IGNORE INTO job_lease (jobName) VALUES (?)";
+    private static final String UPSERT_NODE_HEARTBEAT = "INSERT INTO scheduler_node (nodeId, heartbeatAt) VALUES (?, NOW(3)) " +
+    													"ON DUPLICATE KEY UPDATE heartbeatAt = NOW(3)";
+
+    //UPDATE
+    // acquiredAt is assigned before owner: MySQL evaluates SET left to right with the updated values
+    private static final String UPDATE_TAKE_OR_RENEW = "UPDATE job_lease SET acquiredAt = IF(owner <=> ?, acquiredAt, NOW(3)), " +
+    												   "owner = ?, expiresAt = NOW(3) + INTERVAL ? SECOND " +
+    												   "WHERE jobName = ? AND (owner IS NULL OR owner = ? OR expiresAt < NOW(3))";
+    private static final String UPDATE_RELEASE = "UPDATE job_lease SET owner = NULL, expiresAt = NULL WHERE jobName = ? AND owner = ?";
+
+    //SELECT
+    private static final String SELECT_LIVE_NODES = "SELECT COUNT(*) FROM scheduler_node WHERE heartbeatAt > NOW(3) - INTERVAL ? SECOND";
+    private static final String SELECT_LEASE_OWNERS = "SELECT jobName, owner FROM job_lease WHERE owner IS NOT NULL AND expiresAt >= NOW(3)";
+
+    //DELETE
+    private static final String DELETE_DEAD_NODES = "DELETE FROM scheduler_node WHERE heartbeatAt < NOW(3) - INTERVAL 1 DAY";
+
+    /**
+     * Creates the lease row of a job if it does not exist yet (unowned).
+     *
+     * @param conn active JDBC connection
+     * @param jobName job name
+     * @throws SQLException if a DB error occurs
+     */
+    public void ensureLease(Connection conn, String jobName) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_LEASE_IF_MISSING)) {
+            ps.setString(1, jobName);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Takes a free or expired lease, or renews one this node already holds.
+     *
+     * @param conn active JDBC connection
+     * @param jobName job name
+     * @param owner node ID
+     * @param leaseSeconds the lease expires this long from now unless renewed
+     * @return {@code true} if the node holds the lease afterwards
+     * @throws SQLException if a DB error occurs
+     */
+    public boolean takeOrRenew(Connection conn, String jobName, String owner, int leaseSeconds) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(UPDATE_TAKE_OR_RENEW)) {
+            ps.setString(1, owner);
+            ps.setString(2, owner);
+            ps.setInt(3, leaseSeconds);
+            ps.setString(4, jobName);
+            ps.setString(5, owner);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Gives up a lease held by this node, so another node can take it at once.
+     *
+     * @param conn active JDBC connection
+     * @param jobName job name
+     * @param owner node ID
+     * @return {@code true} if the node held the lease
+     * @throws SQLException if a DB error occurs
+     */
+    public boolean release(Connection conn, String jobName, String owner) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(UPDATE_RELEASE)) {
+            ps.setString(1, jobName);
+            ps.setString(2, owner);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Records a heartbeat of a node and counts the nodes that sent one recently (dead nodes older than a day are
+     * removed).
+     *
+     * @param conn active JDBC connection
+     * @param nodeId node ID
+     * @param aliveSeconds nodes whose last heartbeat is older than this are not counted
+     * @return number of live nodes, this one included
+     * @throws SQLException if a DB error occurs
+     */
+    public int heartbeatNode(Connection conn, String nodeId, int aliveSeconds) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(UPSERT_NODE_HEARTBEAT)) {
+            ps.setString(1, nodeId);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(DELETE_DEAD_NODES)) {
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_LIVE_NODES)) {
+            ps.setInt(1, aliveSeconds);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Math.max(1, rs.getInt(1)) : 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the current owner of every unexpired lease.
+     *
+     * @param conn active JDBC connection
+     * @return job name -> owner node ID (free and expired leases are absent)
+     * @throws SQLException if a DB error occurs
+     */
+    public Map<String, String> fetchLeaseOwners(Connection conn) throws SQLException {
+        Map<String, String> owners = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_LEASE_OWNERS);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                owners.put(rs.getString("jobName"), rs.getString("owner"));
+            }
+        }
+        return owners;
+    }
+}
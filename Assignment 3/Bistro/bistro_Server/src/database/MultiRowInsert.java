@@ -0,0 +1,111 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffers rows for one table and writes them as multi-row {@code INSERT ... VALUES (...), (...), ...} statements.
+ *
+ * <p>Main idea: bulk loads (data generation, archiving tools) send one statement per {@code batchRows} rows
+ * instead of one per row. {@link LocalDate}/{@link LocalTime}/{@link LocalDateTime} values are bound as their
+ * {@code java.sql} counterparts.</p>
+ */
+public class MultiRowInsert {
+
+	private final Connection conn;
+	private final String prefix;
+	private final String rowPlaceholder;
+	private final int columns;
+	private final int batchRows;
+	private final List<Object[]> rows = new ArrayList<>();
+	private MultiRowInsert parent;
+	private long written;
+
+	/**
+	 * @param conn connection used for every flush (the caller owns the transaction)
+	 * @param table table name
+	 * @param columnList comma separated column names, e.g. {@code "reservationID, status"}
+	 * @param batchRows rows per INSERT statement
+	 */
+	public MultiRowInsert(Connection conn, String table, String columnList, int batchRows) {
+		this.conn = conn;
+		this.columns = columnList.split(",").length;
+		this.prefix = "INSERT INTO `" + table + "` (" + columnList + ") VALUES ";
+		this.rowPlaceholder = "(" + "?, ".repeat(columns - 1) + "?)";
+		this.batchRows = batchRows;
+	}
+
+	/**
+	 * makes every flush of this insert flush {@code parent} first, so foreign keys to rows
+	 * still buffered in the parent are satisfied
+	 * @param parent insert of the referenced table
+	 * @return this
+	 */
+	public MultiRowInsert dependsOn(MultiRowInsert parent) {
+		this.parent = parent;
+		return this;
+	}
+
+	/**
+	 * buffers one row, flushing when the batch is full
+	 * @param values one value per column, in column order
+	 * @throws SQLException
+	 */
+	public void add(Object... values) throws SQLException {
+		if (values.length != columns) {
+			throw new IllegalArgumentException("expected " + columns + " values, got " + values.length);
+		}
+		rows.add(values);
+		if (rows.size() >= batchRows) flush();
+	}
+
+	/**
+	 * writes the buffered rows (no-op when empty)
+	 * @throws SQLException
+	 */
+	public void flush() throws SQLException {
+		if (rows.isEmpty()) return;
+		if (parent != null) parent.flush();
+
+		StringBuilder sql = new StringBuilder(prefix.length() + rows.size() * (rowPlaceholder.length() + 2));
+		sql.append(prefix);
+		for (int i = 0; i < rows.size(); i++) {
+			if (i > 0) sql.append(", ");
+			sql.append(rowPlaceholder);
+		}
+
+		try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+			int idx = 1;
+			for (Object[] row : rows) {
+				for (Object value : row) {
+					ps.setObject(idx++, toJdbc(value));
+				}
+			}
+			ps.executeUpdate();
+		}
+		written += rows.size();
+		rows.clear();
+	}
+
+	/**
+	 * @return rows written so far (not counting the buffered ones)
+	 */
+	public long getWritten() {
+		return written;
+	}
+
+	private static Object toJdbc(Object value) {
+		if (value instanceof LocalDate d) return java.sql.Date.valueOf(d);
+		if (value instanceof LocalTime t) return Time.valueOf(t);
+		if (value instanceof LocalDateTime dt) return Timestamp.valueOf(dt);
+		return value;
+	}
+}
@@ -0,0 +1,105 @@
+package database;
+
+import entities.OpeningHours;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory calendar of the {@code opening_hours} rows for the rolling 30-day booking window.
+ *
+ * <p>Main idea: availability searches look up the opening hours of up to 30 dates per request.
+ * Instead of one query per date, the whole window is loaded with a single
+ * {@link OpeningHoursDAO#fetchOpeningHoursNext30Days(Connection, LocalDate)} call and served from memory.</p>
+ *
+ * <p>Rules:
+ * <ul>
+ *   <li>The window is (re)loaded by {@link #reload(Connection, OpeningHoursDAO)}, normally from the daily opening-hours scheduler tick</li>
+ *   <li>Committed manager edits are applied with {@link #update(LocalDate, LocalTime, LocalTime, String)}</li>
+ *   <li>Dates outside the loaded window (or before the first load) fall back to the database</li>
+ * </ul>
+ *
+ * <p>Like {@link DBManager}, this is a process-wide static holder, since controllers create their own DAO instances.</p>
+ */
+public class OpeningHoursCache {
+
+	private static final int WINDOW_DAYS = 30;
+
+	/** First date covered by the loaded window (inclusive), {@code null} until the first load. */
+	private static volatile LocalDate windowStart;
+
+	/** Last date covered by the loaded window (exclusive). */
+	private static volatile LocalDate windowEnd;
+
+	/** Opening hours per date inside the window. A missing date means there is no row for it in the DB. */
+	private static volatile Map<LocalDate, OpeningHours> calendar = new ConcurrentHashMap<>();
+
+	private OpeningHoursCache() {}
+
+	/**
+	 * loads the next 30 days (starting today) into memory with a single query
+	 * @param conn active JDBC connection
+	 * @param openingHoursDAO DAO used to fetch the window
+	 * @throws SQLException
+	 */
+	public static synchronized void reload(Connection conn, OpeningHoursDAO openingHoursDAO) throws SQLException {
+		LocalDate start = LocalDate.now();
+		List<OpeningHours> rows = openingHoursDAO.fetchOpeningHoursNext30Days(conn, start);
+
+		Map<LocalDate, OpeningHours> fresh = new ConcurrentHashMap<>();
+		for (OpeningHours oh : rows) {
+			if (oh != null) fresh.put(oh.getDate(), oh);
+		}
+
+		calendar = fresh;
+		windowEnd = start.plusDays(WINDOW_DAYS);
+		windowStart = start;
+	}
+
+	/**
+	 * fetch the opening hours of a date, from memory when the date is inside the loaded window
+	 * @param conn used only for the DB fallback
+	 * @param date the desired date
+	 * @param openingHoursDAO DAO used for the DB fallback
+	 * @return OpeningHours entity or null if the restaurant has no entry for that date
+	 * @throws SQLException
+	 */
+	public static OpeningHours getOpeningHour(Connection conn, LocalDate date, OpeningHoursDAO openingHoursDAO) throws SQLException {
+		if (date != null && isInWindow(date)) {
+			return calendar.get(date);
+		}
+		return openingHoursDAO.getOpeningHour(conn, date);
+	}
+
+	/**
+	 * applies a committed opening-hours edit to the loaded window (no-op for dates outside the window)
+	 * @param date
+	 * @param open
+	 * @param close
+	 * @param occasion
+	 */
+	public static synchronized void update(LocalDate date, LocalTime open, LocalTime close, String occasion) {
+		if (date == null || !isInWindow(date)) return;
+
+		OpeningHours existing = calendar.get(date);
+		if (existing == null) return;
+
+		calendar.put(date, new OpeningHours(date, existing.getDay(), open, close, occasion));
+	}
+
+	/**
+	 * @param date
+	 * @return true if the date is covered by the loaded window
+	 */
+	private static boolean isInWindow(LocalDate date) {
+		LocalDate start = windowStart;
+		LocalDate end = windowEnd;
+		if (start == null || end == null) return false;
+		return !date.isBefore(start) && date.isBefore(end);
+	}
+}
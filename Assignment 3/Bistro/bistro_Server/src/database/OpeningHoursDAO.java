@@ -8,6 +8,9 @@ import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * DAO for the {@code opening_hours} table.
  *
@@ -17,22 +20,30 @@ import java.util.List;
  *   <li>Fetch opening hours for a specific date</li>
  *   <li>Insert a new opening-hours entry</li>
  *   <li>Update an existing opening-hours entry</li>
+ *   <li>Insert the missing days of a date range in a single multi-row statement</li>
  *   <li>Fetch opening hours for the next 30 days starting from a given date</li>
+ *   <li>Lock a date's row, so reservation admissions for that date run one at a time</li>
  * </ul>
  *
  * <p>All methods use the provided JDBC {@link java.sql.Connection} and map rows to the
  * {@link entities.OpeningHours} entity.
  */
 public class OpeningHoursDAO {
+
+	private static final Logger log = LoggerFactory.getLogger(OpeningHoursDAO.class);
 	//INSERT
-	private final String INSERT_NEW_OPENING_HOUR = "INSERT INTO `opening_hours` (date, day, openTime, closeTime, occasion) VALUES(?, ?, ?, ?, ?)";
+	private static final String INSERT_NEW_OPENING_HOUR = "INSERT INTO `opening_hours` (date, day, openTime, closeTime, occasion) VALUES(?, ?, ?, ?, ?)";
+	private static final String INSERT_MISSING_OPENING_HOURS_PREFIX = "INSERT INTO `opening_hours` (date, day, openTime, closeTime, occasion) VALUES ";
+	private static final String INSERT_MISSING_OPENING_HOURS_ROW = "(?, ?, ?, ?, ?)";
+	private static final String INSERT_MISSING_OPENING_HOURS_SUFFIX = " ON DUPLICATE KEY UPDATE `date` = `date`";
 
 	//SELECT
-	private final String SELECT_openingHoursByDate = "SELECT * FROM `opening_hours` WHERE date = ?";
-	private final String SELECT_30_OPENING_HOURS = "SELECT * FROM `opening_hours` WHERE `date` >= ? AND `date` < DATE_ADD(?, INTERVAL 30 DAY) ORDER BY `date`"; 
+	private static final String SELECT_openingHoursByDate = "SELECT * FROM `opening_hours` WHERE date = ?";
+	private static final String SELECT_LOCK_OPENING_HOUR = "SELECT `date` FROM `opening_hours` WHERE `date` = ? FOR UPDATE";
+	private static final String SELECT_30_OPENING_HOURS = "SELECT * FROM `opening_hours` WHERE `date` >= ? AND `date` < DATE_ADD(?, INTERVAL 30 DAY) ORDER BY `date`"; 
 	
 	//UPDATE
-	private final String UPDATE_OPENINGHOURS ="UPDATE `opening_hours` SET openTime = ?, closeTime = ?, occasion = ? WHERE date = ?";
+	private static final String UPDATE_OPENINGHOURS ="UPDATE `opening_hours` SET openTime = ?, closeTime = ?, occasion = ? WHERE date = ?";
 	
 	/**
 	 * fetch the restaurant detail by date
@@ -57,12 +68,32 @@ public class OpeningHoursDAO {
 			return openHour;
 			
 		}catch(SQLException e) {
-			System.err.println("Database error: could not fetch opening for this date: "+date.toString());
+			log.error("Database error: could not fetch opening for this date: {}", date.toString());
 			throw e;
 		}
 		
 	}
 	
+	/**
+	 * locks the date's opening-hours row until the transaction ends. Reservation admission takes it first, so two
+	 * bookings for the same date cannot both pass the availability check; the lock lives in the database, so it also
+	 * holds between server instances.
+	 * Must be the first read of the transaction: a consistent read before it would keep the snapshot from before the
+	 * wait and miss the reservations committed meanwhile.
+	 * @param conn connection with auto-commit off
+	 * @param date reservation date
+	 * @return false if the date has no opening hours (closed for booking)
+	 * @throws SQLException
+	 */
+	public boolean lockOpeningHour(Connection conn, LocalDate date) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(SELECT_LOCK_OPENING_HOUR)) {
+			ps.setDate(1, java.sql.Date.valueOf(date));
+			try (ResultSet rs = ps.executeQuery()) {
+				return rs.next();
+			}
+		}
+	}
+	
 	/**
 	 * update existing entry in the opening hours table
 	 * @param conn
@@ -110,6 +141,36 @@ public class OpeningHoursDAO {
 		}
 	}
 	
+	/**
+	 * inserts all given days in one multi-row statement, leaving days that already exist untouched
+	 * @param conn
+	 * @param days the default opening hours to insert when a date is missing
+	 * @return the update count reported by the driver
+	 * @throws SQLException
+	 */
+	public int insertMissingOpeningHours(Connection conn, List<OpeningHours> days) throws SQLException {
+		if (days == null || days.isEmpty()) return 0;
+
+		StringBuilder sql = new StringBuilder(INSERT_MISSING_OPENING_HOURS_PREFIX);
+		for (int i = 0; i < days.size(); i++) {
+			if (i > 0) sql.append(", ");
+			sql.append(INSERT_MISSING_OPENING_HOURS_ROW);
+		}
+		sql.append(INSERT_MISSING_OPENING_HOURS_SUFFIX);
+
+		try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+			int i = 1;
+			for (OpeningHours oh : days) {
+				ps.setDate(i++, java.sql.Date.valueOf(oh.getDate()));
+				ps.setString(i++, oh.getDay());
+				ps.setTime(i++, java.sql.Time.valueOf(oh.getOpenTime()));
+				ps.setTime(i++, java.sql.Time.valueOf(oh.getCloseTime()));
+				ps.setString(i++, oh.getOccasion());
+			}
+			return ps.executeUpdate();
+		}
+	}
+	
 	/**
 	 * fetching the next 30 days details of opening hours
 	 * @param conn
@@ -1,6 +1,7 @@
 package database;
 
 import entities.Reservation;
+import entities.User;
 import responses.ReservationResponse;
 import responses.UserHistoryResponse;
 
@@ -13,6 +14,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 
 /**
  * DAO for the {@code reservation} table.
@@ -30,11 +34,13 @@ import java.util.Map;
  * <p>This class does not apply business rules by itself; it exposes data needed by controller/service layers.
  */
 public class ReservationDAO {
+
+	private static final Logger log = LoggerFactory.getLogger(ReservationDAO.class);
 	
 	
 	//INSERT statement
-	private static final String INSERT_newReservation = "INSERT INTO `reservation` (reservationDate, status, partySize, allocatedCapacity, confirmationCode, guestContact, userID, startTime) "+
-															"VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String INSERT_newReservation = "INSERT INTO `reservation` (reservationDate, status, partySize, allocatedCapacity, confirmationCode, guestContact, userID, startTime, contactKey) "+
+															"VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
 															
 	
 	//SELECT statements
@@ -47,9 +53,9 @@ public class ReservationDAO {
 	        "AND reservationDate >= CURDATE() " +
 	        "ORDER BY reservationDate ASC, startTime ASC";
 	
-	private final String SELECT_RESERVATIONS_OVERLAPING_WITH_CLOSE_HOURS="SELECT r.reservationID, r.userID, r.guestContact, r.status, r.reservationDate, r.startTime FROM reservation r "+
+	private static final String SELECT_RESERVATIONS_OVERLAPING_WITH_CLOSE_HOURS="SELECT r.reservationID, r.userID, r.guestContact, r.status, r.reservationDate, r.startTime FROM reservation r "+
 																		 "WHERE r.reservationDate = ? "+
-																		 "AND (r.startTime < ? OR ADDTIME(r.startTime, '02:00:00') > ?) "+
+																		 "AND (r.startAt < ? OR r.endAt > ?) "+
 																		 "ORDER BY r.startTime";
 	private static final String SELECT_OVERLAPPING_RESERVATIONS_TO_CANCEL =
             "SELECT guestContact, userID, status, reservationID " +
@@ -57,75 +63,107 @@ public class ReservationDAO {
             "WHERE reservationDate = ? " +
             "  AND allocatedCapacity <= ? " +
             "  AND status = 'CONFIRMED' " +
-            "  AND (startTime < ? AND ADDTIME(startTime,'02:00:00') > ?) " +
+            "  AND startAt < ? AND endAt > ? " +
             "ORDER BY reservationDate DESC, startTime DESC " +
             "LIMIT ?";
+	// the few future slots drive the join, each looks up its date's bookings by idx_reservation_date_status_start
 	private static final String SELECT_OVERBOOKED_SLOTS =
 	        "SELECT slots.reservationDate, slots.startTime AS slotStart, COUNT(r2.reservationID) AS booked " +
 	        "FROM ( " +
-	        "SELECT DISTINCT reservationDate, startTime " +
+	        "SELECT DISTINCT reservationDate, startTime, startAt, endAt " +
 	        "FROM reservation " +
-	        "WHERE reservationDate >= CURDATE() " +
+	        "WHERE status = 'CONFIRMED' " +
 	        "AND allocatedCapacity <= ? " +
-	        "AND status = 'CONFIRMED' " +
+	        "AND startAt >= CURDATE() " +
 	        ") slots " +
-	        "JOIN reservation r2 ON r2.reservationDate = slots.reservationDate " +
+	        "STRAIGHT_JOIN reservation r2 ON r2.reservationDate = slots.reservationDate " +
 	        "AND r2.allocatedCapacity <= ? " +
 	        "AND r2.status = 'CONFIRMED' " +
-	        "AND (slots.startTime < ADDTIME(r2.startTime, '02:00:00') " +
-	        "AND ADDTIME(slots.startTime, '02:00:00') > r2.startTime) " +
+	        "AND r2.startAt < slots.endAt " +
+	        "AND r2.endAt > slots.startAt " +
 	        "GROUP BY slots.reservationDate, slots.startTime " +
 	        "HAVING booked > ? " +
 	        "ORDER BY slots.reservationDate ASC, slots.startTime ASC";
-	private static final String SELECT_BEST_CODE_BY_USERID =
-		    "SELECT confirmationCode FROM reservation " +
-		    "WHERE userID = ? AND status IN ('SEATED','CONFIRMED') AND reservationDate >= CURDATE() " +
-		    "ORDER BY " +
-		    "CASE WHEN status='SEATED' AND reservationDate=CURDATE() THEN 0 " +
-		    "     WHEN status='SEATED' THEN 1 ELSE 2 END, " +
-		    "reservationDate ASC, startTime ASC " +
-		    "LIMIT 1";
-
-		private static final String SELECT_BEST_CODE_BY_GUEST =
-		    "SELECT confirmationCode FROM reservation " +
-		    "WHERE guestContact = ? AND status IN ('SEATED','CONFIRMED') AND reservationDate >= CURDATE() " +
+	private static final String SELECT_RANKED_CODE_BY_USER_OR_CONTACT =
+		    "SELECT confirmationCode, status, matchedByUser FROM ( " +
+		    "SELECT confirmationCode, status, reservationDate, startTime, 1 AS matchedByUser FROM reservation " +
+		    "WHERE userID = ? AND status IN ('SEATED','CONFIRMED','WAITING','CALLED') AND reservationDate >= CURDATE() " +
+		    "AND (? = FALSE OR status IN ('WAITING','CALLED')) " +
+		    "UNION ALL " +
+		    "SELECT confirmationCode, status, reservationDate, startTime, 0 AS matchedByUser FROM reservation " +
+		    "WHERE contactKey = ? AND status IN ('SEATED','CONFIRMED','WAITING','CALLED') AND reservationDate >= CURDATE() " +
+		    "AND (? = FALSE OR status IN ('WAITING','CALLED')) " +
+		    ") c " +
 		    "ORDER BY " +
-		    "CASE WHEN status='SEATED' AND reservationDate=CURDATE() THEN 0 " +
-		    "     WHEN status='SEATED' THEN 1 ELSE 2 END, " +
-		    "reservationDate ASC, startTime ASC " +
+		    "CASE WHEN c.status IN ('SEATED','CONFIRMED') THEN 0 ELSE 1 END, " +
+		    "c.matchedByUser DESC, " +
+		    "CASE WHEN c.status='SEATED' AND c.reservationDate=CURDATE() THEN 0 " +
+		    "     WHEN c.status='SEATED' THEN 1 ELSE 2 END, " +
+		    "c.reservationDate ASC, c.startTime ASC " +
 		    "LIMIT 1";
 
 
-	private static final String SELECT_RESERVATIONS_DUE_FOR_NO_SHOW_PARAM ="SELECT reservationID FROM reservation WHERE reservationDate = ? AND status IN ('NEW','CONFIRMED') AND startTime <= ?";
+	private static final String SELECT_RESERVATIONS_DUE_FOR_NO_SHOW_PARAM ="SELECT reservationID FROM reservation WHERE reservationDate = ? AND status IN ('NEW','CONFIRMED') AND startAt <= ?";
+	private static final String SELECT_RESERVATIONS_DUE_FOR_NO_SHOW_FOR_UPDATE ="SELECT reservationID, reservationDate, status, partySize, allocatedCapacity, confirmationCode, guestContact, userID, startTime, timeOfCreation "
+			+ "FROM reservation WHERE reservationDate = ? AND status IN ('NEW','CONFIRMED') AND startAt <= ? FOR UPDATE";
+	private static final String UPDATE_NO_SHOW_BY_RESERVATION_IDS_PREFIX ="UPDATE reservation SET status = 'NO_SHOW' WHERE status IN ('NEW','CONFIRMED') AND reservationID IN (";
 	private static final String SELECT_reservationByConfirmationCode = "SELECT * FROM `reservation` WHERE confirmationCode = ?";
 	private static final String SELECT_reservationByReservationId = "SELECT * FROM `reservation` WHERE reservationID = ?";
+	// check-in: the reservation, its latest open seating and its user in one round trip
+	private static final String SELECT_CHECK_IN_BY_CONFIRMATION_CODE =
+	        "SELECT r.reservationID, r.reservationDate, r.status, r.partySize, r.allocatedCapacity, r.confirmationCode, " +
+	        "r.guestContact, r.userID, r.startTime, r.timeOfCreation, " +
+	        "s.seatingID, s.checkInTime, u.userID AS foundUserID, u.username, u.role, u.phone, u.email " +
+	        "FROM reservation r " +
+	        "LEFT JOIN seating s ON s.reservationID = r.reservationID AND s.checkOutTime IS NULL " +
+	        "LEFT JOIN `user` u ON u.userID = r.userID " +
+	        "WHERE r.confirmationCode = ? " +
+	        "ORDER BY s.checkInTime DESC " +
+	        "LIMIT 1";
 	private static final String SELECT_amountOfUsedSeats ="""
 	        SELECT allocatedCapacity, COUNT(*) AS booked
 	        FROM reservation
 	        WHERE reservationDate = ?
 	          AND status IN ('NEW','CONFIRMED','SEATED')
-	          AND (? < ADDTIME(startTime, '02:00:00') AND ? > startTime)
+	          AND endAt > ? AND startAt < ?
 	        GROUP BY allocatedCapacity
 			""";
+	private static final String SELECT_UPCOMING_PARTY_SIZES =
+	        "SELECT partySize FROM reservation WHERE status = 'CONFIRMED' AND startAt >= ? AND startAt < ?";
 	private static final String SELECT_RESERVATIONS_DUE_FOR_REMINDER =
 	        "SELECT reservationID, reservationDate, status, partySize, allocatedCapacity, " +
 	        "confirmationCode, guestContact, userID, startTime, timeOfCreation " +
 	        "FROM reservation " +
-	        "WHERE TIMESTAMP(reservationDate, startTime) >= (NOW() + INTERVAL 2 HOUR) " +
-	        "AND TIMESTAMP(reservationDate, startTime) <  (NOW() + INTERVAL 150 MINUTE) " +
-	        "AND status = 'APPROVED'";
-	private static final String SELECT_CONFIRMATION_CODE_EXISTS = "SELECT 1 FROM reservation WHERE confirmationCode = ? LIMIT 1";
+	        "WHERE startAt = ? " +
+	        "AND status IN ('NEW','CONFIRMED')";
+	private static final String SELECT_OPEN_START_TIMES =
+	        "SELECT DISTINCT startAt FROM reservation WHERE status IN ('NEW','CONFIRMED') AND startAt >= ?";
+	// archived codes stay reserved, reservation_history keeps a unique index on confirmationCode
+	private static final String SELECT_CONFIRMATION_CODE_EXISTS =
+	        "SELECT 1 FROM reservation WHERE confirmationCode = ? " +
+	        "UNION ALL " +
+	        "SELECT 1 FROM reservation_history WHERE confirmationCode = ? LIMIT 1";
 	// Put this SQL near the top of ReservationDAO
 	private static final String SELECT_RESERVATION_COUNTS_BY_DAY_BETWEEN =
-	        "SELECT DAY(r.reservationDate) AS dayOfMonth, COUNT(*) AS cnt " +
-	        "FROM reservation r " +
+	        "SELECT DAY(reservationDate) AS dayOfMonth, COUNT(*) AS cnt " +
+	        "FROM ( " +
+	        "SELECT r.reservationDate FROM reservation r " +
 	        "WHERE r.reservationDate >= ? AND r.reservationDate < ? " +
 	        "AND NOT EXISTS ( " +
 	        "SELECT 1 FROM seating s " +
 	        "WHERE s.reservationID = r.reservationID " +
 	        "AND s.checkInTime IS NOT NULL " +
 	        "AND ABS(TIMESTAMPDIFF(MINUTE, r.timeOfCreation, s.checkInTime)) <= 60) "+
-	        "GROUP BY DAY(r.reservationDate)";
+	        "UNION ALL " +
+	        "SELECT r.reservationDate FROM reservation_history r " +
+	        "WHERE r.reservationDate >= ? AND r.reservationDate < ? " +
+	        "AND NOT EXISTS ( " +
+	        "SELECT 1 FROM seating_history s " +
+	        "WHERE s.reservationID = r.reservationID " +
+	        "AND s.checkInTime IS NOT NULL " +
+	        "AND ABS(TIMESTAMPDIFF(MINUTE, r.timeOfCreation, s.checkInTime)) <= 60) "+
+	        ") x " +
+	        "GROUP BY DAY(reservationDate)";
 
 
 	private static final String SELECT_RESERVATIONS_BY_DATE =
@@ -133,23 +171,12 @@ public class ReservationDAO {
 	// UPDATE statement
 	private static final String UPDATE_CANCEL_BY_RESERVAIO_ID ="UPDATE reservation SET status = 'CANCELLED' WHERE reservationID = ? AND status IN ('NEW','CONFIRMED')";                     
 	private static final String UPDATE_STATUS_RESERVATION_SQL_BY_RESERVATION_ID ="UPDATE `reservation` SET status = ? WHERE reservationID = ?";
+	private static final String UPDATE_STATUS_IF_BY_RESERVATION_ID ="UPDATE `reservation` SET status = ? WHERE reservationID = ? AND status = ?";
 	private static final String UPDATE_STATUS_RESERVATION_SQL ="UPDATE `reservation` " +"SET status = ? " +"WHERE confirmationCode = ?";
 	private static final String UPDATE_RESERVATION_BY_CONFIRMATION_CODE =
 	        "UPDATE `reservation` " +
-	        "SET reservationDate = ?, status = ?, partySize = ?, allocatedCapacity = ?, guestContact = ?, userID = ?, startTime = ? " +
+	        "SET reservationDate = ?, status = ?, partySize = ?, allocatedCapacity = ?, guestContact = ?, userID = ?, startTime = ?, contactKey = ? " +
 	        "WHERE confirmationCode = ?";
-	private static final String SELECT_WAITLIST_CODE_BY_USERID =
-		    "SELECT confirmationCode FROM reservation " +
-		    "WHERE userID = ? AND status IN ('WAITING','CALLED') AND reservationDate >= CURDATE() " +
-		    "ORDER BY reservationDate ASC, startTime ASC " +
-		    "LIMIT 1";
-
-		private static final String SELECT_WAITLIST_CODE_BY_GUEST =
-		    "SELECT confirmationCode FROM reservation " +
-		    "WHERE guestContact = ? AND status IN ('WAITING','CALLED') AND reservationDate >= CURDATE() " +
-		    "ORDER BY reservationDate ASC, startTime ASC " +
-		    "LIMIT 1";
-	
 	/**
 	 * Represents an overbooked slot (a date + slot start time) and how many reservations overlap that slot.
      * Used when capacity (number of active tables) is reduced and you need to identify problem slots.
@@ -170,6 +197,32 @@ public class ReservationDAO {
         public int getBooked() { return booked; }
     }
 
+	/**
+	 * What check-in needs to know about a reservation, read by {@link ReservationDAO#getCheckInByConfirmationCode}:
+	 * the reservation, its latest open seating (if any) and the user it belongs to (if any).
+	 */
+	public static class CheckIn {
+        private final Reservation reservation;
+        private final Integer seatingID;
+        private final boolean held;
+        private final User user;
+
+        public CheckIn(Reservation reservation, Integer seatingID, boolean held, User user) {
+            this.reservation = reservation;
+            this.seatingID = seatingID;
+            this.held = held;
+            this.user = user;
+        }
+
+        public Reservation getReservation() { return reservation; }
+        /** @return latest open seating of the reservation, null if none */
+        public Integer getSeatingID() { return seatingID; }
+        /** @return true if that seating is held (not checked in yet) */
+        public boolean isHeld() { return held; }
+        /** @return the reservation's user (password not filled), null for guests or unknown users */
+        public User getUser() { return user; }
+    }
+
 	
 	/**
 	 * Finds all overbooked slots for a given allocated capacity after reducing the number of active tables
@@ -215,7 +268,7 @@ public class ReservationDAO {
 	public boolean updateReservation(Connection conn,LocalDate reservationDate,String status,int partySize,int confirmationCode,
 	        String guestContact,String userID, LocalTime startTime,int allocatedCapacity) throws SQLException {
 		if (reservationDate == null) {
-            System.err.println("DB error: reservationDate is null for confirmationCode=" + confirmationCode);
+            log.error("DB error: reservationDate is null for confirmationCode={}", confirmationCode);
             return false;
         }	       
 	    try (
@@ -228,52 +281,79 @@ public class ReservationDAO {
 	        ps.setString(5, guestContact); // can be null
 	        ps.setString(6, userID);       // can be null
 	        ps.setTime(7, startTime != null ? java.sql.Time.valueOf(startTime) : null);
-	        ps.setInt(8, confirmationCode);
+	        ps.setString(8, ContactKey.normalize(guestContact));
+	        ps.setInt(9, confirmationCode);
 
 	        int affected = ps.executeUpdate();
+	        if (affected == 1 && startTime != null && ("NEW".equals(status) || "CONFIRMED".equals(status))) {
+	            DeadlineEvents.reservationScheduled(conn, reservationDate.atTime(startTime));
+	        }
 	        return affected == 1;
 
 	    } catch (SQLException e) {
-	        System.err.println("DB error updating reservation by confirmationCode=" + confirmationCode);
+	        log.error("DB error updating reservation by confirmationCode={}", confirmationCode);
 	        throw e;
 	    }
 	}
 	
 	/**
-	 * Fetches reservations that are due for a reminder notification based on the time window defined
-     * in {@link #SELECT_RESERVATIONS_DUE_FOR_REMINDER}.
+	 * Fetches the NEW/CONFIRMED reservations starting at {@code startAt}, which are due for a reminder
+	 * two hours before.
 	 * @param conn
-	 * @return
+	 * @param startAt start of the reservations
+	 * @return reservations (possibly empty)
 	 * @throws SQLException
 	 */
-	public List<Reservation> getReservationsDueForReminder(Connection conn) throws SQLException {
+	public List<Reservation> getReservationsDueForReminder(Connection conn, LocalDateTime startAt) throws SQLException {
 
 	    List<Reservation> reservations = new ArrayList<>();
 
-	    try (PreparedStatement ps = conn.prepareStatement(SELECT_RESERVATIONS_DUE_FOR_REMINDER);
-	         ResultSet rs = ps.executeQuery()) {
-
-	        while (rs.next()) {
-	            Reservation r = new Reservation(
-	                    rs.getInt("reservationID"),
-	                    rs.getDate("reservationDate").toLocalDate(),
-	                    rs.getString("status"),
-	                    rs.getInt("partySize"),
-	                    rs.getInt("allocatedCapacity"),
-	                    rs.getInt("confirmationCode"),
-	                    rs.getString("guestContact"),
-	                    rs.getString("userID"),
-	                    rs.getTime("startTime").toLocalTime(),
-	                    readTimeOfCreation(rs));
-	                   
-	            
-	            reservations.add(r);
+	    try (PreparedStatement ps = conn.prepareStatement(SELECT_RESERVATIONS_DUE_FOR_REMINDER)) {
+	        ps.setTimestamp(1, Timestamp.valueOf(startAt));
+	        try (ResultSet rs = ps.executeQuery()) {
+	            while (rs.next()) {
+	                Reservation r = new Reservation(
+	                        rs.getInt("reservationID"),
+	                        rs.getDate("reservationDate").toLocalDate(),
+	                        rs.getString("status"),
+	                        rs.getInt("partySize"),
+	                        rs.getInt("allocatedCapacity"),
+	                        rs.getInt("confirmationCode"),
+	                        rs.getString("guestContact"),
+	                        rs.getString("userID"),
+	                        rs.getTime("startTime").toLocalTime(),
+	                        readTimeOfCreation(rs));
+	                       
+	                
+	                reservations.add(r);
+	            }
 	        }
 	    }
 
 	    return reservations;
 	}
 
+	/**
+	 * Fetches the distinct start times of the NEW/CONFIRMED reservations from {@code from} on
+	 * (used to rebuild the reminder and no-show deadlines at startup).
+	 * @param conn
+	 * @param from earliest start time
+	 * @return start times (possibly empty)
+	 * @throws SQLException
+	 */
+	public List<LocalDateTime> getOpenStartTimes(Connection conn, LocalDateTime from) throws SQLException {
+	    List<LocalDateTime> startTimes = new ArrayList<>();
+	    try (PreparedStatement ps = conn.prepareStatement(SELECT_OPEN_START_TIMES)) {
+	        ps.setTimestamp(1, Timestamp.valueOf(from));
+	        try (ResultSet rs = ps.executeQuery()) {
+	            while (rs.next()) {
+	                startTimes.add(rs.getTimestamp("startAt").toLocalDateTime());
+	            }
+	        }
+	    }
+	    return startTimes;
+	}
+
 
 	/**
 	 * Returns reservation IDs that should be processed as "no-show candidates" for a specific date
@@ -295,7 +375,7 @@ public class ReservationDAO {
 
 	    try (PreparedStatement ps = conn.prepareStatement(SELECT_RESERVATIONS_DUE_FOR_NO_SHOW_PARAM)) {
 	        ps.setDate(1, java.sql.Date.valueOf(date));
-	        ps.setTime(2, java.sql.Time.valueOf(lateCutoffTime));
+	        ps.setTimestamp(2, Timestamp.valueOf(date.atTime(lateCutoffTime)));
 
 	        try (ResultSet rs = ps.executeQuery()) {
 	            while (rs.next()) {
@@ -306,6 +386,74 @@ public class ReservationDAO {
 	    return ids;
 	}
 
+	/**
+	 * Locks and returns (in one query) all reservations of @code date that are still NEW/CONFIRMED
+	 * and whose start time is at or before @code lateCutoffTime.
+	 * The rows stay locked until the caller's transaction ends, so they can be safely marked with
+	 * {@link #markNoShowsByReservationIDs(Connection, List)}.
+	 * @param conn
+	 * @param date
+	 * @param lateCutoffTime
+	 * @return list of full reservation rows (empty if none are due)
+	 * @throws SQLException
+	 */
+	public List<Reservation> lockReservationsDueForNoShow(Connection conn, LocalDate date, LocalTime lateCutoffTime)
+	        throws SQLException {
+
+	    if (conn == null) throw new IllegalArgumentException("conn is null");
+
+	    List<Reservation> due = new ArrayList<>();
+
+	    try (PreparedStatement ps = conn.prepareStatement(SELECT_RESERVATIONS_DUE_FOR_NO_SHOW_FOR_UPDATE)) {
+	        ps.setDate(1, java.sql.Date.valueOf(date));
+	        ps.setTimestamp(2, Timestamp.valueOf(date.atTime(lateCutoffTime)));
+
+	        try (ResultSet rs = ps.executeQuery()) {
+	            while (rs.next()) {
+	                due.add(new Reservation(
+	                        rs.getInt("reservationID"),
+	                        rs.getDate("reservationDate").toLocalDate(),
+	                        rs.getString("status"),
+	                        rs.getInt("partySize"),
+	                        rs.getInt("allocatedCapacity"),
+	                        rs.getInt("confirmationCode"),
+	                        rs.getString("guestContact"),
+	                        rs.getString("userID"),
+	                        rs.getTime("startTime").toLocalTime(),
+	                        readTimeOfCreation(rs)));
+	            }
+	        }
+	    }
+	    return due;
+	}
+
+	/**
+	 * Marks all the given reservations as NO_SHOW with a single UPDATE ... WHERE reservationID IN (...).
+	 * Rows that already left NEW/CONFIRMED are not touched.
+	 * @param conn
+	 * @param reservations reservations returned by {@link #lockReservationsDueForNoShow(Connection, LocalDate, LocalTime)}
+	 * @return number of reservations updated
+	 * @throws SQLException
+	 */
+	public int markNoShowsByReservationIDs(Connection conn, List<Reservation> reservations) throws SQLException {
+	    if (conn == null) throw new IllegalArgumentException("conn is null");
+	    if (reservations == null || reservations.isEmpty()) return 0;
+
+	    StringBuilder sql = new StringBuilder(UPDATE_NO_SHOW_BY_RESERVATION_IDS_PREFIX);
+	    for (int i = 0; i < reservations.size(); i++) {
+	        sql.append(i == 0 ? "?" : ", ?");
+	    }
+	    sql.append(')');
+
+	    try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+	        int idx = 1;
+	        for (Reservation r : reservations) {
+	            ps.setInt(idx++, r.getReservationID());
+	        }
+	        return ps.executeUpdate();
+	    }
+	}
+
 	
 	/**
 	 * Updates the status of a reservation identified by @code reservationID
@@ -326,6 +474,27 @@ public class ReservationDAO {
 	    }
 	}
 	
+	/**
+	 * Moves a reservation to a new status only if it still has the expected one, so two concurrent
+	 * check-ins of the same reservation cannot both go through (the second one updates no row).
+	 * @param conn
+	 * @param reservationID
+	 * @param expectedStatus status read earlier in the transaction
+	 * @param status new status
+	 * @return true if the reservation had the expected status and was updated
+	 * @throws SQLException
+	 */
+	public boolean updateStatusIf(Connection conn, int reservationID, String expectedStatus, String status) throws SQLException {
+	    if (conn == null) throw new IllegalArgumentException("conn is null(updateStatusIf)");
+
+	    try (PreparedStatement ps = conn.prepareStatement(UPDATE_STATUS_IF_BY_RESERVATION_ID)) {
+	        ps.setString(1, status);
+	        ps.setInt(2, reservationID);
+	        ps.setString(3, expectedStatus);
+	        return ps.executeUpdate() == 1;
+	    }
+	}
+	
 	/**
 	 * Cancels a reservation by setting its status to 'CANCELLED' (transaction-friendly).
 	 *
@@ -361,7 +530,7 @@ public class ReservationDAO {
 	public int insertNewReservation(Connection conn,LocalDate reservationDate,int numberOfGuests,int allocatedCapacity,
 			int confirmationCode,String userID,LocalTime startTime,String status,String guest) throws SQLException {
 		if (reservationDate == null) {
-            System.err.println("DB error: reservationDate is null for confirmationCode=" + confirmationCode);
+            log.error("DB error: reservationDate is null for confirmationCode={}", confirmationCode);
             return -1;
         }
 	    java.sql.Date sqlReservationDate = java.sql.Date.valueOf(reservationDate);
@@ -378,20 +547,71 @@ public class ReservationDAO {
 	        pstmt.setString(7, userID);
 	        pstmt.setTime(8, java.sql.Time.valueOf(startTime));
 	        pstmt.setTime(8, startTime != null ? java.sql.Time.valueOf(startTime) : null);
+	        pstmt.setString(9, ContactKey.normalize(guest));
 
 	        int isInserted = pstmt.executeUpdate();
 	        if( isInserted != 1) return -1;
 	        
 	        ResultSet rs = pstmt.getGeneratedKeys();
-	        return rs.next() ? rs.getInt(1) : -1;
+	        if (!rs.next()) return -1;
+	        if (startTime != null && ("NEW".equals(status) || "CONFIRMED".equals(status))) {
+	            DeadlineEvents.reservationScheduled(conn, reservationDate.atTime(startTime));
+	        }
+	        return rs.getInt(1);
 
 	    } catch (SQLException e) {
-	        System.err.println("Database error: could not insert new reservation");
+	        log.error("Database error: could not insert new reservation");
 	        throw e;
 	    }
 	}
 			
 	
+	/**
+	 * Fetches everything check-in needs by confirmation code in one query: the reservation, its latest open
+	 * seating and its user (replaces the reservation, seating, check-in-time and user lookups).
+	 * @param conn
+	 * @param confirmationCode
+	 * @return check-in view, or null if no reservation has this code
+	 * @throws SQLException
+	 */
+	public CheckIn getCheckInByConfirmationCode(Connection conn, int confirmationCode) throws SQLException {
+	    try (PreparedStatement ps = conn.prepareStatement(SELECT_CHECK_IN_BY_CONFIRMATION_CODE)) {
+	        ps.setInt(1, confirmationCode);
+
+	        try (ResultSet rs = ps.executeQuery()) {
+	            if (!rs.next()) return null;
+
+	            Timestamp timeOfCreation = rs.getTimestamp("timeOfCreation");
+	            Reservation r = new Reservation(
+	                rs.getInt("reservationID"),
+	                rs.getDate("reservationDate").toLocalDate(),
+	                rs.getString("status"),
+	                rs.getInt("partySize"),
+	                rs.getInt("allocatedCapacity"),
+	                rs.getInt("confirmationCode"),
+	                rs.getString("guestContact"),
+	                rs.getString("userID"),
+	                rs.getTime("startTime") != null ? rs.getTime("startTime").toLocalTime() : null,
+	                timeOfCreation != null ? timeOfCreation.toLocalDateTime() : null);
+
+	            int seatingID = rs.getInt("seatingID");
+	            Integer openSeatingID = rs.wasNull() ? null : seatingID;
+	            boolean held = openSeatingID != null && rs.getTimestamp("checkInTime") == null;
+
+	            String foundUserID = rs.getString("foundUserID");
+	            User user = foundUserID == null ? null : new User(
+	                foundUserID,
+	                rs.getString("username"),
+	                null,                    // password is not exposed
+	                rs.getString("role"),
+	                rs.getString("phone"),
+	                rs.getString("email"));
+
+	            return new CheckIn(r, openSeatingID, held, user);
+	        }
+	    }
+	}
+
 	/**
 	 * Fetches a reservation by confirmation code using an existing connection.
 	 * @param conn
@@ -423,7 +643,7 @@ public class ReservationDAO {
 	        }
 
 	    } catch (SQLException e) {
-	        System.err.println("DB error fetching reservation by confirmationCode=" + confirmationCode);	            	        
+	        log.error("DB error fetching reservation by confirmationCode={}", confirmationCode);	            	        
 	        throw e;
 	    }
 	}
@@ -462,7 +682,7 @@ public class ReservationDAO {
 	        }
 
 	    } catch (SQLException e) {
-	        System.err.println("DB error fetching reservation by reservationID=" + reservationID);	            	        
+	        log.error("DB error fetching reservation by reservationID={}", reservationID);	            	        
 	        throw e;
 	    }
 	}
@@ -483,8 +703,8 @@ public class ReservationDAO {
 	    try (PreparedStatement ps = conn.prepareStatement(SELECT_amountOfUsedSeats)) {
 
 	        ps.setDate(1, java.sql.Date.valueOf(date));
-	        ps.setTime(2, java.sql.Time.valueOf(start));
-	        ps.setTime(3, java.sql.Time.valueOf(end));
+	        ps.setTimestamp(2, Timestamp.valueOf(date.atTime(start)));
+	        ps.setTimestamp(3, Timestamp.valueOf(date.atTime(end)));
 
 	        try (ResultSet rs = ps.executeQuery()) {
 	            while (rs.next()) {
@@ -497,6 +717,7 @@ public class ReservationDAO {
 	public boolean isConfirmationCodeUsed(Connection conn, int code) throws SQLException {
 	    try (PreparedStatement ps = conn.prepareStatement(SELECT_CONFIRMATION_CODE_EXISTS)) {
 	        ps.setInt(1, code);
+	        ps.setInt(2, code);
 	        try (ResultSet rs = ps.executeQuery()) {
 	            return rs.next();
 	        }
@@ -572,8 +793,8 @@ public class ReservationDAO {
         try (PreparedStatement ps = conn.prepareStatement(SELECT_OVERLAPPING_RESERVATIONS_TO_CANCEL)){
         	ps.setDate(1, Date.valueOf(date));
             ps.setInt(2, allocatedCapacity);
-            ps.setTime(3, Time.valueOf(timeEnd));   // interval end
-            ps.setTime(4, Time.valueOf(timeStart)); // interval start
+            ps.setTimestamp(3, Timestamp.valueOf(date.atTime(timeEnd)));   // interval end
+            ps.setTimestamp(4, Timestamp.valueOf(date.atTime(timeStart))); // interval start
             ps.setInt(5, limit);
             
             ResultSet rs = ps.executeQuery();
@@ -600,8 +821,8 @@ public class ReservationDAO {
 		try(PreparedStatement ps = conn.prepareStatement(SELECT_RESERVATIONS_OVERLAPING_WITH_CLOSE_HOURS)){
 			
 			ps.setDate(1,Date.valueOf(date));
-			ps.setTime(2,Time.valueOf(openTime));
-			ps.setTime(3, Time.valueOf(closeTime));
+			ps.setTimestamp(2, Timestamp.valueOf(date.atTime(openTime)));
+			ps.setTimestamp(3, Timestamp.valueOf(date.atTime(closeTime)));
 			ResultSet rs = ps.executeQuery();
 			
 			while(rs.next()) {
@@ -612,6 +833,29 @@ public class ReservationDAO {
 		return idList;
 	}
 	
+	/**
+	 * Party sizes of the confirmed reservations (not arrived yet) starting in a time window,
+	 * used by the allocation look-ahead when a walk-in is seated.
+	 * @param conn
+	 * @param from window start (inclusive)
+	 * @param to window end (exclusive)
+	 * @return party sizes (possibly empty)
+	 * @throws SQLException
+	 */
+	public List<Integer> getUpcomingPartySizes(Connection conn, LocalDateTime from, LocalDateTime to) throws SQLException {
+	    List<Integer> sizes = new ArrayList<>();
+	    try (PreparedStatement ps = conn.prepareStatement(SELECT_UPCOMING_PARTY_SIZES)) {
+	        ps.setTimestamp(1, Timestamp.valueOf(from));
+	        ps.setTimestamp(2, Timestamp.valueOf(to));
+	        try (ResultSet rs = ps.executeQuery()) {
+	            while (rs.next()) {
+	                sizes.add(rs.getInt("partySize"));
+	            }
+	        }
+	    }
+	    return sizes;
+	}
+	
 	/**
 	 * Computes the count of reservations per day of month between two timestamps.
 	 * @param conn
@@ -631,6 +875,8 @@ public class ReservationDAO {
 	    try (PreparedStatement ps = conn.prepareStatement(SELECT_RESERVATION_COUNTS_BY_DAY_BETWEEN)) {
 	        ps.setDate(1, java.sql.Date.valueOf(start.toLocalDate()));
 	        ps.setDate(2, java.sql.Date.valueOf(end.toLocalDate()));
+	        ps.setDate(3, java.sql.Date.valueOf(start.toLocalDate()));
+	        ps.setDate(4, java.sql.Date.valueOf(end.toLocalDate()));
 
 	        try (ResultSet rs = ps.executeQuery()) {
 	            while (rs.next()) {
@@ -738,69 +984,53 @@ public class ReservationDAO {
 
 
 	/**
-	 * Fetches the best confirmation code for a user based on status and date.
-	 * @param conn
-	 * @param userId
-	 * @return confirmation code or -1 when none found
-	 * @throws SQLException
-	 */
-	public int fetchBestConfirmationCodeByUserId(Connection conn, String userId) throws SQLException {
-	    if (userId == null || userId.isBlank()) return -1;
-	    try (PreparedStatement ps = conn.prepareStatement(SELECT_BEST_CODE_BY_USERID)) {
-	        ps.setString(1, userId.trim());
-	        try (ResultSet rs = ps.executeQuery()) {
-	            return rs.next() ? rs.getInt(1) : -1;
-	        }
-	    }
-	}
-	
-	/**
-	 *  Fetches the best confirmation code for a guest contact.
-	 * @param conn
-	 * @param contact
-	 * @return confirmation code or -1 when none found
-	 * @throws SQLException
+	 * Result of {@link #fetchConfirmationCodeByUserOrContact(Connection, String, String, boolean)}:
+	 * the confirmation code, the reservation status and whether it was matched by userID or by contact key.
 	 */
-	public int fetchBestConfirmationCodeByGuestContact(Connection conn, String contact) throws SQLException {
-	    if (contact == null || contact.isBlank()) return -1;
-	    try (PreparedStatement ps = conn.prepareStatement(SELECT_BEST_CODE_BY_GUEST)) {
-	        ps.setString(1, contact.trim());
-	        try (ResultSet rs = ps.executeQuery()) {
-	            return rs.next() ? rs.getInt(1) : -1;
-	        }
-	    }
-	}
-	
-	/**
-	 * Fetches the next waiting list confirmation code for a user.
-	 * @param conn
-	 * @param userId
-	 * @return confirmation code or -1 when none found
-	 * @throws SQLException
-	 */
-	public int fetchWaitingListConfirmationCodeByUserId(Connection conn, String userId) throws SQLException {
-	    if (userId == null || userId.isBlank()) return -1;
-	    try (PreparedStatement ps = conn.prepareStatement(SELECT_WAITLIST_CODE_BY_USERID)) {
-	        ps.setString(1, userId.trim());
-	        try (ResultSet rs = ps.executeQuery()) {
-	            return rs.next() ? rs.getInt(1) : -1;
-	        }
-	    }
+	public static class CodeMatch {
+		private final int confirmationCode;
+		private final String status;
+		private final boolean matchedByUser;
+
+		public CodeMatch(int confirmationCode, String status, boolean matchedByUser) {
+			this.confirmationCode = confirmationCode;
+			this.status = status;
+			this.matchedByUser = matchedByUser;
+		}
+
+		public int getConfirmationCode() { return confirmationCode; }
+		public String getStatus() { return status; }
+		public boolean isMatchedByUser() { return matchedByUser; }
+		/** @return true for SEATED/CONFIRMED matches, false for waiting-list (WAITING/CALLED) matches */
+		public boolean isActiveReservation() { return "SEATED".equals(status) || "CONFIRMED".equals(status); }
 	}
-	
+
 	/**
-	 * Fetches the next waiting list confirmation code for a guest contact.
+	 * Finds, in a single query, the most relevant upcoming confirmation code for a userID or a guest contact.
+	 *
+	 * Ranking: SEATED/CONFIRMED before WAITING/CALLED, userID matches before contact matches,
+	 * SEATED today first, then the earliest date and time.
 	 * @param conn
-	 * @param contact
-	 * @return
+	 * @param userId userID to match (may be null)
+	 * @param contact raw guest contact, compared by its {@link ContactKey} (may be null)
+	 * @param waitingListOnly only consider WAITING/CALLED reservations
+	 * @return best match or null when none found
 	 * @throws SQLException
 	 */
-	public int fetchWaitingListConfirmationCodeByGuestContact(Connection conn, String contact) throws SQLException {
-	    if (contact == null || contact.isBlank()) return -1;
-	    try (PreparedStatement ps = conn.prepareStatement(SELECT_WAITLIST_CODE_BY_GUEST)) {
-	        ps.setString(1, contact.trim());
+	public CodeMatch fetchConfirmationCodeByUserOrContact(Connection conn, String userId, String contact, boolean waitingListOnly)
+	        throws SQLException {
+	    String user = (userId == null || userId.isBlank()) ? null : userId.trim();
+	    String contactKey = ContactKey.normalize(contact);
+	    if (user == null && contactKey == null) return null;
+
+	    try (PreparedStatement ps = conn.prepareStatement(SELECT_RANKED_CODE_BY_USER_OR_CONTACT)) {
+	        ps.setString(1, user);
+	        ps.setBoolean(2, waitingListOnly);
+	        ps.setString(3, contactKey);
+	        ps.setBoolean(4, waitingListOnly);
 	        try (ResultSet rs = ps.executeQuery()) {
-	            return rs.next() ? rs.getInt(1) : -1;
+	            if (!rs.next()) return null;
+	            return new CodeMatch(rs.getInt("confirmationCode"), rs.getString("status"), rs.getInt("matchedByUser") == 1);
 	        }
 	    }
 	}
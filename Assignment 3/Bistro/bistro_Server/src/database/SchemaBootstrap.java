@@ -0,0 +1,236 @@
+package database;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds a fresh database from SQL scripts, used by the {@code embedded} profile of {@link DBManager}.
+ *
+ * <p>Main idea: benchmark and integration runs must start from the same state every time.
+ * The bootstrap drops every table of the current schema, replays the schema dump ({@code G13_Assignment3_DB.sql}),
+ * applies {@link SchemaMigrator} and finally runs an optional seed script.</p>
+ *
+ * <p>Safety: dropping every table is only done to a throw-away schema. The JDBC URL must point to this machine, and a
+ * schema that has tables must carry the {@value #MARKER_TABLE} marker table, which only a previous rebuild creates.
+ * A real database therefore cannot be wiped by a wrong URL; {@link #rebuild(Connection, String, String)} refuses.</p>
+ *
+ * <p>Script rules:
+ * <ul>
+ *   <li>A script is a file path, else a classpath resource, else a file in a parent of the working directory
+ *       (so {@code G13_Assignment3_DB.sql} is found from any project directory of the repository)</li>
+ *   <li>Statements end with {@code ;} at the end of a line; {@code --} comment lines are ignored</li>
+ *   <li>{@code CREATE DATABASE} and {@code USE} are skipped: the target schema is the one named in the JDBC URL</li>
+ * </ul>
+ */
+public class SchemaBootstrap {
+
+	private static final Logger log = LoggerFactory.getLogger(SchemaBootstrap.class);
+
+	/** Marks a schema as throw-away; created by every rebuild. */
+	public static final String MARKER_TABLE = "embedded_throwaway";
+
+	private static final Set<String> LOCAL_HOSTS = Set.of("localhost", "127.0.0.1", "::1");
+
+	private static final String SELECT_TABLES_OF_SCHEMA =
+			"SELECT table_name FROM information_schema.tables WHERE table_schema = DATABASE()";
+	private static final String CREATE_MARKER_TABLE =
+			"CREATE TABLE " + MARKER_TABLE + " (createdAt DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+	private static final String INSERT_MARKER = "INSERT INTO " + MARKER_TABLE + " () VALUES ()";
+
+	private SchemaBootstrap() {}
+
+	/**
+	 * wipes the current schema and rebuilds it from the schema script, the migrations and the seed script
+	 * @param conn active JDBC connection to the target schema
+	 * @param schemaScript the schema dump (see the script rules)
+	 * @param seedScript an optional seed script (null or blank to skip)
+	 * @throws SQLException also if the schema is not a local throw-away one
+	 * @throws IOException if a script cannot be read
+	 */
+	public static void rebuild(Connection conn, String schemaScript, String seedScript) throws SQLException, IOException {
+		conn.setAutoCommit(true);
+
+		String schemaText = readScript(schemaScript);
+		String seedText = seedScript == null || seedScript.isBlank() ? null : readScript(seedScript);
+
+		List<String> tables = tablesOfSchema(conn);
+		requireThrowAway(conn.getMetaData().getURL(), tables);
+		dropTables(conn, tables);
+		try (Statement st = conn.createStatement()) {
+			st.execute(CREATE_MARKER_TABLE);
+			st.execute(INSERT_MARKER);
+		}
+
+		int schemaStatements = runScript(conn, schemaText);
+		log.info("Embedded DB: schema loaded ({} statements from {})", schemaStatements, schemaScript);
+
+		SchemaMigrator.migrate(conn);
+
+		if (seedText != null) {
+			int seedStatements = runScript(conn, seedText);
+			log.info("Embedded DB: seed loaded ({} statements from {})", seedStatements, seedScript);
+		}
+	}
+
+	/**
+	 * @param url JDBC URL of the schema
+	 * @param tables tables the schema has now
+	 * @throws SQLException if the URL is not local, or the schema has tables but no marker table
+	 */
+	static void requireThrowAway(String url, List<String> tables) throws SQLException {
+		if (!isLocalUrl(url)) {
+			throw new SQLException("Refusing to rebuild a database that is not on this machine: " + url);
+		}
+		if (!tables.isEmpty() && !tables.contains(MARKER_TABLE)) {
+			throw new SQLException("Refusing to rebuild a schema without the " + MARKER_TABLE + " marker table ("
+					+ tables.size() + " table(s) would be dropped): " + url);
+		}
+	}
+
+	/**
+	 * @param url JDBC URL, e.g. {@code jdbc:mysql://localhost:3306/db?...}
+	 * @return true if the URL names exactly one host, and that host is this machine
+	 */
+	static boolean isLocalUrl(String url) {
+		if (url == null) return false;
+		int start = url.indexOf("//");
+		if (start < 0) return false;
+		start += 2;
+		int end = start;
+		while (end < url.length() && "/?;".indexOf(url.charAt(end)) < 0) {
+			end++;
+		}
+		String host = url.substring(start, end);
+		if (host.contains(",") || host.contains("@")) return false;
+		if (host.startsWith("[")) {
+			int close = host.indexOf(']');
+			host = close < 0 ? host : host.substring(1, close);
+		} else if (host.indexOf(':') >= 0) {
+			host = host.substring(0, host.indexOf(':'));
+		}
+		return LOCAL_HOSTS.contains(host.toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * reads a script: a file path, else a classpath resource, else a file in a parent of the working directory
+	 * @param name path or resource name
+	 * @return script text
+	 * @throws IOException if the script is not found or cannot be read
+	 */
+	public static String readScript(String name) throws IOException {
+		Path file = Path.of(name);
+		if (Files.isRegularFile(file)) {
+			return Files.readString(file, StandardCharsets.UTF_8);
+		}
+		try (InputStream in = SchemaBootstrap.class.getResourceAsStream("/" + name)) {
+			if (in != null) {
+				return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+			}
+		}
+		if (!file.isAbsolute()) {
+			for (Path dir = Path.of("").toAbsolutePath().getParent(); dir != null; dir = dir.getParent()) {
+				Path candidate = dir.resolve(name);
+				if (Files.isRegularFile(candidate)) {
+					return Files.readString(candidate, StandardCharsets.UTF_8);
+				}
+			}
+		}
+		throw new FileNotFoundException("SQL script not found as a file, on the classpath or in a parent directory: " + name);
+	}
+
+	/**
+	 * executes all statements of a SQL script
+	 * @param conn
+	 * @param script script text
+	 * @return number of statements executed
+	 * @throws SQLException
+	 */
+	public static int runScript(Connection conn, String script) throws SQLException {
+		List<String> statements = splitStatements(script);
+		int executed = 0;
+		try (Statement st = conn.createStatement()) {
+			for (String sql : statements) {
+				String head = sql.toUpperCase(Locale.ROOT);
+				if (head.startsWith("CREATE DATABASE") || head.startsWith("USE ")) continue;
+				st.execute(sql);
+				executed++;
+			}
+		}
+		return executed;
+	}
+
+	/**
+	 * @param script full script text
+	 * @return statements without the trailing {@code ;}
+	 */
+	private static List<String> splitStatements(String script) {
+		List<String> statements = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		for (String line : script.split("\\R")) {
+			String trimmed = line.trim();
+			if (trimmed.isEmpty() || trimmed.startsWith("--")) continue;
+
+			current.append(line).append('\n');
+			if (trimmed.endsWith(";")) {
+				String sql = current.toString().trim();
+				statements.add(sql.substring(0, sql.length() - 1).trim());
+				current.setLength(0);
+			}
+		}
+		if (!current.toString().isBlank()) {
+			statements.add(current.toString().trim());
+		}
+		return statements;
+	}
+
+	/**
+	 * @param conn
+	 * @return every table of the current schema (including history tables, {@code schema_version} and the marker)
+	 * @throws SQLException
+	 */
+	private static List<String> tablesOfSchema(Connection conn) throws SQLException {
+		List<String> tables = new ArrayList<>();
+		try (PreparedStatement ps = conn.prepareStatement(SELECT_TABLES_OF_SCHEMA);
+			 ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				tables.add(rs.getString(1));
+			}
+		}
+		return tables;
+	}
+
+	/**
+	 * drops the given tables of the current schema
+	 * @param conn
+	 * @param tables
+	 * @throws SQLException
+	 */
+	private static void dropTables(Connection conn, List<String> tables) throws SQLException {
+		try (Statement st = conn.createStatement()) {
+			st.execute("SET FOREIGN_KEY_CHECKS = 0");
+			try {
+				for (String table : tables) {
+					st.execute("DROP TABLE IF EXISTS `" + table + "`");
+				}
+			} finally {
+				st.execute("SET FOREIGN_KEY_CHECKS = 1");
+			}
+		}
+	}
+}
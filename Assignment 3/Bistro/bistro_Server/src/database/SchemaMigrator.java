@@ -0,0 +1,275 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Versioned schema migration runner, applied on server start on top of {@code G13_Assignment3_DB.sql}.
+ *
+ * <p>Main idea: every schema change after the shipped dump is a numbered {@link Migration}.
+ * Applied versions are recorded in the {@code schema_version} table, so each migration runs exactly once per database.</p>
+ *
+ * <p>Rules:
+ * <ul>
+ *   <li>Migrations run in ascending version order; versions must never be renumbered or edited once shipped</li>
+ *   <li>Column changes to {@code reservation}, {@code seating}, {@code bill} or {@code waiting_list} must also be applied
+ *       to their {@code _history} twins (see {@link ArchiveDAO})</li>
+ *   <li>The whole run is guarded by a MySQL named lock, so two servers starting together do not migrate twice</li>
+ *   <li>MySQL DDL commits implicitly, so a migration is not atomic. If a run dies half-way, statements that
+ *       already took effect ("duplicate column"/"duplicate key name"/"can't drop") are skipped on the next run</li>
+ * </ul>
+ */
+public class SchemaMigrator {
+
+	private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+
+	private static final String LOCK_NAME = "bistro_schema_migration";
+	private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+	/** MySQL error codes for DDL that already took effect. */
+	private static final int ER_DUP_FIELDNAME = 1060;
+	private static final int ER_DUP_KEYNAME = 1061;
+	private static final int ER_CANT_DROP_FIELD_OR_KEY = 1091;
+
+	private static final String CREATE_SCHEMA_VERSION =
+			"CREATE TABLE IF NOT EXISTS schema_version ("
+			+ "version INT NOT NULL PRIMARY KEY, "
+			+ "description VARCHAR(200) NOT NULL, "
+			+ "appliedAt DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+	private static final String SELECT_APPLIED_VERSIONS = "SELECT version FROM schema_version";
+	private static final String INSERT_APPLIED_VERSION = "INSERT INTO schema_version (version, description) VALUES (?, ?)";
+	private static final String GET_LOCK = "SELECT GET_LOCK(?, ?)";
+	private static final String RELEASE_LOCK = "SELECT RELEASE_LOCK(?)";
+	private static final String SELECT_CONTACTS_WITHOUT_KEY =
+			"SELECT reservationID, guestContact FROM reservation WHERE guestContact IS NOT NULL AND contactKey IS NULL";
+	private static final String UPDATE_CONTACT_KEY = "UPDATE reservation SET contactKey = ? WHERE reservationID = ?";
+
+	/**
+	 * All migrations, in version order.
+	 */
+	private static final List<Migration> MIGRATIONS = List.of(
+			new Migration(1, "reservation startAt/endAt generated columns",
+					"ALTER TABLE reservation ADD COLUMN startAt DATETIME "
+					+ "GENERATED ALWAYS AS (TIMESTAMP(reservationDate, startTime)) STORED",
+					"ALTER TABLE reservation ADD COLUMN endAt DATETIME "
+					+ "GENERATED ALWAYS AS (TIMESTAMP(reservationDate, startTime) + INTERVAL 2 HOUR) STORED"),
+			new Migration(2, "reservation time-window and contact indexes",
+					"CREATE INDEX idx_reservation_date_status_start ON reservation (reservationDate, status, startAt)",
+					"CREATE INDEX idx_reservation_status_start ON reservation (status, startAt)",
+					"CREATE INDEX idx_reservation_guest_status_date ON reservation (guestContact, status, reservationDate)",
+					"CREATE INDEX idx_reservation_user_status_date ON reservation (userID, status, reservationDate)"),
+			new Migration(3, "seating and waiting_list scan indexes",
+					"CREATE INDEX idx_seating_open_bill ON seating (checkOutTime, billSent, checkInTime)",
+					"CREATE INDEX idx_seating_checkin ON seating (checkInTime)",
+					"CREATE INDEX idx_wait_status_assigned ON waiting_list (status, assignedAt, createdAt)",
+					"CREATE INDEX idx_wait_created ON waiting_list (createdAt)"),
+			new Migration(4, "reservation normalized contactKey",
+					SchemaMigrator::backfillContactKeys,
+					"ALTER TABLE reservation ADD COLUMN contactKey VARCHAR(64) NULL",
+					"CREATE INDEX idx_reservation_contact_status_date ON reservation (contactKey, status, reservationDate)",
+					"DROP INDEX idx_reservation_guest_status_date ON reservation"),
+			new Migration(5, "history tables for archived reservations",
+					"CREATE TABLE IF NOT EXISTS reservation_history LIKE reservation",
+					"CREATE TABLE IF NOT EXISTS seating_history LIKE seating",
+					"CREATE TABLE IF NOT EXISTS bill_history LIKE bill",
+					"CREATE TABLE IF NOT EXISTS waiting_list_history LIKE waiting_list"),
+			new Migration(6, "table combine groups and joined tables of a seating",
+					"ALTER TABLE restaurant_table ADD COLUMN combineGroup INT NULL",
+					"CREATE TABLE IF NOT EXISTS seating_joined_table ("
+					+ "seatingID INT NOT NULL, tableID INT NOT NULL, PRIMARY KEY (seatingID, tableID), "
+					+ "CONSTRAINT fk_joined_seating FOREIGN KEY (seatingID) REFERENCES seating (seatingID) ON DELETE CASCADE, "
+					+ "CONSTRAINT fk_joined_table FOREIGN KEY (tableID) REFERENCES restaurant_table (tableID))"),
+			new Migration(7, "job leases and scheduler node heartbeats",
+					"CREATE TABLE IF NOT EXISTS job_lease ("
+					+ "jobName VARCHAR(64) NOT NULL PRIMARY KEY, owner VARCHAR(128) NULL, "
+					+ "acquiredAt DATETIME(3) NULL, expiresAt DATETIME(3) NULL)",
+					"CREATE TABLE IF NOT EXISTS scheduler_node ("
+					+ "nodeId VARCHAR(128) NOT NULL PRIMARY KEY, heartbeatAt DATETIME(3) NOT NULL)"),
+			new Migration(8, "seating auto-bill claim and retry state",
+					"ALTER TABLE seating ADD COLUMN billClaimedAt DATETIME NULL",
+					"ALTER TABLE seating ADD COLUMN billAttempts INT NOT NULL DEFAULT 0",
+					"ALTER TABLE seating ADD COLUMN billRetryAt DATETIME NULL",
+					"ALTER TABLE seating_history ADD COLUMN billClaimedAt DATETIME NULL",
+					"ALTER TABLE seating_history ADD COLUMN billAttempts INT NOT NULL DEFAULT 0",
+					"ALTER TABLE seating_history ADD COLUMN billRetryAt DATETIME NULL"),
+			// UNIQUE(tableID, checkOutTime) failed a second checkout of a table within the same second
+			new Migration(9, "seating checkout time in milliseconds",
+					"ALTER TABLE seating MODIFY checkOutTime DATETIME(3) NULL DEFAULT NULL",
+					"ALTER TABLE seating_history MODIFY checkOutTime DATETIME(3) NULL DEFAULT NULL"),
+			// tables created before V6 had no group, so nothing was ever pushed together: 2- and 4-tops form one row per size
+			new Migration(10, "default combine groups for existing 2- and 4-tops",
+					"UPDATE restaurant_table SET combineGroup = capacity WHERE combineGroup IS NULL AND capacity <= 4"),
+			new Migration(11, "history table for joined tables of archived seatings",
+					"CREATE TABLE IF NOT EXISTS seating_joined_table_history LIKE seating_joined_table")
+	);
+
+	private SchemaMigrator() {}
+
+	/**
+	 * Data step of a migration that cannot be expressed in SQL alone (runs after the migration's statements).
+	 */
+	public interface DataStep {
+		void run(Connection conn) throws SQLException;
+	}
+
+	/**
+	 * A single numbered schema change.
+	 */
+	public static class Migration {
+		private final int version;
+		private final String description;
+		private final DataStep dataStep;
+		private final String[] statements;
+
+		public Migration(int version, String description, String... statements) {
+			this(version, description, null, statements);
+		}
+
+		public Migration(int version, String description, DataStep dataStep, String... statements) {
+			this.version = version;
+			this.description = description;
+			this.dataStep = dataStep;
+			this.statements = statements;
+		}
+
+		public int getVersion() { return version; }
+		public String getDescription() { return description; }
+		public DataStep getDataStep() { return dataStep; }
+		public String[] getStatements() { return statements; }
+	}
+
+	/**
+	 * applies all migrations that are not yet recorded in {@code schema_version}
+	 * @param conn active JDBC connection (auto-commit is used, DDL commits implicitly anyway)
+	 * @return number of migrations applied in this run
+	 * @throws SQLException if a migration fails or the migration lock could not be taken
+	 */
+	public static int migrate(Connection conn) throws SQLException {
+		if (conn == null) throw new IllegalArgumentException("conn is null");
+		conn.setAutoCommit(true);
+
+		acquireLock(conn);
+		try {
+			try (Statement st = conn.createStatement()) {
+				st.execute(CREATE_SCHEMA_VERSION);
+			}
+
+			Set<Integer> applied = fetchAppliedVersions(conn);
+			int count = 0;
+			for (Migration m : MIGRATIONS) {
+				if (applied.contains(m.getVersion())) continue;
+				apply(conn, m);
+				count++;
+			}
+			return count;
+		} finally {
+			releaseLock(conn);
+		}
+	}
+
+	/**
+	 * runs the statements of a migration and records its version
+	 * @param conn
+	 * @param m
+	 * @throws SQLException
+	 */
+	private static void apply(Connection conn, Migration m) throws SQLException {
+		log.info("Applying schema migration V{}: {}", m.getVersion(), m.getDescription());
+		try (Statement st = conn.createStatement()) {
+			for (String sql : m.getStatements()) {
+				try {
+					st.execute(sql);
+				} catch (SQLException e) {
+					if (!isAlreadyApplied(e)) throw e;
+					log.info("V{} statement skipped (already applied): {}", m.getVersion(), e.getMessage());
+				}
+			}
+		}
+		if (m.getDataStep() != null) {
+			m.getDataStep().run(conn);
+		}
+		try (PreparedStatement ps = conn.prepareStatement(INSERT_APPLIED_VERSION)) {
+			ps.setInt(1, m.getVersion());
+			ps.setString(2, m.getDescription());
+			ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * @param e
+	 * @return true if the statement failed only because its change is already in the schema
+	 */
+	private static boolean isAlreadyApplied(SQLException e) {
+		int code = e.getErrorCode();
+		return code == ER_DUP_FIELDNAME || code == ER_DUP_KEYNAME || code == ER_CANT_DROP_FIELD_OR_KEY;
+	}
+
+	/**
+	 * @param conn
+	 * @return versions already recorded in {@code schema_version}
+	 * @throws SQLException
+	 */
+	private static Set<Integer> fetchAppliedVersions(Connection conn) throws SQLException {
+		Set<Integer> versions = new HashSet<>();
+		try (PreparedStatement ps = conn.prepareStatement(SELECT_APPLIED_VERSIONS);
+			 ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				versions.add(rs.getInt("version"));
+			}
+		}
+		return versions;
+	}
+
+	/**
+	 * V4 data step: fills {@code contactKey} for existing reservations with {@link ContactKey#normalize(String)}
+	 * @param conn
+	 * @throws SQLException
+	 */
+	private static void backfillContactKeys(Connection conn) throws SQLException {
+		int updated = 0;
+		try (PreparedStatement select = conn.prepareStatement(SELECT_CONTACTS_WITHOUT_KEY);
+			 ResultSet rs = select.executeQuery();
+			 PreparedStatement update = conn.prepareStatement(UPDATE_CONTACT_KEY)) {
+			while (rs.next()) {
+				String key = ContactKey.normalize(rs.getString("guestContact"));
+				if (key == null) continue;
+				update.setString(1, key);
+				update.setInt(2, rs.getInt("reservationID"));
+				update.addBatch();
+				updated++;
+			}
+			if (updated > 0) update.executeBatch();
+		}
+		log.info("contactKey backfilled for {} reservation(s)", updated);
+	}
+
+	private static void acquireLock(Connection conn) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(GET_LOCK)) {
+			ps.setString(1, LOCK_NAME);
+			ps.setInt(2, LOCK_TIMEOUT_SECONDS);
+			try (ResultSet rs = ps.executeQuery()) {
+				if (!rs.next() || rs.getInt(1) != 1) {
+					throw new SQLException("could not acquire schema migration lock");
+				}
+			}
+		}
+	}
+
+	private static void releaseLock(Connection conn) {
+		try (PreparedStatement ps = conn.prepareStatement(RELEASE_LOCK)) {
+			ps.setString(1, LOCK_NAME);
+			ps.executeQuery().close();
+		} catch (SQLException e) {
+			log.warn("failed to release schema migration lock", e);
+		}
+	}
+}
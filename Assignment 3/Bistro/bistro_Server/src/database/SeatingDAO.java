@@ -3,8 +3,11 @@ package database;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import entities.Seating;
 import requests.TableInfo;
 import responses.CurrentSeatingResponse;
 
@@ -19,8 +22,13 @@ import responses.CurrentSeatingResponse;
  * <ul>
  *   <li><b>Open seating</b>: a seating row where {@code checkOutTime IS NULL}</li>
  *   <li><b>Held seating</b>: a seating row created with {@code checkInTime = NULL} (reserved/held but not checked in yet)</li>
- *   <li><b>Bill automation</b>: {@code billSent} is used to track whether an auto-bill action was triggered</li>
+ *   <li><b>Bill automation</b>: {@code billSent} is used to track whether an auto-bill action was triggered
+ *       (0 due, 2 claimed by a worker, 1 sent); {@code billAttempts}/{@code billRetryAt} delay retries of failed sends</li>
+ *   <li><b>Joined tables</b>: a party seated at pushed-together tables has one seating on its first table;
+ *       the other tables are rows of {@code seating_joined_table}</li>
  * </ul>
+ *
+ * <p>Writes that open or close a seating are reported to {@link FloorModel}.</p>
  */
 public class SeatingDAO {
     // INSERT
@@ -30,26 +38,55 @@ public class SeatingDAO {
     private static final String INSERT_HELD_SEATING =
     	    "INSERT INTO seating (tableID, reservationID, checkInTime, checkOutTime) " +
     	    "VALUES (?, ?, NULL, NULL)";
+    private static final String INSERT_JOINED_TABLE = "INSERT INTO seating_joined_table (seatingID, tableID) VALUES (?, ?)";
 
     // UPDATE
-    private static final String UPDATE_CHEKOUT_BY_SEATING_ID ="UPDATE `seating` SET checkOutTime = NOW() WHERE seatingID = ?";
+    private static final String UPDATE_CHEKOUT_BY_SEATING_ID ="UPDATE `seating` SET checkOutTime = NOW(3) WHERE seatingID = ? AND checkOutTime IS NULL";
     private static final String CLAIM_AUTO_BILL_SEND ="UPDATE seating SET billSent = 2 " +"WHERE seatingID = ? AND billSent = 0 AND checkOutTime IS NULL " +
     	    "AND checkInTime <= DATE_SUB(NOW(), INTERVAL 2 HOUR)";
     private static final String UPDATE_BILL_SENT =
     	    "UPDATE seating SET billSent = ? WHERE seatingID = ?";    
+    private static final String UPDATE_CLAIM_BILL = "UPDATE seating SET billSent = 2, billClaimedAt = NOW() WHERE seatingID = ?";
+    private static final String UPDATE_CLAIMED_BILL_SENT = "UPDATE seating SET billSent = 1, billRetryAt = NULL WHERE seatingID = ? AND billSent = 2";
+    // billRetryAt is assigned before billAttempts: MySQL evaluates SET left to right with the updated values
+    private static final String UPDATE_CLAIMED_BILL_RETRY = "UPDATE seating SET billRetryAt = NOW() + INTERVAL LEAST(?, ? << LEAST(billAttempts, 20)) SECOND, " +
+    														"billAttempts = billAttempts + 1, billSent = 0 WHERE seatingID = ? AND billSent = 2";
         
     private static final String UPDATE_CHECKIN_TIME_NOW =
             "UPDATE seating " +
             "SET checkInTime = NOW() " +
             "WHERE seatingID = ? AND checkOutTime IS NULL AND checkInTime IS NULL";
+    // called party arrives: check in the held seating, seat the reservation and close its CALLED entry together
+    private static final String UPDATE_CHECKIN_CALLED =
+            "UPDATE seating s " +
+            "JOIN reservation r ON r.reservationID = s.reservationID " +
+            "JOIN waiting_list w ON w.reservationID = s.reservationID AND w.status = 'CALLED' " +
+            "SET s.checkInTime = NOW(), r.status = 'SEATED', w.status = 'ASSIGNED' " +
+            "WHERE s.seatingID = ? AND s.checkOutTime IS NULL AND s.checkInTime IS NULL AND r.status = 'CALLED'";
     
     //SELECT
     private static final String SELECT_TABLE_ID_BY_SEATING_ID ="SELECT tableID FROM seating WHERE seatingID = ?";        
     private static final String SELECT_VISIT_TIMES_BETWEEN ="SELECT checkInTime, checkOutTime " +"FROM seating " +"WHERE checkInTime >= ? " +
+    														"AND checkInTime < ? " +
+    														"AND checkOutTime IS NOT NULL " +
+    														"UNION ALL " +
+    														"SELECT checkInTime, checkOutTime " +"FROM seating_history " +"WHERE checkInTime >= ? " +
     														"AND checkInTime < ? " +
     														"AND checkOutTime IS NOT NULL " +
     														"ORDER BY checkInTime";
-    private final String SELECT_CURRENT_SEATINGS ="SELECT s.seatingID,t.tableNumber, t.capacity, s.checkInTime, s.checkOutTime, "+
+    private static final String SELECT_SEATING_DURATIONS_SINCE ="SELECT s.checkInTime, s.checkOutTime, t.capacity + " +
+    														"COALESCE((SELECT SUM(jt.capacity) FROM seating_joined_table j " +
+    														"JOIN restaurant_table jt ON jt.tableID = j.tableID WHERE j.seatingID = s.seatingID), 0) AS capacity " +
+    														"FROM seating s JOIN restaurant_table t ON t.tableID = s.tableID " +
+    														"WHERE s.checkInTime >= ? AND s.checkOutTime IS NOT NULL " +
+    														"UNION ALL " +
+    														"SELECT s.checkInTime, s.checkOutTime, t.capacity + " +
+    														"COALESCE((SELECT SUM(jt.capacity) FROM seating_joined_table_history j " +
+    														"JOIN restaurant_table jt ON jt.tableID = j.tableID WHERE j.seatingID = s.seatingID), 0) AS capacity " +
+    														"FROM seating_history s JOIN restaurant_table t ON t.tableID = s.tableID " +
+    														"WHERE s.checkInTime >= ? AND s.checkOutTime IS NOT NULL " +
+    														"ORDER BY checkInTime";
+    private static final String SELECT_CURRENT_SEATINGS ="SELECT s.seatingID,t.tableNumber, t.capacity, s.checkInTime, s.checkOutTime, "+
     											  "DATE_ADD(s.checkInTime, INTERVAL 2 HOUR) AS estimatedCheckOutTime, r.reservationID, r.confirmationCode, r.partySize, "+
     											  "r.userID, r.guestContact, u.username "+
     											  "FROM seating s JOIN restaurant_table t ON t.tableID = s.tableID "+
@@ -57,14 +94,22 @@ public class SeatingDAO {
     											  "LEFT JOIN user u ON u.userID = r.userID "+
     											  "WHERE s.checkOutTime IS NULL "+
     											  "ORDER BY t.tableNumber ASC";
-    private final String SELECT_WHERE_CHECKIN_NULL= "SELECT checkInTime FROM seating WHERE seatingID = ?";
+    private static final String SELECT_WHERE_CHECKIN_NULL= "SELECT checkInTime FROM seating WHERE seatingID = ?";
     
-    private final String SELECT_OPEN_SEATING_TO_UPDATE = "SELECT seatingID, reservationID "+
-    													 "FROM seating "+
-    													 "WHERE tableID = ? AND checkOutTime IS NULL "+
-    													 "ORDER BY checkInTime DESC "+
-    													 "LIMIT 1 FOR UPDATE";
-    private static final String SELECT_SEATINGS_DUE_FOR_BILL ="SELECT seatingID " +"FROM seating " +"WHERE checkOutTime IS NULL " +"AND billSent = 0 " +"AND checkInTime <= DATE_SUB(NOW(), INTERVAL 2 HOUR)";
+    private static final String SELECT_OPEN_SEATINGS = "SELECT seatingID, reservationID, tableID, checkInTime "+
+    												   "FROM seating "+
+    												   "WHERE checkOutTime IS NULL "+
+    												   "ORDER BY checkInTime IS NOT NULL, checkInTime";
+    private static final String SELECT_OPEN_JOINED_TABLES = "SELECT j.seatingID, j.tableID "+
+    														"FROM seating_joined_table j JOIN seating s ON s.seatingID = j.seatingID "+
+    														"WHERE s.checkOutTime IS NULL";
+    // due seatings not waiting for a retry, plus claims left behind by a worker that died; rows locked by another
+    // worker are skipped instead of waited for
+    private static final String SELECT_BILLS_TO_CLAIM ="SELECT seatingID FROM seating " +
+    													"WHERE checkOutTime IS NULL AND checkInTime <= DATE_SUB(NOW(), INTERVAL 2 HOUR) " +
+    													"AND ((billSent = 0 AND (billRetryAt IS NULL OR billRetryAt <= NOW())) " +
+    													"OR (billSent = 2 AND billClaimedAt < DATE_SUB(NOW(), INTERVAL ? SECOND))) " +
+    													"ORDER BY seatingID LIMIT ? FOR UPDATE SKIP LOCKED";
     private static final String SELECT_RESERVATION_ID_BY_SEATING_ID = "SELECT reservationID FROM seating WHERE seatingID = ?";
     private static final String SELECT_SEATING_ID_BY_RESERVATION_ID ="SELECT seatingID " +"FROM seating " +"WHERE reservationID = ? " +"AND checkOutTime IS NULL " +
     																 "ORDER BY checkInTime DESC " +
@@ -91,7 +136,10 @@ public class SeatingDAO {
             if (affected != 1) return -1;
 
             try (ResultSet rs = ps.getGeneratedKeys()) {
-                return rs.next() ? rs.getInt(1) : -1;
+                if (!rs.next()) return -1;
+                int seatingId = rs.getInt(1);
+                FloorModel.seatingInserted(conn, tableId, seatingId, reservationId, true);
+                return seatingId;
             }
         }
     }
@@ -233,12 +281,61 @@ public class SeatingDAO {
             if (affected != 1) return -1;
 
             try (ResultSet rs = ps.getGeneratedKeys()) {
-                return rs.next() ? rs.getInt(1) : -1;
+                if (!rs.next()) return -1;
+                int seatingId = rs.getInt(1);
+                FloorModel.seatingInserted(conn, tableID, seatingId, reservationID, false);
+                return seatingId;
             }
         }
     }
     
     
+    /**
+     * Records the extra tables of a seating whose party sits at pushed-together tables.
+     *
+     * @param conn active JDBC connection
+     * @param seatingId seating created by {@link #checkIn(Connection, int, int)} on the first table
+     * @param reservationId reservation of the seating
+     * @param tableIds the other tables, in row order
+     * @return {@code true} if every table was recorded
+     * @throws SQLException if a DB error occurs
+     */
+    public boolean joinTables(Connection conn, int seatingId, int reservationId, List<Integer> tableIds) throws SQLException {
+        return joinTables(conn, seatingId, reservationId, tableIds, false);
+    }
+    
+    /**
+     * Records the extra tables of a held seating (a called waiting party that needs pushed-together tables).
+     *
+     * @param conn active JDBC connection
+     * @param seatingId seating created by {@link #insertHeldSeating(Connection, int, int)} on the first table
+     * @param reservationId reservation of the seating
+     * @param tableIds the other tables, in row order
+     * @return {@code true} if every table was recorded
+     * @throws SQLException if a DB error occurs
+     */
+    public boolean joinHeldTables(Connection conn, int seatingId, int reservationId, List<Integer> tableIds) throws SQLException {
+        return joinTables(conn, seatingId, reservationId, tableIds, true);
+    }
+    
+    private boolean joinTables(Connection conn, int seatingId, int reservationId, List<Integer> tableIds, boolean held) throws SQLException {
+        if (tableIds.isEmpty()) return true;
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_JOINED_TABLE)) {
+            for (int tableId : tableIds) {
+                ps.setInt(1, seatingId);
+                ps.setInt(2, tableId);
+                ps.addBatch();
+            }
+            for (int affected : ps.executeBatch()) {
+                if (affected == 0) return false;
+            }
+        }
+        for (int tableId : tableIds) {
+            FloorModel.seatingInserted(conn, tableId, seatingId, reservationId, held);
+        }
+        return true;
+    }
+    
     /**
      * Converts a held seating to an actual check-in by setting {@code checkInTime = NOW()}.
      *
@@ -252,47 +349,79 @@ public class SeatingDAO {
     public boolean markCheckInNow(Connection conn, int seatingId) throws SQLException {
         try (PreparedStatement ps = conn.prepareStatement(UPDATE_CHECKIN_TIME_NOW)) {
             ps.setInt(1, seatingId);
-            return ps.executeUpdate() == 1;
+            if (ps.executeUpdate() != 1) return false;
+            FloorModel.seatingCheckedIn(conn, seatingId);
+            return true;
         }
     }
     
     /**
-     * Fetches the most recent open seating ID for a table (row-locked with {@code FOR UPDATE}).
+     * Checks in a called party in one statement: sets {@code checkInTime = NOW()} on its held seating, moves the
+     * reservation from CALLED to SEATED and its waiting-list entry from CALLED to ASSIGNED
+     * (what {@link #markCheckInNow}, {@link WaitingListDAO#markAssignedIfCalled} and a status update do separately).
      *
      * @param conn active JDBC connection
-     * @param tableID table primary key
-     * @return open seating ID if found; otherwise {@code null}
+     * @param seatingId held seating of the reservation
+     * @return {@code true} if the seating, reservation and waiting-list entry were all updated
      * @throws SQLException if a DB error occurs
      */
-    public Integer fetchOpenSeatingID(Connection conn,int tableID)throws SQLException {
-    	try(PreparedStatement ps = conn.prepareStatement(SELECT_OPEN_SEATING_TO_UPDATE)){
-    		ps.setInt(1, tableID);
-    		ResultSet rs = ps.executeQuery();
-    		if(!rs.next()) return null;
-    		return rs.getInt("seatingID");
-    	}
+    public boolean checkInCalled(Connection conn, int seatingId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(UPDATE_CHECKIN_CALLED)) {
+            ps.setInt(1, seatingId);
+            // a multi-table UPDATE only touches rows when all three join, so any count means all were updated
+            if (ps.executeUpdate() == 0) return false;
+            FloorModel.seatingCheckedIn(conn, seatingId);
+            return true;
+        }
     }
     
     /**
-     * Finds the reservation ID of the most recent open seating for a table.
+     * Fetches all open seatings (used to build {@link FloorModel}).
+     *
+     * <p>Held seatings come first, then by check-in time, so the latest open seating of a table comes last.
+     * Only the seating ID, reservation ID, table ID and check-in time are filled.</p>
      *
      * @param conn active JDBC connection
-     * @param tableId table primary key
-     * @return reservation ID if found; otherwise {@code null}
+     * @return open seatings (possibly empty)
      * @throws SQLException if a DB error occurs
      */
-    public Integer findOpenSeatingReservationId(Connection conn, int tableId) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement(SELECT_OPEN_SEATING_TO_UPDATE)) {
-            ps.setInt(1, tableId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) return null;
-                return rs.getInt("reservationID");
+    public List<Seating> fetchOpenSeatings(Connection conn) throws SQLException {
+        List<Seating> open = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_OPEN_SEATINGS);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Time checkIn = rs.getTime("checkInTime");
+                open.add(new Seating(rs.getInt("seatingID"), rs.getInt("reservationID"), rs.getInt("tableID"),
+                        checkIn == null ? null : checkIn.toLocalTime(), null));
             }
         }
+        return open;
     }
     
     /**
-     * Marks a seating as checked out by setting {@code checkOutTime = NOW()}.
+     * Fetches the joined tables of all open seatings (used to build {@link FloorModel}).
+     *
+     * @param conn active JDBC connection
+     * @return seating ID -> extra table IDs (possibly empty)
+     * @throws SQLException if a DB error occurs
+     */
+    public Map<Integer, List<Integer>> fetchOpenJoinedTables(Connection conn) throws SQLException {
+        Map<Integer, List<Integer>> joined = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_OPEN_JOINED_TABLES);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                joined.computeIfAbsent(rs.getInt("seatingID"), s -> new ArrayList<>()).add(rs.getInt("tableID"));
+            }
+        }
+        return joined;
+    }
+    
+    /**
+     * Marks a seating as checked out by setting {@code checkOutTime = NOW(3)}: to the millisecond, so a table can be
+     * turned over twice within a second without breaking {@code UNIQUE(tableID, checkOutTime)}.
+     *
+     * <p>Only an open seating is updated, so two concurrent checkouts of the same seating cannot both succeed.
+     * The table becomes free in {@link FloorModel} when the transaction commits.</p>
      *
      * @param conn active JDBC connection
      * @param seatingId seating primary key
@@ -302,35 +431,86 @@ public class SeatingDAO {
     public boolean checkOutBySeatingId(Connection conn, int seatingId) throws SQLException {
         try (PreparedStatement ps = conn.prepareStatement(UPDATE_CHEKOUT_BY_SEATING_ID)) {
             ps.setInt(1, seatingId);
-            return ps.executeUpdate() == 1;
+            if (ps.executeUpdate() != 1) return false;
+            FloorModel.seatingCheckedOut(conn, seatingId);
+            return true;
         }
     }
     
     /**
-     * Returns seating IDs that are due for bill processing.
+     * Claims a batch of seatings due for an automatic bill ({@code billSent} 0 -> 2).
      *
-     * <p>Definition: open seatings where {@code billSent = 0} and check-in was at least 2 hours ago.</p>
+     * <p>Due: open seatings checked in at least 2 hours ago whose retry time has come, and claims older than
+     * {@code claimTimeoutSeconds} (their worker died before recording the outcome). The rows are read with
+     * {@code FOR UPDATE SKIP LOCKED}, so parallel workers claim disjoint batches without waiting for each other.
+     * The caller commits, which releases the row locks; the claim itself keeps other workers away.</p>
      *
-     * @param conn active JDBC connection (must not be null)
-     * @return list of seating IDs that match the criteria (possibly empty)
+     * @param conn connection with auto-commit disabled
+     * @param limit batch size
+     * @param claimTimeoutSeconds claims older than this are taken over
+     * @return claimed seating IDs (empty when nothing is due)
      * @throws SQLException if a DB error occurs
-     * @throws IllegalArgumentException if {@code conn} is null
      */
-    public List<Integer> getSeatingsDueForBill(Connection conn) throws SQLException {
+    public List<Integer> claimBillBatch(Connection conn, int limit, int claimTimeoutSeconds) throws SQLException {
         if (conn == null) {
             throw new IllegalArgumentException("Connection is null");
         }
         List<Integer> seatingIds = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(SELECT_SEATINGS_DUE_FOR_BILL);
-             ResultSet rs = ps.executeQuery()) {
-
-            while (rs.next()) {
-                seatingIds.add(rs.getInt("seatingID"));
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_BILLS_TO_CLAIM)) {
+            ps.setInt(1, claimTimeoutSeconds);
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    seatingIds.add(rs.getInt("seatingID"));
+                }
             }
         }
-
+        if (seatingIds.isEmpty()) return seatingIds;
+        try (PreparedStatement ps = conn.prepareStatement(UPDATE_CLAIM_BILL)) {
+            for (int seatingId : seatingIds) {
+                ps.setInt(1, seatingId);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
         return seatingIds;
     }
+
+    /**
+     * Records the outcome of a claimed batch: sent bills become {@code billSent = 1}, failed ones go back to
+     * {@code billSent = 0} with a retry time that doubles per attempt ({@code retrySeconds}, then twice that, ...,
+     * at most {@code maxRetrySeconds}). Rows no longer claimed are left alone.
+     *
+     * @param conn active JDBC connection
+     * @param sent seating IDs whose bill was sent
+     * @param failed seating IDs whose bill could not be sent
+     * @param retrySeconds delay before the first retry
+     * @param maxRetrySeconds longest delay between retries
+     * @throws SQLException if a DB error occurs
+     */
+    public void finishClaimedBills(Connection conn, List<Integer> sent, List<Integer> failed, int retrySeconds,
+                                   int maxRetrySeconds) throws SQLException {
+        if (!sent.isEmpty()) {
+            try (PreparedStatement ps = conn.prepareStatement(UPDATE_CLAIMED_BILL_SENT)) {
+                for (int seatingId : sent) {
+                    ps.setInt(1, seatingId);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+        if (!failed.isEmpty()) {
+            try (PreparedStatement ps = conn.prepareStatement(UPDATE_CLAIMED_BILL_RETRY)) {
+                for (int seatingId : failed) {
+                    ps.setInt(1, maxRetrySeconds);
+                    ps.setInt(2, retrySeconds);
+                    ps.setInt(3, seatingId);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+    }
     
     /**
      * Fetches current open seatings and joins table/reservation/user data for UI display.
@@ -385,6 +565,8 @@ public class SeatingDAO {
         try (PreparedStatement ps = conn.prepareStatement(SELECT_VISIT_TIMES_BETWEEN)) {
             ps.setTimestamp(1, Timestamp.valueOf(startInclusive));
             ps.setTimestamp(2, Timestamp.valueOf(endExclusive));
+            ps.setTimestamp(3, Timestamp.valueOf(startInclusive));
+            ps.setTimestamp(4, Timestamp.valueOf(endExclusive));
 
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
@@ -399,6 +581,30 @@ public class SeatingDAO {
         return visits;
     }
     
+    /**
+     * Returns the closed seatings checked in since a given time, with the seats of their table(s), oldest first
+     * (used to build {@link SeatingDurations}).
+     *
+     * @param conn active JDBC connection
+     * @param since inclusive check-in lower bound
+     * @return one sample per seating (possibly empty)
+     * @throws SQLException if a DB error occurs
+     */
+    public List<SeatingDurations.Sample> fetchSeatingDurationsSince(Connection conn, LocalDateTime since) throws SQLException {
+        List<SeatingDurations.Sample> samples = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_SEATING_DURATIONS_SINCE)) {
+            ps.setTimestamp(1, Timestamp.valueOf(since));
+            ps.setTimestamp(2, Timestamp.valueOf(since));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    samples.add(new SeatingDurations.Sample(rs.getInt("capacity"),
+                            rs.getTimestamp("checkInTime").toLocalDateTime(), rs.getTimestamp("checkOutTime").toLocalDateTime()));
+                }
+            }
+        }
+        return samples;
+    }
+    
     /**
      * Fetches the table ID for a given seating ID.
      *
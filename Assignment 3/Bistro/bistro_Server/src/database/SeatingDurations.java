@@ -0,0 +1,238 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory distribution of how long a party stays at its table, answering "median / 90th percentile seating duration
+ * for C seats at this time of the week" without querying the database.
+ *
+ * <p>Main idea: every closed seating is one sample (checkout minus check-in, in minutes). Samples go into a cell per
+ * seated capacity (the seats of the table, or of all pushed-together tables), weekday and hour of the check-in; each
+ * cell keeps streaming estimates of the median and the 90th percentile (the P² algorithm: five markers per quantile,
+ * moved by at most one position per sample), so a checkout costs O(1) and no samples are stored.</p>
+ *
+ * <p>Lookups fall back to coarser data while a cell is sparse:
+ * <ul>
+ *   <li>The cell of the capacity, weekday and hour, once it has {@value #MIN_CELL_SAMPLES} samples</li>
+ *   <li>Otherwise all samples of the capacity, then all samples, once they have {@value #MIN_FALLBACK_SAMPLES}</li>
+ *   <li>Otherwise {@value #DEFAULT_MINUTES} minutes, the seating length of the billing rule</li>
+ * </ul>
+ *
+ * <p>Consistency with the database:
+ * <ul>
+ *   <li>Rebuilt by {@link #reload(Connection, SeatingDAO)} when {@link DBManager#init()} runs, from the seatings (live
+ *       and archived) checked in during the last {@code seating_DurationHistoryDays} days (default
+ *       {@value #DEFAULT_HISTORY_DAYS})</li>
+ *   <li>Afterwards {@link FloorModel} records every committed checkout of a checked-in seating</li>
+ *   <li>Durations above {@value #MAX_MINUTES} minutes are ignored (a table that was checked out the next morning)</li>
+ * </ul>
+ *
+ * <p>Like {@link FloorModel}, this is a process-wide static holder.</p>
+ */
+public class SeatingDurations {
+
+	/** One closed seating. */
+	public static final class Sample {
+		private final int capacity;
+		private final LocalDateTime checkInTime;
+		private final LocalDateTime checkOutTime;
+
+		Sample(int capacity, LocalDateTime checkInTime, LocalDateTime checkOutTime) {
+			this.capacity = capacity;
+			this.checkInTime = checkInTime;
+			this.checkOutTime = checkOutTime;
+		}
+
+		/** @return seats of the seating's table(s) */
+		public int getCapacity() {
+			return capacity;
+		}
+
+		public LocalDateTime getCheckInTime() {
+			return checkInTime;
+		}
+
+		public LocalDateTime getCheckOutTime() {
+			return checkOutTime;
+		}
+	}
+
+	/**
+	 * Streaming estimate of one quantile (Jain and Chlamtac's P² algorithm): five markers track the minimum, the
+	 * quantile, the maximum and the two midpoints between them; their heights are adjusted by a parabolic (or, if that
+	 * breaks their order, linear) prediction whenever a marker drifts a full position from where it should be.
+	 */
+	private static final class P2Quantile {
+		private final double p;
+		private final double[] height = new double[5];
+		private final double[] position = new double[5];
+		private final double[] desired = new double[5];
+		private final double[] increment;
+		private int count;
+
+		P2Quantile(double p) {
+			this.p = p;
+			this.increment = new double[] { 0, p / 2, p, (1 + p) / 2, 1 };
+		}
+
+		void add(double x) {
+			if (count < 5) {
+				height[count++] = x;
+				if (count == 5) {
+					Arrays.sort(height);
+					for (int i = 0; i < 5; i++) {
+						position[i] = i;
+						desired[i] = 4 * increment[i];
+					}
+				}
+				return;
+			}
+			count++;
+
+			int k;
+			if (x < height[0]) {
+				height[0] = x;
+				k = 0;
+			} else if (x >= height[4]) {
+				height[4] = x;
+				k = 3;
+			} else {
+				k = 0;
+				while (x >= height[k + 1]) k++;
+			}
+			for (int i = k + 1; i < 5; i++) position[i]++;
+			for (int i = 0; i < 5; i++) desired[i] += increment[i];
+
+			for (int i = 1; i <= 3; i++) {
+				double d = desired[i] - position[i];
+				if ((d >= 1 && position[i + 1] - position[i] > 1) || (d <= -1 && position[i - 1] - position[i] < -1)) {
+					int s = d >= 0 ? 1 : -1;
+					double predicted = parabolic(i, s);
+					height[i] = height[i - 1] < predicted && predicted < height[i + 1] ? predicted : linear(i, s);
+					position[i] += s;
+				}
+			}
+		}
+
+		private double parabolic(int i, int s) {
+			return height[i] + s / (position[i + 1] - position[i - 1])
+					* ((position[i] - position[i - 1] + s) * (height[i + 1] - height[i]) / (position[i + 1] - position[i])
+					+ (position[i + 1] - position[i] - s) * (height[i] - height[i - 1]) / (position[i] - position[i - 1]));
+		}
+
+		private double linear(int i, int s) {
+			return height[i] + s * (height[i + s] - height[i]) / (position[i + s] - position[i]);
+		}
+
+		/** @return the estimate; exact while fewer than five samples were added */
+		double value() {
+			if (count >= 5) return height[2];
+			double[] sorted = Arrays.copyOf(height, count);
+			Arrays.sort(sorted);
+			return sorted[Math.min(count - 1, (int) (p * count))];
+		}
+	}
+
+	/** Median and 90th percentile of one group of samples. */
+	private static final class Cell {
+		final P2Quantile median = new P2Quantile(0.5);
+		final P2Quantile p90 = new P2Quantile(0.9);
+		int count;
+
+		void add(double minutes) {
+			median.add(minutes);
+			p90.add(minutes);
+			count++;
+		}
+	}
+
+	/** Duration assumed before enough seatings were recorded. */
+	public static final int DEFAULT_MINUTES = 120;
+	private static final int DEFAULT_HISTORY_DAYS = 56;
+	private static final int MIN_CELL_SAMPLES = 10;
+	private static final int MIN_FALLBACK_SAMPLES = 5;
+	private static final int MAX_MINUTES = 12 * 60;
+	private static final int HOURS_PER_WEEK = 7 * 24;
+
+	/** Cells by capacity * {@link #HOURS_PER_WEEK} + hour of the week. */
+	private static final Map<Integer, Cell> cells = new HashMap<>();
+	private static final Map<Integer, Cell> byCapacity = new HashMap<>();
+	private static Cell overall = new Cell();
+
+	private SeatingDurations() {}
+
+	/**
+	 * rebuilds the distributions from the recent closed seatings
+	 * @param conn active JDBC connection
+	 * @param seatingDAO DAO used to read the seatings
+	 * @throws SQLException
+	 */
+	public static synchronized void reload(Connection conn, SeatingDAO seatingDAO) throws SQLException {
+		int days = Math.max(1, Integer.getInteger("seating_DurationHistoryDays", DEFAULT_HISTORY_DAYS));
+		List<Sample> samples = seatingDAO.fetchSeatingDurationsSince(conn, LocalDateTime.now().minusDays(days));
+
+		cells.clear();
+		byCapacity.clear();
+		overall = new Cell();
+		for (Sample s : samples) {
+			add(s.getCapacity(), s.getCheckInTime(), s.getCheckOutTime());
+		}
+	}
+
+	/**
+	 * records a closed seating
+	 * @param capacity seats of the seating's table(s)
+	 * @param checkInTime check-in of the party
+	 * @param checkOutTime checkout of the party
+	 */
+	public static synchronized void record(int capacity, LocalDateTime checkInTime, LocalDateTime checkOutTime) {
+		add(capacity, checkInTime, checkOutTime);
+	}
+
+	/**
+	 * @param capacity seats of the table(s)
+	 * @param checkInTime check-in time the estimate is for
+	 * @return median seating duration in minutes
+	 */
+	public static synchronized double medianMinutes(int capacity, LocalDateTime checkInTime) {
+		Cell cell = lookup(capacity, checkInTime);
+		return cell == null ? DEFAULT_MINUTES : cell.median.value();
+	}
+
+	/**
+	 * @param capacity seats of the table(s)
+	 * @param checkInTime check-in time the estimate is for
+	 * @return 90th percentile of the seating duration in minutes
+	 */
+	public static synchronized double p90Minutes(int capacity, LocalDateTime checkInTime) {
+		Cell cell = lookup(capacity, checkInTime);
+		return cell == null ? DEFAULT_MINUTES : cell.p90.value();
+	}
+
+	private static void add(int capacity, LocalDateTime checkInTime, LocalDateTime checkOutTime) {
+		long minutes = Duration.between(checkInTime, checkOutTime).toMinutes();
+		if (minutes < 0 || minutes > MAX_MINUTES) return;
+		cells.computeIfAbsent(key(capacity, checkInTime), k -> new Cell()).add(minutes);
+		byCapacity.computeIfAbsent(capacity, c -> new Cell()).add(minutes);
+		overall.add(minutes);
+	}
+
+	private static Cell lookup(int capacity, LocalDateTime checkInTime) {
+		Cell cell = cells.get(key(capacity, checkInTime));
+		if (cell != null && cell.count >= MIN_CELL_SAMPLES) return cell;
+		cell = byCapacity.get(capacity);
+		if (cell != null && cell.count >= MIN_FALLBACK_SAMPLES) return cell;
+		return overall.count >= MIN_FALLBACK_SAMPLES ? overall : null;
+	}
+
+	private static int key(int capacity, LocalDateTime checkInTime) {
+		return capacity * HOURS_PER_WEEK + (checkInTime.getDayOfWeek().getValue() - 1) * 24 + checkInTime.getHour();
+	}
+}
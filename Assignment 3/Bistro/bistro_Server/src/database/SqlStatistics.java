@@ -0,0 +1,307 @@
+package database;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Per-statement database statistics, fed by the {@link JdbcTiming} connection wrapper.
+ *
+ * <p>Main idea: DAOs run static SQL constants, so statements are aggregated by constant name
+ * (e.g. {@code ReservationDAO.SELECT_amountOfUsedSeats}). The names are resolved once by reflection over the
+ * {@code static final String} fields of the DAO classes; SQL built from a constant prefix (dynamic {@code IN} lists)
+ * is attributed to the longest matching constant, anything else to its first 80 characters.</p>
+ *
+ * <p>For every statement it keeps executions, total/max time, rows fetched and errors. Executions at or above
+ * the slow threshold ({@code db_SlowQueryMillis}, default 200ms) are logged with their bind positions; the values
+ * themselves are masked unless {@code db_LogSqlBinds} is set, and always for statements that touch a password.
+ * The "top N by total time" view is available through JMX ({@link SqlStatisticsMBean}) and is printed when the server stops.</p>
+ *
+ * <p>Like {@link DBManager}, this is a process-wide static holder.</p>
+ */
+public class SqlStatistics {
+
+	private static final Logger log = LoggerFactory.getLogger(SqlStatistics.class);
+
+	public static final String OBJECT_NAME = "bistro:type=SqlStatistics";
+
+	/** Classes whose {@code static final String} fields are SQL constants. */
+	static final Class<?>[] SQL_OWNERS = {
+			ReservationDAO.class, SeatingDAO.class, BillDAO.class, TableDAO.class, UserDAO.class,
+			WaitingListDAO.class, OpeningHoursDAO.class, ReportDAO.class, ArchiveDAO.class
+	};
+
+	private static final int UNNAMED_SQL_CHARS = 80;
+	private static final int MAX_RESOLVED = 10_000;
+	private static final Pattern SENSITIVE_SQL = Pattern.compile("password", Pattern.CASE_INSENSITIVE);
+	private static final String MASKED_BIND = "***";
+
+	/** Aggregated numbers of one statement. */
+	public static class StatementStats {
+		private final String name;
+		private final boolean sensitive;
+		private final LongAdder executions = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final AtomicLong maxNanos = new AtomicLong();
+		private final LongAdder rowsFetched = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+
+		StatementStats(String name, boolean sensitive) {
+			this.name = name;
+			this.sensitive = sensitive;
+		}
+
+		void recordExecution(long nanos, boolean failed) {
+			executions.increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+			if (failed) errors.increment();
+		}
+
+		void recordRow() {
+			rowsFetched.increment();
+		}
+
+		public String getName() { return name; }
+		public long getExecutions() { return executions.sum(); }
+		public long getTotalNanos() { return totalNanos.sum(); }
+		public long getMaxNanos() { return maxNanos.get(); }
+		public long getRowsFetched() { return rowsFetched.sum(); }
+		public long getErrors() { return errors.sum(); }
+
+		@Override
+		public String toString() {
+			long n = getExecutions();
+			return String.format("%s executions=%d total=%.1fms avg=%.3fms max=%.3fms rows=%d errors=%d",
+					name, n, getTotalNanos() / 1e6, n == 0 ? 0.0 : getTotalNanos() / 1e6 / n,
+					getMaxNanos() / 1e6, getRowsFetched(), getErrors());
+		}
+	}
+
+	private static final Map<String, StatementStats> stats = new ConcurrentHashMap<>();
+
+	/** SQL text -> "Owner.CONSTANT", built on first use. */
+	private static volatile Map<String, String> constantNames;
+
+	/** SQL text -> name for texts that needed a prefix search (dynamic SQL), capped at {@link #MAX_RESOLVED}. */
+	private static final Map<String, String> resolved = new ConcurrentHashMap<>();
+
+	private static volatile long slowThresholdNanos = 200_000_000L;
+	private static volatile boolean logBindValues;
+
+	private static ObjectName registeredName;
+
+	private SqlStatistics() {}
+
+	/**
+	 * @param sql statement text as passed to {@code prepareStatement}/{@code execute}
+	 * @return statistics entry of the statement (created on first use)
+	 */
+	static StatementStats statsFor(String sql) {
+		String key = sql == null ? "<unknown>" : nameOf(sql);
+		return stats.computeIfAbsent(key, k -> new StatementStats(k, sql != null && SENSITIVE_SQL.matcher(sql).find()));
+	}
+
+	/**
+	 * records one execution and logs it when it is slow
+	 * @param entry from {@link #statsFor(String)}
+	 * @param nanos elapsed time
+	 * @param failed the statement threw
+	 * @param binds bind values by parameter index (may be null or empty)
+	 */
+	static void recordExecution(StatementStats entry, long nanos, boolean failed, Map<Integer, Object> binds) {
+		entry.recordExecution(nanos, failed);
+		if (nanos >= slowThresholdNanos) {
+			log.atWarn()
+					.addKeyValue("statement", entry.getName())
+					.addKeyValue("ms", nanos / 1_000_000L)
+					.addKeyValue("binds", describeBinds(entry, binds))
+					.addKeyValue("failed", failed)
+					.log("slow SQL");
+		}
+	}
+
+	/**
+	 * @param entry statement of the binds
+	 * @param binds bind values by parameter index (may be null)
+	 * @return the binds in index order, values masked unless {@link #setLogBindValues(boolean)} is on and the
+	 *         statement does not touch a password
+	 */
+	static String describeBinds(StatementStats entry, Map<Integer, Object> binds) {
+		if (binds == null || binds.isEmpty()) return "{}";
+		Map<Integer, Object> sorted = new TreeMap<>(binds);
+		if (!logBindValues || entry.sensitive) {
+			sorted.replaceAll((index, value) -> value == null ? null : MASKED_BIND);
+		}
+		return sorted.toString();
+	}
+
+	/**
+	 * @param enabled log bind values of slow statements (except statements that touch a password); off by default
+	 */
+	public static void setLogBindValues(boolean enabled) {
+		logBindValues = enabled;
+	}
+
+	public static void setSlowThresholdMillis(long millis) {
+		slowThresholdNanos = Math.max(0, millis) * 1_000_000L;
+	}
+
+	public static long getSlowThresholdMillis() {
+		return slowThresholdNanos / 1_000_000L;
+	}
+
+	/**
+	 * @param n how many statements to return
+	 * @return statements with the highest total time first
+	 */
+	public static List<StatementStats> topByTotalTime(int n) {
+		List<StatementStats> all = new ArrayList<>(stats.values());
+		all.sort(Comparator.comparingLong(StatementStats::getTotalNanos).reversed());
+		return all.subList(0, Math.min(Math.max(0, n), all.size()));
+	}
+
+	/**
+	 * logs the top statements (used when the server stops)
+	 * @param n
+	 */
+	public static void logTop(int n) {
+		List<StatementStats> top = topByTotalTime(n);
+		if (top.isEmpty()) return;
+		StringBuilder sb = new StringBuilder("Top ").append(top.size()).append(" SQL statements by total time:");
+		for (StatementStats s : top) {
+			sb.append(System.lineSeparator()).append("  ").append(s);
+		}
+		log.info(sb.toString());
+	}
+
+	public static void reset() {
+		stats.clear();
+	}
+
+	/**
+	 * registers the JMX view in the platform MBean server (no-op if already registered)
+	 */
+	public static synchronized void registerMBean() {
+		try {
+			MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!mbs.isRegistered(name)) {
+				mbs.registerMBean(new StandardMBean(new View(), SqlStatisticsMBean.class), name);
+				registeredName = name;
+			}
+		} catch (Exception e) {
+			log.atWarn().setCause(e).log("Failed to register SQL statistics MBean");
+		}
+	}
+
+	/**
+	 * removes the JMX view from the platform MBean server
+	 */
+	public static synchronized void unregisterMBean() {
+		if (registeredName == null) return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+		} catch (Exception e) {
+			log.atWarn().setCause(e).log("Failed to unregister SQL statistics MBean");
+		}
+		registeredName = null;
+	}
+
+	private static String nameOf(String sql) {
+		Map<String, String> names = constantNames;
+		if (names == null) {
+			names = loadConstantNames();
+			constantNames = names;
+		}
+		String name = names.get(sql);
+		if (name == null) name = resolved.get(sql);
+		if (name != null) return name;
+
+		name = nameOfDynamic(names, sql);
+		if (resolved.size() < MAX_RESOLVED) resolved.put(sql, name);
+		return name;
+	}
+
+	private static String nameOfDynamic(Map<String, String> names, String sql) {
+
+		//dynamic SQL built from a constant prefix
+		String best = null;
+		int bestLength = 0;
+		for (Map.Entry<String, String> e : names.entrySet()) {
+			if (e.getKey().length() > bestLength && sql.startsWith(e.getKey())) {
+				best = e.getValue();
+				bestLength = e.getKey().length();
+			}
+		}
+		if (best != null) return best;
+
+		String flat = sql.replaceAll("\\s+", " ").trim();
+		return flat.length() <= UNNAMED_SQL_CHARS ? flat : flat.substring(0, UNNAMED_SQL_CHARS) + "...";
+	}
+
+	private static Map<String, String> loadConstantNames() {
+		Map<String, String> names = new HashMap<>();
+		for (Class<?> owner : SQL_OWNERS) {
+			for (Field field : owner.getDeclaredFields()) {
+				int mod = field.getModifiers();
+				if (field.getType() != String.class || !Modifier.isStatic(mod) || !Modifier.isFinal(mod)) continue;
+				try {
+					field.setAccessible(true);
+					String sql = (String) field.get(null);
+					if (sql != null && !sql.isBlank()) {
+						names.putIfAbsent(sql, owner.getSimpleName() + "." + field.getName());
+					}
+				} catch (Exception e) {
+					log.atWarn().setCause(e).log("SQL statistics: cannot read {}.{}", owner.getSimpleName(), field.getName());
+				}
+			}
+		}
+		return names;
+	}
+
+	/** JMX adapter over the static holder. */
+	private static class View implements SqlStatisticsMBean {
+		@Override
+		public long getSlowThresholdMillis() {
+			return SqlStatistics.getSlowThresholdMillis();
+		}
+
+		@Override
+		public void setSlowThresholdMillis(long millis) {
+			SqlStatistics.setSlowThresholdMillis(millis);
+		}
+
+		@Override
+		public int getStatementCount() {
+			return stats.size();
+		}
+
+		@Override
+		public String[] topByTotalTime(int n) {
+			return SqlStatistics.topByTotalTime(n).stream().map(StatementStats::toString).toArray(String[]::new);
+		}
+
+		@Override
+		public void reset() {
+			SqlStatistics.reset();
+		}
+	}
+}
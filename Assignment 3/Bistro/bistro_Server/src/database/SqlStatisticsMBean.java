@@ -0,0 +1,24 @@
+package database;
+
+/**
+ * JMX view of {@link SqlStatistics} (registered as {@code bistro:type=SqlStatistics}).
+ */
+public interface SqlStatisticsMBean {
+
+	/** @return statements at or above this duration are logged with their bind values */
+	long getSlowThresholdMillis();
+
+	void setSlowThresholdMillis(long millis);
+
+	/** @return number of distinct statements seen */
+	int getStatementCount();
+
+	/**
+	 * @param n how many statements to return
+	 * @return one formatted line per statement, highest total time first
+	 */
+	String[] topByTotalTime(int n);
+
+	/** clears all statement statistics */
+	void reset();
+}
@@ -2,10 +2,10 @@ package database;
 
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.TreeSet;
 
+import allocation.AllocationPolicy;
 import entities.Table;
 import requests.TableInfo;
 
@@ -16,43 +16,42 @@ import requests.TableInfo;
  * <ul>
  *   <li>Creating and updating tables (table number + capacity)</li>
  *   <li>Fetching table details (by ID) and listing all active tables</li>
- *   <li>Finding an available (not currently seated) table for a requested capacity</li>
- *   <li>Capacity helpers (minimal/rounded capacity, totals by capacity, active counts)</li>
+ *   <li>Finding available (not currently seated) tables for a party, through an {@link AllocationPolicy}</li>
+ *   <li>Capacity helpers (active counts)</li>
  *   <li>Operational checks (is a table currently occupied)</li>
  *   <li>Soft-deleting a table by deactivating it ({@code isActive = 0})</li>
  * </ul>
  *
- * <p>All methods assume "active tables" are rows where {@code isActive = 1}.
+ * <p>All methods assume "active tables" are rows where {@code isActive = 1}. Tables that share a {@code combineGroup}
+ * stand in a row (by table number) and can be pushed together.
+ * Free/occupied state is answered by {@link FloorModel}; table writes are reported to it.
  */
 public class TableDAO {
 	
 	//INSERT
-	private final String INSERT_newTable ="INSERT INTO `restaurant_table` " + "(tableNumber, capacity, isActive) " +"VALUES(?, ?, ?)";
+	private static final String INSERT_newTable ="INSERT INTO `restaurant_table` " + "(tableNumber, capacity, isActive, combineGroup) " +"VALUES(?, ?, ?, ?)";
 			
 	
 	//SELECT
 	private static final String SELECT_CAPACITY_BY_TABLE_NUMBER ="SELECT capacity FROM restaurant_table WHERE tableNumber = ? AND isActive = 1";
-	private static final String SELECT_IS_TABLE_OCCUPIED_NOW_BY_NUMBER ="SELECT 1 " +"FROM seating s JOIN restaurant_table t ON t.tableID = s.tableID " +
-																		"WHERE t.tableNumber = ? AND s.checkOutTime IS NULL LIMIT 1";  
 	private static final String SELECT_ACTIVE_COUNT_BY_CAPACITY ="SELECT COUNT(*) FROM restaurant_table WHERE isActive = 1 AND capacity = ?";	   	                         																	                     
-	private final String SELECT_ALL_TABLES ="SELECT * FROM `restaurant_table` WHERE isActive = 1";
-	private final String SELECT_TABLE_BY_ID = "SELECT * FROM `restaurant_table` WHERE tableID = ? AND isActive = 1";
-	private final String SELECT_minimalTableSize = "SELECT MIN(capacity) as roundedUp FROM `restaurant_table` WHERE isActive = 1 AND capacity >= ?";
-	private final String SELECT_tablesByCapacity = "SELECT capacity, COUNT(*) AS total FROM restaurant_table WHERE isActive = 1 GROUP BY capacity";								
-	private static final String SELECT_availableTable ="SELECT t.tableID, t.tableNumber, t.capacity "
-			+ "FROM `restaurant_table` t "
-			+ "WHERE t.isActive = 1 AND t.capacity >= ? "
-			+ "AND t.tableID NOT IN "
-			+ "(SELECT s.tableID "
-			+ "FROM seating s "
-			+ "WHERE s.checkOutTime IS NULL) "
-			+ "ORDER BY t.capacity ASC, t.tableNumber ASC "
-			+ "LIMIT 1";
+	private static final String SELECT_ALL_TABLES ="SELECT * FROM `restaurant_table` WHERE isActive = 1";
+	private static final String SELECT_TABLE_BY_ID = "SELECT * FROM `restaurant_table` WHERE tableID = ? AND isActive = 1";
+	private static final String LOCK_TABLE_BY_ID = "SELECT tableID FROM restaurant_table WHERE tableID = ? FOR UPDATE";
+	// open seating on the table as its own table, then pushed together with it. Locking reads, so they see the latest
+	// committed rows rather than the transaction's snapshot, each bound to an index so only that table's rows are locked
+	private static final String SELECT_OPEN_SEATING_ON_TABLE = "SELECT seatingID, reservationID, checkInTime FROM seating " +
+																"WHERE tableID = ? AND checkOutTime IS NULL LIMIT 1 LOCK IN SHARE MODE";
+	private static final String SELECT_OPEN_JOINED_SEATING_ON_TABLE = "SELECT s.seatingID, s.reservationID, s.checkInTime " +
+																"FROM seating_joined_table j JOIN seating s ON s.seatingID = j.seatingID " +
+																"WHERE j.tableID = ? AND s.checkOutTime IS NULL LIMIT 1 LOCK IN SHARE MODE";
 	
 	//UPDATE
-	private final String UPDATE_TABLE_BY_TABLE_NUMBER = "UPDATE `restaurant_table` SET capacity = ? WHERE tableNumber = ?";
+	private static final String UPDATE_TABLE_BY_TABLE_NUMBER = "UPDATE `restaurant_table` SET capacity = ? WHERE tableNumber = ?";
 	private static final String UPDATE_DEACTIVATE_TABLE_BY_NUMBER ="UPDATE restaurant_table SET isActive = 0 WHERE tableNumber = ? AND isActive = 1";
 			    	
+	/** picks tried before a party is told to wait, when other servers keep seating the tables picked here */
+	private static final int MAX_CLAIM_ATTEMPTS = 3;
 	
 	public Table fetchTableByID(Connection conn,int tableID)throws SQLException {
 		try(PreparedStatement ps = conn.prepareStatement(SELECT_TABLE_BY_ID)){
@@ -67,17 +66,23 @@ public class TableDAO {
 	 * adding new table to the resturant_table in database
 	 * @param tableNumber should be checked for uniqueness 
 	 * @param capacity 
+	 * @param combineGroup row the table stands in, pushed together with its neighbours by table number (null: alone)
 	 * @return boolean if succedded 
 	 * @throws SQLException
 	 */
-	public boolean insertNewTable(Connection conn,int tableNumber,int capacity) throws SQLException {
+	public boolean insertNewTable(Connection conn,int tableNumber,int capacity,Integer combineGroup) throws SQLException {
 		
-		try(PreparedStatement ps = conn.prepareStatement(INSERT_newTable)) {
+		try(PreparedStatement ps = conn.prepareStatement(INSERT_newTable, Statement.RETURN_GENERATED_KEYS)) {
 			ps.setInt(1,tableNumber);
 			ps.setInt(2, capacity);
 			ps.setBoolean(3, true);
+			ps.setObject(4, combineGroup, Types.INTEGER);
 			int isInserted = ps.executeUpdate();
-			return isInserted ==1;
+			if (isInserted != 1) return false;
+			try (ResultSet rs = ps.getGeneratedKeys()) {
+				if (rs.next()) FloorModel.tableAdded(conn, rs.getInt(1), tableNumber, capacity, combineGroup);
+			}
+			return true;
 			
 		}catch(SQLException e) {
 			if (e.getErrorCode() == 1062) return false;
@@ -87,69 +92,94 @@ public class TableDAO {
 	}
 	
 	/**
-	 * method to count how many table for each capacity
-	 * @return a map that connects capacity to the amount of tables for it
+	 * fetch available tables that are not being used, as chosen by the allocation policy (one table, or several
+	 * neighbours pushed together). The tables are taken from {@link FloorModel} for the current transaction: they are
+	 * released again unless a seating is inserted for them before the transaction ends. Their rows stay locked until
+	 * then; if another server seated one of them, the policy picks again
+	 * @param conn connection of the check-in transaction
+	 * @param policy allocation policy
+	 * @param partySize
+	 * @param upcoming party sizes of reservations expected while this party is seated (empty for none)
+	 * @return Table entities, the one that carries the seating first, or null if the party should wait
 	 * @throws SQLException
 	 */
-	public Map<Integer, Integer> getTotalTablesByCapacity(Connection conn) throws SQLException {	    
-	    Map<Integer, Integer> totals = new HashMap<>();
-
-	    try (PreparedStatement ps = conn.prepareStatement(SELECT_tablesByCapacity);
-	         ResultSet rs = ps.executeQuery()) {
-
-	        while (rs.next()) {
-	            totals.put(rs.getInt("capacity"), rs.getInt("total"));
-	        }
-	    }
-	    return totals;
+	public List<Table> findAvailableTables(Connection conn,AllocationPolicy policy,int partySize,List<Integer> upcoming) throws SQLException{
+		for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+			List<Table> tables = FloorModel.claimTables(conn, policy, partySize, upcoming);
+			if (tables == null) return null;
+			List<Integer> tableIDs = new ArrayList<>();
+			for (Table t : tables) {
+				tableIDs.add(t.getTableID());
+			}
+			if (lockFreeTables(conn, tableIDs)) return tables;
+			FloorModel.releaseClaims(conn, tables);
+		}
+		return null;
 	}
 	
 	/**
-	 * getting the closest table capacity to a given party size 
-	 * @param partySize of the current desired reservation
-	 * @return closest capacity of a table to the give partySize 
+	 * gives back tables the current transaction took but will not seat anyone at (they are otherwise released
+	 * when the transaction ends)
+	 * @param conn connection of the transaction
+	 * @param tables tables from {@link #findAvailableTables} or {@link #claimTable}
 	 * @throws SQLException
 	 */
-	public int getMinimalTableSize(Connection conn,int partySize) throws SQLException{
-		
-		try (PreparedStatement ps = conn.prepareStatement(SELECT_minimalTableSize)){
-		     ps.setInt(1,partySize);			
-		     ResultSet rs = ps.executeQuery();
-			if(rs.next()) return rs.getInt("roundedUp");
-			
-		}catch(SQLException e) {
-			System.err.println("Database error: cant fetch minimal size");
-			throw e;
-		}
-		return -1;
+	public void releaseTables(Connection conn, List<Table> tables) throws SQLException {
+		FloorModel.releaseClaims(conn, tables);
 	}
 	
-		
 	/**
-	 * fetch an available table that is not being used
-	 * @param conn
-	 * @param allocatedCapacity
-	 * @return Table entity with all its details
+	 * takes a specific table for the current transaction, like {@link FloorModel#claimTable(Connection, int)}, and
+	 * checks in the database that no other server seated it
+	 * @param conn connection of the transaction
+	 * @param tableID table to take
+	 * @return true if the table is now claimed by this transaction
 	 * @throws SQLException
 	 */
-	public Table findAvailableTable(Connection conn,int allocatedCapacity) throws SQLException{
-		
-		Table table = null;
-		
-		try (PreparedStatement ps = conn.prepareStatement(SELECT_availableTable);){					
-			ps.setInt(1, allocatedCapacity);
-			ResultSet rs = ps.executeQuery();
-			if(rs.next()) {
-				table = new Table(rs.getInt("tableID"),rs.getInt("tableNumber"),rs.getInt("capacity"));
+	public boolean claimTable(Connection conn, int tableID) throws SQLException {
+		return FloorModel.claimTable(conn, tableID) && lockFreeTables(conn, List.of(tableID));
+	}
+	
+	/**
+	 * locks the rows of tables taken in {@link FloorModel} (in table ID order, so two servers cannot deadlock on
+	 * them) and checks that none has an open seating. The model of each server only knows its own seatings: an open
+	 * seating found here was made by another server, and is recorded in the model, which drops this transaction's
+	 * claim on that table. The lock is held until the transaction ends, so another server that takes the same table
+	 * waits and then sees the seating inserted here.
+	 * @param conn connection of the transaction
+	 * @param tableIDs tables claimed in the model
+	 * @return true if every table is free in the database
+	 * @throws SQLException
+	 */
+	private boolean lockFreeTables(Connection conn, List<Integer> tableIDs) throws SQLException {
+		boolean free = true;
+		try (PreparedStatement lock = conn.prepareStatement(LOCK_TABLE_BY_ID);
+			 PreparedStatement open = conn.prepareStatement(SELECT_OPEN_SEATING_ON_TABLE);
+			 PreparedStatement openJoined = conn.prepareStatement(SELECT_OPEN_JOINED_SEATING_ON_TABLE)) {
+			for (int tableID : new TreeSet<>(tableIDs)) {
+				lock.setInt(1, tableID);
+				try (ResultSet rs = lock.executeQuery()) {
+					rs.next();
+				}
+				if (seatedElsewhere(open, tableID) || seatedElsewhere(openJoined, tableID)) free = false;
 			}
-			return table;
-			
-			
-		}catch(SQLException e) {
-			System.err.println("Database error: could not insert find a table");
-			throw e;
 		}
-				
+		return free;
+	}
+
+	/**
+	 * runs one of the open-seating lookups for a table and records a seating it finds in the model
+	 * @return true if the table has an open seating
+	 */
+	private static boolean seatedElsewhere(PreparedStatement lookup, int tableID) throws SQLException {
+		lookup.setInt(1, tableID);
+		try (ResultSet rs = lookup.executeQuery()) {
+			if (!rs.next()) return false;
+			Timestamp checkIn = rs.getTimestamp("checkInTime");
+			FloorModel.seatedElsewhere(tableID, rs.getInt("seatingID"), rs.getInt("reservationID"),
+					checkIn == null ? null : checkIn.toLocalDateTime());
+			return true;
+		}
 	}
 	
 	/**
@@ -165,7 +195,9 @@ public class TableDAO {
 			ps.setInt(1, newCap);
 			ps.setInt(2, tableNumber);
 			int insert = ps.executeUpdate();
-			return insert == 1;
+			if (insert != 1) return false;
+			FloorModel.capacityChanged(conn, tableNumber, newCap);
+			return true;
 		}
 	}
 	
@@ -186,6 +218,24 @@ public class TableDAO {
 		}
 	}
 	
+	/**
+	 * fetching all active tables with their IDs (used to build {@link FloorModel})
+	 * @param conn
+	 * @return List of Table entities
+	 * @throws SQLException
+	 */
+	public List<Table> fetchActiveTables(Connection conn)throws SQLException{
+		List<Table> tables = new ArrayList<>();
+		try(PreparedStatement ps = conn.prepareStatement(SELECT_ALL_TABLES);
+			ResultSet rs = ps.executeQuery()){
+			while(rs.next()) {
+				tables.add(new Table(rs.getInt("tableID"),rs.getInt("tableNumber"),rs.getInt("capacity"),
+						rs.getObject("combineGroup", Integer.class)));
+			}
+			return tables;
+		}
+	}
+	
 	/**
 	 * fetching the capacity of the table by its number
 	 * @param conn
@@ -203,19 +253,14 @@ public class TableDAO {
     }
 	
 	/**
-	 * checking if a table is currenctly occupied in seating
+	 * checking if a table is currenctly occupied in seating (answered by {@link FloorModel})
 	 * @param conn
 	 * @param tableNumber
 	 * @return
 	 * @throws SQLException
 	 */
 	public boolean isTableOccupiedNow(Connection conn, int tableNumber) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement(SELECT_IS_TABLE_OCCUPIED_NOW_BY_NUMBER)) {
-            ps.setInt(1, tableNumber);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next();
-            }
-        }
+        return FloorModel.isOccupied(tableNumber);
     }
 	
 	/**
@@ -244,7 +289,9 @@ public class TableDAO {
 	public boolean deactivateTableByNumber(Connection conn, int tableNumber) throws SQLException {
 	    try (PreparedStatement ps = conn.prepareStatement(UPDATE_DEACTIVATE_TABLE_BY_NUMBER)) {
 	        ps.setInt(1, tableNumber);
-	        return ps.executeUpdate() == 1;
+	        if (ps.executeUpdate() != 1) return false;
+	        FloorModel.tableDeactivated(conn, tableNumber);
+	        return true;
 	    }
 	}
 
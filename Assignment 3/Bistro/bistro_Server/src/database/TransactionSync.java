@@ -0,0 +1,82 @@
+package database;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Commit/rollback callbacks of one pooled connection, driven by the {@link JdbcTiming} connection wrapper.
+ *
+ * <p>Main idea: in-memory state that mirrors the database ({@link FloorModel}) must follow the transaction
+ * outcome of the DAO write that changed it. DAOs register an action for commit and one for rollback:
+ * <ul>
+ *   <li>{@code commit()} (or {@code setAutoCommit(true)}, which commits) runs the commit actions in order</li>
+ *   <li>{@code rollback()} or closing the connection with an open transaction runs the rollback actions in reverse order</li>
+ *   <li>In auto-commit mode, or on a connection not obtained from {@link DBManager#getConnection()},
+ *       the write is already durable, so the commit action runs immediately</li>
+ * </ul>
+ *
+ * <p>Actions must not throw and must not use the connection.</p>
+ */
+public class TransactionSync {
+
+	private final List<Runnable> onCommit = new ArrayList<>();
+	private final List<Runnable> onRollback = new ArrayList<>();
+
+	TransactionSync() {}
+
+	/**
+	 * registers callbacks for the outcome of the current transaction of {@code conn}
+	 * @param conn connection the write was executed on
+	 * @param commitAction runs once the write is committed (may be null)
+	 * @param rollbackAction runs if the write is rolled back (may be null)
+	 * @throws SQLException
+	 */
+	public static void register(Connection conn, Runnable commitAction, Runnable rollbackAction) throws SQLException {
+		TransactionSync sync = of(conn);
+		if (sync == null || conn.getAutoCommit()) {
+			if (commitAction != null) commitAction.run();
+			return;
+		}
+		if (commitAction != null) sync.onCommit.add(commitAction);
+		if (rollbackAction != null) sync.onRollback.add(rollbackAction);
+	}
+
+	/**
+	 * @return the callbacks of a wrapped connection, null for other connections
+	 */
+	static TransactionSync of(Connection conn) {
+		if (conn != null && Proxy.isProxyClass(conn.getClass())
+				&& Proxy.getInvocationHandler(conn) instanceof JdbcTiming.ConnectionHandler handler) {
+			return handler.sync;
+		}
+		return null;
+	}
+
+	void committed() {
+		List<Runnable> actions = new ArrayList<>(onCommit);
+		clear();
+		for (Runnable action : actions) {
+			action.run();
+		}
+	}
+
+	void rolledBack() {
+		List<Runnable> actions = new ArrayList<>(onRollback);
+		clear();
+		for (int i = actions.size() - 1; i >= 0; i--) {
+			actions.get(i).run();
+		}
+	}
+
+	boolean isPending() {
+		return !onCommit.isEmpty() || !onRollback.isEmpty();
+	}
+
+	private void clear() {
+		onCommit.clear();
+		onRollback.clear();
+	}
+}
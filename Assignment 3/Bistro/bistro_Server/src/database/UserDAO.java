@@ -12,6 +12,9 @@ import java.util.ArrayList;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 
 /**
  * DAO for the {@code user} table.
@@ -27,25 +30,35 @@ import java.time.LocalTime;
  * <p>Note: login/user-fetch queries intentionally do not expose the user's password in returned {@link entities.User} objects.
  */
 public class UserDAO {
+
+	private static final Logger log = LoggerFactory.getLogger(UserDAO.class);
 	
 	//INSERT 
-		private final String INSERT_NEW_USER = "INSERT INTO user (userID, username, password, role, phone, email) VALUES(?, ?, ?, ?, ?, ?)";
+		private static final String INSERT_NEW_USER = "INSERT INTO user (userID, username, password, role, phone, email) VALUES(?, ?, ?, ?, ?, ?)";
 
 	//SELECT statements
-		private final String SELECT_USER_BY_USERNAME = "SELECT * FROM `user` WHERE username = ?";
-		private final String SELECT_ALL_SUBSCRIBER = "SELECT * FROM `user` WHERE role = 'SUBSCRIBER'";
+		private static final String SELECT_USER_BY_USERNAME = "SELECT * FROM `user` WHERE username = ?";
+		private static final String SELECT_ALL_SUBSCRIBER = "SELECT * FROM `user` WHERE role = 'SUBSCRIBER'";
 		private static final String SELECT_LOGIN ="SELECT userID, username, role, phone, email FROM `user` WHERE username= ? AND password= ?";
 		private static final String SELECT_USER_BY_ID ="SELECT userID, username, role, phone, email FROM `user` WHERE userID = ?";
+		// hot tables UNION ALL archived history tables (see ArchiveDAO)
 		private static final String SELECT_HISTORY ="SELECT r.reservationDate, r.startTime, r.partySize, r.status, s.checkInTime, s.checkOutTime, t.tableNumber, b.totalPrice "+
 													"FROM reservation r " +
 													"LEFT JOIN seating s ON s.reservationID = r.reservationID "+
 													"LEFT JOIN restaurant_table t ON t.tableID = s.tableID "+
 													"LEFT JOIN bill b ON b.seatingID = s.seatingID "+
 													"WHERE r.userID = ? "+
-													"ORDER BY r.reservationDate DESC, r.startTime";
+													"UNION ALL "+
+													"SELECT r.reservationDate, r.startTime, r.partySize, r.status, s.checkInTime, s.checkOutTime, t.tableNumber, b.totalPrice "+
+													"FROM reservation_history r " +
+													"LEFT JOIN seating_history s ON s.reservationID = r.reservationID "+
+													"LEFT JOIN restaurant_table t ON t.tableID = s.tableID "+
+													"LEFT JOIN bill_history b ON b.seatingID = s.seatingID "+
+													"WHERE r.userID = ? "+
+													"ORDER BY reservationDate DESC, startTime";
 		
 	//UPDATE
-		private final String UPDATE_USER_DETAILS_BY_ID = "UPDATE `user` SET phone = ?, email = ? WHERE userID = ?";
+		private static final String UPDATE_USER_DETAILS_BY_ID = "UPDATE `user` SET phone = ?, email = ? WHERE userID = ?";
 		
 		/**
 		 * method for fetching all user from database 
@@ -127,7 +140,7 @@ public class UserDAO {
 		        }
 
 		    } catch (SQLException e) {
-		        System.err.println("DB error during login");
+		        log.error("DB error during login");
 		           
 		    }
 
@@ -160,7 +173,7 @@ public class UserDAO {
 		            		);
 		            }
 		        } catch (SQLException e) {
-		            System.err.println("DB error fetching user by userID");
+		            log.error("DB error fetching user by userID");
 		            throw e;
 		        }
 
@@ -199,6 +212,7 @@ public class UserDAO {
 		    	
 		    	try(PreparedStatement ps = conn.prepareStatement(SELECT_HISTORY)){
 		    		ps.setString(1, userID);
+		    		ps.setString(2, userID);
 		    		ResultSet rs = ps.executeQuery();
 		    		
 		    		while(rs.next()) {
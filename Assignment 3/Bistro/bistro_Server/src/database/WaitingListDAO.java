@@ -24,30 +24,33 @@ import entities.Seating;
  * This DAO supports:
  * <ul>
  *   <li>Inserting new waiting-list entries</li>
- *   <li>Fetching the next waiting entry that can fit a given table capacity (with row locking)</li>
+ *   <li>Fetching the next waiting entry that can fit a given table capacity (answered by {@link WaitingQueue})</li>
  *   <li>Updating waiting-list status transitions (WAITING -> CALLED -> ASSIGNED / CANCELLED)</li>
  *   <li>Looking up waiting-list entries by reservation</li>
  *   <li>Reporting helpers (daily counts for a time window)</li>
- *   <li>Queries for operational flows (today's waiting list, expired CALLED entries)</li>
+ *   <li>Queries for operational flows (today's waiting list, CALLED entries)</li>
  * </ul>
  *
  * <p>Status usage in this DAO commonly includes: {@code WAITING}, {@code CALLED}, {@code ASSIGNED}, {@code CANCELLED}.
+ *
+ * <p>Writes that add, call or remove WAITING entries are reported to {@link WaitingQueue}.</p>
  */
 public class WaitingListDAO {
 	
 	
 	//INSERT
-	private final String INSERT_NEW_WAIT = "INSERT INTO waiting_list (reservationID, status, priority, createdAt, assignedAt) " +
+	private static final String INSERT_NEW_WAIT = "INSERT INTO waiting_list (reservationID, status, priority, createdAt, assignedAt) " +
 	        "VALUES (?, ?, ?, ?, NULL)";
 	
 	//SELECT
-	private final String SELECT_NEXT_IN_LINE =
-	        "SELECT w.waitID, w.reservationID, w.priority, w.status, w.createdAt " +
+	private static final String SELECT_OPEN_WAITING =
+	        "SELECT w.waitID, w.reservationID, w.priority, w.createdAt, r.allocatedCapacity " +
 	        "FROM waiting_list w " +
 	        "JOIN reservation r ON r.reservationID = w.reservationID " +
-	        "WHERE w.status = 'WAITING' AND r.allocatedCapacity <= ? " +
-	        "ORDER BY w.priority DESC, w.createdAt ASC " +
-	        "LIMIT 1 FOR UPDATE";
+	        "WHERE w.status = 'WAITING'";
+	private static final String SELECT_OPEN_WAITING_BY_RESERVATION_ID = SELECT_OPEN_WAITING + " AND w.reservationID = ?";
+
+	private static final String LOCK_WAITING_BY_WAIT_ID = "SELECT status FROM waiting_list WHERE waitID = ? FOR UPDATE";
 
 	private static final String SELECT_RESERVATION_BY_WAIT_ID =
 	        "SELECT r.* " +
@@ -61,32 +64,35 @@ public class WaitingListDAO {
 	        "ORDER BY waitID DESC " +
 	        "LIMIT 1";
 	//UPDATE
-	private final String UPDATE_WAITLIST_STATUS = "UPDATE `waiting_list` SET status = ? WHERE reservationID = ?";
+	private static final String UPDATE_WAITLIST_STATUS = "UPDATE `waiting_list` SET status = ? WHERE reservationID = ?";
 	private static final String UPDATE_WAITINGLIST_TO_ASSIGNED =
 	        "UPDATE waiting_list SET status='ASSIGNED' " +
 	        "WHERE reservationID = ? AND status='CALLED'";
 
-	private final String UPDATE_STATUS_TO_CALLED = "UPDATE `waiting_list` SET status='CALLED', assignedAt=NOW() "+
+	private static final String UPDATE_STATUS_TO_CALLED = "UPDATE `waiting_list` SET status='CALLED', assignedAt=NOW() "+
 			 "WHERE waitID = ? AND status = 'WAITING'";
 	
 
 	// SELECT (put near the top of WaitingListDAO)
 	private static final String SELECT_WAITING_COUNTS_BY_DAY_BETWEEN =
 	        "SELECT DAY(createdAt) AS dayOfMonth, COUNT(*) AS cnt " +
-	        "FROM waiting_list " +
-	        "WHERE createdAt >= ? AND createdAt < ? " +
+	        "FROM ( " +
+	        "SELECT createdAt FROM waiting_list WHERE createdAt >= ? AND createdAt < ? " +
+	        "UNION ALL " +
+	        "SELECT createdAt FROM waiting_list_history WHERE createdAt >= ? AND createdAt < ? " +
+	        ") w " +
 	        "GROUP BY DAY(createdAt)";
 	private static final String SELECT_WAITINGLIST_TODAY =
 	        "SELECT * FROM waiting_list " +
 	        "WHERE status = 'WAITING' " +
 	        "AND assignedAt IS NULL " +
-	        "AND DATE(createdAt) = CURRENT_DATE";
-	private static final String SELECT_EXPIRED_CALLED_WAITINGLIST =
+	        "AND createdAt >= CURRENT_DATE " +
+	        "AND createdAt < CURRENT_DATE + INTERVAL 1 DAY";
+	private static final String SELECT_CALLED_WAITINGLIST =
 	        "SELECT waitID, reservationID, status, priority, createdAt, assignedAt " +
 	        "FROM waiting_list " +
 	        "WHERE status = 'CALLED' " +
-	        "AND assignedAt IS NOT NULL " +
-	        "AND assignedAt <= NOW() - INTERVAL 15 MINUTE";
+	        "AND assignedAt IS NOT NULL";
 
 
 	/**
@@ -119,9 +125,14 @@ public class WaitingListDAO {
 	}
 	
 	/**
-     * Returns the next WAITING list entry that can fit a given table capacity.
+     * Returns the next WAITING list entry that can fit a given table capacity
+     * (highest priority, then oldest, among reservations booked for at most that capacity).
      *
-     * <p>This query uses {@code FOR UPDATE} to safely support "pick next in line" in concurrent flows.</p>
+     * <p>Answered by {@link WaitingQueue}, which takes the entry for the current transaction, so concurrent
+     * "pick next in line" flows cannot call the same party. It is released if the transaction does not
+     * {@link #markCalled(Connection, int) mark it called}. The entry's row is locked until the transaction ends and
+     * must still be WAITING: an entry another server called or removed meanwhile is dropped from the index and the
+     * next one is taken, before anyone is notified.</p>
      *
      * @param conn active JDBC connection
      * @param tableCapacity the table capacity available
@@ -129,14 +140,73 @@ public class WaitingListDAO {
      * @throws SQLException if a DB error occurs
      */
 	public WaitingList getNextWaitingThatFits(Connection conn, int tableCapacity) throws SQLException {
-	    try (PreparedStatement ps = conn.prepareStatement(SELECT_NEXT_IN_LINE)) {
-	        ps.setInt(1, tableCapacity);
+	    while (true) {
+	        WaitingList next = WaitingQueue.claimNext(conn, tableCapacity);
+	        if (next == null || lockWaiting(conn, next.getWaitID())) return next;
+	    }
+	}
+
+	/**
+     * Lists the parties booked for more seats than a table has, the next in line of each booked capacity first
+     * (answered by {@link WaitingQueue}; nothing is claimed).
+     *
+     * @param tableCapacity the table capacity available
+     * @return WAITING entries that need pushed-together or bigger tables (possibly empty)
+     */
+	public List<WaitingList> getWaitingNeedingMoreThan(int tableCapacity) {
+	    return WaitingQueue.headsAbove(tableCapacity);
+	}
+
+	/**
+     * Takes a given WAITING entry for the current transaction, with the same guards as
+     * {@link #getNextWaitingThatFits(Connection, int)}.
+     *
+     * @param conn active JDBC connection
+     * @param waitId entry from {@link #getWaitingNeedingMoreThan(int)}
+     * @return {@code true} if the entry is still WAITING and now belongs to this transaction
+     * @throws SQLException if a DB error occurs
+     */
+	public boolean claimWaiting(Connection conn, int waitId) throws SQLException {
+	    return WaitingQueue.claim(conn, waitId) && lockWaiting(conn, waitId);
+	}
+
+	/**
+     * locks the row of an entry claimed in {@link WaitingQueue}; an entry no longer WAITING (called or removed by
+     * another server) is dropped from the index
+     * @return {@code true} if the entry is still WAITING
+     */
+	private boolean lockWaiting(Connection conn, int waitId) throws SQLException {
+	    try (PreparedStatement ps = conn.prepareStatement(LOCK_WAITING_BY_WAIT_ID)) {
+	        ps.setInt(1, waitId);
 	        try (ResultSet rs = ps.executeQuery()) {
-	            if (!rs.next()) return null;
+	            if (rs.next() && "WAITING".equals(rs.getString("status"))) return true;
+	        }
+	    }
+	    WaitingQueue.discard(waitId);
+	    return false;
+	}
 
-	            return new WaitingList(rs.getInt("waitID"),rs.getInt("reservationID"),rs.getString("status"),rs.getInt("priority"),rs.getTimestamp("createdAt").toLocalDateTime(),null);
+	/**
+     * Fetches all WAITING entries with the capacity their reservation is booked against (used to build {@link WaitingQueue}).
+     *
+     * @param conn active JDBC connection
+     * @return WAITING entries (possibly empty)
+     * @throws SQLException if a DB error occurs
+     */
+	public List<WaitingQueue.Entry> fetchOpenWaiting(Connection conn) throws SQLException {
+	    List<WaitingQueue.Entry> out = new ArrayList<>();
+	    try (PreparedStatement ps = conn.prepareStatement(SELECT_OPEN_WAITING);
+	         ResultSet rs = ps.executeQuery()) {
+	        while (rs.next()) {
+	            out.add(toEntry(rs));
 	        }
 	    }
+	    return out;
+	}
+
+	private static WaitingQueue.Entry toEntry(ResultSet rs) throws SQLException {
+	    return new WaitingQueue.Entry(rs.getInt("waitID"), rs.getInt("reservationID"), rs.getInt("priority"),
+	            rs.getTimestamp("createdAt").toLocalDateTime(), rs.getInt("allocatedCapacity"));
 	}
 
 	
@@ -148,12 +218,13 @@ public class WaitingListDAO {
      * @param reservationID reservation foreign key
      * @param status initial status (typically {@code WAITING})
      * @param priority priority value used for ordering
+     * @param allocatedCapacity capacity the reservation is booked against
      * @return {@code true} if inserted successfully
      * @throws SQLException if a DB error occurs
      */
-	public boolean insertNewWait(int reservationID,String status,int priority) throws SQLException{
+	public boolean insertNewWait(int reservationID,String status,int priority,int allocatedCapacity) throws SQLException{
 		try(Connection conn =DBManager.getConnection()){
-			return insertNewWait(conn, reservationID, status, priority);
+			return insertNewWait(conn, reservationID, status, priority, allocatedCapacity);
 		}
 	}
 	/**
@@ -165,18 +236,27 @@ public class WaitingListDAO {
      * @param reservationId reservation foreign key
      * @param status initial status (typically {@code WAITING})
      * @param priority priority value (higher usually means earlier selection)
+     * @param allocatedCapacity capacity the reservation is booked against (indexes the entry in {@link WaitingQueue})
      * @return {@code true} if inserted successfully
      * @throws SQLException if a DB error occurs
      */
-	public boolean insertNewWait(Connection conn, int reservationId, String status, int priority) throws SQLException {
-
-	    try (PreparedStatement ps = conn.prepareStatement(INSERT_NEW_WAIT)) {
+	public boolean insertNewWait(Connection conn, int reservationId, String status, int priority, int allocatedCapacity) throws SQLException {
+	    LocalDateTime createdAt = LocalDateTime.now();
+	    try (PreparedStatement ps = conn.prepareStatement(INSERT_NEW_WAIT, Statement.RETURN_GENERATED_KEYS)) {
 	        ps.setInt(1, reservationId);
 	        ps.setString(2, status);
 	        ps.setInt(3, priority);
-	        ps.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now())); 
+	        ps.setTimestamp(4, Timestamp.valueOf(createdAt)); 
 
-	        return ps.executeUpdate() == 1;
+	        if (ps.executeUpdate() != 1) return false;
+	        if ("WAITING".equals(status)) {
+	            try (ResultSet rs = ps.getGeneratedKeys()) {
+	                if (rs.next()) {
+	                    WaitingQueue.added(conn, new WaitingQueue.Entry(rs.getInt(1), reservationId, priority, createdAt, allocatedCapacity));
+	                }
+	            }
+	        }
+	        return true;
 	    }
 	}
 	
@@ -195,12 +275,27 @@ public class WaitingListDAO {
 	        throw new IllegalArgumentException("conn is null (updateWaitingStatus)");
 	    }
 
+	    int affected;
 	    try (PreparedStatement ps = conn.prepareStatement(UPDATE_WAITLIST_STATUS)) {
 	        ps.setString(1, status);
 	        ps.setInt(2, reservationID);
 
-	        int affected = ps.executeUpdate();
-	        return affected >= 1; // use == 1 if reservationID is guaranteed unique in waiting_list
+	        affected = ps.executeUpdate();
+	    }
+	    if (affected >= 1) {
+	        WaitingQueue.Entry waiting = "WAITING".equals(status) ? fetchOpenWaiting(conn, reservationID) : null;
+	        if (waiting != null) WaitingQueue.added(conn, waiting);
+	        else WaitingQueue.removed(conn, reservationID);
+	    }
+	    return affected >= 1; // use == 1 if reservationID is guaranteed unique in waiting_list
+	}
+
+	private WaitingQueue.Entry fetchOpenWaiting(Connection conn, int reservationID) throws SQLException {
+	    try (PreparedStatement ps = conn.prepareStatement(SELECT_OPEN_WAITING_BY_RESERVATION_ID)) {
+	        ps.setInt(1, reservationID);
+	        try (ResultSet rs = ps.executeQuery()) {
+	            return rs.next() ? toEntry(rs) : null;
+	        }
 	    }
 	}
 	
@@ -257,6 +352,7 @@ public class WaitingListDAO {
 	
 	/**
      * Marks a WAITING entry as CALLED and sets {@code assignedAt = NOW()} (by waitID).
+     * The entry leaves {@link WaitingQueue} when the transaction commits, and its timeout is reported to {@link DeadlineEvents}.
      *
      * @param conn active JDBC connection
      * @param waitId waiting list primary key
@@ -266,8 +362,11 @@ public class WaitingListDAO {
 	public boolean markCalled(Connection conn, int waitId) throws SQLException {
 	    try (PreparedStatement ps = conn.prepareStatement(UPDATE_STATUS_TO_CALLED)) {
 	        ps.setInt(1, waitId);
-	        return ps.executeUpdate() == 1;
+	        if (ps.executeUpdate() != 1) return false;
 	    }
+	    WaitingQueue.called(conn, waitId);
+	    DeadlineEvents.waitingCalled(conn, waitId, LocalDateTime.now());
+	    return true;
 	}
 	
 	/**
@@ -289,6 +388,8 @@ public class WaitingListDAO {
 	    try (PreparedStatement ps = conn.prepareStatement(SELECT_WAITING_COUNTS_BY_DAY_BETWEEN)) {
 	        ps.setTimestamp(1, Timestamp.valueOf(start));
 	        ps.setTimestamp(2, Timestamp.valueOf(end));
+	        ps.setTimestamp(3, Timestamp.valueOf(start));
+	        ps.setTimestamp(4, Timestamp.valueOf(end));
 
 	        try (ResultSet rs = ps.executeQuery()) {
 	            while (rs.next()) {
@@ -335,16 +436,16 @@ public class WaitingListDAO {
 	}
 	
 	/**
-     * Fetches CALLED entries that have expired (called more than 15 minutes ago).
+     * Fetches all CALLED entries with the time they were called (used to rebuild their timeouts at startup).
      *
      * @param conn active JDBC connection
-     * @return list of expired CALLED entries (possibly empty)
+     * @return list of CALLED entries (possibly empty)
      * @throws SQLException if a DB error occurs
      */
-	public List<WaitingList> fetchExpiredCalled(Connection conn) throws SQLException {
+	public List<WaitingList> fetchCalled(Connection conn) throws SQLException {
 	    List<WaitingList> out = new ArrayList<>();
 
-	    try (PreparedStatement ps = conn.prepareStatement(SELECT_EXPIRED_CALLED_WAITINGLIST);
+	    try (PreparedStatement ps = conn.prepareStatement(SELECT_CALLED_WAITINGLIST);
 	         ResultSet rs = ps.executeQuery()) {
 
 	        while (rs.next()) {
@@ -0,0 +1,370 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import entities.WaitingList;
+
+/**
+ * In-memory index of the {@code WAITING} entries of {@code waiting_list}, answering "best waiting party that fits a table
+ * of size C" without querying the database.
+ *
+ * <p>Main idea: entries are kept in one ordered set per booked capacity ({@code reservation.allocatedCapacity}), each
+ * ordered by priority (high first), then {@code createdAt}, then {@code waitID}, the order of the former
+ * {@code ORDER BY priority DESC, createdAt ASC} query. A lookup compares the heads of the sets with capacity &lt;= C,
+ * so its cost depends on the number of distinct capacities (a handful), not on the length of the list. The parties
+ * booked for more than C ({@link #headsAbove(int)}) are the ones that need pushed-together tables; the caller runs
+ * the allocation policy for them and takes the one it seats with {@link #claim(Connection, int)}.</p>
+ *
+ * <p>Consistency with the database, which stays the system of record:
+ * <ul>
+ *   <li>Rebuilt from the WAITING rows by {@link #reload(Connection, WaitingListDAO)} when {@link DBManager#init()} runs</li>
+ *   <li>{@link #claimNext(Connection, int)} takes the entry out of the index for the current transaction, so concurrent
+ *       transactions of this server cannot call the same party without waiting on a row lock. It goes back
+ *       when the transaction ends without calling the party</li>
+ *   <li>Calling the party ({@link WaitingListDAO#markCalled(Connection, int)}) removes it on commit; new entries and
+ *       status changes written by {@link WaitingListDAO} are applied on commit, through {@link TransactionSync}</li>
+ *   <li>Several servers sharing the database each keep their own index. {@link WaitingListDAO} locks the row of the
+ *       claimed entry and checks it is still WAITING; an entry another server called or removed is dropped with
+ *       {@link #discard(int)} and the next one is claimed. Entries added, called or removed on another server are
+ *       picked up by {@link #reconcile(Connection, WaitingListDAO)}, which the scheduler runs every minute while
+ *       other servers are alive</li>
+ * </ul>
+ *
+ * <p>Like {@link FloorModel}, this is a process-wide static holder, since controllers create their own DAO instances.</p>
+ */
+public class WaitingQueue {
+
+	/** One WAITING entry with the capacity its reservation is booked against. */
+	public static final class Entry {
+		private final int waitID;
+		private final int reservationID;
+		private final int priority;
+		private final LocalDateTime createdAt;
+		private final int capacity;
+
+		Entry(int waitID, int reservationID, int priority, LocalDateTime createdAt, int capacity) {
+			this.waitID = waitID;
+			this.reservationID = reservationID;
+			this.priority = priority;
+			this.createdAt = createdAt;
+			this.capacity = capacity;
+		}
+
+		public int getWaitID() {
+			return waitID;
+		}
+
+		public int getReservationID() {
+			return reservationID;
+		}
+
+		public int getPriority() {
+			return priority;
+		}
+
+		public LocalDateTime getCreatedAt() {
+			return createdAt;
+		}
+
+		/** @return booked capacity of the reservation */
+		public int getCapacity() {
+			return capacity;
+		}
+
+		public WaitingList toWaitingList() {
+			return new WaitingList(waitID, reservationID, "WAITING", priority, createdAt, null);
+		}
+	}
+
+	/** Entry taken out of the index by a transaction; {@code called} once the transaction marked it CALLED. */
+	private static final class Claim {
+		final TransactionSync owner;
+		final boolean called;
+
+		Claim(TransactionSync owner, boolean called) {
+			this.owner = owner;
+			this.called = called;
+		}
+	}
+
+	private static final Comparator<Entry> NEXT_IN_LINE = Comparator.comparingInt(Entry::getPriority).reversed()
+			.thenComparing(Entry::getCreatedAt).thenComparingInt(Entry::getWaitID);
+
+	/** Unclaimed entries by booked capacity. */
+	private static final TreeMap<Integer, TreeSet<Entry>> waitingByCapacity = new TreeMap<>();
+	/** Every tracked entry (unclaimed and claimed) by waitID. */
+	private static final Map<Integer, Entry> entries = new HashMap<>();
+	private static final Map<Integer, Integer> waitIdByReservation = new HashMap<>();
+	private static final Map<Integer, Claim> claims = new HashMap<>();
+	private static boolean loaded;
+
+	private WaitingQueue() {}
+
+	/**
+	 * rebuilds the index from the WAITING rows
+	 * @param conn active JDBC connection
+	 * @param waitingListDAO DAO used to read the entries
+	 * @throws SQLException
+	 */
+	public static synchronized void reload(Connection conn, WaitingListDAO waitingListDAO) throws SQLException {
+		List<Entry> waiting = waitingListDAO.fetchOpenWaiting(conn);
+
+		waitingByCapacity.clear();
+		entries.clear();
+		waitIdByReservation.clear();
+		claims.clear();
+		for (Entry e : waiting) {
+			add(e);
+		}
+		loaded = true;
+	}
+
+	/**
+	 * brings the index in line with the WAITING rows after other servers wrote to them: entries that are no longer
+	 * WAITING are dropped and WAITING rows missing here are added. Entries claimed by a transaction of this server are
+	 * left to it. Reads the database under the index lock, like {@link #reload(Connection, WaitingListDAO)}, so
+	 * commits of this server are applied before or after it.
+	 * @param conn active JDBC connection (auto-commit, so it reads the latest committed state)
+	 * @param waitingListDAO DAO used to read the entries
+	 * @return number of entries added
+	 * @throws SQLException
+	 */
+	public static synchronized int reconcile(Connection conn, WaitingListDAO waitingListDAO) throws SQLException {
+		checkLoaded();
+		Map<Integer, Entry> stored = new HashMap<>();
+		for (Entry e : waitingListDAO.fetchOpenWaiting(conn)) {
+			stored.put(e.getWaitID(), e);
+		}
+		for (Entry e : new ArrayList<>(entries.values())) {
+			if (!stored.containsKey(e.getWaitID()) && !claims.containsKey(e.getWaitID())) {
+				removeReservation(e.getReservationID());
+			}
+		}
+		int added = 0;
+		for (Entry e : stored.values()) {
+			if (entries.containsKey(e.getWaitID())) continue;
+			Integer previous = waitIdByReservation.get(e.getReservationID());
+			if (previous != null && claims.containsKey(previous)) continue;
+			removeReservation(e.getReservationID());
+			add(e);
+			added++;
+		}
+		return added;
+	}
+
+	/**
+	 * takes the best waiting entry that fits a table out of the index for the current transaction.
+	 * It goes back when the transaction ends without marking it CALLED.
+	 * @param conn connection of the transaction
+	 * @param tableCapacity seats of the free table
+	 * @return the entry, or null if nobody waiting fits
+	 * @throws SQLException
+	 */
+	public static WaitingList claimNext(Connection conn, int tableCapacity) throws SQLException {
+		TransactionSync owner = TransactionSync.of(conn);
+		Entry best = null;
+		synchronized (WaitingQueue.class) {
+			checkLoaded();
+			for (TreeSet<Entry> sameCapacity : waitingByCapacity.headMap(tableCapacity, true).values()) {
+				Entry head = sameCapacity.first();
+				if (best == null || NEXT_IN_LINE.compare(head, best) < 0) best = head;
+			}
+			if (best == null) return null;
+			unindex(best);
+			claims.put(best.getWaitID(), new Claim(owner, false));
+		}
+		registerRelease(conn, owner, best.getWaitID());
+		return best.toWaitingList();
+	}
+
+	/**
+	 * takes a given waiting entry out of the index for the current transaction, like
+	 * {@link #claimNext(Connection, int)}
+	 * @param conn connection of the transaction
+	 * @param waitID entry to take, e.g. from {@link #headsAbove(int)}
+	 * @return true if the entry was waiting and not claimed by another transaction
+	 * @throws SQLException
+	 */
+	public static boolean claim(Connection conn, int waitID) throws SQLException {
+		TransactionSync owner = TransactionSync.of(conn);
+		synchronized (WaitingQueue.class) {
+			checkLoaded();
+			Entry e = entries.get(waitID);
+			if (e == null || claims.containsKey(waitID)) return false;
+			unindex(e);
+			claims.put(waitID, new Claim(owner, false));
+		}
+		registerRelease(conn, owner, waitID);
+		return true;
+	}
+
+	/**
+	 * lists the parties booked for more seats than a table has: the next in line of every such booked capacity.
+	 * They can only be seated at pushed-together tables (or a bigger table) when that table frees.
+	 * @param tableCapacity seats of the free table
+	 * @return unclaimed entries, next in line first
+	 */
+	public static synchronized List<WaitingList> headsAbove(int tableCapacity) {
+		checkLoaded();
+		List<Entry> heads = new ArrayList<>();
+		for (TreeSet<Entry> sameCapacity : waitingByCapacity.tailMap(tableCapacity, false).values()) {
+			heads.add(sameCapacity.first());
+		}
+		heads.sort(NEXT_IN_LINE);
+		List<WaitingList> out = new ArrayList<>(heads.size());
+		for (Entry e : heads) {
+			out.add(e.toWaitingList());
+		}
+		return out;
+	}
+
+	/** puts a claimed entry back in the index when the transaction ends without marking it CALLED */
+	private static void registerRelease(Connection conn, TransactionSync owner, int waitID) throws SQLException {
+		Runnable release = () -> {
+			synchronized (WaitingQueue.class) {
+				Claim claim = claims.get(waitID);
+				if (claim == null || claim.owner != owner || claim.called) return;
+				claims.remove(waitID);
+				Entry e = entries.get(waitID);
+				if (e != null) index(e);
+			}
+		};
+		TransactionSync.register(conn, release, release);
+	}
+
+	/**
+	 * drops an entry that is no longer WAITING in the database (another server called or removed it), together with
+	 * the current transaction's claim on it
+	 * @param waitID entry returned by {@link #claimNext(Connection, int)}
+	 */
+	static synchronized void discard(int waitID) {
+		claims.remove(waitID);
+		Entry e = entries.remove(waitID);
+		if (e != null) waitIdByReservation.remove(e.getReservationID(), waitID);
+	}
+
+	/**
+	 * @return number of parties waiting and not claimed by a transaction
+	 */
+	public static synchronized int size() {
+		checkLoaded();
+		return entries.size() - claims.size();
+	}
+
+	/**
+	 * lists the parties a new entry of the given priority would wait behind (used to estimate its wait)
+	 * @param priority priority of the new entry
+	 * @return booked capacities of the unclaimed entries with at least that priority, next in line first
+	 */
+	public static synchronized List<Integer> capacitiesAhead(int priority) {
+		checkLoaded();
+		List<Entry> ahead = new ArrayList<>();
+		for (TreeSet<Entry> sameCapacity : waitingByCapacity.values()) {
+			for (Entry e : sameCapacity) {
+				if (e.getPriority() < priority) break;
+				ahead.add(e);
+			}
+		}
+		ahead.sort(NEXT_IN_LINE);
+		List<Integer> capacities = new ArrayList<>(ahead.size());
+		for (Entry e : ahead) {
+			capacities.add(e.getCapacity());
+		}
+		return capacities;
+	}
+
+	/**
+	 * records a new WAITING entry (applied on commit)
+	 * @throws SQLException
+	 */
+	static void added(Connection conn, Entry entry) throws SQLException {
+		TransactionSync.register(conn, () -> {
+			synchronized (WaitingQueue.class) {
+				removeReservation(entry.getReservationID());
+				add(entry);
+			}
+		}, null);
+	}
+
+	/**
+	 * records that an entry was marked CALLED by the current transaction: it leaves the index on commit
+	 * and comes back on rollback
+	 * @throws SQLException
+	 */
+	static void called(Connection conn, int waitID) throws SQLException {
+		TransactionSync owner = TransactionSync.of(conn);
+		synchronized (WaitingQueue.class) {
+			checkLoaded();
+			Entry e = entries.get(waitID);
+			if (e == null) return;
+			if (!claims.containsKey(waitID)) unindex(e);
+			claims.put(waitID, new Claim(owner, true));
+		}
+		TransactionSync.register(conn, () -> {
+			synchronized (WaitingQueue.class) {
+				Claim claim = claims.get(waitID);
+				if (claim == null || claim.owner != owner || !claim.called) return;
+				claims.remove(waitID);
+				Entry e = entries.remove(waitID);
+				if (e != null) waitIdByReservation.remove(e.getReservationID(), waitID);
+			}
+		}, () -> {
+			synchronized (WaitingQueue.class) {
+				Claim claim = claims.get(waitID);
+				if (claim == null || claim.owner != owner || !claim.called) return;
+				claims.remove(waitID);
+				Entry e = entries.get(waitID);
+				if (e != null) index(e);
+			}
+		});
+	}
+
+	/**
+	 * records that the entry of a reservation left the WAITING status (applied on commit)
+	 * @throws SQLException
+	 */
+	static void removed(Connection conn, int reservationID) throws SQLException {
+		TransactionSync.register(conn, () -> {
+			synchronized (WaitingQueue.class) {
+				removeReservation(reservationID);
+			}
+		}, null);
+	}
+
+	private static void add(Entry e) {
+		entries.put(e.getWaitID(), e);
+		waitIdByReservation.put(e.getReservationID(), e.getWaitID());
+		index(e);
+	}
+
+	private static void removeReservation(int reservationID) {
+		Integer waitID = waitIdByReservation.remove(reservationID);
+		if (waitID == null) return;
+		Entry e = entries.remove(waitID);
+		if (e != null && claims.remove(waitID) == null) unindex(e);
+	}
+
+	private static void index(Entry e) {
+		waitingByCapacity.computeIfAbsent(e.getCapacity(), c -> new TreeSet<>(NEXT_IN_LINE)).add(e);
+	}
+
+	private static void unindex(Entry e) {
+		TreeSet<Entry> sameCapacity = waitingByCapacity.get(e.getCapacity());
+		if (sameCapacity == null) return;
+		sameCapacity.remove(e);
+		if (sameCapacity.isEmpty()) waitingByCapacity.remove(e.getCapacity());
+	}
+
+	private static void checkLoaded() {
+		if (!loaded) throw new IllegalStateException("WaitingQueue not loaded");
+	}
+}
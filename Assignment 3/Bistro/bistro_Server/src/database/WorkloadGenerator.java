@@ -0,0 +1,430 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Synthetic data generator that fills an empty schema with months of realistic restaurant activity.
+ *
+ * <p>Main idea: performance work needs production-sized data. The generator writes {@code user},
+ * {@code restaurant_table}, {@code opening_hours}, {@code reservation}, {@code seating}, {@code bill} and
+ * {@code waiting_list} with {@link MultiRowInsert} batches, streaming day by day so memory stays flat for
+ * millions of reservations. The same seed always produces the same data.</p>
+ *
+ * <p>The schema must not have reservations yet, but may have been seeded ({@code embedded_seed.sql}): generated users,
+ * tables and table groups continue after the highest ones already there, and dates that already have opening hours
+ * are kept as they are. The generated history only uses the generated tables.</p>
+ *
+ * <p>Shape of the data:
+ * <ul>
+ *   <li>Reservations span {@code months} back and 30 days ahead; daily volume follows weekday and seasonal
+ *       (summer/December) peaks, start times cluster around lunch and dinner</li>
+ *   <li>Past: COMPLETED / CANCELLED / NO_SHOW mix, completed visits get a seating (never overlapping on a table)
+ *       and a PAID bill; walk-ins are created at arrival and part of them went through the waiting list</li>
+ *   <li>Future: CONFIRMED with some CANCELLED</li>
+ *   <li>2- and 4-tops stand in rows of {@link #ROW_LENGTH} that can be pushed together ({@code combineGroup})</li>
+ *   <li>Guests type contacts inconsistently (mixed case emails, phone formats) to exercise {@link ContactKey}</li>
+ *   <li>Generated confirmation codes start at 1,000,000, above the live 6-digit range</li>
+ * </ul>
+ *
+ * <p>Run standalone ({@code key=value} arguments, all optional) against the configured {@link DBManager} profile:
+ * {@code reservations=100000 months=6 users=5000 tables=20 walkInRatio=0.3 seed=42 batch=1000},
+ * or set {@code embedded_GenerateReservations} for the embedded profile.</p>
+ */
+public class WorkloadGenerator {
+
+	private static final Logger log = LoggerFactory.getLogger(WorkloadGenerator.class);
+
+	private static final int CODE_BASE = 1_000_000;
+	private static final int MAX_USERS = 99_999; // userID is "U-" + 5 digits
+	private static final int[] CAPACITIES = {2, 4, 6, 8};
+	private static final double[] CAPACITY_SHARE = {0.40, 0.35, 0.15, 0.10};
+	private static final int ROW_LENGTH = 4;
+	private static final int[] PARTY_SIZES = {1, 2, 3, 4, 5, 6, 7, 8};
+	private static final double[] PARTY_SHARE = {0.05, 0.40, 0.12, 0.25, 0.06, 0.07, 0.02, 0.03};
+	private static final LocalTime OPEN = LocalTime.of(10, 0);
+	private static final LocalTime CLOSE = LocalTime.of(23, 0);
+	private static final LocalTime LAST_START = CLOSE.minusHours(2);
+
+	private static final String COUNT_RESERVATIONS = "SELECT COUNT(*) FROM reservation";
+	private static final String MAX_USER_NUMBER =
+			"SELECT COALESCE(MAX(CAST(SUBSTRING(userID, 3) AS UNSIGNED)), 0) FROM user WHERE userID LIKE 'U-%'";
+	private static final String MAX_TABLE_KEYS =
+			"SELECT COALESCE(MAX(tableID), 0), COALESCE(MAX(tableNumber), 0), COALESCE(MAX(combineGroup), 0) FROM restaurant_table";
+	private static final String SELECT_OPENING_DATES = "SELECT `date` FROM opening_hours WHERE `date` >= ? AND `date` < ?";
+
+	private long reservations = 100_000;
+	private int months = 6;
+	private int users = 5_000;
+	private int tables = 20;
+	private double walkInRatio = 0.3;
+	private long seed = 42;
+	private int batchRows = 1_000;
+
+	private SplittableRandom random;
+	/** highest user number, table ID, table number and combine group already in the schema (the seed's) */
+	private int userBase;
+	private int tableIdBase;
+	private int tableNumberBase;
+	private int groupBase;
+	/** per capacity group: table IDs and the time each table becomes free */
+	private int[][] tableIDsByCapacity;
+	private LocalDateTime[][] tableFreeAt;
+
+	public WorkloadGenerator reservations(long reservations) { this.reservations = reservations; return this; }
+	public WorkloadGenerator months(int months) { this.months = months; return this; }
+	public WorkloadGenerator users(int users) { this.users = Math.min(users, MAX_USERS); return this; }
+	public WorkloadGenerator tables(int tables) { this.tables = tables; return this; }
+	public WorkloadGenerator walkInRatio(double walkInRatio) { this.walkInRatio = walkInRatio; return this; }
+	public WorkloadGenerator seed(long seed) { this.seed = seed; return this; }
+	public WorkloadGenerator batchRows(int batchRows) { this.batchRows = batchRows; return this; }
+
+	/**
+	 * standalone entry point
+	 * @param args {@code key=value} overrides, see the class doc
+	 */
+	public static void main(String[] args) {
+		WorkloadGenerator generator = new WorkloadGenerator();
+		for (String arg : args) {
+			String[] kv = arg.split("=", 2);
+			if (kv.length != 2) throw new IllegalArgumentException("expected key=value, got " + arg);
+			switch (kv[0]) {
+				case "reservations": generator.reservations(Long.parseLong(kv[1])); break;
+				case "months": generator.months(Integer.parseInt(kv[1])); break;
+				case "users": generator.users(Integer.parseInt(kv[1])); break;
+				case "tables": generator.tables(Integer.parseInt(kv[1])); break;
+				case "walkInRatio": generator.walkInRatio(Double.parseDouble(kv[1])); break;
+				case "seed": generator.seed(Long.parseLong(kv[1])); break;
+				case "batch": generator.batchRows(Integer.parseInt(kv[1])); break;
+				default: throw new IllegalArgumentException("unknown option " + kv[0]);
+			}
+		}
+
+		DBManager.init();
+		try (Connection conn = DBManager.getConnection()) {
+			generator.generate(conn);
+		} catch (SQLException e) {
+			throw new RuntimeException("Data generation failed.", e);
+		} finally {
+			DBManager.dbShutDown();
+		}
+	}
+
+	/**
+	 * fills the (empty) schema
+	 * @param conn active JDBC connection
+	 * @throws SQLException
+	 * @throws IllegalStateException if the schema already has reservations
+	 */
+	public void generate(Connection conn) throws SQLException {
+		if (countReservations(conn) > 0) {
+			throw new IllegalStateException("WorkloadGenerator expects an empty schema (reservation has rows)");
+		}
+		random = new SplittableRandom(seed);
+		long startNanos = System.nanoTime();
+
+		LocalDate today = LocalDate.now();
+		LocalDate first = today.minusMonths(months);
+		LocalDate endExclusive = today.plusDays(30);
+
+		boolean autoCommit = conn.getAutoCommit();
+		conn.setAutoCommit(false);
+		try {
+			readExistingKeys(conn);
+			generateUsers(conn);
+			generateTables(conn);
+			generateOpeningHours(conn, first, endExclusive);
+			conn.commit();
+
+			long[] counts = generateActivity(conn, first, endExclusive, today);
+			conn.commit();
+
+			log.info("generated {} reservations, {} seatings, {} bills, {} waiting-list rows, {} users, {} tables in {} ms",
+					counts[0], counts[1], counts[2], counts[3], users, tables, (System.nanoTime() - startNanos) / 1_000_000);
+		} catch (SQLException | RuntimeException e) {
+			try { conn.rollback(); } catch (SQLException ignore) {}
+			throw e;
+		} finally {
+			conn.setAutoCommit(autoCommit);
+		}
+	}
+
+	/**
+	 * reads the highest keys of the rows a seed script wrote, so the generated rows continue after them
+	 */
+	private void readExistingKeys(Connection conn) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(MAX_USER_NUMBER);
+			 ResultSet rs = ps.executeQuery()) {
+			userBase = rs.next() ? rs.getInt(1) : 0;
+		}
+		try (PreparedStatement ps = conn.prepareStatement(MAX_TABLE_KEYS);
+			 ResultSet rs = ps.executeQuery()) {
+			if (rs.next()) {
+				tableIdBase = rs.getInt(1);
+				tableNumberBase = rs.getInt(2);
+				groupBase = rs.getInt(3);
+			}
+		}
+		users = Math.min(users, MAX_USERS - userBase);
+		if (users < 2) throw new IllegalStateException("WorkloadGenerator: no user IDs left after U-" + userBase);
+	}
+
+	private void generateUsers(Connection conn) throws SQLException {
+		MultiRowInsert insert = new MultiRowInsert(conn, "user", "userID, username, password, role, phone, email", batchRows);
+		for (int i = 1; i <= users; i++) {
+			String role = i == 1 ? "MANAGER" : (i <= 1 + Math.max(1, users / 500) ? "REPRESENTATIVE" : "SUBSCRIBER");
+			int n = userBase + i;
+			insert.add(userID(i), "user" + n, "pass" + n, role, "05" + (20_000_000 + n), "user" + n + "@bistro.test");
+		}
+		insert.flush();
+	}
+
+	private void generateTables(Connection conn) throws SQLException {
+		int[] perCapacity = new int[CAPACITIES.length];
+		for (int c = 0; c < CAPACITIES.length; c++) {
+			perCapacity[c] = Math.max(1, (int) Math.round(tables * CAPACITY_SHARE[c]));
+		}
+		tables = 0;
+		for (int n : perCapacity) tables += n;
+
+		tableIDsByCapacity = new int[CAPACITIES.length][];
+		tableFreeAt = new LocalDateTime[CAPACITIES.length][];
+		MultiRowInsert insert = new MultiRowInsert(conn, "restaurant_table", "tableID, tableNumber, capacity, isActive, combineGroup", batchRows);
+		int tableID = tableIdBase + 1;
+		int group = groupBase;
+		for (int c = 0; c < CAPACITIES.length; c++) {
+			tableIDsByCapacity[c] = new int[perCapacity[c]];
+			tableFreeAt[c] = new LocalDateTime[perCapacity[c]];
+			for (int i = 0; i < perCapacity[c]; i++) {
+				tableIDsByCapacity[c][i] = tableID;
+				tableFreeAt[c][i] = LocalDateTime.MIN;
+				if (i % ROW_LENGTH == 0) group++;
+				insert.add(tableID, tableNumberBase + tableID - tableIdBase, CAPACITIES[c], 1, CAPACITIES[c] <= 4 ? group : null);
+				tableID++;
+			}
+		}
+		insert.flush();
+	}
+
+	private void generateOpeningHours(Connection conn, LocalDate first, LocalDate endExclusive) throws SQLException {
+		Set<LocalDate> existing = new HashSet<>();
+		try (PreparedStatement ps = conn.prepareStatement(SELECT_OPENING_DATES)) {
+			ps.setObject(1, first);
+			ps.setObject(2, endExclusive);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) existing.add(rs.getObject(1, LocalDate.class));
+			}
+		}
+		MultiRowInsert insert = new MultiRowInsert(conn, "opening_hours", "`date`, `day`, openTime, closeTime, occasion", batchRows);
+		for (LocalDate d = first; d.isBefore(endExclusive); d = d.plusDays(1)) {
+			if (existing.contains(d)) continue;
+			insert.add(d, d.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.ENGLISH), OPEN, CLOSE, "REGULAR");
+		}
+		insert.flush();
+	}
+
+	/**
+	 * @return {reservations, seatings, bills, waiting-list rows}
+	 */
+	private long[] generateActivity(Connection conn, LocalDate first, LocalDate endExclusive, LocalDate today) throws SQLException {
+		MultiRowInsert reservationInsert = new MultiRowInsert(conn, "reservation",
+				"reservationID, reservationDate, status, partySize, allocatedCapacity, confirmationCode, guestContact, userID, startTime, timeOfCreation, contactKey",
+				batchRows);
+		MultiRowInsert seatingInsert = new MultiRowInsert(conn, "seating",
+				"seatingID, reservationID, tableID, checkInTime, checkOutTime, billSent", batchRows).dependsOn(reservationInsert);
+		MultiRowInsert billInsert = new MultiRowInsert(conn, "bill",
+				"billID, seatingID, totalPrice, status, createdAt, paidAt", batchRows).dependsOn(seatingInsert);
+		MultiRowInsert waitInsert = new MultiRowInsert(conn, "waiting_list",
+				"waitID, reservationID, status, priority, createdAt, assignedAt", batchRows).dependsOn(reservationInsert);
+
+		List<LocalDate> days = new ArrayList<>();
+		List<Double> weights = new ArrayList<>();
+		double totalWeight = 0;
+		for (LocalDate d = first; d.isBefore(endExclusive); d = d.plusDays(1)) {
+			double w = dayWeight(d);
+			days.add(d);
+			weights.add(w);
+			totalWeight += w;
+		}
+
+		long reservationID = 0, seatingID = 0, billID = 0, waitID = 0;
+		double carry = 0;
+		List<LocalTime> starts = new ArrayList<>();
+
+		for (int di = 0; di < days.size(); di++) {
+			LocalDate day = days.get(di);
+			double expected = reservations * weights.get(di) / totalWeight + carry;
+			int count = (int) Math.floor(expected);
+			carry = expected - count;
+
+			starts.clear();
+			for (int i = 0; i < count; i++) starts.add(pickStartTime());
+			starts.sort(null);
+
+			boolean past = day.isBefore(today);
+			for (LocalTime start : starts) {
+				reservationID++;
+				int partySize = pick(PARTY_SIZES, PARTY_SHARE);
+				int capacityGroup = capacityGroupFor(partySize);
+				int allocatedCapacity = CAPACITIES[capacityGroup];
+				LocalDateTime startAt = day.atTime(start);
+
+				boolean walkIn = past && random.nextDouble() < walkInRatio;
+				String status = past ? pastStatus(walkIn) : (random.nextDouble() < 0.08 ? "CANCELLED" : "CONFIRMED");
+
+				String userID = null;
+				String guestContact = null;
+				if (random.nextDouble() < 0.4) {
+					userID = userID(2 + random.nextInt(Math.max(1, users - 1)));
+				} else {
+					guestContact = guestContact();
+				}
+
+				LocalDateTime createdAt = walkIn
+						? startAt.minusMinutes(random.nextInt(0, 30))
+						: startAt.minusDays(random.nextInt(1, 31)).minusMinutes(random.nextInt(0, 600));
+
+				reservationInsert.add(reservationID, day, status, partySize, allocatedCapacity, CODE_BASE + reservationID,
+						guestContact, userID, start, createdAt, ContactKey.normalize(guestContact));
+
+				if (walkIn && random.nextDouble() < 0.4) {
+					waitID++;
+					waitInsert.add(waitID, reservationID, "ASSIGNED", userID != null ? 2 : 1, createdAt,
+							createdAt.plusMinutes(random.nextInt(5, 45)));
+				}
+
+				if ("COMPLETED".equals(status)) {
+					LocalDateTime arrival = startAt.plusMinutes(random.nextInt(0, 15));
+					int t = freestTable(capacityGroup);
+					LocalDateTime checkIn = arrival.isAfter(tableFreeAt[capacityGroup][t]) ? arrival : tableFreeAt[capacityGroup][t].plusMinutes(1);
+					LocalDateTime checkOut = checkIn.plusMinutes(random.nextInt(45, 121)).plusSeconds(random.nextInt(60));
+					tableFreeAt[capacityGroup][t] = checkOut;
+
+					seatingID++;
+					seatingInsert.add(seatingID, reservationID, tableIDsByCapacity[capacityGroup][t], checkIn, checkOut, 1);
+					billID++;
+					double total = Math.round((50 + random.nextDouble() * 950) * 100) / 100.0;
+					billInsert.add(billID, seatingID, total, "PAID", checkOut.minusMinutes(5), checkOut);
+				}
+			}
+			if (di % 30 == 29) conn.commit();
+		}
+
+		waitInsert.flush();
+		billInsert.flush(); // flushes seating and reservation first
+		seatingInsert.flush();
+		reservationInsert.flush();
+		return new long[] {reservationInsert.getWritten(), seatingInsert.getWritten(), billInsert.getWritten(), waitInsert.getWritten()};
+	}
+
+	/**
+	 * relative volume of a day: weekend evenings and summer/December are busier
+	 */
+	private static double dayWeight(LocalDate d) {
+		DayOfWeek dow = d.getDayOfWeek();
+		double weekday = (dow == DayOfWeek.THURSDAY || dow == DayOfWeek.FRIDAY || dow == DayOfWeek.SATURDAY) ? 1.5 : 1.0;
+		double season;
+		switch (d.getMonth()) {
+			case JULY: case AUGUST: season = 1.35; break;
+			case DECEMBER: season = 1.25; break;
+			case JUNE: case SEPTEMBER: season = 1.15; break;
+			case JANUARY: case FEBRUARY: season = 0.85; break;
+			default: season = 1.0;
+		}
+		return weekday * season;
+	}
+
+	/**
+	 * 30-minute slot between opening and the last start, clustered around 13:00 and 20:00
+	 */
+	private LocalTime pickStartTime() {
+		double centerHour = random.nextDouble() < 0.35 ? 13.0 : 20.0;
+		double hour = centerHour + random.nextDouble(-1.5, 1.5) + random.nextDouble(-1.0, 1.0);
+		int slot = (int) Math.round(hour * 2);
+		int minSlot = OPEN.getHour() * 2;
+		int maxSlot = LAST_START.getHour() * 2 + LAST_START.getMinute() / 30;
+		slot = Math.max(minSlot, Math.min(maxSlot, slot));
+		return LocalTime.of(slot / 2, (slot % 2) * 30);
+	}
+
+	private String pastStatus(boolean walkIn) {
+		if (walkIn) return "COMPLETED";
+		double p = random.nextDouble();
+		if (p < 0.80) return "COMPLETED";
+		if (p < 0.92) return "CANCELLED";
+		return "NO_SHOW";
+	}
+
+	/**
+	 * a guest contact typed in one of several inconsistent formats
+	 */
+	private String guestContact() {
+		int n = random.nextInt(1, 200_000);
+		switch (random.nextInt(4)) {
+			case 0: return "guest" + n + "@mail.test";
+			case 1: return "Guest" + n + "@Mail.Test ";
+			case 2: return "05" + (30_000_000 + n);
+			default: {
+				String digits = String.valueOf(30_000_000 + n);
+				return "+972-5" + digits.charAt(0) + "-" + digits.substring(1);
+			}
+		}
+	}
+
+	private int pick(int[] values, double[] shares) {
+		double p = random.nextDouble();
+		double acc = 0;
+		for (int i = 0; i < values.length; i++) {
+			acc += shares[i];
+			if (p < acc) return values[i];
+		}
+		return values[values.length - 1];
+	}
+
+	private static int capacityGroupFor(int partySize) {
+		for (int c = 0; c < CAPACITIES.length; c++) {
+			if (CAPACITIES[c] >= partySize) return c;
+		}
+		return CAPACITIES.length - 1;
+	}
+
+	/**
+	 * @return index of the table in the capacity group that becomes free first
+	 */
+	private int freestTable(int capacityGroup) {
+		LocalDateTime[] freeAt = tableFreeAt[capacityGroup];
+		int best = 0;
+		for (int i = 1; i < freeAt.length; i++) {
+			if (freeAt[i].isBefore(freeAt[best])) best = i;
+		}
+		return best;
+	}
+
+	/** @return ID of the i-th generated user (1-based) */
+	private String userID(int i) {
+		return String.format("U-%05d", userBase + i);
+	}
+
+	private static long countReservations(Connection conn) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(COUNT_RESERVATIONS);
+			 ResultSet rs = ps.executeQuery()) {
+			return rs.next() ? rs.getLong(1) : 0;
+		}
+	}
+}
@@ -1,15 +1,21 @@
 package entities;
 
 public class Table {
-	
+
 	private int tableID;
 	private int tableNumber;
 	private int capacity;
-	
+	/** Row of tables that can be pushed together (neighbours by table number), null for a table that stands alone. */
+	private Integer combineGroup;
+
 	public Table(int tableID, int tableNumber, int capacity) {
+		this(tableID, tableNumber, capacity, null);
+	}
+	public Table(int tableID, int tableNumber, int capacity, Integer combineGroup) {
 		this.tableID = tableID;
 		this.tableNumber = tableNumber;
 		this.capacity = capacity;
+		this.combineGroup = combineGroup;
 	}
 	public int getTableID() {
 		return tableID;
@@ -20,6 +26,9 @@ public class Table {
 	public int getCapacity() {
 		return capacity;
 	}
-	
-	
+	public Integer getCombineGroup() {
+		return combineGroup;
+	}
+
+
 }
@@ -0,0 +1,183 @@
+package logging;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.event.KeyValuePair;
+import org.slf4j.event.Level;
+import org.slf4j.helpers.MessageFormatter;
+
+/**
+ * Bounded ring buffer between the logging threads and one background writer thread.
+ *
+ * <p>Main idea: callers only enqueue an {@link Entry} (no formatting, no console lock); the writer thread
+ * drains the buffer in batches, formats the messages and writes them with one console write per batch.
+ * Console output therefore never blocks request threads or transactions.</p>
+ *
+ * <p>Rules:
+ * <ul>
+ *   <li>Capacity is {@code bistro.log.bufferSize} (default 8192)</li>
+ *   <li>When the buffer is full, TRACE/DEBUG/INFO events are dropped (and counted), WARN/ERROR wait for space</li>
+ *   <li>Message arguments are formatted on the writer thread, so they should be immutable values</li>
+ *   <li>A shutdown hook drains the buffer before the JVM exits</li>
+ * </ul>
+ *
+ * <p>Line format: {@code time LEVEL [thread] logger - message key=value ...}; WARN/ERROR go to stderr.</p>
+ */
+public class AsyncAppender {
+
+	private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+	private static final int MAX_BATCH = 512;
+
+	/** One log call captured on the calling thread. */
+	static class Entry {
+		final long timestamp;
+		final Level level;
+		final String threadName;
+		final String loggerName;
+		final String message;
+		final Object[] arguments;
+		final List<KeyValuePair> keyValues;
+		final Throwable throwable;
+
+		Entry(long timestamp, Level level, String threadName, String loggerName, String message,
+				Object[] arguments, List<KeyValuePair> keyValues, Throwable throwable) {
+			this.timestamp = timestamp;
+			this.level = level;
+			this.threadName = threadName;
+			this.loggerName = loggerName;
+			this.message = message;
+			this.arguments = arguments;
+			this.keyValues = keyValues;
+			this.throwable = throwable;
+		}
+	}
+
+	private final BlockingQueue<Entry> buffer;
+	private final AtomicLong dropped = new AtomicLong();
+	private final PrintStream out;
+	private final PrintStream err;
+	private final Thread writer;
+	private volatile boolean running = true;
+
+	AsyncAppender(int capacity, PrintStream out, PrintStream err) {
+		this.buffer = new ArrayBlockingQueue<>(capacity);
+		this.out = out;
+		this.err = err;
+		this.writer = new Thread(this::drainLoop, "log-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "log-writer-shutdown"));
+	}
+
+	/**
+	 * enqueues one event
+	 * @param entry
+	 */
+	void append(Entry entry) {
+		if (buffer.offer(entry)) return;
+		if (entry.level.toInt() >= Level.WARN.toInt()) {
+			try {
+				buffer.put(entry);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		} else {
+			dropped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @return events dropped because the buffer was full
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	private void drainLoop() {
+		List<Entry> batch = new ArrayList<>(MAX_BATCH);
+		StringBuilder outLines = new StringBuilder(8192);
+		StringBuilder errLines = new StringBuilder(1024);
+		while (running || !buffer.isEmpty()) {
+			try {
+				Entry first = buffer.poll(200, TimeUnit.MILLISECONDS);
+				if (first == null) continue;
+				batch.add(first);
+				buffer.drainTo(batch, MAX_BATCH - 1);
+			} catch (InterruptedException e) {
+				running = false;
+			}
+			write(batch, outLines, errLines);
+			batch.clear();
+		}
+	}
+
+	private void write(List<Entry> batch, StringBuilder outLines, StringBuilder errLines) {
+		long lost = dropped.getAndSet(0);
+		if (lost > 0) {
+			errLines.append(TIME.format(LocalDateTime.now())).append(" WARN  [log-writer] logging - dropped ")
+					.append(lost).append(" event(s), log buffer full").append(System.lineSeparator());
+		}
+		for (Entry e : batch) {
+			StringBuilder sb = e.level.toInt() >= Level.WARN.toInt() ? errLines : outLines;
+			format(e, sb);
+		}
+		if (outLines.length() > 0) {
+			out.print(outLines);
+			out.flush();
+			outLines.setLength(0);
+		}
+		if (errLines.length() > 0) {
+			err.print(errLines);
+			err.flush();
+			errLines.setLength(0);
+		}
+	}
+
+	private static void format(Entry e, StringBuilder sb) {
+		sb.append(TIME.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(e.timestamp), ZoneId.systemDefault())))
+				.append(' ').append(String.format("%-5s", e.level))
+				.append(" [").append(e.threadName).append("] ")
+				.append(e.loggerName).append(" - ");
+		Throwable throwable = e.throwable;
+		if (e.arguments == null || e.arguments.length == 0) {
+			sb.append(e.message);
+		} else {
+			var tuple = MessageFormatter.arrayFormat(e.message, e.arguments);
+			sb.append(tuple.getMessage());
+			if (throwable == null) throwable = tuple.getThrowable();
+		}
+		if (e.keyValues != null) {
+			for (KeyValuePair kv : e.keyValues) {
+				sb.append(' ').append(kv.key).append('=').append(kv.value);
+			}
+		}
+		sb.append(System.lineSeparator());
+		if (throwable != null) {
+			java.io.StringWriter trace = new java.io.StringWriter();
+			throwable.printStackTrace(new java.io.PrintWriter(trace));
+			sb.append(trace);
+		}
+	}
+
+	/**
+	 * stops accepting work and waits (up to 2 seconds) for the buffer to drain
+	 */
+	void stop() {
+		running = false;
+		try {
+			writer.join(2_000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package logging;
+
+import org.slf4j.ILoggerFactory;
+import org.slf4j.IMarkerFactory;
+import org.slf4j.helpers.BasicMDCAdapter;
+import org.slf4j.helpers.BasicMarkerFactory;
+import org.slf4j.spi.MDCAdapter;
+import org.slf4j.spi.SLF4JServiceProvider;
+
+/**
+ * SLF4J 2 binding of the server: every logger writes through one {@link AsyncAppender}.
+ *
+ * <p>Registered with {@code provides} in module-info and with {@code META-INF/services} for classpath runs.
+ * It replaces slf4j-simple, whose console writes are synchronous.</p>
+ */
+public class AsyncLogServiceProvider implements SLF4JServiceProvider {
+
+	private static final String REQUESTED_API_VERSION = "2.0.99";
+
+	private ILoggerFactory loggerFactory;
+	private IMarkerFactory markerFactory;
+	private MDCAdapter mdcAdapter;
+
+	@Override
+	public ILoggerFactory getLoggerFactory() {
+		return loggerFactory;
+	}
+
+	@Override
+	public IMarkerFactory getMarkerFactory() {
+		return markerFactory;
+	}
+
+	@Override
+	public MDCAdapter getMDCAdapter() {
+		return mdcAdapter;
+	}
+
+	@Override
+	public String getRequestedApiVersion() {
+		return REQUESTED_API_VERSION;
+	}
+
+	@Override
+	public void initialize() {
+		int capacity = Integer.getInteger("bistro.log.bufferSize", 8192);
+		loggerFactory = new AsyncLoggerFactory(new AsyncAppender(capacity, System.out, System.err));
+		markerFactory = new BasicMarkerFactory();
+		mdcAdapter = new BasicMDCAdapter();
+	}
+}
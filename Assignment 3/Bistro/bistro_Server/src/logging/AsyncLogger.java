@@ -0,0 +1,82 @@
+package logging;
+
+import java.util.List;
+
+import org.slf4j.Marker;
+import org.slf4j.event.KeyValuePair;
+import org.slf4j.event.Level;
+import org.slf4j.event.LoggingEvent;
+import org.slf4j.helpers.LegacyAbstractLogger;
+import org.slf4j.spi.LoggingEventAware;
+
+/**
+ * SLF4J logger that hands every enabled event to the {@link AsyncAppender}.
+ *
+ * <p>The level is resolved once when the logger is created, so {@code isXxxEnabled()} is a field compare.
+ * Disabled calls return before anything is allocated: {@code log.debug("x={}", x)} only checks the level,
+ * and {@code log.atDebug()} returns SLF4J's shared no-op builder.</p>
+ *
+ * <p>Structured fields come from the fluent API: {@code log.atInfo().addKeyValue("table", 4).log("seated")}.</p>
+ */
+public class AsyncLogger extends LegacyAbstractLogger implements LoggingEventAware {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int levelInt;
+	private final transient AsyncAppender appender;
+
+	AsyncLogger(String name, Level level, AsyncAppender appender) {
+		this.name = name;
+		this.levelInt = level.toInt();
+		this.appender = appender;
+	}
+
+	@Override
+	public boolean isTraceEnabled() {
+		return levelInt <= Level.TRACE.toInt();
+	}
+
+	@Override
+	public boolean isDebugEnabled() {
+		return levelInt <= Level.DEBUG.toInt();
+	}
+
+	@Override
+	public boolean isInfoEnabled() {
+		return levelInt <= Level.INFO.toInt();
+	}
+
+	@Override
+	public boolean isWarnEnabled() {
+		return levelInt <= Level.WARN.toInt();
+	}
+
+	@Override
+	public boolean isErrorEnabled() {
+		return levelInt <= Level.ERROR.toInt();
+	}
+
+	@Override
+	protected String getFullyQualifiedCallerName() {
+		return null;
+	}
+
+	@Override
+	protected void handleNormalizedLoggingCall(Level level, Marker marker, String messagePattern, Object[] arguments,
+			Throwable throwable) {
+		appender.append(new AsyncAppender.Entry(System.currentTimeMillis(), level, Thread.currentThread().getName(),
+				name, messagePattern, arguments, null, throwable));
+	}
+
+	/**
+	 * fluent API entry point (the builder already checked the level)
+	 */
+	@Override
+	public void log(LoggingEvent event) {
+		if (event.getLevel().toInt() < levelInt) return;
+		List<KeyValuePair> keyValues = event.getKeyValuePairs();
+		appender.append(new AsyncAppender.Entry(System.currentTimeMillis(), event.getLevel(),
+				Thread.currentThread().getName(), name, event.getMessage(), event.getArgumentArray(),
+				keyValues == null || keyValues.isEmpty() ? null : keyValues, event.getThrowable()));
+	}
+}
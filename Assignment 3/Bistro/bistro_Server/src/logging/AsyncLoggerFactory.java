@@ -0,0 +1,54 @@
+package logging;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.ILoggerFactory;
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+/**
+ * Creates one {@link AsyncLogger} per name, all sharing one {@link AsyncAppender}.
+ *
+ * <p>Levels (system properties):
+ * <ul>
+ *   <li>{@code bistro.log.level} - default level (default INFO)</li>
+ *   <li>{@code bistro.log.level.<prefix>} - level for loggers whose name starts with the prefix,
+ *       the longest matching prefix wins (e.g. {@code -Dbistro.log.level.database=WARN})</li>
+ * </ul>
+ */
+public class AsyncLoggerFactory implements ILoggerFactory {
+
+	static final String LEVEL_PROPERTY = "bistro.log.level";
+
+	private final ConcurrentMap<String, Logger> loggers = new ConcurrentHashMap<>();
+	private final AsyncAppender appender;
+
+	AsyncLoggerFactory(AsyncAppender appender) {
+		this.appender = appender;
+	}
+
+	@Override
+	public Logger getLogger(String name) {
+		return loggers.computeIfAbsent(name, n -> new AsyncLogger(n, levelFor(n), appender));
+	}
+
+	private static Level levelFor(String loggerName) {
+		String value = System.getProperty(LEVEL_PROPERTY, "INFO");
+		int bestLength = -1;
+		for (String key : System.getProperties().stringPropertyNames()) {
+			if (!key.startsWith(LEVEL_PROPERTY + ".")) continue;
+			String prefix = key.substring(LEVEL_PROPERTY.length() + 1);
+			if (loggerName.startsWith(prefix) && prefix.length() > bestLength) {
+				value = System.getProperty(key);
+				bestLength = prefix.length();
+			}
+		}
+		try {
+			return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			return Level.INFO;
+		}
+	}
+}
@@ -5,6 +5,11 @@ module bistro_Server {
 	requires bistro_Common;
 	requires com.zaxxer.hikari;
 	requires java.sql;
+	requires java.management;
+	requires jdk.jfr;
+	requires org.slf4j;
+	requires static ch.vorburger.mariadb4j;
+	requires static ch.vorburger.exec;
 	requires javafx.base;
 	requires javafx.controls;
 	requires javafx.fxml;
@@ -12,4 +17,6 @@ module bistro_Server {
 	opens serverGUI to javafx.fxml;
 	opens server to javafx.graphics;
 	
+	provides org.slf4j.spi.SLF4JServiceProvider with logging.AsyncLogServiceProvider;
+	
 }
\ No newline at end of file
@@ -1,77 +1,132 @@
 package server;
 
+import controllers.ArchiveControl;
 import controllers.BillingControl;
 import controllers.NotificationControl;
 import controllers.ReportControl;
 import controllers.WaitingListControl;
 import database.DBManager;
+import database.DeadlineEvents;
+import database.FloorModel;
+import database.JobLeaseDAO;
+import database.OpeningHoursCache;
 import database.OpeningHoursDAO;
 import database.ReservationDAO;
 import database.SeatingDAO;
+import database.TableDAO;
 import database.UserDAO;
+import database.WaitingListDAO;
+import database.WaitingQueue;
+import entities.OpeningHours;
 import entities.Reservation;
 import entities.User;
+import entities.WaitingList;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * 
- */
-/**
- * 
+ * Background jobs of the server: calendar jobs plus timers for the deadlines of individual rows, all run by one
+ * {@link JobScheduler} (one timer wheel, one bounded worker pool).
+ *
+ * <p>Calendar jobs (cron, local time), each also run once at startup to catch up on a run missed while the server was
+ * down, and on demand from the server GUI:
+ * <ul>
+ *   <li>{@value #JOB_BILLING} - automatic billing, every minute, by parallel workers claiming batches of seatings</li>
+ *   <li>{@value #JOB_MONTHLY_REPORTS} - previous month's reports, the first of the month at 00:05</li>
+ *   <li>{@value #JOB_OPENING_HOURS} - opening hours for the next 30 days, daily at 00:10</li>
+ *   <li>{@value #JOB_ARCHIVE} - archiving of finished reservations, daily at 03:30</li>
+ * </ul>
+ * The daily and monthly jobs get a few minutes of jitter.</p>
+ *
+ * <p>Deadlines: the two-hour reminder and the no-show cutoff of a reservation, and the 15 minutes a "CALLED"
+ * waiting-list party has to arrive, are one-shot timers instead of polling the tables:
+ * <ul>
+ *   <li>One timer per distinct deadline, not per row: reservations share their {@code startAt} (one reminder and
+ *       one no-show timer per start time), and the job still handles every row that is due in one batch</li>
+ *   <li>{@link #start()} rebuilds the timers from the database; afterwards the DAOs report new deadlines through
+ *       {@link DeadlineEvents} when their transaction commits</li>
+ *   <li>A fired job re-checks the database, so stale timers (edited or cancelled rows) do nothing</li>
+ * </ul>
+ *
+ * <p>Several server instances may run side by side: every job above except billing (the deadline timers by kind) runs
+ * only on the node holding its lease ({@link JobLeases}), and the leases are spread over the live nodes. Billing runs
+ * on every node, since its workers claim their seatings in the database. A node that takes a
+ * lease over catches up at once: it runs the calendar job, or rebuilds the deadline timers from the database. Since
+ * the DAOs report new deadlines only on the node that wrote them, a node leading deadline jobs also rebuilds its
+ * timers every minute ({@value #JOB_DEADLINE_SYNC}) while other nodes are alive. For the same reason every node
+ * brings its in-memory floor model, waiting-list index and opening-hours window in line with the database every minute
+ * ({@value #JOB_MODEL_SYNC}) while other nodes are alive, and when it takes a lease over.</p>
  */
-public class BillingScheduler {
+public class BillingScheduler implements DeadlineEvents.Listener {
 
-    private final ScheduledExecutorService reminderScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-        Thread t1 = new Thread(r, "ReminderScheduler");
-        t1.setDaemon(true);
-        return t1;
-    });
+    private static final Logger log = LoggerFactory.getLogger(BillingScheduler.class);
 
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-        Thread t2 = new Thread(r, "BillingScheduler");
-        t2.setDaemon(true);
-        return t2;
-    });
+    public static final String JOB_BILLING = "billing";
+    public static final String JOB_MONTHLY_REPORTS = "monthly-reports";
+    public static final String JOB_OPENING_HOURS = "opening-hours";
+    public static final String JOB_ARCHIVE = "archive";
+    public static final String JOB_NO_SHOWS = "no-shows";
+    public static final String JOB_REMINDERS = "reminders";
+    public static final String JOB_CALLED_TIMEOUTS = "waiting-list-timeouts";
+    public static final String JOB_DEADLINE_SYNC = "deadline-sync";
+    public static final String JOB_MODEL_SYNC = "model-sync";
+    private static final List<String> DEADLINE_JOBS = List.of(JOB_NO_SHOWS, JOB_REMINDERS, JOB_CALLED_TIMEOUTS);
 
-    
-    private final ScheduledExecutorService monthlyReportScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-        Thread t3 = new Thread(r, "MonthlyReportScheduler");
-        t3.setDaemon(true);
-        return t3;
-    });
-    private final ScheduledExecutorService waitingListScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-        Thread t = new Thread(r, "waitingListScheduler");
-        t.setDaemon(true);
-        return t;
-    });
-    private final ScheduledExecutorService openingHoursScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-        Thread t4 = new Thread(r, "openingHoursScheduler");
-        t4.setDaemon(true);
-        return t4;
-    });
+    private static final int REMINDER_HOURS_BEFORE = 2;
+    private static final int NO_SHOW_GRACE_MINUTES = 15;
+    private static final long DAILY_JITTER_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final int DEFAULT_BILLING_WORKERS = 4;
+    private static final int DEFAULT_BILLING_BATCH_SIZE = 10;
+    /** a claim not finished for this long is taken over (its worker died) */
+    private static final int BILL_CLAIM_TIMEOUT_SECONDS = 600;
+    /** first retry of a failed bill after a minute, then 2, 4, ... minutes, at most every half hour */
+    private static final int BILL_RETRY_SECONDS = 60;
+    private static final int BILL_RETRY_MAX_SECONDS = 1800;
+
+    /** runs the calendar jobs, the deadline timers and the customer notifications sent after a commit */
+    private final JobScheduler jobs = new JobScheduler("scheduler");
+    /** pending deadline timers by key ("no-show &lt;startAt&gt;", "reminder &lt;startAt&gt;", "called &lt;waitID&gt;") */
+    private final ConcurrentHashMap<String, TimerWheel.Timeout> deadlines = new ConcurrentHashMap<>();
+    /** decides which jobs run on this node */
+    private final JobLeases leases;
+    private final AtomicBoolean deadlineRebuildQueued = new AtomicBoolean();
+    /** live nodes seen by the last {@value #JOB_MODEL_SYNC} run */
+    private volatile int modelSyncNodes = 1;
+    private final TableDAO tableDAO = new TableDAO();
     private final SeatingDAO seatingDAO;
     private final BillingControl billingControl;
     private final ReservationDAO reservationDAO;
     private final UserDAO userDAO;
     private final NotificationControl notificationControl;
     private final WaitingListControl waitingListControl;
+    private final WaitingListDAO waitingListDAO;
     private final OpeningHoursDAO openingHoursDAO;
+    private final ArchiveControl archiveControl;
     
     private final ReportControl reportControl;
 
     private volatile boolean started = false;
+    /** the jobs are registered on the first start, a restart keeps them */
+    private boolean registered = false;
 
     public BillingScheduler(SeatingDAO seatingDAO,BillingControl billingControl,ReservationDAO reservationDAO,UserDAO userDAO,
     						NotificationControl notificationControl,
-                            ReportControl reportControl,WaitingListControl waitingListControl,OpeningHoursDAO openingHoursDAO) {
+                            ReportControl reportControl,WaitingListControl waitingListControl,WaitingListDAO waitingListDAO,
+                            OpeningHoursDAO openingHoursDAO,ArchiveControl archiveControl,JobLeaseDAO jobLeaseDAO) {
 
         this.seatingDAO = seatingDAO;
         this.billingControl = billingControl;
@@ -79,151 +134,339 @@ public class BillingScheduler {
         this.userDAO = userDAO;
         this.notificationControl = notificationControl;
         this.waitingListControl=waitingListControl;
+        this.waitingListDAO = waitingListDAO;
         this.reportControl = reportControl;
         this.openingHoursDAO=openingHoursDAO;
+        this.archiveControl = archiveControl;
+
+        List<String> leased = new ArrayList<>(List.of(JOB_MONTHLY_REPORTS, JOB_OPENING_HOURS, JOB_ARCHIVE));
+        leased.addAll(DEADLINE_JOBS);
+        leases = new JobLeases(leased, jobLeaseDAO);
+        jobs.setLeadership(leases);
+    }
+
+    /**
+     * @return the job runtime (stats and run-on-demand for the server GUI)
+     */
+    public JobScheduler getJobs() {
+        return jobs;
+    }
+
+    /**
+     * @return the leases of this node's jobs
+     */
+    public JobLeases getLeases() {
+        return leases;
     }
 
     /**
-     * function that runs on server start, activates all schedulers.
+     * function that runs on server start: registers the jobs, starts the job runtime and takes this node's share of
+     * the job leases; the jobs led are caught up (calendar jobs run, deadline timers rebuilt) as their leases are taken.
      */
     public synchronized void start() {
         if (started) return;
         started = true;
 
-        
-        scheduler.scheduleAtFixedRate(() -> {
-            try (Connection conn = DBManager.getConnection()) {
-                if (conn == null) {
-                    System.err.println("tick failed: conn is null(1)");
-                    return;
-                }
-                conn.setAutoCommit(false);
+        if (!registered) {
+            registered = true;
+            jobs.register(JOB_BILLING, "* * * * *", 0, true, this::runBilling);
+            jobs.register(JOB_MONTHLY_REPORTS, "5 0 1 * *", DAILY_JITTER_MILLIS, true, this::runMonthlyReports);
+            jobs.register(JOB_OPENING_HOURS, "10 0 * * *", DAILY_JITTER_MILLIS, true, this::runOpeningHours);
+            jobs.register(JOB_ARCHIVE, "30 3 * * *", DAILY_JITTER_MILLIS, true, this::runArchive);
+            jobs.register(JOB_DEADLINE_SYNC, "* * * * *", 0, false, this::runDeadlineSync);
+            jobs.register(JOB_MODEL_SYNC, "* * * * *", 0, false, this::runModelSync);
+            leases.setAcquiredListener(this::leaseAcquired);
+        }
 
+        jobs.start();
+        DeadlineEvents.setListener(this);
+        leases.start(jobs);
+    }
+
+    /**
+     * a lease was taken by this node: runs the calendar job once, or queues one rebuild of the deadline timers
+     * (coalescing the deadline leases taken together); the in-memory models are synced too, since the node that
+     * held the lease may have left
+     */
+    private void leaseAcquired(String job) {
+        jobs.runNow(JOB_MODEL_SYNC);
+        if (!DEADLINE_JOBS.contains(job)) {
+            jobs.leadershipAcquired(job);
+            return;
+        }
+        if (deadlineRebuildQueued.compareAndSet(false, true)) {
+            Runnable rebuild = () -> {
+                deadlineRebuildQueued.set(false);
                 try {
-                    mark2HoursSeating(conn);
-                    markNoShows(conn);
-                    conn.commit();
-                } catch (Exception ex) {
-                    try { conn.rollback(); } catch (Exception ignore) {}
-                    System.err.println("tick failed (rolled back(2)): " + ex.getMessage());
+                    log.info("deadline timers rebuilt: {} timer(s) pending", rebuildDeadlines());
+                } catch (Exception e) {
+                    log.atWarn().setCause(e).log("deadline rebuild failed");
                 }
+            };
+            // pool full: rebuild on the heartbeat thread rather than lose the lease's timers
+            if (!jobs.execute(rebuild)) rebuild.run();
+        }
+    }
 
-            } catch (Exception e) {
-                System.err.println("tick failed: " + e.getMessage());
-            }
-        }, 0, 60, TimeUnit.SECONDS);
-        
-        reminderScheduler.scheduleAtFixedRate(() -> {
-            try (Connection conn = DBManager.getConnection()) {
-                if (conn == null) {
-                    System.err.println("reminder tick failed: conn is null(3)");
-                    return;
-                }
+    /**
+     * minute job: picks up the deadlines written on other nodes, while this node leads a deadline job
+     * and is not alone
+     * @return pending deadline timers, 0 when skipped
+     */
+    private int runDeadlineSync() throws SQLException {
+        if (leases.getLiveNodes() < 2) return 0;
+        boolean leadsDeadlines = false;
+        for (String job : DEADLINE_JOBS) {
+            leadsDeadlines |= leases.isLeader(job);
+        }
+        return leadsDeadlines ? rebuildDeadlines() : 0;
+    }
 
-                conn.setAutoCommit(false);
+    /**
+     * minute job, on every node: applies the other nodes' writes to this node's {@link FloorModel},
+     * {@link WaitingQueue} and {@link OpeningHoursCache}, while other nodes are alive and once more after the last of
+     * them left. Tables freed elsewhere are reported to the waiting-list promoter by the floor model; when waiting
+     * parties were added, every free table is.
+     * @return tables and waiting entries changed, 0 when skipped
+     */
+    private int runModelSync() throws SQLException {
+        int nodes = leases.getLiveNodes();
+        int previous = modelSyncNodes;
+        modelSyncNodes = nodes;
+        if (nodes < 2 && previous < 2) return 0;
+        try (Connection conn = DBManager.getConnection()) {
+            if (conn == null) throw new SQLException("conn is null");
+            int changed = FloorModel.reconcile(conn, tableDAO, seatingDAO);
+            int added = WaitingQueue.reconcile(conn, waitingListDAO);
+            OpeningHoursCache.reload(conn, openingHoursDAO);
+            if (added > 0) FloorModel.announceFreeTables();
+            return changed + added;
+        }
+    }
 
-                try {
-                    findPrior2HourReservation(conn);
-                    conn.commit();
-                } catch (Exception ex) {
-                    try { conn.rollback(); } catch (Exception ignore) {}
-                    System.err.println("findPrior2HourReservation failed(4): " + ex.getMessage());
-                }
+    /**
+     * schedules the reminder and no-show cutoff of the reservations starting at {@code startAt}
+     * (reminders are only scheduled while still ahead)
+     */
+    @Override
+    public void reservationScheduled(LocalDateTime startAt) {
+        schedule("no-show " + startAt, JOB_NO_SHOWS, startAt.plusMinutes(NO_SHOW_GRACE_MINUTES), this::runNoShows);
+        LocalDateTime remindAt = startAt.minusHours(REMINDER_HOURS_BEFORE);
+        if (remindAt.isAfter(LocalDateTime.now())) {
+            schedule("reminder " + startAt, JOB_REMINDERS, remindAt, () -> runReminders(startAt));
+        }
+    }
+
+    /**
+     * schedules the timeout of a "CALLED" waiting-list entry
+     */
+    @Override
+    public void waitingCalled(int waitID, LocalDateTime calledAt) {
+        schedule("called " + waitID, JOB_CALLED_TIMEOUTS,
+                calledAt.plusMinutes(WaitingListControl.CALLED_TIMEOUT_MINUTES), () -> runCalledTimeout(waitID));
+    }
 
-            } catch (Exception e) {
-                System.err.println("reminder tick failed(5): " + e.getMessage());
+    /**
+     * schedules the deadlines of the open reservations from today on and of the "CALLED" waiting-list entries;
+     * deadlines already past run right away, timers already pending are kept
+     * @return number of pending deadline timers
+     * @throws SQLException
+     */
+    private int rebuildDeadlines() throws SQLException {
+        try (Connection conn = DBManager.getConnection()) {
+            if (conn == null) throw new SQLException("conn is null");
+            List<LocalDateTime> startTimes = reservationDAO.getOpenStartTimes(conn, LocalDate.now().atStartOfDay());
+            for (LocalDateTime startAt : startTimes) {
+                reservationScheduled(startAt);
             }
-        }, 0, 30, TimeUnit.MINUTES);
-        
-        monthlyReportScheduler.scheduleAtFixedRate(() -> {
-            try {
-                if (reportControl == null) {
-                    System.err.println("Monthly report skipped: reportControl is null(6)");
-                    return;
-                }
+            List<WaitingList> called = waitingListDAO.fetchCalled(conn);
+            for (WaitingList w : called) {
+                waitingCalled(w.getWaitID(), w.getAssignedAt());
+            }
+            return deadlines.size();
+        }
+    }
 
-                
+    /**
+     * puts a one-shot job on the job runtime under a key; a pending timer with the same key is kept if it has the
+     * same deadline and replaced otherwise
+     * @param key identifies the deadline
+     * @param jobName name the runs are recorded under
+     * @param deadline when to run the job
+     * @param job runs on the worker pool
+     */
+    private void schedule(String key, String jobName, LocalDateTime deadline, JobScheduler.Job job) {
+        if (!started) return;
+        deadlines.compute(key, (k, current) -> {
+            if (current != null && !current.isDone()) {
+                if (current.getDeadlineMillis() == JobScheduler.toMillis(deadline)) return current;
+                current.cancel();
+            }
+            TimerWheel.Timeout[] self = new TimerWheel.Timeout[1];
+            self[0] = jobs.schedule(jobName, deadline, () -> {
+                deadlines.remove(k, self[0]);
+                return job.run();
+            });
+            return self[0];
+        });
+    }
 
-                boolean ok = reportControl.createMonthlyVisitorReportIfMissing();
-                if (!ok) {
-                    System.err.println("Monthly visitor report creation failed");
-                } else {
-                    System.out.println("Monthly visitor report created/exists (for previous month)");
-                }
-                ok=reportControl.createMonthlyReservationWaitingListReportIfMissing();
-                if (!ok) {
-                    System.err.println("Monthly reservation report creation failed");
-                } else {
-                    System.out.println("Monthly visitor report created/exists (for previous month)");
+    /**
+     * billing job: runs {@code billing_Workers} workers (default {@value #DEFAULT_BILLING_WORKERS}) that bill the
+     * seatings that reached two hours; one runs on this thread, the others on the job runtime's pool. A worker the
+     * pool did not start yet (busy or stopping) is run here too, so the job never waits for work that cannot start.
+     * @return number of bills sent
+     * @throws SQLException the first worker failure, after all workers finished
+     */
+    private int runBilling() throws SQLException {
+        int workerCount = Math.max(1, Integer.getInteger("billing_Workers", DEFAULT_BILLING_WORKERS));
+        List<BillingWorker> workers = new ArrayList<>();
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(new BillingWorker());
+        }
+        for (int i = 1; i < workerCount; i++) {
+            jobs.execute(workers.get(i));
+        }
+        for (BillingWorker worker : workers) {
+            worker.run();
+        }
+        int billed = 0;
+        SQLException failure = null;
+        for (BillingWorker worker : workers) {
+            try {
+                billed += worker.result.join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof SQLException ? (SQLException) e.getCause() : new SQLException(e.getCause());
                 }
-
-            } catch (Exception e) {
-                System.err.println("Monthly report tick failed: " + e.getMessage());
             }
-        }, 0, 24, TimeUnit.HOURS);
-        
-        waitingListScheduler.scheduleAtFixedRate(() -> {
+        }
+        if (failure != null) throw failure;
+        return billed;
+    }
+
+    /** one billing worker; runs once, on whichever thread gets to it first */
+    private class BillingWorker implements Runnable {
+        private final AtomicBoolean taken = new AtomicBoolean();
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        @Override
+        public void run() {
+            if (!taken.compareAndSet(false, true)) return;
             try {
-                waitingListControl.cancelLateArrivalsFromWaitingListToTable();
-            } catch (Exception e) {
-                System.out.println("waitngListScheduler failed " + e.getMessage());
+                result.complete(mark2HoursSeating());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
             }
-        }, 0, 1, TimeUnit.MINUTES);
-        
-        openingHoursScheduler.scheduleAtFixedRate(() -> {
-            Connection conn = null;
-            try {
-                conn = DBManager.getConnection();
-                if (conn == null) {
-                    System.err.println("openingHoursScheduler tick failed: conn is null");
-                    return;
-                }
-
-                conn.setAutoCommit(false);
+        }
+    }
 
-                ensureOpeningHoursNext30Days(conn);
+    /**
+     * monthly job: creates the previous month's visitor and reservation/waiting-list reports if missing
+     * @return number of reports that exist afterwards
+     */
+    private int runMonthlyReports() {
+        int ok = 0;
+        if (reportControl.createMonthlyVisitorReportIfMissing()) {
+            ok++;
+        } else {
+            log.warn("Monthly visitor report creation failed");
+        }
+        if (reportControl.createMonthlyReservationWaitingListReportIfMissing()) {
+            ok++;
+        } else {
+            log.warn("Monthly reservation report creation failed");
+        }
+        if (ok < 2) throw new IllegalStateException("monthly report creation failed");
+        log.info("Monthly reports created/exist (for previous month)");
+        return ok;
+    }
 
+    /**
+     * daily job: fills in the opening hours of the next 30 days and reloads the cache
+     */
+    private int runOpeningHours() throws SQLException {
+        try (Connection conn = DBManager.getConnection()) {
+            if (conn == null) throw new SQLException("conn is null");
+            conn.setAutoCommit(false);
+            try {
+                int inserted = ensureOpeningHoursNext30Days(conn);
                 conn.commit();
-            } catch (Exception e) {
-                System.out.println("openingHoursScheduler failed: " + e.getMessage());
-                if (conn != null) {
-                    try { conn.rollback(); } catch (SQLException ignore) {}
-                }
-            } finally {
-                if (conn != null) {
-                    try { conn.close(); } catch (SQLException ignore) {}
-                }
+                OpeningHoursCache.reload(conn, openingHoursDAO);
+                return inserted;
+            } catch (SQLException | RuntimeException ex) {
+                try { conn.rollback(); } catch (SQLException ignore) {}
+                throw ex;
             }
-        }, 0, 24, TimeUnit.HOURS);
+        }
+    }
+
+    /**
+     * daily job: moves finished reservations to the history tables
+     */
+    private int runArchive() {
+        int moved = archiveControl.archiveFinishedReservations();
+        log.info("archive job: moved {} finished reservation(s) to history", moved);
+        return moved;
+    }
+
+    /**
+     * no-show timer: marks every reservation past its cutoff, not only the ones of the timer's start time
+     */
+    private int runNoShows() throws SQLException {
+        try (Connection conn = DBManager.getConnection()) {
+            if (conn == null) throw new SQLException("conn is null");
+            conn.setAutoCommit(false);
+            try {
+                return markNoShows(conn);
+            } catch (SQLException | RuntimeException ex) {
+                try { conn.rollback(); } catch (Exception ignore) {}
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * reminder timer: reminds the reservations starting at {@code startAt}
+     */
+    private int runReminders(LocalDateTime startAt) throws SQLException {
+        try (Connection conn = DBManager.getConnection()) {
+            if (conn == null) throw new SQLException("conn is null");
+            return findPrior2HourReservation(conn, startAt);
+        }
+    }
+
+    /**
+     * CALLED timer: cancels the entry if the party did not arrive; re-arms the timer if the entry was called again
+     * since
+     * @return 1 if the entry expired, else 0
+     */
+    private int runCalledTimeout(int waitID) {
+        LocalDateTime notDueUntil = waitingListControl.expireCalled(waitID);
+        if (notDueUntil != null) {
+            schedule("called " + waitID, JOB_CALLED_TIMEOUTS, notDueUntil, () -> runCalledTimeout(waitID));
+            return 0;
+        }
+        return 1;
     }
     
     /**
      * checks for the next 30 days, that we have the opening hours of the restaurant for each day.
+     * missing days are filled with the default hours in a single multi-row insert; existing days are left as is.
      * @param conn
+     * @return number of days inserted
      * @throws SQLException
      */
-    public void ensureOpeningHoursNext30Days(Connection conn) throws SQLException {
+    public int ensureOpeningHoursNext30Days(Connection conn) throws SQLException {
         LocalDate startDate = LocalDate.now();
         LocalDate endExclusive = startDate.plusDays(30); 
         LocalTime defaultOpen = LocalTime.of(10, 0);
         LocalTime defaultClose = LocalTime.of(23, 0);
+        List<OpeningHours> defaults = new ArrayList<>();
         for (LocalDate d = startDate; d.isBefore(endExclusive); d = d.plusDays(1)) {
-            
-            if (openingHoursDAO.getOpeningHour(conn, d) != null) {
-                continue;
-            }
-            boolean inserted = openingHoursDAO.insertNewOpeningHour(
-                    conn,
-                    d,
-                    dayNameEnglish(d),  
-                    defaultOpen,
-                    defaultClose
-            );
-
-            if (!inserted) {
-                throw new SQLException("Failed to insert opening_hours for missing date: " + d);
-            }
+            defaults.add(new OpeningHours(d, dayNameEnglish(d), defaultOpen, defaultClose, "REGULAR"));
         }
+        return openingHoursDAO.insertMissingOpeningHours(conn, defaults);
     }
     
     /**
@@ -245,23 +488,25 @@ public class BillingScheduler {
     }
     
     /**
-     * reminder to all the customers whose reservation is in two hours.
+     * reminder to all the customers whose reservation starts at {@code startAt}, two hours ahead.
      * @param conn
+     * @param startAt start of the reservations
+     * @return number of reservations due for a reminder
      * @throws SQLException
      */
-    private void findPrior2HourReservation(Connection conn) throws SQLException {
-        List<Reservation> reservations = reservationDAO.getReservationsDueForReminder(conn);
+    private int findPrior2HourReservation(Connection conn, LocalDateTime startAt) throws SQLException {
+        List<Reservation> reservations = reservationDAO.getReservationsDueForReminder(conn, startAt);
         for (Reservation r : reservations) {
             String guestContact = r.getGuestContact();
             if (guestContact == null || guestContact.isBlank()) {
                 String userID = r.getUserID();
                 if (userID == null || userID.isBlank()) {
-                    System.out.println("Reminder skipped: missing userID (reservationID=" + r.getReservationID() + ")");
+                    log.info("Reminder skipped: missing userID (reservationID={})", r.getReservationID());
                     continue;
                 }
                 User user = userDAO.getUserByUserID(conn, userID);
                 if (user == null) {
-                    System.out.println("Reminder skipped: user not found for userID=" + userID);
+                    log.info("Reminder skipped: user not found for userID={}", userID);
                     continue;
                 }
                 String email = user.getEmail();
@@ -269,12 +514,12 @@ public class BillingScheduler {
 
                 if (email != null && !email.isBlank()) {
                     if (!notificationControl.sendAutomaticEmailTwoHourPrior(email)) {
-                        System.out.println("failed to send email to " + userID);
+                        log.warn("failed to send email to {}", userID);
                     }
                 }
                 if (phoneNumber != null && !phoneNumber.isBlank()) {
                     if (!notificationControl.sendAutomaticSMSTwoHourPrior(phoneNumber)) {
-                        System.out.println("Failed to send SMS to " + userID + " (" + phoneNumber + ")");
+                        log.warn("Failed to send SMS to {} ({})", userID, phoneNumber);
                     }
                 }
             } else {
@@ -282,75 +527,119 @@ public class BillingScheduler {
                 boolean isEmail = c.contains("@") && c.contains(".");
                 if (isEmail) {
                     if (!notificationControl.sendAutomaticEmailTwoHourPrior(c)) {
-                        System.out.println("Failed to send EMAIL to guestContact=" + c);
+                        log.warn("Failed to send EMAIL to guestContact={}", c);
                     }
                 } else {
                     if (!notificationControl.sendAutomaticSMSTwoHourPrior(c)) {
-                        System.out.println("Failed to send SMS to guestContact=" + c);
+                        log.warn("Failed to send SMS to guestContact={}", c);
                     }
                 }
             }
         }
+        return reservations.size();
     }
     
    
     /**
      * sending the bill to all the customers who are seating at a table for 2 hours without requesting a bill.
-     * @param conn
+     * one worker: claims batches of {@code billing_BatchSize} seatings (default {@value #DEFAULT_BILLING_BATCH_SIZE})
+     * until none is left. the claim is committed before the bills are sent, so a slow notification holds no row lock
+     * and the other workers skip past the batch; the outcomes of the batch are committed together afterwards.
+     * a bill that could not be sent is retried by a later run, with a growing delay, so it does not block the rest.
+     * @return number of bills sent
      * @throws SQLException
      */
-    private void mark2HoursSeating(Connection conn) throws SQLException {
-        List<Integer> dueSeatingIds = seatingDAO.getSeatingsDueForBill(conn);
-        for (int seatingId : dueSeatingIds) {
+    private int mark2HoursSeating() throws SQLException {
+        int batchSize = Math.max(1, Integer.getInteger("billing_BatchSize", DEFAULT_BILLING_BATCH_SIZE));
+        int sent = 0;
+        try (Connection conn = DBManager.getConnection()) {
+            if (conn == null) throw new SQLException("conn is null");
+            conn.setAutoCommit(false);
             try {
-                boolean ok = billingControl.sendBillAutomatically(conn, seatingId);
-                if (!ok) {
-                    System.err.println("bill failed for seatingId=" + seatingId);
-                }
-            } catch (Exception ex) {
-                System.err.println("exception while billing seatingId=" + seatingId + ": " + ex.getMessage());
-                try {
-                    seatingDAO.updateBillSent(conn, seatingId, 0);
-                } catch (Exception ignore) {
+                while (true) {
+                    List<Integer> batch = seatingDAO.claimBillBatch(conn, batchSize, BILL_CLAIM_TIMEOUT_SECONDS);
+                    conn.commit();
+                    if (batch.isEmpty()) return sent;
+
+                    List<Integer> done = new ArrayList<>();
+                    List<Integer> failed = new ArrayList<>();
+                    for (int seatingId : batch) {
+                        boolean ok = false;
+                        try {
+                            ok = billingControl.sendClaimedBill(conn, seatingId);
+                        } catch (Exception ex) {
+                            log.atWarn().setCause(ex).log("exception while billing seatingId={}", seatingId);
+                        }
+                        (ok ? done : failed).add(seatingId);
+                    }
+                    seatingDAO.finishClaimedBills(conn, done, failed, BILL_RETRY_SECONDS, BILL_RETRY_MAX_SECONDS);
+                    conn.commit();
+                    sent += done.size();
+                    if (!failed.isEmpty()) {
+                        log.warn("bill failed for seatingIds={}, retrying later", failed);
+                    }
                 }
+            } catch (SQLException | RuntimeException ex) {
+                try { conn.rollback(); } catch (Exception ignore) {}
+                throw ex;
             }
         }
     }
 
   
     /**
-     * chaning the reservation status to NO_SHOW and informing customer about the cancelation of his reservation due to him being late
-     * @param conn
+     * chaning the reservation status to NO_SHOW and informing customer about the cancelation of his reservation due to him being late.
+     * all reservations that started more than 15 minutes ago are locked with one SELECT ... FOR UPDATE and marked
+     * with one UPDATE, then committed.
+     * the notifications are handed to the job runtime's workers only after the commit, so they never hold the row locks.
+     * @param conn connection with auto-commit disabled
+     * @return number of reservations marked NO_SHOW
      * @throws SQLException
      */
-    private void markNoShows(Connection conn) throws SQLException {
-        LocalDate today = LocalDate.now();
-        LocalTime cutoff = LocalTime.now().minusMinutes(15);
-
-        List<Integer> reservationIds = reservationDAO.getReservationsDueForNoShow(conn, today, cutoff);
-
-        for (int reservationId : reservationIds) {
-        	Reservation reservation=reservationDAO.getReservationByReservationID(conn, reservationId);
-        	int confirmationCode=reservation.getConfirmationCode();
-            reservationDAO.updateStatusByReservationID(conn, reservationId, "NO_SHOW");
-            if(reservation.getGuestContact()==null||reservation.getGuestContact().isBlank()) {
-            	notificationControl.sendCancelledReservation(reservation.getUserID(), "Your reservation with confirmation code "+confirmationCode+" has been canceled");
-            }
-            else {
-            	notificationControl.sendCancelledReservation(reservation.getGuestContact(), "Your reservation with confirmation code "+confirmationCode+" has been canceled");
-            }
+    private int markNoShows(Connection conn) throws SQLException {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(NO_SHOW_GRACE_MINUTES);
+
+        long t0 = System.nanoTime();
+        List<Reservation> due = reservationDAO.lockReservationsDueForNoShow(conn, cutoff.toLocalDate(), cutoff.toLocalTime());
+        long t1 = System.nanoTime();
+        int marked = reservationDAO.markNoShowsByReservationIDs(conn, due);
+        long t2 = System.nanoTime();
+        conn.commit();
+        long t3 = System.nanoTime();
+
+        log.atDebug()
+                .addKeyValue("due", due.size())
+                .addKeyValue("marked", marked)
+                .addKeyValue("selectMs", TimeUnit.NANOSECONDS.toMillis(t1 - t0))
+                .addKeyValue("updateMs", TimeUnit.NANOSECONDS.toMillis(t2 - t1))
+                .addKeyValue("commitMs", TimeUnit.NANOSECONDS.toMillis(t3 - t2))
+                .log("no-show timer");
+
+        for (Reservation reservation : due) {
+            String recipient = (reservation.getGuestContact() == null || reservation.getGuestContact().isBlank())
+                    ? reservation.getUserID()
+                    : reservation.getGuestContact();
+            String message = "Your reservation with confirmation code " + reservation.getConfirmationCode() + " has been canceled";
+            Runnable notify = () -> {
+                try {
+                    notificationControl.sendCancelledReservation(recipient, message);
+                } catch (Exception e) {
+                    log.atWarn().setCause(e).log("no-show notification failed for reservationID={}", reservation.getReservationID());
+                }
+            };
+            if (!jobs.execute(notify)) notify.run();
         }
+        return marked;
     }
     
     /**
-     * stopping all the schedulers
+     * stopping the job runtime, giving back the leases and dropping the deadline timers (rebuilt by the next start)
      */
     public synchronized void stop() {
-        scheduler.shutdownNow();
-        reminderScheduler.shutdownNow();
-        monthlyReportScheduler.shutdownNow(); 
-        waitingListScheduler.shutdownNow();
-        openingHoursScheduler.shutdownNow();
+        DeadlineEvents.setListener(null);
+        jobs.stop();
+        leases.stop();
+        deadlines.clear();
         started = false;
     }
 }
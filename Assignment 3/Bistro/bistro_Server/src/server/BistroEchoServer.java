@@ -4,7 +4,6 @@ import ocsf.server.*;
 
 import requests.*;
 import responses.*;
-import serverGUI.ServerMainScreenControl;
 
 import java.io.IOException;
 import java.net.InetAddress;
@@ -14,6 +13,10 @@ import database.SeatingDAO;
 import database.ReservationDAO;
 import database.UserDAO;
 import database.OpeningHoursDAO;
+import database.WaitingListDAO;
+import database.JobLeaseDAO;
+import database.JdbcTiming;
+import database.SqlStatistics;
 
 import controllers.NotificationControl;
 import controllers.WaitingListControl;
@@ -21,6 +24,9 @@ import controllers.WaitingListControl;
 import controllers.*;
 import kryo.KryoUtil;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 
 /**
  * Main OCSF server for the Bistro system.
@@ -33,27 +39,44 @@ import kryo.KryoUtil;
  * <p>Core responsibilities:
  * <ul>
  *   <li>Maintain connected-client sessions ({@link ClientSession}) keyed by {@link ConnectionToClient}</li>
- *   <li>Update the JavaFX server GUI ({@link ServerMainScreenControl}) on connect/login/logout/disconnect</li>
+ *   <li>Report connect/login/logout/disconnect to a {@link ServerEventListener} (the JavaFX server GUI, or a no-op in headless mode)</li>
  *   <li>Route incoming commands to controllers: user, reservation, seating, manager, billing, reports, waiting list</li>
  *   <li>Enforce role-based permissions for manager/report commands</li>
  *   <li>Enforce "single manager logged in" behavior (manager singleton gate)</li>
  *   <li>Start/stop background schedulers when the server starts/stops (e.g., {@link BillingScheduler})</li>
+ *   <li>Record per-command latency (decode/controller/DB/encode) in {@link RequestMetrics}</li>
+ *   <li>Emit JFR events for the request lifecycle and Kryo encode/decode ({@link ServerEvents})</li>
  * </ul>
  *
  * <p>Threading:
  * OCSF callbacks may run on non-JavaFX threads; GUI updates are delegated via the GUI controller which
- * internally uses {@code Platform.runLater(...)}.</p>
+ * internally uses {@code Platform.runLater(...)}.
+ * OCSF delivers all client messages through one synchronized method; in {@link DispatchMode#POOLED} mode
+ * requests are handed to a {@link ClientDispatcher} so several clients are served in parallel.</p>
  */
 public class BistroEchoServer extends AbstractServer {
 	
+	private static final Logger log = LoggerFactory.getLogger(BistroEchoServer.class);
+	
+	/** How requests are executed after OCSF delivers them. */
+	public enum DispatchMode {
+		/** On the OCSF connection thread, inside OCSF's server-wide lock (one request at a time). */
+		SERIAL,
+		/** On a fixed worker pool, in order per client ({@link ClientDispatcher}). */
+		POOLED
+	}
+	
 	/** Server metadata (host name/IP, etc.). */
 	private ServerSession serverSession;
 	
 	/** Connected clients mapped to their current session metadata (role/userId/username/ip). */
 	private final Map<ConnectionToClient,ClientSession> loggedUsers = new ConcurrentHashMap<>();
 	
-	/** JavaFX controller used to reflect client status changes in real time. */
-	private final ServerMainScreenControl serverGUI;
+	/** Receives client status changes (JavaFX server GUI, or a no-op in headless mode). */
+	private final ServerEventListener serverGUI;
+	
+	/** Worker pool for {@link DispatchMode#POOLED}, null in {@link DispatchMode#SERIAL} mode. */
+	private final ClientDispatcher dispatcher;
 	
 	/** Tracks the currently logged-in manager client to enforce a single active manager session. */
 	private volatile ConnectionToClient activeManager;
@@ -69,6 +92,12 @@ public class BistroEchoServer extends AbstractServer {
 	
 	/** Background scheduler (e.g., periodic billing/report/waiting-list maintenance). */
 	private final BillingScheduler billingScheduler;
+	
+	/** Calls the next waiting party when a checkout frees a table. */
+	private final WaitingListPromoter waitingListPromoter;
+	
+	/** Per-command latency histograms and error counters, exposed through JMX and the server GUI. */
+	private final RequestMetrics requestMetrics = new RequestMetrics();
 
 	 
 	/**
@@ -76,12 +105,23 @@ public class BistroEchoServer extends AbstractServer {
 	 * @param port
 	 * @param serverGUI for updating the client details in real time
 	 */
-	public BistroEchoServer(int port,ServerMainScreenControl serverGUI) {
+	public BistroEchoServer(int port,ServerEventListener serverGUI) {
+		this(port, serverGUI, DispatchMode.SERIAL, 0);
+	}
+	
+	/**
+	 * @param port
+	 * @param serverGUI listener for client status changes
+	 * @param dispatchMode where requests are executed
+	 * @param workers worker threads for {@link DispatchMode#POOLED}
+	 */
+	public BistroEchoServer(int port,ServerEventListener serverGUI,DispatchMode dispatchMode,int workers) {
 		super(port);
 		
 		serverSession  = new ServerSession();//server details will be stored here		
 		
 		this.serverGUI = serverGUI;// server gui to fetch client details
+		this.dispatcher = dispatchMode == DispatchMode.POOLED ? new ClientDispatcher(Math.max(1, workers)) : null;
 		
 		//controllers init
 		userControl = new UserControl();
@@ -99,28 +139,53 @@ public class BistroEchoServer extends AbstractServer {
 		        new NotificationControl(),
 		        reportControl,
 		        waitingListControl,
-		        new OpeningHoursDAO()
+		        new WaitingListDAO(),
+		        new OpeningHoursDAO(),
+		        new ArchiveControl(),
+		        new JobLeaseDAO()
 		);
+		waitingListPromoter = new WaitingListPromoter(seatingControl);
 	}
 	
 	/**
-     * Called by OCSF when the server starts listening.
-     * Starts the background scheduler(s).
+     * Called by OCSF when the server starts listening, before the first connection is accepted.
+     * Runs the {@link ServerWarmup} phase, starts the background scheduler(s) and the {@link WaitingListPromoter},
+     * then reports readiness.
+     * Clients connecting meanwhile wait in the socket backlog.
      */
 	@Override
 	protected void serverStarted() {
-	    System.out.println("SERVER started listening on port " + getPort());
+	    log.info("SERVER started listening on port {}, warming up", getPort());
+	    long warmupMillis = new ServerWarmup(reservationControl, seatingControl).run();
 	    billingScheduler.start(); 
+	    waitingListPromoter.start();
+	    requestMetrics.registerMBean();
+	    SqlStatistics.registerMBean();
+	    log.atInfo().addKeyValue("warmupMs", warmupMillis).log("SERVER ready on port {}", getPort());
+	    serverGUI.onServerReady();
 	}
 	
 	/**
      * Called by OCSF when the server stops listening.
-     * Stops the background scheduler(s).
+     * Stops the background scheduler(s) and the {@link WaitingListPromoter}.
      */
 	@Override
 	protected void serverStopped() {
-	    System.out.println("SERVER stopped listening");
+	    log.info("SERVER stopped listening");
 	    billingScheduler.stop();
+	    waitingListPromoter.stop();
+	    requestMetrics.unregisterMBean();
+	    SqlStatistics.logTop(10);
+	    SqlStatistics.unregisterMBean();
+	}
+	
+	/**
+     * Called by OCSF when the server is closed.
+     * Stops the request workers (pooled dispatch mode).
+     */
+	@Override
+	protected void serverClosed() {
+		if (dispatcher != null) dispatcher.shutdown();
 	}
 	
 	/**
@@ -132,6 +197,20 @@ public class BistroEchoServer extends AbstractServer {
 		return this.serverSession;
 	}
 	
+	/**
+	 * @return runtime of the background jobs (stats and run-on-demand)
+	 */
+	public JobScheduler getJobScheduler() {
+		return billingScheduler.getJobs();
+	}
+	
+	/**
+	 * @return per-command latency histograms and counters
+	 */
+	public RequestMetrics getRequestMetrics() {
+		return requestMetrics;
+	}
+	
 	
 	/**
      * Called by OCSF when a client connects.
@@ -144,7 +223,7 @@ public class BistroEchoServer extends AbstractServer {
 	protected void clientConnected(ConnectionToClient client) {
 		 String clientIP = client.getInetAddress().getHostAddress();
 		 ClientSession clientSession = new ClientSession(clientIP);
-		 System.out.println("Client connected from: " + clientIP);
+		 log.info("Client connected from: {}", clientIP);
 		 loggedUsers.put(client,clientSession);
 		 serverGUI.onClientConnected(clientIP);
 	}
@@ -159,12 +238,13 @@ public class BistroEchoServer extends AbstractServer {
      */
 	@Override
 	protected void clientDisconnected(ConnectionToClient client) {
-		System.out.println("SERVER clientDisconnected fired!");
+		log.debug("SERVER clientDisconnected fired!");
 		ClientSession clientSession = loggedUsers.remove(client);
 		if(clientSession!=null) {
-			System.out.println("Client disconnected: " + clientSession.getIp());
+			log.info("Client disconnected: {}", clientSession.getIp());
 			serverGUI.onClientDisconnected(clientSession.getIp());
 		}
+		if (dispatcher != null) dispatcher.remove(client);
 		if (client == activeManager) {
 			activeManager = null;
 		}
@@ -180,13 +260,31 @@ public class BistroEchoServer extends AbstractServer {
      */
 	@Override
 	protected void clientException(ConnectionToClient client, Throwable exception) {
-	    System.out.println("Client exception (treat as disconnect): " + exception.getMessage());
+	    log.info("Client exception (treat as disconnect): {}", exception.getMessage());
 	    clientDisconnected(client); // cleanup + GUI update
 	}
 	
 	
 	/**
-     * Main message handler (OCSF callback).
+     * OCSF callback for every client message.
+     *
+     * <p>In {@link DispatchMode#SERIAL} mode the request is handled right here; in {@link DispatchMode#POOLED} mode
+     * it is queued on the {@link ClientDispatcher} so OCSF's server lock is released at once.</p>
+     *
+     * @param msg incoming message (usually {@code byte[]})
+     * @param client sending client connection
+     */
+	@Override
+	protected void handleMessageFromClient(Object msg,ConnectionToClient client) {
+		if (dispatcher == null) {
+			handleRequest(msg, client);
+		} else {
+			dispatcher.dispatch(client, () -> handleRequest(msg, client));
+		}
+	}
+	
+	/**
+     * Main message handler.
      *
      * <p>Expected message type is either:
      * <ul>
@@ -202,21 +300,56 @@ public class BistroEchoServer extends AbstractServer {
      *   <li>Call the appropriate controller</li>
      *   <li>Apply session/GUI side effects (login/logout identity updates)</li>
      *   <li>Serialize and send back a {@link responses.Response}</li>
+     *   <li>Record the phase timings in {@link #requestMetrics} and the JFR events of {@link ServerEvents}</li>
      * </ol>
      *
      * @param msg incoming message (usually {@code byte[]})
      * @param client sending client connection
      */
-	@Override
-	protected void handleMessageFromClient(Object msg,ConnectionToClient client) {
+	private void handleRequest(Object msg,ConnectionToClient client) {
 		
 		//the response that will be sent to client (use downcast)
 		Response<?> response = null;
 		ClientSession session = loggedUsers.get(client);//session holds the user info
 		
+		//phase timestamps for request metrics
+		long start = System.nanoTime();
+		long decodedAt = start;
+		String label = "INVALID";
+		boolean error = false;
+		long bytesIn = msg instanceof byte[] in ? in.length : 0;
+		ServerEvents.RequestCompleted completedEvent = new ServerEvents.RequestCompleted();
+		ServerEvents.RequestDispatched dispatchedEvent = new ServerEvents.RequestDispatched();
+		boolean dispatched = false;
+		completedEvent.begin();
+		
 	    try {
 	        Object decoded = msg;
-	        if (msg instanceof byte[] bytes)  decoded = KryoUtil.deserialize(bytes);	
+	        if (msg instanceof byte[] bytes) {
+	        	ServerEvents.KryoCodec decodeEvent = new ServerEvents.KryoCodec();
+	        	decodeEvent.begin();
+	        	decoded = KryoUtil.deserialize(bytes);
+	        	decodeEvent.end();
+	        	if (decodeEvent.shouldCommit()) {
+	        		decodeEvent.operation = "decode";
+	        		decodeEvent.type = decoded == null ? "null" : decoded.getClass().getSimpleName();
+	        		decodeEvent.bytes = bytes.length;
+	        		decodeEvent.commit();
+	        	}
+	        }
+	        decodedAt = System.nanoTime();
+	        label = RequestMetrics.labelOf(decoded);
+	        JdbcTiming.takeNanos();//drop DB time left on this thread by earlier work
+	        
+	        ServerEvents.RequestReceived receivedEvent = new ServerEvents.RequestReceived();
+	        if (receivedEvent.shouldCommit()) {
+	        	receivedEvent.command = label;
+	        	receivedEvent.role = session == null ? null : session.getRole();
+	        	receivedEvent.bytesIn = bytesIn;
+	        	receivedEvent.commit();
+	        }
+	        dispatchedEvent.begin();
+	        dispatched = true;
 	        
 	                
 
@@ -232,11 +365,11 @@ public class BistroEchoServer extends AbstractServer {
 	                    response = handleLoginWithManagerGate(client, loginReq, loginResp);
 	                    if (loginReq != null && loginReq.getUserCommand() == LoginRequest.UserCommand.LOGIN_REQUEST) {
 	                        if (session == null) {
-	                            System.out.println("session=null");
+	                            log.debug("session=null");
 	                        } else if (session.getUserId() == null || session.getUserId().isBlank()) {
-	                            System.out.println("session userId=<unset>");
+	                            log.debug("session userId=<unset>");
 	                        } else {
-	                            System.out.println("session userId=" + session.getUserId());
+	                            log.debug("session userId={}", session.getUserId());
 	                        }
 	                    }
 	                    
@@ -322,16 +455,59 @@ public class BistroEchoServer extends AbstractServer {
 	        }
 
 	    } catch (Exception e) {
-	        e.printStackTrace();
+	        log.atError().addKeyValue("command", label).setCause(e).log("request failed");
+	        error = true;
 	        response = new Response<>(false, "Server error", null);
 	    }
-
+	    long handledAt = System.nanoTime();
+	    long dbNanos = JdbcTiming.takeNanos();
+	    long encodedAt = handledAt;
+	    long bytesOut = 0;
+	    boolean success = response != null && response.isSuccess();
+	    String role = session == null ? null : session.getRole();
+	    
+	    if (dispatched) {
+	    	dispatchedEvent.end();
+	    	if (dispatchedEvent.shouldCommit()) {
+	    		dispatchedEvent.command = label;
+	    		dispatchedEvent.role = role;
+	    		dispatchedEvent.success = success;
+	    		dispatchedEvent.commit();
+	    	}
+	    }
 	    
 	    try {
 	    	// Serialize response using Kryo before sending to client
-	        client.sendToClient(KryoUtil.serialize(response));
+	    	ServerEvents.KryoCodec encodeEvent = new ServerEvents.KryoCodec();
+	    	encodeEvent.begin();
+	    	byte[] bytes = KryoUtil.serialize(response);
+	    	encodeEvent.end();
+	    	encodedAt = System.nanoTime();
+	    	bytesOut = bytes.length;
+	    	if (encodeEvent.shouldCommit()) {
+	    		encodeEvent.operation = "encode";
+	    		encodeEvent.type = response == null || response.getData() == null ? "Response" : response.getData().getClass().getSimpleName();
+	    		encodeEvent.bytes = bytesOut;
+	    		encodeEvent.commit();
+	    	}
+	        client.sendToClient(bytes);
+	        StartupStats.responseSent();
 	    } catch (Exception e) {
-	        System.out.println("Failed to send response to client");
+	        error = true;
+	        log.atWarn().addKeyValue("command", label).log("Failed to send response to client: {}", e.getMessage());
+	    }
+	    
+	    requestMetrics.record(label, decodedAt - start, handledAt - decodedAt, dbNanos, encodedAt - handledAt,
+	    		System.nanoTime() - start, success, error);
+	    
+	    completedEvent.end();
+	    if (completedEvent.shouldCommit()) {
+	    	completedEvent.command = label;
+	    	completedEvent.role = role;
+	    	completedEvent.bytesIn = bytesIn;
+	    	completedEvent.bytesOut = bytesOut;
+	    	completedEvent.success = success && !error;
+	    	completedEvent.commit();
 	    }
 	}
 	
@@ -354,9 +530,11 @@ public class BistroEchoServer extends AbstractServer {
 		clientSession.setUsername(logRes.getData().getUsername());
 		clientSession.setRole(logRes.getData().getRole());		
 		serverGUI.onClientLogin(userId,clientSession.getUsername(),clientSession.getRole(),clientSession.getIp());
-		System.out.println("[LOGIN SUCCESS] role=" + logRes.getData().getRole()
-		        + " userId=" + logRes.getData().getUserID()
-		        + " username=" + logRes.getData().getUsername());
+		log.atInfo()
+		        .addKeyValue("role", logRes.getData().getRole())
+		        .addKeyValue("userId", logRes.getData().getUserID())
+		        .addKeyValue("username", logRes.getData().getUsername())
+		        .log("LOGIN SUCCESS");
 	}
 	
 	 /**
@@ -371,7 +549,7 @@ public class BistroEchoServer extends AbstractServer {
      * @param loginResp login controller response
      * @return the original login response if allowed, otherwise a failure response
      */
-	private Response<LoginResponse> handleLoginWithManagerGate(ConnectionToClient client,LoginRequest loginReq,Response<LoginResponse> loginResp) {
+	private synchronized Response<LoginResponse> handleLoginWithManagerGate(ConnectionToClient client,LoginRequest loginReq,Response<LoginResponse> loginResp) {
 		
 		if (loginReq == null || loginReq.getUserCommand() != LoginRequest.UserCommand.LOGIN_REQUEST) {
 	        return loginResp;
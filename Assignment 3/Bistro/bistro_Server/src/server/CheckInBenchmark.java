@@ -0,0 +1,264 @@
+package server;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import allocation.AllocationPolicy;
+import controllers.SeatingControl;
+import database.DBManager;
+import database.FloorModel;
+import database.ReservationDAO;
+import database.SqlStatistics;
+import responses.Response;
+import responses.SeatingResponse;
+
+/**
+ * Measures check-in by confirmation code under concurrency, against the configured {@link DBManager} profile.
+ *
+ * <p>Main idea: {@code threads} door terminals check in {@code checkIns} prepared reservations at the same time through
+ * {@link SeatingControl#checkInRouterByConfirmationCode(int)}, the same call a terminal's request ends in:
+ * <ul>
+ *   <li>Setup creates the reservations for today, starting a minute ago (so they are on time), for guests</li>
+ *   <li>Every check-in is timed into a {@link LatencyHistogram}; the party then checks out untimed, so tables keep
+ *       turning over. Check-ins that find no free table go to the waiting list and are reported separately</li>
+ *   <li>Only the direct seating is meant to be measured: a timed run in which a check-in went to the waiting list,
+ *       failed, or was not checked out again is reported INVALID and fails, whatever its latency</li>
+ *   <li>{@code warmup} check-ins run first and are not counted; {@link SqlStatistics} is reset after them, so the
+ *       statements per check-in come from the timed run only</li>
+ * </ul>
+ * The run passes when it is valid and p99 is at most {@code target} milliseconds.</p>
+ *
+ * <p>It inserts thousands of reservations and seatings, so it refuses to run on any profile but {@code embedded}, whose
+ * database is thrown away and rebuilt on the next start.</p>
+ *
+ * <p>Run ({@code key=value} arguments, all optional) with {@code -Ddb_Profile=embedded}:
+ * {@code java -cp bin:../bistro_Common/bin:libs/* server.CheckInBenchmark threads=8 checkIns=5000 warmup=500 partySize=2 target=5}.
+ * The floor needs at least {@code threads} free tables that fit {@code partySize} (e.g. {@code embedded_GenerateReservations}).</p>
+ */
+public class CheckInBenchmark {
+
+	private static final Logger log = LoggerFactory.getLogger(CheckInBenchmark.class);
+
+	/** Confirmation codes of the prepared reservations, above the live and the generated ranges. */
+	private static final int CODE_BASE = 900_000_000;
+	/** Codes reserved per run; the run number comes from the clock. */
+	private static final int CODES_PER_RUN = 100_000;
+	/** Statements of one untimed checkout (lookup, seating, reservation status), subtracted from the totals. */
+	private static final int CHECKOUT_STATEMENTS = 3;
+
+	private int threads = 8;
+	private int checkIns = 5_000;
+	private int warmup = 500;
+	private int partySize = 2;
+	private double targetMillis = 5.0;
+
+	private final SeatingControl seatingControl = new SeatingControl();
+	private final ReservationDAO reservationDAO = new ReservationDAO();
+	private final AtomicLong checkouts = new AtomicLong();
+	private final AtomicLong failedCheckouts = new AtomicLong();
+
+	/**
+	 * standalone entry point
+	 * @param args {@code key=value} overrides, see the class doc
+	 */
+	public static void main(String[] args) throws Exception {
+		CheckInBenchmark benchmark = new CheckInBenchmark();
+		for (String arg : args) {
+			String[] kv = arg.split("=", 2);
+			if (kv.length != 2) throw new IllegalArgumentException("expected key=value, got " + arg);
+			switch (kv[0]) {
+				case "threads": benchmark.threads = Integer.parseInt(kv[1]); break;
+				case "checkIns": benchmark.checkIns = Integer.parseInt(kv[1]); break;
+				case "warmup": benchmark.warmup = Integer.parseInt(kv[1]); break;
+				case "partySize": benchmark.partySize = Integer.parseInt(kv[1]); break;
+				case "target": benchmark.targetMillis = Double.parseDouble(kv[1]); break;
+				default: throw new IllegalArgumentException("unknown option " + kv[0]);
+			}
+		}
+
+		DBManager.init();
+		try {
+			System.exit(benchmark.run() ? 0 : 1);
+		} finally {
+			DBManager.dbShutDown();
+		}
+	}
+
+	/**
+	 * prepares the reservations, runs the warmup and the timed check-ins and prints the results
+	 * @return true if p99 met the target
+	 * @throws IllegalStateException if the database profile is not {@code embedded}
+	 */
+	public boolean run() throws Exception {
+		if (!DBManager.PROFILE_EMBEDDED.equals(DBManager.getProfile())) {
+			throw new IllegalStateException("CheckInBenchmark writes benchmark data and only runs on the "
+					+ DBManager.PROFILE_EMBEDDED + " profile (current: " + DBManager.getProfile() + ")");
+		}
+		long freeTables = FloorModel.snapshot().stream()
+				.filter(t -> t.getStatus() == FloorModel.TableStatus.FREE && t.getCapacity() >= partySize).count();
+		if (freeTables < threads) {
+			System.out.println("warning: only " + freeTables + " free table(s) fit partySize=" + partySize
+					+ " for " + threads + " thread(s); check-ins will queue on the waiting list");
+		}
+
+		int firstCode = prepare(warmup + checkIns);
+
+		ExecutorService terminals = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "checkInTerminal");
+			t.setDaemon(true);
+			return t;
+		});
+		try {
+			measure(terminals, firstCode, warmup, new LatencyHistogram(), new AtomicInteger());
+
+			SqlStatistics.reset();
+			checkouts.set(0);
+			failedCheckouts.set(0);
+			LatencyHistogram latency = new LatencyHistogram();
+			AtomicInteger waiting = new AtomicInteger();
+			long start = System.nanoTime();
+			int failed = measure(terminals, firstCode + warmup, checkIns, latency, waiting);
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			long statements = 0;
+			for (SqlStatistics.StatementStats s : SqlStatistics.topByTotalTime(Integer.MAX_VALUE)) {
+				statements += s.getExecutions();
+			}
+			statements -= checkouts.get() * CHECKOUT_STATEMENTS;
+
+			double p99 = latency.getPercentileMillis(99);
+			System.out.printf("check-ins: %d in %.1fs (%.0f/s) with %d thread(s), %d to waiting list, %d failed, %d checkout(s) failed%n",
+					latency.getCount(), seconds, latency.getCount() / seconds, threads, waiting.get(), failed,
+					failedCheckouts.get());
+			System.out.printf("latency ms: mean %.2f  p50 %.2f  p95 %.2f  p99 %.2f  max %.2f%n",
+					latency.getMeanMillis(), latency.getPercentileMillis(50), latency.getPercentileMillis(95), p99,
+					latency.getMaxMillis());
+			System.out.printf("statements per check-in: %.2f%n", statements / (double) Math.max(1, latency.getCount()));
+			SqlStatistics.logTop(10);
+			if (waiting.get() > 0 || failed > 0 || failedCheckouts.get() > 0) {
+				System.out.println("INVALID: not every timed check-in was seated directly and checked out again");
+				return false;
+			}
+			boolean pass = p99 <= targetMillis;
+			System.out.printf("p99 target %.1fms: %s%n", targetMillis, pass ? "PASS" : "FAIL");
+			return pass;
+		} finally {
+			terminals.shutdownNow();
+		}
+	}
+
+	/**
+	 * inserts on-time guest reservations for today with consecutive codes
+	 * @param count reservations to create
+	 * @return confirmation code of the first one
+	 */
+	private int prepare(int count) throws SQLException {
+		if (count > CODES_PER_RUN) throw new IllegalArgumentException("at most " + CODES_PER_RUN + " check-ins per run");
+		int firstCode = CODE_BASE + (int) (System.currentTimeMillis() / 1000 % 10_000) * CODES_PER_RUN;
+		LocalDate today = LocalDate.now();
+		LocalTime startTime = LocalTime.now().minusMinutes(1).truncatedTo(ChronoUnit.SECONDS);
+		int allocatedCapacity = FloorModel.capacityFor(partySize, AllocationPolicy.configured().maxTables());
+		try (Connection conn = DBManager.getConnection()) {
+			conn.setAutoCommit(false);
+			try {
+				for (int i = 0; i < count; i++) {
+					int code = firstCode + i;
+					if (reservationDAO.insertNewReservation(conn, today, partySize, allocatedCapacity, code, null, startTime,
+							"CONFIRMED", "checkin-bench-" + code + "@example.com") <= 0) {
+						throw new SQLException("failed to insert benchmark reservation " + code);
+					}
+				}
+				conn.commit();
+			} catch (SQLException e) {
+				conn.rollback();
+				throw e;
+			} finally {
+				conn.setAutoCommit(true);
+			}
+		}
+		System.out.println("prepared " + count + " reservation(s), codes " + firstCode + ".." + (firstCode + count - 1));
+		return firstCode;
+	}
+
+	/**
+	 * checks in {@code count} reservations from {@code firstCode} on, {@link #threads} at a time
+	 * @return number of failed check-ins
+	 */
+	private int measure(ExecutorService terminals, int firstCode, int count, LatencyHistogram latency,
+			AtomicInteger waiting) throws Exception {
+		AtomicInteger next = new AtomicInteger();
+		AtomicInteger failed = new AtomicInteger();
+		List<Future<?>> running = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			running.add(terminals.submit(() -> {
+				for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+					int code = firstCode + i;
+					long t0 = System.nanoTime();
+					Response<SeatingResponse> resp = seatingControl.checkInRouterByConfirmationCode(code);
+					latency.recordNanos(System.nanoTime() - t0);
+
+					if (!resp.isSuccess() || resp.getData() == null) {
+						failed.incrementAndGet();
+					} else if (resp.getData().getType() == SeatingResponse.SeatingResponseType.CUSTOMER_IN_WAITINGLIST) {
+						waiting.incrementAndGet();
+					} else {
+						checkOut(code);
+					}
+				}
+				return null;
+			}));
+		}
+		for (Future<?> f : running) {
+			f.get();
+		}
+		return failed.get();
+	}
+
+	/** frees the table(s) of a seated benchmark reservation (not timed) */
+	private void checkOut(int code) {
+		try (Connection conn = DBManager.getConnection()) {
+			ReservationDAO.CheckIn checkIn = reservationDAO.getCheckInByConfirmationCode(conn, code);
+			if (checkIn == null || checkIn.getSeatingID() == null) {
+				failedCheckouts.incrementAndGet();
+				return;
+			}
+			FloorModel.TableState table = FloorModel.getTableBySeating(checkIn.getSeatingID());
+			if (table == null) {
+				failedCheckouts.incrementAndGet();
+				return;
+			}
+
+			conn.setAutoCommit(false);
+			try {
+				if (seatingControl.checkOutCurrentSeating(conn, table.getTableID())) {
+					conn.commit();
+					checkouts.incrementAndGet();
+				} else {
+					conn.rollback();
+					failedCheckouts.incrementAndGet();
+				}
+			} catch (SQLException e) {
+				conn.rollback();
+				throw e;
+			} finally {
+				conn.setAutoCommit(true);
+			}
+		} catch (SQLException e) {
+			failedCheckouts.incrementAndGet();
+			log.warn("checkout failed for code {}", code, e);
+		}
+	}
+}
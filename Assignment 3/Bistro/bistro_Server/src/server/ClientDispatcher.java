@@ -0,0 +1,96 @@
+package server;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ocsf.server.ConnectionToClient;
+
+/**
+ * Runs client requests on a fixed pool of worker threads ({@link BistroEchoServer.DispatchMode#POOLED}).
+ *
+ * <p>Main idea: OCSF delivers every message through one {@code synchronized} server method, so by default
+ * requests of all clients are handled one at a time. The dispatcher only enqueues the request and returns,
+ * so the OCSF lock is released immediately and up to {@code workers} requests run in parallel.</p>
+ *
+ * <p>Requests of the same client still run one after the other, in arrival order (a per-client queue),
+ * because clients expect one response per request, in order.</p>
+ */
+public class ClientDispatcher {
+
+	private final ExecutorService workers;
+	private final Map<ConnectionToClient, SerialQueue> queues = new ConcurrentHashMap<>();
+
+	/**
+	 * @param workers number of worker threads
+	 */
+	public ClientDispatcher(int workers) {
+		AtomicInteger ids = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(workers, r -> {
+			Thread t = new Thread(r, "dispatch-" + ids.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * queues a request of a client
+	 * @param client
+	 * @param task request handling
+	 */
+	public void dispatch(ConnectionToClient client, Runnable task) {
+		queues.computeIfAbsent(client, c -> new SerialQueue()).execute(task);
+	}
+
+	/**
+	 * forgets the queue of a disconnected client (tasks already queued still run)
+	 * @param client
+	 */
+	public void remove(ConnectionToClient client) {
+		queues.remove(client);
+	}
+
+	/**
+	 * stops the workers after the queued requests
+	 */
+	public void shutdown() {
+		workers.shutdown();
+	}
+
+	/** Hands the tasks of one client to the pool one at a time (re-queued after each task, so busy clients do not hog a worker). */
+	private class SerialQueue {
+		private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+		private boolean active;
+
+		synchronized void execute(Runnable task) {
+			tasks.add(task);
+			if (!active) {
+				active = true;
+				workers.execute(this::runNext);
+			}
+		}
+
+		private void runNext() {
+			Runnable next;
+			synchronized (this) {
+				next = tasks.poll();
+			}
+			try {
+				if (next != null) next.run();
+			} catch (RuntimeException e) {
+				// handleRequest answers errors itself; never let one request stop the client's queue
+			} finally {
+				synchronized (this) {
+					if (tasks.isEmpty()) {
+						active = false;
+					} else {
+						workers.execute(this::runNext);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package server;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+
+/**
+ * Calendar trigger in the five-field cron format: {@code minute hour day-of-month month day-of-week}.
+ *
+ * <p>Each field is {@code *}, a value, a range {@code a-b}, a step <code>*&#47;n</code> or {@code a-b/n}, or a
+ * comma-separated list of these. Day of week runs 0-7 with both 0 and 7 meaning Sunday. As in cron, when
+ * both day fields are restricted a day matches if either one does. Examples:
+ * <ul>
+ *   <li>{@code * * * * *} - every minute</li>
+ *   <li>{@code 10 0 * * *} - every day at 00:10</li>
+ *   <li>{@code 5 0 1 * *} - the first of every month at 00:05</li>
+ * </ul>
+ * Times are local wall-clock times, so a daily job stays at its hour across daylight-saving changes.</p>
+ */
+public final class CronSchedule {
+
+	/** Search horizon of {@link #next(LocalDateTime)}: covers leap days (Feb 29 falls at least once in 8 years). */
+	private static final int MAX_YEARS = 8;
+
+	private final String expression;
+	private final BitSet minutes;
+	private final BitSet hours;
+	private final BitSet daysOfMonth;
+	private final BitSet months;
+	private final BitSet daysOfWeek;
+	private final boolean anyDayOfMonth;
+	private final boolean anyDayOfWeek;
+
+	private CronSchedule(String expression) {
+		String[] fields = expression.trim().split("\\s+");
+		if (fields.length != 5) throw new IllegalArgumentException("cron expression needs 5 fields: " + expression);
+		this.expression = expression.trim();
+		this.minutes = parse(fields[0], 0, 59, expression);
+		this.hours = parse(fields[1], 0, 23, expression);
+		this.daysOfMonth = parse(fields[2], 1, 31, expression);
+		this.months = parse(fields[3], 1, 12, expression);
+		this.daysOfWeek = parse(fields[4], 0, 7, expression);
+		if (daysOfWeek.get(7)) daysOfWeek.set(0);
+		this.anyDayOfMonth = fields[2].equals("*");
+		this.anyDayOfWeek = fields[4].equals("*");
+	}
+
+	/**
+	 * @param expression five cron fields
+	 * @return the parsed schedule
+	 * @throws IllegalArgumentException if the expression is malformed
+	 */
+	public static CronSchedule parse(String expression) {
+		return new CronSchedule(expression);
+	}
+
+	/**
+	 * @param after exclusive lower bound
+	 * @return the first matching minute after {@code after}, or null if the expression never matches (e.g. Feb 30)
+	 */
+	public LocalDateTime next(LocalDateTime after) {
+		LocalDateTime t = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+		LocalDateTime limit = t.plusYears(MAX_YEARS);
+		while (t.isBefore(limit)) {
+			if (!months.get(t.getMonthValue())) {
+				t = t.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+			} else if (!dayMatches(t.toLocalDate())) {
+				t = t.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+			} else if (!hours.get(t.getHour())) {
+				t = t.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+			} else if (!minutes.get(t.getMinute())) {
+				t = t.plusMinutes(1);
+			} else {
+				return t;
+			}
+		}
+		return null;
+	}
+
+	private boolean dayMatches(LocalDate d) {
+		boolean dom = daysOfMonth.get(d.getDayOfMonth());
+		boolean dow = daysOfWeek.get(d.getDayOfWeek().getValue() % 7);
+		if (anyDayOfMonth) return dow;
+		if (anyDayOfWeek) return dom;
+		return dom || dow;
+	}
+
+	private static BitSet parse(String field, int min, int max, String expression) {
+		BitSet values = new BitSet(max + 1);
+		for (String part : field.split(",")) {
+			int step = 1;
+			int slash = part.indexOf('/');
+			if (slash >= 0) {
+				step = number(part.substring(slash + 1), expression);
+				part = part.substring(0, slash);
+				if (step < 1) throw new IllegalArgumentException("bad step in cron expression: " + expression);
+			}
+			int from, to;
+			if (part.equals("*")) {
+				from = min;
+				to = max;
+			} else if (part.indexOf('-') > 0) {
+				from = number(part.substring(0, part.indexOf('-')), expression);
+				to = number(part.substring(part.indexOf('-') + 1), expression);
+			} else {
+				from = number(part, expression);
+				to = slash >= 0 ? max : from;
+			}
+			if (from < min || to > max || from > to) {
+				throw new IllegalArgumentException("value out of range " + min + "-" + max + " in cron expression: " + expression);
+			}
+			for (int v = from; v <= to; v += step) {
+				values.set(v);
+			}
+		}
+		return values;
+	}
+
+	private static int number(String s, String expression) {
+		try {
+			return Integer.parseInt(s);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("bad number '" + s + "' in cron expression: " + expression);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return expression;
+	}
+}
@@ -0,0 +1,53 @@
+package server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import database.DBManager;
+
+/**
+ * Entry point without JavaFX, for containers and servers without a display.
+ *
+ * <p>Starts the same {@link BistroEchoServer} as {@link ServerMain}, with a {@link NoOpServerEventListener}
+ * instead of the server screen. Settings come from {@link ServerConfig} (properties or flags), e.g.:</p>
+ *
+ * <pre>java -cp bin:../bistro_Common/bin:../OCSF/bin:libs/* server.HeadlessServerMain --port=5555 --dispatch=pooled --workers=16 --pool-size=20</pre>
+ *
+ * <p>No JavaFX class is loaded, so it runs on the plain classpath without the JavaFX libraries.
+ * The process stops on SIGTERM/Ctrl+C.</p>
+ */
+public class HeadlessServerMain {
+
+	private static final Logger log = LoggerFactory.getLogger(HeadlessServerMain.class);
+
+	public static void main(String[] args) throws Exception {
+		ServerConfig config = new ServerConfig(args);
+
+		DBManager.init();
+		ServerEventListener listener = new NoOpServerEventListener() {
+			@Override
+			public void onServerReady() {
+				StartupStats.report("headless");
+			}
+		};
+		BistroEchoServer server = new BistroEchoServer(config.getPort(), listener,
+				config.getDispatchMode(), config.getWorkers());
+
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				server.stopListening();
+				server.close();
+			} catch (Exception e) {
+				log.error("Error closing server", e);
+			}
+			DBManager.dbShutDown();
+		}, "server-shutdown"));
+
+		server.listen();
+		log.atInfo()
+				.addKeyValue("port", config.getPort())
+				.addKeyValue("dispatch", config.getDispatchMode())
+				.addKeyValue("workers", config.getDispatchMode() == BistroEchoServer.DispatchMode.POOLED ? config.getWorkers() : 0)
+				.log("headless server listening");
+	}
+}
@@ -0,0 +1,217 @@
+package server;
+
+import java.net.InetAddress;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import database.DBManager;
+import database.JobLeaseDAO;
+
+/**
+ * Decides which server instance runs each background job, so several instances can share one database.
+ *
+ * <p>Main idea: every leased job has a row in {@code job_lease} ({@link JobLeaseDAO}). A node runs a job only while it
+ * holds the job's lease. Each node sends a heartbeat every third of the lease time, on a thread of its own (not the
+ * {@link JobScheduler} pool, so a backlog of jobs cannot delay it and let the leases lapse):
+ * <ul>
+ *   <li>It renews the leases it holds. A lease it fails to renew is lost; if the heartbeats stop (crash, lost
+ *       database), the lease lapses locally and expires in the database, and another node takes it on its next
+ *       heartbeat. Failover therefore takes at most about one lease time</li>
+ *   <li>Load sharing: a node holds at most its fair share, the number of leased jobs divided by the number of live
+ *       nodes ({@code scheduler_node} heartbeats), rounded up. It takes free leases up to that share, and gives back
+ *       leases above it, as long as the job is not running. So the jobs spread over the nodes, and a node that joins
+ *       gets its share within a heartbeat or two</li>
+ *   <li>A lease taken over is reported to the acquired listener (catch-up runs, rebuilding deadline timers)</li>
+ * </ul>
+ * With a single node, it holds every lease after the first heartbeat.</p>
+ *
+ * <p>Properties: {@code scheduler_NodeId} (default host name and process ID) and {@code scheduler_LeaseSeconds}
+ * (default {@value #DEFAULT_LEASE_SECONDS}).</p>
+ *
+ * <p>A lease does not fence a run: a node that loses the database mid-run finishes the run while another node may
+ * take over. The jobs re-check the database, so such an overlap does not process a row twice.</p>
+ */
+public class JobLeases implements JobScheduler.Leadership {
+
+	private static final Logger log = LoggerFactory.getLogger(JobLeases.class);
+
+	private static final int DEFAULT_LEASE_SECONDS = 15;
+
+	private final String nodeId;
+	private final int leaseSeconds;
+	private final List<String> leasedJobs;
+	private final JobLeaseDAO jobLeaseDAO;
+	/** Leases held by this node, with the {@link System#nanoTime()} after which they are no longer trusted. */
+	private final Map<String, Long> heldUntil = new ConcurrentHashMap<>();
+	private volatile Consumer<String> acquiredListener;
+	private volatile JobScheduler jobs;
+	private ScheduledExecutorService heartbeats;
+	private volatile int liveNodes = 1;
+
+	/**
+	 * @param leasedJobs names of the jobs that run on one node at a time; other job names are not restricted
+	 * @param jobLeaseDAO DAO of the lease tables
+	 */
+	public JobLeases(List<String> leasedJobs, JobLeaseDAO jobLeaseDAO) {
+		this.nodeId = System.getProperty("scheduler_NodeId", defaultNodeId());
+		this.leaseSeconds = Math.max(3, Integer.getInteger("scheduler_LeaseSeconds", DEFAULT_LEASE_SECONDS));
+		this.leasedJobs = List.copyOf(leasedJobs);
+		this.jobLeaseDAO = jobLeaseDAO;
+	}
+
+	/**
+	 * @param listener called with the name of every lease this node takes, on the heartbeat thread
+	 */
+	public void setAcquiredListener(Consumer<String> listener) {
+		this.acquiredListener = listener;
+	}
+
+	/**
+	 * creates the lease rows, sends the first heartbeat (taking this node's share) and keeps heartbeating
+	 * @param scheduler runs the jobs; must be started
+	 */
+	public synchronized void start(JobScheduler scheduler) {
+		jobs = scheduler;
+		try (Connection conn = DBManager.getConnection()) {
+			for (String job : leasedJobs) {
+				jobLeaseDAO.ensureLease(conn, job);
+			}
+		} catch (SQLException e) {
+			log.warn("could not create the job leases: {}", e.getMessage());
+		}
+		heartbeat();
+		log.info("scheduler node {}: {} live node(s), holding {}", nodeId, liveNodes, heldUntil.keySet());
+		long heartbeatMillis = TimeUnit.SECONDS.toMillis(leaseSeconds) / 3;
+		heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "lease-heartbeat");
+			t.setDaemon(true);
+			return t;
+		});
+		heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * stops heartbeating and gives back the leases, so other nodes take them at once (call after the jobs stopped)
+	 */
+	public synchronized void stop() {
+		jobs = null;
+		if (heartbeats != null) {
+			heartbeats.shutdownNow();
+			heartbeats = null;
+		}
+		try (Connection conn = DBManager.getConnection()) {
+			for (String job : heldUntil.keySet()) {
+				jobLeaseDAO.release(conn, job, nodeId);
+			}
+		} catch (SQLException e) {
+			log.warn("could not release the job leases: {}", e.getMessage());
+		}
+		heldUntil.clear();
+	}
+
+	@Override
+	public boolean isLeader(String jobName) {
+		if (!leasedJobs.contains(jobName)) return true;
+		Long until = heldUntil.get(jobName);
+		return until != null && System.nanoTime() - until < 0;
+	}
+
+	/** @return node ID written into the leases */
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	/** @return nodes counted at the last heartbeat, this one included */
+	public int getLiveNodes() {
+		return liveNodes;
+	}
+
+	/** renews, rebalances and takes leases; never throws, so the fixed-delay schedule keeps running */
+	private void heartbeat() {
+		if (jobs == null) return;
+		List<String> acquired = new ArrayList<>();
+		try (Connection conn = DBManager.getConnection()) {
+			int nodes = jobLeaseDAO.heartbeatNode(conn, nodeId, leaseSeconds);
+			liveNodes = nodes;
+			int fairShare = (leasedJobs.size() + nodes - 1) / nodes;
+
+			List<String> held = new ArrayList<>();
+			for (String job : leasedJobs) {
+				if (!heldUntil.containsKey(job)) continue;
+				long before = System.nanoTime();
+				if (jobLeaseDAO.takeOrRenew(conn, job, nodeId, leaseSeconds)) {
+					heldUntil.put(job, trustedUntil(before));
+					held.add(job);
+				} else {
+					heldUntil.remove(job);
+					log.warn("lost the lease of job {}", job);
+				}
+			}
+
+			JobScheduler scheduler = jobs;
+			for (int i = held.size() - 1; i >= 0 && held.size() > fairShare; i--) {
+				String job = held.get(i);
+				if (scheduler != null && scheduler.isRunning(job)) continue;
+				heldUntil.remove(job);
+				jobLeaseDAO.release(conn, job, nodeId);
+				held.remove(i);
+				log.info("gave back the lease of job {} ({} node(s) share {} job(s))", job, nodes, leasedJobs.size());
+			}
+
+			if (held.size() < fairShare) {
+				Map<String, String> owners = jobLeaseDAO.fetchLeaseOwners(conn);
+				// start at a node-specific offset, so nodes joining together do not race for the same jobs
+				int offset = Math.floorMod(nodeId.hashCode(), leasedJobs.size());
+				for (int k = 0; k < leasedJobs.size() && held.size() < fairShare; k++) {
+					String job = leasedJobs.get((offset + k) % leasedJobs.size());
+					if (held.contains(job) || owners.containsKey(job)) continue;
+					long before = System.nanoTime();
+					if (jobLeaseDAO.takeOrRenew(conn, job, nodeId, leaseSeconds)) {
+						heldUntil.put(job, trustedUntil(before));
+						held.add(job);
+						acquired.add(job);
+					}
+				}
+			}
+		} catch (Exception e) {
+			// held leases stay trusted until their local expiry; the next heartbeat retries
+			log.warn("lease heartbeat failed: {}", e.getMessage());
+		}
+
+		Consumer<String> listener = acquiredListener;
+		for (String job : acquired) {
+			log.info("took the lease of job {}", job);
+			try {
+				if (listener != null) listener.accept(job);
+			} catch (RuntimeException e) {
+				log.atWarn().setCause(e).log("catch-up after taking the lease of job {} failed", job);
+			}
+		}
+	}
+
+	/** a lease renewed at {@code before} is trusted for the lease time minus a second for clock-rate differences */
+	private long trustedUntil(long before) {
+		return before + TimeUnit.SECONDS.toNanos(leaseSeconds - 1);
+	}
+
+	private static String defaultNodeId() {
+		String host;
+		try {
+			host = InetAddress.getLocalHost().getHostName();
+		} catch (Exception e) {
+			host = "node";
+		}
+		return host + "-" + ProcessHandle.current().pid();
+	}
+}
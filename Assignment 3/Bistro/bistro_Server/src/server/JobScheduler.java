@@ -0,0 +1,487 @@
+package server;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runtime for the server's background jobs: calendar-triggered jobs, one-shot deadline tasks and fire-and-forget work
+ * share one {@link TimerWheel} and one bounded worker pool.
+ *
+ * <p>Main idea: a job is registered once with a {@link CronSchedule}; its next run is put on the wheel at the next
+ * matching minute (plus a random jitter), so "daily" and "monthly" jobs run at fixed calendar times instead of
+ * drifting with uptime. When it fires, the run after it is scheduled first, then the job is handed to the pool:
+ * <ul>
+ *   <li>Overlap prevention: a job still running when its next trigger fires skips that run (counted as skipped);
+ *       {@link #runNow(String)} is refused the same way</li>
+ *   <li>Missed triggers are not replayed: the next run is the next matching minute after now</li>
+ *   <li>Jobs registered with {@code runAtStart} also run once when the scheduler starts, to catch up on a trigger
+ *       missed while the server was down (the jobs are idempotent)</li>
+ * </ul>
+ *
+ * <p>Every run, triggered or on demand, is timed into {@link JobStats}: duration, lag (start minus the planned time,
+ * i.e. time waiting for the wheel and the pool), rows processed and failures; it is also recorded as a
+ * {@link ServerEvents.SchedulerTick} JFR event. The server GUI shows the stats and runs jobs on demand.</p>
+ *
+ * <p>Several server instances: with a {@link Leadership} set (see {@link JobLeases}), a registered job or a one-shot
+ * task runs only on the node that leads its job name; elsewhere its triggers are counted as "not leader". A node that
+ * takes over a {@code runAtStart} job runs it once to catch up.</p>
+ *
+ * <p>Pool: {@code scheduler_Threads} workers (default {@value #DEFAULT_THREADS}) and a queue of
+ * {@value #QUEUE_CAPACITY} tasks; the wheel's tasks share it. When the queue is full a task is rejected instead of
+ * running on the wheel's driver thread, so a backlog never delays the other deadlines. A rejected trigger or one-shot
+ * task is not dropped: the wheel hands it over again on the next tick (its lag grows). Each deferred run is counted
+ * ({@link #getRejected()} and the job's {@link JobStats#getRejected()}) and logged once. Fire-and-forget work
+ * ({@link #execute(Runnable)}) is dropped when the pool is full, and counted the same way.</p>
+ */
+public class JobScheduler {
+
+	private static final Logger log = LoggerFactory.getLogger(JobScheduler.class);
+
+	/** A job body. */
+	@FunctionalInterface
+	public interface Job {
+		/**
+		 * @return rows processed (for the stats)
+		 * @throws Exception on failure; the run is counted as failed
+		 */
+		int run() throws Exception;
+	}
+
+	/** Decides which jobs this node may run. */
+	@FunctionalInterface
+	public interface Leadership {
+		/**
+		 * @param jobName registered job or one-shot task name
+		 * @return true if this node runs the job
+		 */
+		boolean isLeader(String jobName);
+	}
+
+	/** Counters and histograms of one job; read by the server GUI. */
+	public static class JobStats {
+		private final String name;
+		private final String schedule;
+		private final LatencyHistogram duration = new LatencyHistogram();
+		private final LatencyHistogram lag = new LatencyHistogram();
+		private final AtomicLong failures = new AtomicLong();
+		private final AtomicLong skipped = new AtomicLong();
+		private final AtomicLong notLeader = new AtomicLong();
+		private final AtomicLong rejected = new AtomicLong();
+		private final AtomicLong lastRows = new AtomicLong();
+		private volatile LocalDateTime lastStart;
+		private volatile LocalDateTime nextRun;
+		private volatile boolean lastSuccess = true;
+
+		JobStats(String name, String schedule) {
+			this.name = name;
+			this.schedule = schedule;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/** @return cron expression, or "deadline" for one-shot tasks */
+		public String getSchedule() {
+			return schedule;
+		}
+
+		/** @return run durations; its count is the number of runs */
+		public LatencyHistogram getDuration() {
+			return duration;
+		}
+
+		/** @return delay between the planned and the actual start of each triggered run */
+		public LatencyHistogram getLag() {
+			return lag;
+		}
+
+		public long getFailures() {
+			return failures.get();
+		}
+
+		/** @return triggers dropped because the previous run was still going */
+		public long getSkipped() {
+			return skipped.get();
+		}
+
+		/** @return triggers not run because another node leads the job */
+		public long getNotLeader() {
+			return notLeader.get();
+		}
+
+		/** @return runs deferred to a later tick because the worker pool was full */
+		public long getRejected() {
+			return rejected.get();
+		}
+
+		public long getLastRows() {
+			return lastRows.get();
+		}
+
+		/** @return start of the last run, null if it never ran */
+		public LocalDateTime getLastStart() {
+			return lastStart;
+		}
+
+		/** @return next triggered run, null if none is scheduled */
+		public LocalDateTime getNextRun() {
+			return nextRun;
+		}
+
+		public boolean isLastSuccess() {
+			return lastSuccess;
+		}
+	}
+
+	/** A registered calendar job. */
+	private static final class Registration {
+		final JobStats stats;
+		final CronSchedule schedule;
+		final long jitterMillis;
+		final boolean runAtStart;
+		final Job job;
+		final AtomicBoolean running = new AtomicBoolean();
+
+		Registration(String name, CronSchedule schedule, long jitterMillis, boolean runAtStart, Job job) {
+			this.stats = new JobStats(name, schedule.toString());
+			this.schedule = schedule;
+			this.jitterMillis = jitterMillis;
+			this.runAtStart = runAtStart;
+			this.job = job;
+		}
+	}
+
+	/** A task put on the wheel, with the job it is timed under. */
+	private static final class Dispatched implements Runnable {
+		final JobStats stats;
+		final Runnable task;
+		/** set when the pool first rejected the task; only the wheel's driver thread uses it */
+		boolean deferred;
+
+		Dispatched(JobStats stats, Runnable task) {
+			this.stats = stats;
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			task.run();
+		}
+	}
+
+	private static final int DEFAULT_THREADS = 4;
+	private static final int QUEUE_CAPACITY = 1024;
+
+	private final String name;
+	private final Map<String, Registration> jobs = new ConcurrentHashMap<>();
+	/** Stats of the one-shot tasks, by job name. */
+	private final Map<String, JobStats> deadlineStats = new ConcurrentHashMap<>();
+	private volatile ThreadPoolExecutor workers;
+	private volatile TimerWheel wheel;
+	private volatile boolean started;
+	private volatile Leadership leadership;
+	/** Tasks the worker pool rejected: timed runs deferred to a later tick, fire-and-forget work dropped. */
+	private final AtomicLong rejected = new AtomicLong();
+
+	/**
+	 * @param name prefix of the thread names
+	 */
+	public JobScheduler(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @param newLeadership decides which jobs run on this node, null to run all of them
+	 */
+	public void setLeadership(Leadership newLeadership) {
+		this.leadership = newLeadership;
+	}
+
+	/**
+	 * @param jobName registered job or one-shot task name
+	 * @return true if this node runs the job
+	 */
+	public boolean isLeader(String jobName) {
+		Leadership l = leadership;
+		return l == null || l.isLeader(jobName);
+	}
+
+	/**
+	 * @param jobName registered job
+	 * @return true while a run of the job is going on this node
+	 */
+	public boolean isRunning(String jobName) {
+		Registration r = jobs.get(jobName);
+		return r != null && r.running.get();
+	}
+
+	/**
+	 * called when this node becomes the leader of a job: a {@code runAtStart} job runs once to catch up
+	 * @param jobName job taken over
+	 */
+	public void leadershipAcquired(String jobName) {
+		Registration r = jobs.get(jobName);
+		if (r != null && r.runAtStart) runNow(jobName);
+	}
+
+	/**
+	 * registers a calendar job; it is scheduled when the scheduler starts (or now, if it is running)
+	 * @param jobName unique name, shown in the GUI
+	 * @param cron five-field cron expression
+	 * @param jitterMillis each run starts up to this much later than its trigger, so jobs due at the same minute
+	 *        do not all start at once
+	 * @param runAtStart also run once when the scheduler starts
+	 * @param job the job body
+	 * @throws IllegalArgumentException if the name is taken or the expression is malformed
+	 */
+	public void register(String jobName, String cron, long jitterMillis, boolean runAtStart, Job job) {
+		Registration r = new Registration(jobName, CronSchedule.parse(cron), Math.max(0, jitterMillis), runAtStart, job);
+		if (jobs.putIfAbsent(jobName, r) != null) throw new IllegalArgumentException("job already registered: " + jobName);
+		synchronized (this) {
+			if (started) scheduleNext(r);
+		}
+	}
+
+	/**
+	 * starts the wheel and the workers, schedules every registered job and runs the {@code runAtStart} ones this node
+	 * leads (jobs led later run through {@link #leadershipAcquired(String)})
+	 */
+	public synchronized void start() {
+		if (started) return;
+		AtomicInteger threadNumber = new AtomicInteger();
+		int threads = Math.max(1, Integer.getInteger("scheduler_Threads", DEFAULT_THREADS));
+		workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+					Thread t = new Thread(r, name + "-" + threadNumber.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}, new ThreadPoolExecutor.AbortPolicy());
+		// 1 second ticks, 64 slots, 4 levels: deadlines up to 194 days ahead
+		wheel = new TimerWheel(name + "Wheel", 1000, 6, 4, this::dispatch);
+		wheel.start();
+		started = true;
+		for (Registration r : jobs.values()) {
+			r.running.set(false);
+			scheduleNext(r);
+			if (r.runAtStart) runNow(r.stats.getName());
+		}
+	}
+
+	/**
+	 * stops the wheel (pending deadlines are dropped) and the workers; queued work gets a few seconds to finish
+	 */
+	public void stop() {
+		ThreadPoolExecutor pool;
+		synchronized (this) {
+			if (!started) return;
+			started = false;
+			wheel.stop();
+			pool = workers;
+			for (Registration r : jobs.values()) {
+				r.stats.nextRun = null;
+			}
+		}
+		pool.shutdown();
+		try {
+			if (!pool.awaitTermination(5, TimeUnit.SECONDS)) pool.shutdownNow();
+		} catch (InterruptedException e) {
+			pool.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * runs a registered job now on the pool, unless it is already running or another node leads it
+	 * @param jobName registered job
+	 * @return true if the run was started
+	 */
+	public boolean runNow(String jobName) {
+		Registration r = jobs.get(jobName);
+		if (r == null || !started || !isLeader(jobName)) return false;
+		if (!r.running.compareAndSet(false, true)) return false;
+		ThreadPoolExecutor pool = workers;
+		try {
+			pool.execute(() -> runRegistered(r, System.currentTimeMillis()));
+		} catch (RejectedExecutionException e) {
+			r.running.set(false);
+			rejected.incrementAndGet();
+			r.stats.rejected.incrementAndGet();
+			log.warn("worker pool full, run of job {} refused", jobName);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * schedules a one-shot task, timed under a job name (runs of the same name may overlap); when it fires, it runs
+	 * only if this node leads the job name
+	 * @param jobName name the run is recorded under
+	 * @param deadline when to run; a past deadline runs on the next tick
+	 * @param job the task
+	 * @return handle to cancel the task, null if the scheduler is stopped
+	 */
+	public TimerWheel.Timeout schedule(String jobName, LocalDateTime deadline, Job job) {
+		TimerWheel w = wheel;
+		if (!started || w == null) return null;
+		JobStats stats = deadlineStats.computeIfAbsent(jobName, n -> new JobStats(n, "deadline"));
+		long plannedMillis = toMillis(deadline);
+		return w.schedule(plannedMillis, new Dispatched(stats, () -> {
+			if (!isLeader(jobName)) {
+				stats.notLeader.incrementAndGet();
+				return;
+			}
+			timedRun(stats, job, plannedMillis);
+		}));
+	}
+
+	/**
+	 * runs fire-and-forget work on the pool (not timed); the work is dropped when the pool is full
+	 * @param task the work
+	 * @return false if the work was not queued (pool full or scheduler stopped)
+	 */
+	public boolean execute(Runnable task) {
+		ThreadPoolExecutor pool = workers;
+		if (pool == null || !started) return false;
+		try {
+			pool.execute(task);
+			return true;
+		} catch (RejectedExecutionException e) {
+			if (pool.isShutdown()) return false;
+			rejected.incrementAndGet();
+			log.warn("worker pool full, task dropped");
+			return false;
+		}
+	}
+
+	/**
+	 * @return tasks the worker pool rejected: timed runs deferred to a later tick, fire-and-forget work dropped
+	 */
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	/**
+	 * @return stats of the registered jobs, then of the one-shot tasks
+	 */
+	public List<JobStats> stats() {
+		List<JobStats> all = new ArrayList<>();
+		for (Registration r : jobs.values()) {
+			all.add(r.stats);
+		}
+		all.sort((a, b) -> a.getName().compareTo(b.getName()));
+		List<JobStats> deadlines = new ArrayList<>(deadlineStats.values());
+		deadlines.sort((a, b) -> a.getName().compareTo(b.getName()));
+		all.addAll(deadlines);
+		return all;
+	}
+
+	/** puts the next trigger of a job on the wheel; the caller holds the monitor */
+	private void scheduleNext(Registration r) {
+		LocalDateTime next = r.schedule.next(LocalDateTime.now());
+		if (next == null) {
+			r.stats.nextRun = null;
+			log.warn("job {}: cron '{}' never matches, not scheduled", r.stats.getName(), r.schedule);
+			return;
+		}
+		long plannedMillis = toMillis(next) + (r.jitterMillis == 0 ? 0 : ThreadLocalRandom.current().nextLong(r.jitterMillis));
+		r.stats.nextRun = LocalDateTime.ofInstant(Instant.ofEpochMilli(plannedMillis), ZoneId.systemDefault());
+		wheel.schedule(plannedMillis, new Dispatched(r.stats, () -> fire(r, plannedMillis)));
+	}
+
+	/**
+	 * executor of the wheel (which only holds {@link Dispatched} tasks): hands an expired task to the pool. When the
+	 * pool is full the rejection is passed on, so the wheel keeps the task for the next tick; the first rejection of
+	 * a task is counted and logged.
+	 */
+	private void dispatch(Runnable task) {
+		ThreadPoolExecutor pool = workers;
+		try {
+			pool.execute(task);
+		} catch (RejectedExecutionException e) {
+			if (pool.isShutdown()) return; // stopping: pending deadlines are dropped anyway
+			Dispatched d = (Dispatched) task;
+			if (!d.deferred) {
+				d.deferred = true;
+				rejected.incrementAndGet();
+				d.stats.rejected.incrementAndGet();
+				log.warn("worker pool full, run of job {} deferred to the next tick", d.stats.getName());
+			}
+			throw e;
+		}
+	}
+
+	/** trigger of a registered job: schedules the following trigger, then runs the job unless it is still running */
+	private void fire(Registration r, long plannedMillis) {
+		synchronized (this) {
+			if (!started) return;
+			scheduleNext(r);
+		}
+		if (!isLeader(r.stats.getName())) {
+			r.stats.notLeader.incrementAndGet();
+			return;
+		}
+		if (!r.running.compareAndSet(false, true)) {
+			r.stats.skipped.incrementAndGet();
+			return;
+		}
+		runRegistered(r, plannedMillis);
+	}
+
+	private void runRegistered(Registration r, long plannedMillis) {
+		try {
+			timedRun(r.stats, r.job, plannedMillis);
+		} finally {
+			r.running.set(false);
+		}
+	}
+
+	private static void timedRun(JobStats stats, Job job, long plannedMillis) {
+		long startMillis = System.currentTimeMillis();
+		long t0 = System.nanoTime();
+		ServerEvents.SchedulerTick tick = new ServerEvents.SchedulerTick();
+		tick.begin();
+		stats.lag.recordNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(0, startMillis - plannedMillis)));
+		stats.lastStart = LocalDateTime.ofInstant(Instant.ofEpochMilli(startMillis), ZoneId.systemDefault());
+		int rows = 0;
+		boolean success = false;
+		try {
+			rows = job.run();
+			success = true;
+		} catch (Exception e) {
+			stats.failures.incrementAndGet();
+			log.atWarn().setCause(e).log("job {} failed", stats.getName());
+		} finally {
+			stats.duration.recordNanos(System.nanoTime() - t0);
+			stats.lastRows.set(rows);
+			stats.lastSuccess = success;
+			tick.end();
+			if (tick.shouldCommit()) {
+				tick.job = stats.getName();
+				tick.rowsProcessed = rows;
+				tick.success = success;
+				tick.commit();
+			}
+		}
+	}
+
+	static long toMillis(LocalDateTime t) {
+		return t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+}
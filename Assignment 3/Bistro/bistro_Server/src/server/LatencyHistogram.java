@@ -0,0 +1,95 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets (the HdrHistogram layout, without the dependency).
+ *
+ * <p>Main idea: values are recorded in microseconds into buckets that are exact below 64&micro;s and
+ * then split every power of two into 32 sub-buckets, so any recorded value is known to within ~3%.
+ * Recording is a single atomic increment, cheap enough for every request on the OCSF client threads.</p>
+ *
+ * <p>Range: 0 &micro;s to ~38 hours; larger values are clamped into the last bucket.</p>
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int MAX_MAGNITUDE = 37;
+	private static final long MAX_VALUE = (1L << MAX_MAGNITUDE) - 1;
+	private static final int BUCKETS = (MAX_MAGNITUDE - SUB_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalMicros = new AtomicLong();
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	/**
+	 * records one value
+	 * @param nanos elapsed time in nanoseconds (negative values are recorded as 0)
+	 */
+	public void recordNanos(long nanos) {
+		long micros = Math.min(MAX_VALUE, Math.max(0, nanos / 1_000));
+		counts.incrementAndGet(bucketOf(micros));
+		count.incrementAndGet();
+		totalMicros.addAndGet(micros);
+		maxMicros.accumulateAndGet(micros, Math::max);
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public double getMeanMillis() {
+		long n = count.get();
+		return n == 0 ? 0.0 : totalMicros.get() / (double) n / 1_000.0;
+	}
+
+	public double getMaxMillis() {
+		return maxMicros.get() / 1_000.0;
+	}
+
+	/**
+	 * @param percentile 0-100
+	 * @return upper bound of the bucket holding the requested rank, in milliseconds (0 when empty)
+	 */
+	public double getPercentileMillis(double percentile) {
+		long n = count.get();
+		if (n == 0) return 0.0;
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBoundOf(i), maxMicros.get()) / 1_000.0;
+			}
+		}
+		return getMaxMillis();
+	}
+
+	/**
+	 * clears all recorded values (concurrent recordings may survive partially)
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.set(0);
+		totalMicros.set(0);
+		maxMicros.set(0);
+	}
+
+	private static int bucketOf(long micros) {
+		if (micros < 2 * SUB_BUCKETS) return (int) micros;
+		int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) (micros >> shift) - SUB_BUCKETS;
+	}
+
+	private static long upperBoundOf(int bucket) {
+		if (bucket < 2 * SUB_BUCKETS) return bucket;
+		int shift = bucket / SUB_BUCKETS - 1;
+		long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+		return ((sub + 1) << shift) - 1;
+	}
+}
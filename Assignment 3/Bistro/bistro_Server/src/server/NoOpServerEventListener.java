@@ -0,0 +1,23 @@
+package server;
+
+/**
+ * {@link ServerEventListener} for headless runs: there is no screen to update, so all events are ignored
+ * (connects/logins are still logged by {@link BistroEchoServer}).
+ */
+public class NoOpServerEventListener implements ServerEventListener {
+
+	@Override
+	public void onServerReady() {}
+
+	@Override
+	public void onClientConnected(String ip) {}
+
+	@Override
+	public void onClientLogin(String userID, String username, String role, String ip) {}
+
+	@Override
+	public void onClientLogout(String ip) {}
+
+	@Override
+	public void onClientDisconnected(String ip) {}
+}
@@ -0,0 +1,229 @@
+package server;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import requests.BillRequest;
+import requests.LoginRequest;
+import requests.ManagerRequest;
+import requests.Request;
+import requests.ReservationRequest;
+import requests.SeatingRequest;
+
+/**
+ * Per-command latency histograms and counters for {@link BistroEchoServer#handleMessageFromClient}.
+ *
+ * <p>Main idea: every request is timed in four phases and recorded under a label built from the command and
+ * its sub-type (e.g. {@code MANAGER_REQUEST/VIEW_ALL_TABLES}):
+ * <ul>
+ *   <li>DECODE - Kryo deserialization of the incoming bytes</li>
+ *   <li>CONTROLLER - controller/dispatch time, excluding database time</li>
+ *   <li>DB - pool borrow, statements and commits (measured by {@link database.JdbcTiming})</li>
+ *   <li>ENCODE - Kryo serialization of the response</li>
+ * </ul>
+ * TOTAL covers the whole handler including the socket write.</p>
+ *
+ * <p>The data is exposed through JMX ({@link RequestMetricsMBean}) and polled by the server GUI.</p>
+ */
+public class RequestMetrics implements RequestMetricsMBean {
+
+	private static final Logger log = LoggerFactory.getLogger(RequestMetrics.class);
+
+	public enum Phase { TOTAL, DECODE, CONTROLLER, DB, ENCODE }
+
+	public static final String OBJECT_NAME = "bistro:type=RequestMetrics";
+
+	/** Histograms and counters of one label. */
+	public static class CommandStats {
+		private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+		private final LongAdder failed = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+
+		CommandStats() {
+			for (int i = 0; i < phases.length; i++) {
+				phases[i] = new LatencyHistogram();
+			}
+		}
+
+		public LatencyHistogram get(Phase phase) {
+			return phases[phase.ordinal()];
+		}
+
+		public long getCount() {
+			return get(Phase.TOTAL).getCount();
+		}
+
+		/** @return requests answered with an unsuccessful response (excludes {@link #getErrors()}) */
+		public long getFailed() {
+			return failed.sum();
+		}
+
+		/** @return requests that threw while handling or sending */
+		public long getErrors() {
+			return errors.sum();
+		}
+
+		void reset() {
+			for (LatencyHistogram h : phases) {
+				h.reset();
+			}
+			failed.reset();
+			errors.reset();
+		}
+	}
+
+	private final Map<String, CommandStats> stats = new ConcurrentHashMap<>();
+	private ObjectName registeredName;
+
+	/**
+	 * records one handled request
+	 * @param label label from {@link #labelOf(Object)}
+	 * @param decodeNanos
+	 * @param controllerNanos controller time including DB time (DB is subtracted here)
+	 * @param dbNanos
+	 * @param encodeNanos
+	 * @param totalNanos
+	 * @param success {@code Response.isSuccess()}
+	 * @param error true when an exception was thrown while handling or sending
+	 */
+	public void record(String label, long decodeNanos, long controllerNanos, long dbNanos, long encodeNanos,
+			long totalNanos, boolean success, boolean error) {
+		CommandStats s = stats.computeIfAbsent(label, k -> new CommandStats());
+		s.get(Phase.DECODE).recordNanos(decodeNanos);
+		s.get(Phase.CONTROLLER).recordNanos(controllerNanos - dbNanos);
+		s.get(Phase.DB).recordNanos(dbNanos);
+		s.get(Phase.ENCODE).recordNanos(encodeNanos);
+		s.get(Phase.TOTAL).recordNanos(totalNanos);
+		// a request is counted once: a thrown exception is an error, not also a failed response
+		if (error) s.errors.increment();
+		else if (!success) s.failed.increment();
+	}
+
+	/**
+	 * @param decoded decoded message
+	 * @return {@code COMMAND} or {@code COMMAND/SUBTYPE}, {@code INVALID} for non-requests
+	 */
+	public static String labelOf(Object decoded) {
+		if (!(decoded instanceof Request<?> request) || request.getCommand() == null) return "INVALID";
+		String command = request.getCommand().name();
+		Object data = request.getData();
+		Object subType = null;
+		if (data instanceof ReservationRequest r) subType = r.getType();
+		else if (data instanceof ManagerRequest m) subType = m.getManagerCommand();
+		else if (data instanceof BillRequest b) subType = b.getType();
+		else if (data instanceof SeatingRequest s) subType = s.getType();
+		else if (data instanceof LoginRequest l) subType = l.getUserCommand();
+		return subType == null ? command : command + "/" + subType;
+	}
+
+	/**
+	 * @return label -> stats, sorted by label
+	 */
+	public Map<String, CommandStats> snapshot() {
+		return new TreeMap<>(stats);
+	}
+
+	/**
+	 * registers this instance in the platform MBean server (no-op if already registered)
+	 */
+	public void registerMBean() {
+		try {
+			MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!mbs.isRegistered(name)) {
+				mbs.registerMBean(this, name);
+				registeredName = name;
+			}
+		} catch (Exception e) {
+			log.warn("Failed to register request metrics MBean", e);
+		}
+	}
+
+	/**
+	 * removes this instance from the platform MBean server
+	 */
+	public void unregisterMBean() {
+		if (registeredName == null) return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+		} catch (Exception e) {
+			log.warn("Failed to unregister request metrics MBean", e);
+		}
+		registeredName = null;
+	}
+
+	// ---------- RequestMetricsMBean ----------
+
+	@Override
+	public String[] getLabels() {
+		return snapshot().keySet().toArray(new String[0]);
+	}
+
+	@Override
+	public String[] getSummary() {
+		List<String> lines = new ArrayList<>();
+		for (Map.Entry<String, CommandStats> e : snapshot().entrySet()) {
+			CommandStats s = e.getValue();
+			LatencyHistogram total = s.get(Phase.TOTAL);
+			lines.add(String.format("%s count=%d failed=%d errors=%d p50=%.2fms p99=%.2fms max=%.2fms db.p50=%.2fms",
+					e.getKey(), s.getCount(), s.getFailed(), s.getErrors(),
+					total.getPercentileMillis(50), total.getPercentileMillis(99), total.getMaxMillis(),
+					s.get(Phase.DB).getPercentileMillis(50)));
+		}
+		return lines.toArray(new String[0]);
+	}
+
+	@Override
+	public long getTotalRequests() {
+		long sum = 0;
+		for (CommandStats s : stats.values()) sum += s.getCount();
+		return sum;
+	}
+
+	@Override
+	public long getTotalErrors() {
+		long sum = 0;
+		for (CommandStats s : stats.values()) sum += s.getErrors();
+		return sum;
+	}
+
+	@Override
+	public long getCount(String label) {
+		CommandStats s = stats.get(label);
+		return s == null ? 0 : s.getCount();
+	}
+
+	@Override
+	public long getFailed(String label) {
+		CommandStats s = stats.get(label);
+		return s == null ? 0 : s.getFailed();
+	}
+
+	@Override
+	public long getErrors(String label) {
+		CommandStats s = stats.get(label);
+		return s == null ? 0 : s.getErrors();
+	}
+
+	@Override
+	public double getPercentileMillis(String label, String phase, double percentile) {
+		CommandStats s = stats.get(label);
+		return s == null ? 0.0 : s.get(Phase.valueOf(phase.toUpperCase())).getPercentileMillis(percentile);
+	}
+
+	@Override
+	public void reset() {
+		for (CommandStats s : stats.values()) s.reset();
+	}
+}
@@ -0,0 +1,38 @@
+package server;
+
+/**
+ * JMX view of {@link RequestMetrics} (registered as {@code bistro:type=RequestMetrics}).
+ *
+ * <p>Labels are {@code COMMAND} or {@code COMMAND/SUBTYPE}, e.g. {@code RESERVATION_REQUEST/FIRST_PHASE}.</p>
+ */
+public interface RequestMetricsMBean {
+
+	/** @return all labels seen so far */
+	String[] getLabels();
+
+	/** @return one formatted line per label (count, failures, errors, p50/p99/max of the total time) */
+	String[] getSummary();
+
+	long getTotalRequests();
+
+	long getTotalErrors();
+
+	long getCount(String label);
+
+	/** @return responses with {@code isSuccess() == false} */
+	long getFailed(String label);
+
+	/** @return exceptions thrown while handling or sending */
+	long getErrors(String label);
+
+	/**
+	 * @param label request label
+	 * @param phase TOTAL, DECODE, CONTROLLER, DB or ENCODE
+	 * @param percentile 0-100
+	 * @return latency in milliseconds
+	 */
+	double getPercentileMillis(String label, String phase, double percentile);
+
+	/** clears all histograms and counters */
+	void reset();
+}
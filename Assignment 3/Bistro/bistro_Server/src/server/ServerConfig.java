@@ -0,0 +1,89 @@
+package server;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Start-up settings of the headless server ({@link HeadlessServerMain}).
+ *
+ * <p>Sources, later ones win:
+ * <ol>
+ *   <li>{@code server.properties} (external file in the working directory, else on the classpath)</li>
+ *   <li>system properties</li>
+ *   <li>command-line flags</li>
+ * </ol>
+ *
+ * <p>Keys: {@code server_Port} (5555), {@code server_Dispatch} ({@code serial} or {@code pooled}),
+ * {@code server_Workers} (2 x CPUs). {@code db_*} and {@code embedded_*} keys are passed to {@link database.DBManager}
+ * as system properties (e.g. {@code db_PoolSize}, {@code db_MinIdle}, {@code db_Profile}), and so are the
+ * {@code server_Warmup*} keys of {@link ServerWarmup} and the {@code seating_*} keys (e.g. {@code seating_Allocation},
+ * {@code seating_LookAheadMinutes}, see {@link allocation.AllocationPolicy}).</p>
+ *
+ * <p>Flags: {@code --port=N}, {@code --dispatch=serial|pooled}, {@code --workers=N}, {@code --pool-size=N},
+ * {@code --min-idle=N}, {@code --allocation=smallest|bestfit|lookahead}, or any key as {@code --key=value}.</p>
+ */
+public class ServerConfig {
+
+	private static final Map<String, String> FLAG_KEYS = Map.of(
+			"port", "server_Port",
+			"dispatch", "server_Dispatch",
+			"workers", "server_Workers",
+			"pool-size", "db_PoolSize",
+			"min-idle", "db_MinIdle",
+			"profile", "db_Profile",
+			"warmup", "server_Warmup",
+			"allocation", "seating_Allocation");
+
+	private final Properties props = new Properties();
+
+	/**
+	 * @param args command-line flags
+	 */
+	public ServerConfig(String[] args) {
+		load();
+		props.putAll(System.getProperties());
+		for (String arg : args) {
+			String flag = arg.startsWith("--") ? arg.substring(2) : arg;
+			int eq = flag.indexOf('=');
+			if (eq <= 0) throw new IllegalArgumentException("Expected --key=value, got: " + arg);
+			String key = flag.substring(0, eq);
+			props.setProperty(FLAG_KEYS.getOrDefault(key, key), flag.substring(eq + 1).trim());
+		}
+		//DBManager, ServerWarmup and the allocation policy read their settings from system properties
+		for (String key : props.stringPropertyNames()) {
+			if (key.startsWith("db_") || key.startsWith("embedded_") || key.startsWith("server_Warmup") || key.startsWith("seating_")) {
+				System.setProperty(key, props.getProperty(key));
+			}
+		}
+	}
+
+	public int getPort() {
+		return Integer.parseInt(props.getProperty("server_Port", "5555"));
+	}
+
+	public BistroEchoServer.DispatchMode getDispatchMode() {
+		return BistroEchoServer.DispatchMode.valueOf(props.getProperty("server_Dispatch", "serial").toUpperCase(Locale.ROOT));
+	}
+
+	public int getWorkers() {
+		return Integer.parseInt(props.getProperty("server_Workers",
+				Integer.toString(2 * Runtime.getRuntime().availableProcessors())));
+	}
+
+	private void load() {
+		try (InputStream external = new FileInputStream("server.properties")) {
+			props.load(external);
+			return;
+		} catch (Exception e) {
+			// fall back to the classpath
+		}
+		try (InputStream internal = ServerConfig.class.getClassLoader().getResourceAsStream("server.properties")) {
+			if (internal != null) props.load(internal);
+		} catch (Exception e) {
+			throw new RuntimeException("Failed to read server.properties", e);
+		}
+	}
+}
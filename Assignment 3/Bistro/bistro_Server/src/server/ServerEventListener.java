@@ -0,0 +1,42 @@
+package server;
+
+/**
+ * Receives client status changes from {@link BistroEchoServer}.
+ *
+ * <p>Implemented by the JavaFX server screen ({@code serverGUI.ServerMainScreenControl}) and by
+ * {@link NoOpServerEventListener} for headless runs. Methods are called from OCSF/worker threads.</p>
+ */
+public interface ServerEventListener {
+
+	/**
+	 * the server finished its warm-up and accepts clients
+	 */
+	void onServerReady();
+
+	/**
+	 * a client connected (by IP only)
+	 * @param ip client IP address
+	 */
+	void onClientConnected(String ip);
+
+	/**
+	 * a client logged in
+	 * @param userID user identifier
+	 * @param username username
+	 * @param role user role (e.g., SUBSCRIBER/MANAGER)
+	 * @param ip client IP address
+	 */
+	void onClientLogin(String userID, String username, String role, String ip);
+
+	/**
+	 * a client logged out but is still connected
+	 * @param ip client IP address
+	 */
+	void onClientLogout(String ip);
+
+	/**
+	 * a client disconnected
+	 * @param ip client IP address
+	 */
+	void onClientDisconnected(String ip);
+}
@@ -0,0 +1,115 @@
+package server;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event types of the Bistro server.
+ *
+ * <p>Main idea: recordings taken with {@code -XX:StartFlightRecording} (or {@code jcmd <pid> JFR.start})
+ * show the request lifecycle and the scheduler ticks next to GC, lock and I/O events, so tail-latency
+ * spikes can be correlated with scheduler activity. Events are cheap when JFR is off: they are only
+ * populated after {@code shouldCommit()}.</p>
+ *
+ * <p>The database connection borrow event lives in {@link database.ConnectionBorrowEvent}.</p>
+ */
+public final class ServerEvents {
+
+	private ServerEvents() {}
+
+	/** A message arrived from a client and was decoded. */
+	@Name("bistro.RequestReceived")
+	@Label("Request Received")
+	@Category({ "Bistro", "Requests" })
+	@StackTrace(false)
+	public static class RequestReceived extends Event {
+		@Label("Command")
+		public String command;
+
+		@Label("Role")
+		public String role;
+
+		@Label("Bytes In")
+		@DataAmount
+		public long bytesIn;
+	}
+
+	/** Controller work for one request (from dispatch to the controller returning). */
+	@Name("bistro.RequestDispatched")
+	@Label("Request Dispatched")
+	@Category({ "Bistro", "Requests" })
+	@StackTrace(false)
+	public static class RequestDispatched extends Event {
+		@Label("Command")
+		public String command;
+
+		@Label("Role")
+		public String role;
+
+		@Label("Success")
+		public boolean success;
+	}
+
+	/** Whole request, from arrival until the response was written. */
+	@Name("bistro.RequestCompleted")
+	@Label("Request Completed")
+	@Category({ "Bistro", "Requests" })
+	@StackTrace(false)
+	public static class RequestCompleted extends Event {
+		@Label("Command")
+		public String command;
+
+		@Label("Role")
+		public String role;
+
+		@Label("Bytes In")
+		@DataAmount
+		public long bytesIn;
+
+		@Label("Bytes Out")
+		@DataAmount
+		public long bytesOut;
+
+		@Label("Success")
+		public boolean success;
+	}
+
+	/** One Kryo serialization or deserialization. */
+	@Name("bistro.KryoCodec")
+	@Label("Kryo Encode/Decode")
+	@Category({ "Bistro", "Serialization" })
+	@StackTrace(false)
+	public static class KryoCodec extends Event {
+		@Label("Operation")
+		@Description("encode or decode")
+		public String operation;
+
+		@Label("Type")
+		public String type;
+
+		@Label("Bytes")
+		@DataAmount
+		public long bytes;
+	}
+
+	/** One run of a {@link JobScheduler} job. */
+	@Name("bistro.SchedulerTick")
+	@Label("Scheduler Tick")
+	@Category({ "Bistro", "Scheduler" })
+	@StackTrace(false)
+	public static class SchedulerTick extends Event {
+		@Label("Job")
+		public String job;
+
+		@Label("Rows Processed")
+		public long rowsProcessed;
+
+		@Label("Success")
+		public boolean success;
+	}
+}
@@ -0,0 +1,188 @@
+package server;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import allocation.AllocationPolicy;
+import controllers.ReservationControl;
+import controllers.SeatingControl;
+import database.DBManager;
+import database.JdbcTiming;
+import database.OpeningHoursCache;
+import database.OpeningHoursDAO;
+import database.ReservationDAO;
+import database.SeatingDAO;
+import database.SqlStatistics;
+import database.TableDAO;
+import database.WaitingListDAO;
+import kryo.KryoUtil;
+import requests.*;
+import responses.*;
+
+/**
+ * Warm-up phase run by {@link BistroEchoServer#serverStarted()} before the first client is accepted.
+ *
+ * <p>Main idea: on a cold start the first check-ins pay for pool connections, class loading, Kryo serializer
+ * construction and interpreted code. Those costs are paid here instead, one timed step at a time:
+ * <ol>
+ *   <li>{@code pool} - open {@code db_MinIdle} connections ({@link DBManager#fillPool()})</li>
+ *   <li>{@code kryo} - build the serializers of every request/response class and round-trip sample messages</li>
+ *   <li>{@code caches} - load the 30-day {@link OpeningHoursCache}</li>
+ *   <li>{@code availability} - synthetic {@link ReservationControl#getAvailableTimes} searches</li>
+ *   <li>{@code checkin} - synthetic check-ins for an unknown confirmation code, and the seating lookups
+ *       of the check-in path inside a rolled-back transaction</li>
+ * </ol>
+ * Nothing is written to the database. A failing step is logged and skipped; the server still becomes ready.</p>
+ *
+ * <p>{@code server_Warmup=false} (system property) skips the phase, {@code server_WarmupIterations} (default 20)
+ * sets how many times the synthetic calls are repeated. Statement statistics are reset afterwards so the
+ * synthetic calls do not show up in {@link SqlStatistics}.</p>
+ */
+class ServerWarmup {
+
+	private static final Logger log = LoggerFactory.getLogger(ServerWarmup.class);
+
+	/** Unused confirmation code: check-in stops at "Reservation not found". */
+	private static final int UNKNOWN_CODE = -1;
+
+	private final ReservationControl reservationControl;
+	private final SeatingControl seatingControl;
+	private final int iterations;
+
+	/**
+	 * @param reservationControl controller of the availability search
+	 * @param seatingControl controller of the check-in flow
+	 */
+	ServerWarmup(ReservationControl reservationControl, SeatingControl seatingControl) {
+		this.reservationControl = reservationControl;
+		this.seatingControl = seatingControl;
+		this.iterations = Math.max(1, Integer.getInteger("server_WarmupIterations", 20));
+	}
+
+	/**
+	 * runs all steps (unless disabled)
+	 * @return total warm-up time in milliseconds
+	 */
+	long run() {
+		if (!Boolean.parseBoolean(System.getProperty("server_Warmup", "true"))) {
+			log.info("warm-up disabled");
+			return 0;
+		}
+		long start = System.nanoTime();
+		step("pool", () -> DBManager.fillPool());
+		step("kryo", this::kryo);
+		step("caches", this::caches);
+		step("availability", this::availability);
+		step("checkin", this::checkIn);
+
+		SqlStatistics.reset();
+		JdbcTiming.takeNanos();
+		return (System.nanoTime() - start) / 1_000_000;
+	}
+
+	private int kryo() {
+		KryoUtil.warmUp(Request.class, BillRequest.class, GuestRequest.class, LoginRequest.class, ManagerRequest.class,
+				ReportRequest.class, ReservationRequest.class, SeatingRequest.class, TableInfo.class, WaitingListRequest.class,
+				Response.class, BillResponse.class, CurrentOpeningHoursResponse.class, CurrentSeatingResponse.class,
+				LoginResponse.class, ManagerResponse.class, ReportResponse.class, ReservationResponse.class,
+				SeatingResponse.class, UserHistoryResponse.class, WaitingListResponse.class);
+
+		int messages = 0;
+		for (int i = 0; i < iterations; i++) {
+			for (Request.Command command : Request.Command.values()) {
+				KryoUtil.deserialize(KryoUtil.serialize(new Request<>(command, null)));
+				messages++;
+			}
+			SeatingResponse seated = new SeatingResponse(1, 2, LocalTime.now(), SeatingResponse.SeatingResponseType.CUSTOMER_CHECKED_IN);
+			KryoUtil.deserialize(KryoUtil.serialize(new Response<>(true, "warm-up", seated)));
+			messages++;
+		}
+		return messages;
+	}
+
+	private int caches() throws Exception {
+		try (Connection conn = DBManager.getConnection()) {
+			OpeningHoursCache.reload(conn, new OpeningHoursDAO());
+		}
+		return 1;
+	}
+
+	private int availability() throws Exception {
+		int calls = 0;
+		try (Connection conn = DBManager.getConnection()) {
+			LocalDate tomorrow = LocalDate.now().plusDays(1);
+			for (int i = 0; i < iterations; i++) {
+				reservationControl.getAvailableTimes(conn, tomorrow, 2 + i % 4);
+				calls++;
+			}
+		}
+		return calls;
+	}
+
+	private int checkIn() throws Exception {
+		ReservationDAO reservationDAO = new ReservationDAO();
+		SeatingDAO seatingDAO = new SeatingDAO();
+		TableDAO tableDAO = new TableDAO();
+		WaitingListDAO waitingListDAO = new WaitingListDAO();
+		AllocationPolicy allocationPolicy = AllocationPolicy.configured();
+
+		int calls = 0;
+		for (int i = 0; i < iterations; i++) {
+			seatingControl.checkInRouterByConfirmationCode(UNKNOWN_CODE);
+			calls++;
+		}
+		try (Connection conn = DBManager.getConnection()) {
+			conn.setAutoCommit(false);
+			try {
+				for (int i = 0; i < iterations; i++) {
+					reservationDAO.getReservationByConfirmationCode(conn, UNKNOWN_CODE);
+					seatingDAO.getSeatingIdByReservationId(conn, UNKNOWN_CODE);
+					LocalDateTime now = LocalDateTime.now();
+					List<Integer> upcoming = reservationDAO.getUpcomingPartySizes(conn, now, now.plusMinutes(30));
+					// the rollback below releases the claimed tables
+					tableDAO.findAvailableTables(conn, allocationPolicy, 2 + i % 4, upcoming);
+					waitingListDAO.getNextWaitingThatFits(conn, 2);
+					calls++;
+				}
+			} finally {
+				conn.rollback();
+				conn.setAutoCommit(true);
+			}
+		}
+		return calls;
+	}
+
+	/**
+	 * runs one step, logging its duration (failures are logged and do not stop the warm-up)
+	 * @param name step name
+	 * @param body returns how many operations it performed
+	 */
+	private void step(String name, Step body) {
+		long start = System.nanoTime();
+		try {
+			int ops = body.run();
+			log.atInfo()
+					.addKeyValue("step", name)
+					.addKeyValue("ops", ops)
+					.addKeyValue("ms", (System.nanoTime() - start) / 1_000_000)
+					.log("warm-up step done");
+		} catch (Exception e) {
+			log.atWarn()
+					.addKeyValue("step", name)
+					.addKeyValue("ms", (System.nanoTime() - start) / 1_000_000)
+					.setCause(e)
+					.log("warm-up step failed");
+		}
+	}
+
+	@FunctionalInterface
+	private interface Step {
+		int run() throws Exception;
+	}
+}
@@ -0,0 +1,91 @@
+package server;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs how long the server took to start and how much memory the process holds once it is ready,
+ * so the GUI and headless modes can be compared.
+ *
+ * <p>Startup time is the JVM uptime when the server reports readiness (includes class loading, JavaFX start-up
+ * in GUI mode, DB pool, migrations and the {@link ServerWarmup} phase). Resident memory is read from {@code /proc/self/status} where available;
+ * heap and non-heap usage are always reported.</p>
+ *
+ * <p>The time to the first response sent is logged once as well. With {@code -Dbistro.startupProbe=true} the
+ * server exits right after it, which the class-data-sharing training run and the client's
+ * {@code StartupBenchmark} rely on (see README).</p>
+ */
+public final class StartupStats {
+
+	private static final Logger log = LoggerFactory.getLogger(StartupStats.class);
+
+	private static final AtomicBoolean firstResponseSent = new AtomicBoolean();
+
+	private StartupStats() {}
+
+	/**
+	 * @param mode "gui" or "headless"
+	 */
+	public static void report(String mode) {
+		long uptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+		log.atInfo()
+				.addKeyValue("mode", mode)
+				.addKeyValue("startupMs", uptimeMs)
+				.addKeyValue("rssKb", residentKb())
+				.addKeyValue("heapUsedKb", heap.getUsed() / 1024)
+				.addKeyValue("nonHeapUsedKb", nonHeap.getUsed() / 1024)
+				.addKeyValue("threads", Thread.activeCount())
+				.addKeyValue("classSharing", classSharing())
+				.log("server ready");
+	}
+
+	/**
+	 * called after every response; logs the JVM uptime at the first one
+	 * (and exits in startup-probe mode)
+	 */
+	static void responseSent() {
+		if (firstResponseSent.get() || !firstResponseSent.compareAndSet(false, true)) return;
+		log.atInfo()
+				.addKeyValue("uptimeMs", ManagementFactory.getRuntimeMXBean().getUptime())
+				.addKeyValue("classSharing", classSharing())
+				.log("first response sent");
+		if (Boolean.getBoolean("bistro.startupProbe")) {
+			// not on the calling thread: it may hold the OCSF server lock that close() in the shutdown hook needs
+			new Thread(() -> System.exit(0), "startup-probe-exit").start();
+		}
+	}
+
+	/**
+	 * @return the application class-data-sharing archive given on the command line, or "default"
+	 */
+	private static String classSharing() {
+		for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+			if (arg.startsWith("-XX:SharedArchiveFile=")) return arg.substring("-XX:SharedArchiveFile=".length());
+			if (arg.startsWith("-Xshare:off")) return "off";
+		}
+		return "default";
+	}
+
+	/**
+	 * @return VmRSS of this process in KB, or -1 when /proc is not available
+	 */
+	private static long residentKb() {
+		try {
+			for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+				if (line.startsWith("VmRSS:")) {
+					return Long.parseLong(line.replaceAll("[^0-9]", ""));
+				}
+			}
+		} catch (Exception ignore) {
+		}
+		return -1;
+	}
+}
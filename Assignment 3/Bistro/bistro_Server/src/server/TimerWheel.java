@@ -0,0 +1,243 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Hierarchical timing wheel: runs one-shot tasks at wall-clock deadlines, with O(1) schedule and cancel.
+ *
+ * <p>Main idea: time is cut into ticks of {@code tickMillis}. Every level has {@code 2^bits} slots; a level-0 slot
+ * spans one tick, a level-1 slot the whole level-0 wheel, and so on. A timeout goes into the lowest level whose span
+ * covers its distance from now, in the slot of its deadline tick:
+ * <ul>
+ *   <li>Every tick, the driver thread takes the level-0 slot of the tick and hands its timeouts to the executor</li>
+ *   <li>When a level wraps around, the next slot of the level above is cascaded: its timeouts are placed again,
+ *       which puts them one or more levels lower</li>
+ *   <li>Deadlines beyond the top level wait in an overflow list that is placed again whenever the top level moves</li>
+ *   <li>Deadlines already past run on the next tick; ticks missed because the thread ran late are caught up</li>
+ * </ul>
+ * With a 1-second tick, 64 slots and 4 levels, the wheel covers 194 days and moves each timeout at most 3 times.
+ *
+ * <p>Tasks run on the given executor, never on the driver thread, so a slow task does not delay other deadlines. A task
+ * the executor rejects (e.g. a full queue) is not lost: its timeout stays pending and is handed over again on the next
+ * tick, until the executor takes it or the timeout is cancelled.</p>
+ */
+public final class TimerWheel {
+
+	/** Handle of a scheduled task. */
+	public static final class Timeout {
+		private static final int PENDING = 0, CANCELLED = 1, EXPIRED = 2;
+
+		private final long deadlineMillis;
+		private final long tick;
+		private final Runnable task;
+		private final AtomicInteger state = new AtomicInteger(PENDING);
+
+		private Timeout(long deadlineMillis, long tick, Runnable task) {
+			this.deadlineMillis = deadlineMillis;
+			this.tick = tick;
+			this.task = task;
+		}
+
+		public long getDeadlineMillis() {
+			return deadlineMillis;
+		}
+
+		/**
+		 * @return true if the task will not run because of this call
+		 */
+		public boolean cancel() {
+			return state.compareAndSet(PENDING, CANCELLED);
+		}
+
+		/** @return true once the task was handed to the executor or cancelled */
+		public boolean isDone() {
+			return state.get() != PENDING;
+		}
+	}
+
+	private final long tickMillis;
+	private final int bits;
+	private final int mask;
+	private final List<Timeout>[][] wheels;
+	private final List<Timeout> overflow = new ArrayList<>();
+	private final Executor executor;
+	private final LongSupplier clock;
+	private final long origin;
+	/** Last tick processed, relative to {@link #origin}. */
+	private long currentTick;
+	private Thread driver;
+	private volatile boolean running;
+
+	/**
+	 * @param name name of the driver thread
+	 * @param tickMillis resolution in milliseconds
+	 * @param bits log2 of the slots per level
+	 * @param levels number of levels
+	 * @param executor runs the expired tasks
+	 */
+	public TimerWheel(String name, long tickMillis, int bits, int levels, Executor executor) {
+		this(name, tickMillis, bits, levels, executor, System::currentTimeMillis);
+	}
+
+	TimerWheel(String name, long tickMillis, int bits, int levels, Executor executor, LongSupplier clock) {
+		if (tickMillis <= 0 || bits < 1 || levels < 1 || (long) bits * levels > 62) throw new IllegalArgumentException("bad wheel size");
+		this.tickMillis = tickMillis;
+		this.bits = bits;
+		this.mask = (1 << bits) - 1;
+		this.wheels = newWheels(levels, 1 << bits);
+		this.executor = executor;
+		this.clock = clock;
+		this.origin = clock.getAsLong();
+		this.driver = new Thread(this::drive, name);
+		this.driver.setDaemon(true);
+	}
+
+	/**
+	 * starts the driver thread
+	 */
+	public synchronized void start() {
+		if (running || driver == null) return;
+		running = true;
+		driver.start();
+	}
+
+	/**
+	 * stops the driver thread; pending timeouts are dropped
+	 */
+	public void stop() {
+		Thread t;
+		synchronized (this) {
+			running = false;
+			t = driver;
+			driver = null;
+		}
+		if (t != null) t.interrupt();
+	}
+
+	/**
+	 * schedules a task
+	 * @param deadlineMillis wall-clock time (epoch milliseconds); a past deadline runs on the next tick
+	 * @param task runs on the executor
+	 * @return handle to cancel the task
+	 */
+	public Timeout schedule(long deadlineMillis, Runnable task) {
+		long tick = Math.max(0, Math.floorDiv(deadlineMillis - origin + tickMillis - 1, tickMillis));
+		Timeout timeout = new Timeout(deadlineMillis, tick, task);
+		synchronized (this) {
+			place(timeout, null);
+		}
+		return timeout;
+	}
+
+	/**
+	 * @return timeouts held by the wheel, including cancelled ones not reached yet
+	 */
+	public synchronized int size() {
+		int n = overflow.size();
+		for (List<Timeout>[] wheel : wheels) {
+			for (List<Timeout> slot : wheel) n += slot.size();
+		}
+		return n;
+	}
+
+	private void drive() {
+		List<Timeout> due = new ArrayList<>();
+		List<Timeout> rejected = new ArrayList<>();
+		while (running) {
+			long now = clock.getAsLong();
+			long target = Math.floorDiv(now - origin, tickMillis);
+			synchronized (this) {
+				while (currentTick < target) {
+					currentTick++;
+					advance(due);
+				}
+			}
+			for (Timeout timeout : due) {
+				if (!timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) continue;
+				try {
+					executor.execute(timeout.task);
+				} catch (RejectedExecutionException e) {
+					timeout.state.set(Timeout.PENDING);
+					rejected.add(timeout);
+				}
+			}
+			due.clear();
+			if (!rejected.isEmpty()) {
+				synchronized (this) {
+					for (Timeout timeout : rejected) place(timeout, null);
+				}
+				rejected.clear();
+			}
+			long sleep = origin + (currentTick + 1) * tickMillis - clock.getAsLong();
+			if (sleep > 0) {
+				try {
+					Thread.sleep(sleep);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+	}
+
+	/** moves the wheel to {@link #currentTick}: cascades the levels that wrapped, then collects the level-0 slot */
+	private void advance(List<Timeout> due) {
+		for (int level = 1; level < wheels.length; level++) {
+			if ((currentTick & ((1L << (bits * level)) - 1)) != 0) break;
+			int slot = (int) ((currentTick >>> (bits * level)) & mask);
+			List<Timeout> cascaded = wheels[level][slot];
+			wheels[level][slot] = new ArrayList<>();
+			for (Timeout timeout : cascaded) place(timeout, due);
+			if (level == wheels.length - 1 && !overflow.isEmpty()) {
+				List<Timeout> waiting = new ArrayList<>(overflow);
+				overflow.clear();
+				for (Timeout timeout : waiting) place(timeout, due);
+			}
+		}
+		int slot = (int) (currentTick & mask);
+		due.addAll(wheels[0][slot]);
+		wheels[0][slot] = new ArrayList<>();
+	}
+
+	/**
+	 * puts a timeout into the slot of the lowest level that covers its distance from {@link #currentTick}
+	 * @param due receives timeouts that are already due, null to keep them for the next tick
+	 */
+	private void place(Timeout timeout, List<Timeout> due) {
+		if (timeout.isDone()) return;
+		long delta = timeout.tick - currentTick;
+		if (delta <= 0) {
+			if (due != null) {
+				due.add(timeout);
+				return;
+			}
+			delta = 1;
+		}
+		long tick = currentTick + delta;
+		for (int level = 0; level < wheels.length; level++) {
+			if (delta < 1L << (bits * (level + 1))) {
+				wheels[level][(int) ((tick >>> (bits * level)) & mask)].add(timeout);
+				return;
+			}
+		}
+		overflow.add(timeout);
+	}
+
+	/**
+	 * @param levels
+	 * @param slots slots per level
+	 * @return the empty wheels, every slot an empty list
+	 */
+	@SuppressWarnings("unchecked") // arrays of a generic type can only be created raw; every element is a List<Timeout>
+	private static List<Timeout>[][] newWheels(int levels, int slots) {
+		List<Timeout>[][] wheels = (List<Timeout>[][]) new List<?>[levels][slots];
+		for (List<Timeout>[] wheel : wheels) {
+			for (int slot = 0; slot < wheel.length; slot++) wheel[slot] = new ArrayList<>();
+		}
+		return wheels;
+	}
+}
@@ -0,0 +1,51 @@
+package serverGUI;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import javafx.beans.property.*;
+
+/**
+ * Represents a single row in the server GUI scheduled-jobs table.
+ * One row per job of the {@link server.JobScheduler}, values already formatted for display.
+ */
+public class JobTableRow {
+
+	private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("MM-dd HH:mm:ss");
+
+	private final SimpleStringProperty name = new SimpleStringProperty("-");
+	private final SimpleStringProperty schedule = new SimpleStringProperty("-");
+	private final SimpleStringProperty nextRun = new SimpleStringProperty("-");
+	private final SimpleStringProperty lastRun = new SimpleStringProperty("-");
+	private final SimpleStringProperty runs = new SimpleStringProperty("-");
+	private final SimpleStringProperty p99 = new SimpleStringProperty("-");
+	private final SimpleStringProperty lagP99 = new SimpleStringProperty("-");
+	private final SimpleStringProperty failures = new SimpleStringProperty("-");
+	private final SimpleStringProperty leader = new SimpleStringProperty("-");
+
+	public JobTableRow(String name, String schedule, LocalDateTime nextRun, LocalDateTime lastRun, boolean lastSuccess,
+			long runs, double p99, double lagP99, long failures, long skipped, boolean leader) {
+		this.name.set(name);
+		this.schedule.set(schedule);
+		this.nextRun.set(nextRun == null ? "-" : TIME.format(nextRun));
+		this.lastRun.set(lastRun == null ? "-" : TIME.format(lastRun) + (lastSuccess ? "" : " (failed)"));
+		this.runs.set(Long.toString(runs));
+		this.p99.set(String.format("%.0f", p99));
+		this.lagP99.set(String.format("%.0f", lagP99));
+		this.failures.set(failures + " / " + skipped);
+		this.leader.set(leader ? "here" : "other");
+	}
+
+	public String getName() {return name.get();}
+
+	public StringProperty nameProperty() {return name;}
+	public StringProperty scheduleProperty() {return schedule;}
+	public StringProperty nextRunProperty() {return nextRun;}
+	public StringProperty lastRunProperty() {return lastRun;}
+	public StringProperty runsProperty() {return runs;}
+	public StringProperty p99Property() {return p99;}
+	public StringProperty lagP99Property() {return lagP99;}
+	public StringProperty failuresProperty() {return failures;}
+	public StringProperty leaderProperty() {return leader;}
+
+}
@@ -0,0 +1,34 @@
+package serverGUI;
+
+import javafx.beans.property.*;
+
+/**
+ * Represents a single row in the server GUI request-metrics table.
+ * One row per request label (command or command/sub-type), values already formatted for display.
+ */
+public class MetricsTableRow {
+	
+	private final SimpleStringProperty label = new SimpleStringProperty("-");
+	private final SimpleStringProperty count = new SimpleStringProperty("-");
+	private final SimpleStringProperty p50 = new SimpleStringProperty("-");
+	private final SimpleStringProperty p99 = new SimpleStringProperty("-");
+	private final SimpleStringProperty dbP50 = new SimpleStringProperty("-");
+	private final SimpleStringProperty errorRate = new SimpleStringProperty("-");
+	
+	public MetricsTableRow(String label, long count, double p50, double p99, double dbP50, double errorRate) {
+		this.label.set(label);
+		this.count.set(Long.toString(count));
+		this.p50.set(String.format("%.2f", p50));
+		this.p99.set(String.format("%.2f", p99));
+		this.dbP50.set(String.format("%.2f", dbP50));
+		this.errorRate.set(String.format("%.1f%%", errorRate));
+	}
+	
+	public StringProperty labelProperty() {return label;}
+	public StringProperty countProperty() {return count;}
+	public StringProperty p50Property() {return p50;}
+	public StringProperty p99Property() {return p99;}
+	public StringProperty dbP50Property() {return dbP50;}
+	public StringProperty errorRateProperty() {return errorRate;}
+	
+}
@@ -1,6 +1,12 @@
 package serverGUI;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import database.DBManager;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -10,8 +16,14 @@ import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import javafx.collections.*;
 import server.BistroEchoServer;
+import server.JobScheduler;
+import server.ServerEventListener;
+import server.StartupStats;
+import server.LatencyHistogram;
+import server.RequestMetrics;
 
 /**
  * JavaFX controller for the server main screen.
@@ -25,12 +37,15 @@ import server.BistroEchoServer;
  *   <li>Start the server (initialize DB, begin listening) and update the UI labels</li>
  *   <li>Stop the server and close the application cleanly</li>
  *   <li>Handle server events: client connected, login, logout, disconnected (UI-safe using {@link Platform#runLater(Runnable)})</li>
+ *   <li>Show live per-command latency (p50/p99, DB p50) and error rates from {@link RequestMetrics}, refreshed every second</li>
+ *   <li>Show the background jobs of the {@link JobScheduler} (node running it, next/last run, duration and lag p99,
+ *       failures) and run the selected one on demand</li>
  * </ul>
  *
  * <p>Threading:
  * Server events may arrive from non-JavaFX threads, so UI changes are wrapped in {@code Platform.runLater(...)}.
  */
-public class ServerMainScreenControl {
+public class ServerMainScreenControl implements ServerEventListener {
 	
 	/** The running server instance controlled by this UI. */
 	private BistroEchoServer bistroServer;
@@ -38,6 +53,15 @@ public class ServerMainScreenControl {
 	/** Backing list for the clients table (observable by the UI). */
 	private final ObservableList<ClientTableRow> clients =  javafx.collections.FXCollections.observableArrayList();
 	
+	/** Backing list for the request-metrics table. */
+	private final ObservableList<MetricsTableRow> metrics = javafx.collections.FXCollections.observableArrayList();
+	
+	/** Backing list for the scheduled-jobs table. */
+	private final ObservableList<JobTableRow> jobs = javafx.collections.FXCollections.observableArrayList();
+	
+	/** Polls {@link RequestMetrics} while the server is running. */
+	private Timeline metricsRefresh;
+	
 	@FXML
 	private Button btnStart;
 	
@@ -68,6 +92,63 @@ public class ServerMainScreenControl {
 	@FXML
 	private TableColumn<ClientTableRow, String> colIp;
 	
+	@FXML
+	private TableView<MetricsTableRow> metricsTable;
+	
+	@FXML
+	private TableColumn<MetricsTableRow, String> colMetricLabel;
+	
+	@FXML
+	private TableColumn<MetricsTableRow, String> colMetricCount;
+	
+	@FXML
+	private TableColumn<MetricsTableRow, String> colMetricP50;
+	
+	@FXML
+	private TableColumn<MetricsTableRow, String> colMetricP99;
+	
+	@FXML
+	private TableColumn<MetricsTableRow, String> colMetricDb;
+	
+	@FXML
+	private TableColumn<MetricsTableRow, String> colMetricErrors;
+	
+	@FXML
+	private TableView<JobTableRow> jobsTable;
+	
+	@FXML
+	private TableColumn<JobTableRow, String> colJobName;
+	
+	@FXML
+	private TableColumn<JobTableRow, String> colJobSchedule;
+	
+	@FXML
+	private TableColumn<JobTableRow, String> colJobLeader;
+	
+	@FXML
+	private TableColumn<JobTableRow, String> colJobNext;
+	
+	@FXML
+	private TableColumn<JobTableRow, String> colJobLast;
+	
+	@FXML
+	private TableColumn<JobTableRow, String> colJobRuns;
+	
+	@FXML
+	private TableColumn<JobTableRow, String> colJobP99;
+	
+	@FXML
+	private TableColumn<JobTableRow, String> colJobLag;
+	
+	@FXML
+	private TableColumn<JobTableRow, String> colJobFailures;
+	
+	@FXML
+	private Button btnRunJob;
+	
+	@FXML
+	private Label lblJobStatus;
+	
 	@FXML
 	private Button btnExit;
 	
@@ -85,6 +166,93 @@ public class ServerMainScreenControl {
 		colIp.setCellValueFactory(c->c.getValue().ipProperty());
 		
 		clientTable.setItems(clients);
+		
+		colMetricLabel.setCellValueFactory(c->c.getValue().labelProperty());
+		colMetricCount.setCellValueFactory(c->c.getValue().countProperty());
+		colMetricP50.setCellValueFactory(c->c.getValue().p50Property());
+		colMetricP99.setCellValueFactory(c->c.getValue().p99Property());
+		colMetricDb.setCellValueFactory(c->c.getValue().dbP50Property());
+		colMetricErrors.setCellValueFactory(c->c.getValue().errorRateProperty());
+		
+		metricsTable.setItems(metrics);
+		
+		colJobName.setCellValueFactory(c->c.getValue().nameProperty());
+		colJobSchedule.setCellValueFactory(c->c.getValue().scheduleProperty());
+		colJobLeader.setCellValueFactory(c->c.getValue().leaderProperty());
+		colJobNext.setCellValueFactory(c->c.getValue().nextRunProperty());
+		colJobLast.setCellValueFactory(c->c.getValue().lastRunProperty());
+		colJobRuns.setCellValueFactory(c->c.getValue().runsProperty());
+		colJobP99.setCellValueFactory(c->c.getValue().p99Property());
+		colJobLag.setCellValueFactory(c->c.getValue().lagP99Property());
+		colJobFailures.setCellValueFactory(c->c.getValue().failuresProperty());
+		
+		jobsTable.setItems(jobs);
+	}
+	
+	/**
+	 * Starts polling the server's {@link RequestMetrics} once per second (runs on the JavaFX thread).
+	 */
+	private void startMetricsRefresh() {
+		if (metricsRefresh != null) return;
+		metricsRefresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> refreshMetrics()));
+		metricsRefresh.setCycleCount(Timeline.INDEFINITE);
+		metricsRefresh.play();
+	}
+	
+	/**
+	 * Rebuilds the metrics rows from the current histograms.
+	 * Error rate counts both failed responses and server errors (disjoint, so it stays within 100%).
+	 */
+	private void refreshMetrics() {
+		if (bistroServer == null) return;
+		List<MetricsTableRow> rows = new ArrayList<>();
+		for (Map.Entry<String, RequestMetrics.CommandStats> e : bistroServer.getRequestMetrics().snapshot().entrySet()) {
+			RequestMetrics.CommandStats s = e.getValue();
+			LatencyHistogram total = s.get(RequestMetrics.Phase.TOTAL);
+			long count = s.getCount();
+			double errorRate = count == 0 ? 0.0 : 100.0 * (s.getFailed() + s.getErrors()) / count;
+			rows.add(new MetricsTableRow(e.getKey(), count, total.getPercentileMillis(50), total.getPercentileMillis(99),
+					s.get(RequestMetrics.Phase.DB).getPercentileMillis(50), errorRate));
+		}
+		metrics.setAll(rows);
+		refreshJobs();
+	}
+	
+	/**
+	 * Rebuilds the job rows from the {@link JobScheduler} stats, keeping the selected job selected.
+	 */
+	private void refreshJobs() {
+		JobTableRow selected = jobsTable.getSelectionModel().getSelectedItem();
+		List<JobTableRow> rows = new ArrayList<>();
+		JobScheduler scheduler = bistroServer.getJobScheduler();
+		for (JobScheduler.JobStats s : scheduler.stats()) {
+			rows.add(new JobTableRow(s.getName(), s.getSchedule(), s.getNextRun(), s.getLastStart(), s.isLastSuccess(),
+					s.getDuration().getCount(), s.getDuration().getPercentileMillis(99), s.getLag().getPercentileMillis(99),
+					s.getFailures(), s.getSkipped(), scheduler.isLeader(s.getName())));
+		}
+		jobs.setAll(rows);
+		if (selected != null) {
+			for (JobTableRow row : rows) {
+				if (row.getName().equals(selected.getName())) jobsTable.getSelectionModel().select(row);
+			}
+		}
+	}
+	
+	/**
+	 * FXML action: runs the selected job now (refused while it is running or for one-shot deadline timers).
+	 *
+	 * @param event button event
+	 */
+	@FXML
+	private void runSelectedJob(ActionEvent event) {
+		JobTableRow selected = jobsTable.getSelectionModel().getSelectedItem();
+		if (bistroServer == null || selected == null) {
+			lblJobStatus.setText("Select a job first");
+			return;
+		}
+		boolean started = bistroServer.getJobScheduler().runNow(selected.getName());
+		lblJobStatus.setText(started ? "Started " + selected.getName()
+				: selected.getName() + " is running, runs on another node, is a deadline timer, or the server is stopped");
 	}
 	
 	/**
@@ -96,6 +264,15 @@ public class ServerMainScreenControl {
 		this.bistroServer = server;
 	}
 	
+	/**
+     * UI event: the server finished its warm-up and accepts clients.
+     */
+	@Override
+	public void onServerReady() {
+		StartupStats.report("gui");
+		Platform.runLater(() -> lblStatus.setText("Server status: running"));
+	}
+	
 	/**
      * UI event: a client connected (by IP only).
      *
@@ -103,6 +280,7 @@ public class ServerMainScreenControl {
      *
      * @param ip client IP address
      */
+	@Override
 	public void onClientConnected(String ip) {
 		Platform.runLater(()->clients.add(new ClientTableRow(ip)));
 	}
@@ -118,6 +296,7 @@ public class ServerMainScreenControl {
      * @param role user role (e.g., SUBSCRIBER/MANAGER)
      * @param ip client IP address (used as the matching key)
      */
+	@Override
 	public void onClientLogin(String userID,String username,String role,String ip) {
 		Platform.runLater(() -> {
 	        for (ClientTableRow row : clients) {
@@ -146,6 +325,7 @@ public class ServerMainScreenControl {
      *
      * @param ip client IP address
      */
+	@Override
 	public void onClientDisconnected(String ip) {
 	    Platform.runLater(() -> {
 	        System.out.println("UI disconnect ip=" + ip);	        
@@ -184,10 +364,11 @@ public class ServerMainScreenControl {
 	        bistroServer.listen();
 
 	        btnStart.setVisible(false);
-	        lblStatus.setText("Server status: running");
+	        lblStatus.setText("Server status: warming up");
 	        lblHostName.setText("Host name: " + bistroServer.getCurrentSession().getHostName());
 	        lblPort.setText("PORT: " + bistroServer.getPort());
 	        lblHostIp.setText("Host ip: " + bistroServer.getCurrentSession().getHostIP());
+	        startMetricsRefresh();
 
 	    } catch (Exception e) {
 	        lblStatus.setText("Server status: failed to start");
@@ -232,6 +413,7 @@ public class ServerMainScreenControl {
      *
      * @param ip client IP address
      */
+	@Override
 	public void onClientLogout(String ip) {
 		Platform.runLater(() -> {
 			for (ClientTableRow row : clients) {
@@ -0,0 +1,65 @@
+package allocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import entities.Table;
+
+/**
+ * Unit tests of the booking capacity of a {@link Floor}: {@link Floor#admits(Map, int, int)} must never let more
+ * parties book a time than the tables can seat at once.
+ */
+public class FloorTest {
+
+	/** The floor of {@code embedded_seed.sql}: a row of three 2-tops, a row of three 4-tops, 6-, 6-, 8- and 10-tops. */
+	private static final Floor SEED_FLOOR = new Floor(List.of(
+			new Table(1, 1, 2, 1), new Table(2, 2, 2, 1), new Table(3, 3, 2, 1),
+			new Table(4, 4, 4, 2), new Table(5, 5, 4, 2), new Table(6, 6, 4, 2),
+			new Table(7, 7, 6, null), new Table(8, 8, 6, null), new Table(9, 9, 8, null), new Table(10, 10, 10, null)));
+
+	@Test
+	public void capacityAndUnitsOfTheSeedFloor() {
+		assertEquals(4, SEED_FLOOR.capacityFor(3, 3));
+		assertEquals(12, SEED_FLOOR.capacityFor(11, 3));
+		assertEquals(-1, SEED_FLOOR.capacityFor(11, 1));
+		assertEquals(7, SEED_FLOOR.units(4, 3));
+		assertEquals(1, SEED_FLOOR.units(12, 3));
+	}
+
+	@Test
+	public void combinedPartyTakesEveryTableOfItsRun() {
+		// the 12 sits at the three 4-tops, which leaves four tables of 4 or more
+		assertTrue(SEED_FLOOR.admits(Map.of(12, 1, 4, 3), 4, 3));
+		assertFalse(SEED_FLOOR.admits(Map.of(12, 1, 4, 4), 4, 3));
+	}
+
+	@Test
+	public void singlePartiesInARowBlockItsRun() {
+		// four 4-person parties fit at the 6-, 6-, 8- and 10-tops; a fifth needs a 4-top of the only run of 12
+		assertTrue(SEED_FLOOR.admits(Map.of(4, 4), 12, 3));
+		assertFalse(SEED_FLOOR.admits(Map.of(4, 5), 12, 3));
+		assertFalse(SEED_FLOOR.admits(Map.of(12, 1), 12, 3));
+	}
+
+	@Test
+	public void smallerPartiesPushedToBiggerTablesAreCounted() {
+		Floor floor = new Floor(List.of(new Table(1, 1, 2, null), new Table(2, 2, 2, null), new Table(3, 3, 4, null)));
+		assertTrue(floor.admits(Map.of(2, 2), 4, 1));
+		// the third couple already sits at the 4-top
+		assertFalse(floor.admits(Map.of(2, 3), 4, 1));
+		assertFalse(floor.admits(Map.of(4, 1, 2, 2), 2, 1));
+	}
+
+	@Test
+	public void emptyTimeAdmitsEveryPartyThatFits() {
+		assertTrue(SEED_FLOOR.admits(Map.of(), 2, 3));
+		assertTrue(SEED_FLOOR.admits(Map.of(), 12, 3));
+		assertFalse(SEED_FLOOR.admits(Map.of(), -1, 3));
+	}
+}
@@ -0,0 +1,103 @@
+package controllers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import database.DBManager;
+import database.EmbeddedTestDatabase;
+import database.FloorModel;
+import database.SeatingDAO;
+import database.TableDAO;
+import requests.ManagerRequest;
+import requests.ManagerRequest.ManagerCommand;
+
+/**
+ * Integration tests of {@link ManagementControl#addNewTable(ManagerRequest)} with a combine group: the group reaches the
+ * database and the floor model, so the allocation policies can push the new table together with its row.
+ */
+public class TableManagementTest {
+
+	private static final int NEW_TABLE = 870;
+	private static final int GROUP = 87;
+
+	private static final String SELECT_GROUP = "SELECT combineGroup FROM restaurant_table WHERE tableNumber = ?";
+	private static final String DELETE_TABLE = "DELETE FROM restaurant_table WHERE tableNumber = ?";
+
+	private final ManagementControl managementControl = new ManagementControl();
+
+	@BeforeClass
+	public static void startDatabase() {
+		EmbeddedTestDatabase.start();
+	}
+
+	@After
+	public void cleanUp() throws SQLException {
+		try (Connection conn = DBManager.getConnection()) {
+			try (PreparedStatement ps = conn.prepareStatement(DELETE_TABLE)) {
+				ps.setInt(1, NEW_TABLE);
+				ps.executeUpdate();
+			}
+			FloorModel.reload(conn, new TableDAO(), new SeatingDAO());
+		}
+	}
+
+	@Test
+	public void newTableJoinsItsCombineGroup() throws SQLException {
+		assertTrue(managementControl.addNewTable(new ManagerRequest(ManagerCommand.ADD_NEW_TABLE, NEW_TABLE, 4, GROUP)).isSuccess());
+
+		assertEquals(Integer.valueOf(GROUP), storedGroup());
+		FloorModel.TableState state = stateOf(NEW_TABLE);
+		assertEquals(Integer.valueOf(GROUP), state.toTable().getCombineGroup());
+		assertEquals(FloorModel.TableStatus.FREE, state.getStatus());
+	}
+
+	@Test
+	public void newTableWithoutGroupStandsAlone() throws SQLException {
+		assertTrue(managementControl.addNewTable(new ManagerRequest(ManagerCommand.ADD_NEW_TABLE, NEW_TABLE, 4)).isSuccess());
+
+		assertNull(storedGroup());
+		assertNull(stateOf(NEW_TABLE).toTable().getCombineGroup());
+	}
+
+	@Test
+	public void nonPositiveGroupIsRefused() throws SQLException {
+		assertFalse(managementControl.addNewTable(new ManagerRequest(ManagerCommand.ADD_NEW_TABLE, NEW_TABLE, 4, 0)).isSuccess());
+
+		try (Connection conn = DBManager.getConnection();
+			 PreparedStatement ps = conn.prepareStatement(SELECT_GROUP)) {
+			ps.setInt(1, NEW_TABLE);
+			try (ResultSet rs = ps.executeQuery()) {
+				assertFalse(rs.next());
+			}
+		}
+	}
+
+	private static Integer storedGroup() throws SQLException {
+		try (Connection conn = DBManager.getConnection();
+			 PreparedStatement ps = conn.prepareStatement(SELECT_GROUP)) {
+			ps.setInt(1, NEW_TABLE);
+			try (ResultSet rs = ps.executeQuery()) {
+				assertTrue(rs.next());
+				return (Integer) rs.getObject(1);
+			}
+		}
+	}
+
+	private static FloorModel.TableState stateOf(int tableNumber) {
+		for (FloorModel.TableState state : FloorModel.snapshot()) {
+			if (state.getTableNumber() == tableNumber) return state;
+		}
+		throw new AssertionError("table " + tableNumber + " is not in the floor model");
+	}
+}
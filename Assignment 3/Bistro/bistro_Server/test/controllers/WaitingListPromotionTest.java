@@ -0,0 +1,168 @@
+package controllers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import allocation.AllocationPolicy;
+import database.DBManager;
+import database.EmbeddedTestDatabase;
+import database.FloorModel;
+import database.ReservationDAO;
+import database.SeatingDAO;
+import database.TableDAO;
+import database.UserDAO;
+import database.WaitingListDAO;
+import database.WaitingQueue;
+
+/**
+ * Integration tests of {@link SeatingControl#tryAssignNextFromWaitingList(Connection, int)} for a waiting party that
+ * no single table seats: a party of 12 on the seed floor needs the row of three 4-tops.
+ */
+public class WaitingListPromotionTest {
+
+	private static final int CODE = 870_000_201;
+	private static final int PARTY = 12;
+
+	private static final String INSERT_WAITING_RESERVATION =
+			"INSERT INTO reservation (reservationDate, status, partySize, allocatedCapacity, confirmationCode, startTime, guestContact) "
+			+ "VALUES (CURDATE(), 'WAITING', ?, ?, ?, CURTIME(), 'guest@bistro.test')";
+
+	private final TableDAO tableDAO = new TableDAO();
+	private final WaitingListDAO waitingListDAO = new WaitingListDAO();
+	private final SeatingControl seatingControl = new SeatingControl(new ReservationDAO(), tableDAO, new SeatingDAO(),
+			waitingListDAO, new NotificationControl(), new UserDAO(), AllocationPolicy.byName("bestfit", 0));
+	private int reservationID;
+
+	@BeforeClass
+	public static void startDatabase() {
+		EmbeddedTestDatabase.start();
+	}
+
+	@Before
+	public void queueParty() throws SQLException {
+		try (Connection conn = DBManager.getConnection()) {
+			try (PreparedStatement ps = conn.prepareStatement(INSERT_WAITING_RESERVATION, Statement.RETURN_GENERATED_KEYS)) {
+				ps.setInt(1, PARTY);
+				ps.setInt(2, FloorModel.capacityFor(PARTY, 3));
+				ps.setInt(3, CODE);
+				ps.executeUpdate();
+				try (ResultSet rs = ps.getGeneratedKeys()) {
+					rs.next();
+					reservationID = rs.getInt(1);
+				}
+			}
+			assertTrue(waitingListDAO.insertNewWait(conn, reservationID, "WAITING", 1, FloorModel.capacityFor(PARTY, 3)));
+		}
+	}
+
+	@After
+	public void cleanUp() throws SQLException {
+		try (Connection conn = DBManager.getConnection()) {
+			try (PreparedStatement ps = conn.prepareStatement("DELETE j FROM seating_joined_table j "
+					+ "JOIN seating s ON s.seatingID = j.seatingID WHERE s.reservationID >= ?")) {
+				ps.setInt(1, reservationID);
+				ps.executeUpdate();
+			}
+			for (String table : List.of("seating", "waiting_list", "reservation")) {
+				try (PreparedStatement ps = conn.prepareStatement("DELETE FROM " + table + " WHERE reservationID >= ?")) {
+					ps.setInt(1, reservationID);
+					ps.executeUpdate();
+				}
+			}
+			FloorModel.reload(conn, tableDAO, new SeatingDAO());
+			WaitingQueue.reload(conn, waitingListDAO);
+		}
+	}
+
+	@Test
+	public void combinedPartyIsCalledToPushedTogetherTables() throws SQLException {
+		assertTrue(promote(tableID(5)));
+
+		FloorModel.TableState first = FloorModel.getTable(tableID(4));
+		assertEquals(FloorModel.TableStatus.HELD, first.getStatus());
+		assertNotNull(first.getSeatingID());
+		List<FloorModel.TableState> held = FloorModel.getTablesBySeating(first.getSeatingID());
+		assertEquals(3, held.size());
+		for (FloorModel.TableState state : held) {
+			assertEquals(FloorModel.TableStatus.HELD, state.getStatus());
+			assertEquals(4, state.getCapacity());
+		}
+		try (Connection conn = DBManager.getConnection()) {
+			assertEquals("CALLED", waitingListDAO.getWaitingListByReservationId(conn, reservationID).getStatus());
+		}
+		assertEquals(0, WaitingQueue.size());
+	}
+
+	@Test
+	public void combinedPartyWaitsWhileItsRowIsTaken() throws SQLException {
+		int reservedElsewhere = seatOtherParty(tableID(6));
+		assertTrue(reservedElsewhere > 0);
+
+		assertTrue(promote(tableID(5)));
+
+		assertEquals(FloorModel.TableStatus.FREE, FloorModel.getTable(tableID(5)).getStatus());
+		assertEquals(FloorModel.TableStatus.FREE, FloorModel.getTable(tableID(4)).getStatus());
+		assertEquals(1, WaitingQueue.size());
+	}
+
+	/** runs one promotion for a freed table in its own transaction, like {@link WaitingListPromoter} */
+	private boolean promote(int tableID) throws SQLException {
+		try (Connection conn = DBManager.getConnection()) {
+			conn.setAutoCommit(false);
+			try {
+				boolean ok = seatingControl.tryAssignNextFromWaitingList(conn, tableID);
+				if (ok) conn.commit();
+				else conn.rollback();
+				return ok;
+			} finally {
+				conn.setAutoCommit(true);
+			}
+		}
+	}
+
+	/** seats a second reservation at a table through the DAO, so the floor model knows */
+	private int seatOtherParty(int tableID) throws SQLException {
+		try (Connection conn = DBManager.getConnection()) {
+			int other;
+			try (PreparedStatement ps = conn.prepareStatement(INSERT_WAITING_RESERVATION, Statement.RETURN_GENERATED_KEYS)) {
+				ps.setInt(1, 4);
+				ps.setInt(2, 4);
+				ps.setInt(3, CODE + 1);
+				ps.executeUpdate();
+				try (ResultSet rs = ps.getGeneratedKeys()) {
+					rs.next();
+					other = rs.getInt(1);
+				}
+			}
+			conn.setAutoCommit(false);
+			try {
+				assertTrue(tableDAO.claimTable(conn, tableID));
+				int seatingID = new SeatingDAO().checkIn(conn, tableID, other);
+				conn.commit();
+				return seatingID;
+			} finally {
+				conn.setAutoCommit(true);
+			}
+		}
+	}
+
+	private static int tableID(int tableNumber) {
+		for (FloorModel.TableState state : FloorModel.snapshot()) {
+			if (state.getTableNumber() == tableNumber) return state.getTableID();
+		}
+		throw new AssertionError("no table " + tableNumber + " in the seed");
+	}
+}
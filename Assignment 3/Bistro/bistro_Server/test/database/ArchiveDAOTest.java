@@ -0,0 +1,135 @@
+package database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Integration tests of {@link ArchiveDAO#moveToHistory(Connection, List)}: a combined seating is archived with its
+ * joined tables, instead of losing them to the {@code ON DELETE CASCADE} of {@code seating_joined_table}.
+ */
+public class ArchiveDAOTest {
+
+	private static final int CODE = 870_000_401;
+	private static final int FIRST_TABLE = 1;
+	private static final int JOINED_TABLE = 2;
+
+	private static final String INSERT_RESERVATION =
+			"INSERT INTO reservation (reservationDate, status, partySize, allocatedCapacity, confirmationCode, startTime) "
+			+ "VALUES (DATE_SUB(CURDATE(), INTERVAL 400 DAY), 'COMPLETED', 6, 6, ?, '19:00:00')";
+	private static final String INSERT_CLOSED_SEATING =
+			"INSERT INTO seating (tableID, reservationID, checkInTime, checkOutTime) "
+			+ "VALUES (?, ?, DATE_SUB(NOW(), INTERVAL 400 DAY), DATE_SUB(NOW(), INTERVAL 399 DAY))";
+	private static final String INSERT_JOINED_TABLE = "INSERT INTO seating_joined_table (seatingID, tableID) VALUES (?, ?)";
+	private static final String SELECT_TABLE_ID = "SELECT tableID FROM restaurant_table WHERE tableNumber = ?";
+
+	private final ArchiveDAO archiveDAO = new ArchiveDAO();
+	private int reservationID;
+	private int seatingID;
+	private int joinedTableID;
+
+	@BeforeClass
+	public static void startDatabase() {
+		EmbeddedTestDatabase.start();
+	}
+
+	@Before
+	public void insertCombinedSeating() throws SQLException {
+		try (Connection conn = DBManager.getConnection()) {
+			try (PreparedStatement ps = conn.prepareStatement(INSERT_RESERVATION, Statement.RETURN_GENERATED_KEYS)) {
+				ps.setInt(1, CODE);
+				ps.executeUpdate();
+				reservationID = generatedKey(ps);
+			}
+			try (PreparedStatement ps = conn.prepareStatement(INSERT_CLOSED_SEATING, Statement.RETURN_GENERATED_KEYS)) {
+				ps.setInt(1, tableID(conn, FIRST_TABLE));
+				ps.setInt(2, reservationID);
+				ps.executeUpdate();
+				seatingID = generatedKey(ps);
+			}
+			joinedTableID = tableID(conn, JOINED_TABLE);
+			try (PreparedStatement ps = conn.prepareStatement(INSERT_JOINED_TABLE)) {
+				ps.setInt(1, seatingID);
+				ps.setInt(2, joinedTableID);
+				ps.executeUpdate();
+			}
+		}
+	}
+
+	@After
+	public void cleanUp() throws SQLException {
+		try (Connection conn = DBManager.getConnection()) {
+			deleteWhere(conn, "DELETE FROM seating_joined_table_history WHERE seatingID = ?", seatingID);
+			deleteWhere(conn, "DELETE FROM seating_history WHERE seatingID = ?", seatingID);
+			deleteWhere(conn, "DELETE FROM reservation_history WHERE reservationID = ?", reservationID);
+			deleteWhere(conn, "DELETE FROM seating WHERE seatingID = ?", seatingID);
+			deleteWhere(conn, "DELETE FROM reservation WHERE reservationID = ?", reservationID);
+		}
+	}
+
+	@Test
+	public void joinedTablesMoveWithTheirSeating() throws SQLException {
+		try (Connection conn = DBManager.getConnection()) {
+			conn.setAutoCommit(false);
+			try {
+				assertTrue(archiveDAO.lockArchivableReservationIDs(conn, LocalDate.now().minusDays(30), 1000).contains(reservationID));
+				assertEquals(1, archiveDAO.moveToHistory(conn, List.of(reservationID)));
+				conn.commit();
+			} finally {
+				conn.setAutoCommit(true);
+			}
+
+			assertEquals(0, countFor(conn, "SELECT COUNT(*) FROM seating_joined_table WHERE seatingID = ?", seatingID));
+			assertEquals(0, countFor(conn, "SELECT COUNT(*) FROM seating WHERE seatingID = ?", seatingID));
+			assertEquals(1, countFor(conn, "SELECT COUNT(*) FROM seating_history WHERE seatingID = ?", seatingID));
+			assertEquals(joinedTableID,
+					countFor(conn, "SELECT tableID FROM seating_joined_table_history WHERE seatingID = ?", seatingID));
+		}
+	}
+
+	private static int tableID(Connection conn, int tableNumber) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(SELECT_TABLE_ID)) {
+			ps.setInt(1, tableNumber);
+			try (ResultSet rs = ps.executeQuery()) {
+				if (!rs.next()) throw new AssertionError("no table " + tableNumber + " in the seed");
+				return rs.getInt(1);
+			}
+		}
+	}
+
+	private static int generatedKey(PreparedStatement ps) throws SQLException {
+		try (ResultSet rs = ps.getGeneratedKeys()) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+
+	private static int countFor(Connection conn, String sql, int id) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			ps.setInt(1, id);
+			try (ResultSet rs = ps.executeQuery()) {
+				assertTrue(rs.next());
+				return rs.getInt(1);
+			}
+		}
+	}
+
+	private static void deleteWhere(Connection conn, String sql, int id) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			ps.setInt(1, id);
+			ps.executeUpdate();
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package database;
+
+/**
+ * Starts the {@code embedded} profile of {@link DBManager} once per test JVM: a throw-away MariaDB, rebuilt from
+ * {@code G13_Assignment3_DB.sql}, the migrations and {@code embedded_seed.sql}. Every test class shares it; tests
+ * that write clean up after themselves or use data no other test reads.
+ */
+public final class EmbeddedTestDatabase {
+
+	private static boolean started;
+
+	private EmbeddedTestDatabase() {}
+
+	/**
+	 * boots the embedded database unless it already runs (call from {@code @BeforeClass})
+	 */
+	public static synchronized void start() {
+		if (started) return;
+		System.setProperty("db_Profile", DBManager.PROFILE_EMBEDDED);
+		DBManager.init();
+		Runtime.getRuntime().addShutdownHook(new Thread(DBManager::dbShutDown, "embedded-db-shutdown"));
+		started = true;
+	}
+}
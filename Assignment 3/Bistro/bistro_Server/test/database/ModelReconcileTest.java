@@ -0,0 +1,170 @@
+package database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Integration tests of {@link FloorModel#reconcile(Connection, TableDAO, SeatingDAO)} and
+ * {@link WaitingQueue#reconcile(Connection, WaitingListDAO)}: writes of another server, made with plain SQL, reach this
+ * server's in-memory state, while work of this server's open transactions is left alone.
+ */
+public class ModelReconcileTest {
+
+	private static final int CODE = 870_000_301;
+	private static final int TEN_TOP = 10;
+
+	private static final String INSERT_RESERVATION =
+			"INSERT INTO reservation (reservationDate, status, partySize, allocatedCapacity, confirmationCode, startTime) "
+			+ "VALUES (CURDATE(), 'CONFIRMED', 2, 2, ?, CURTIME())";
+	private static final String INSERT_OPEN_SEATING =
+			"INSERT INTO seating (tableID, reservationID, checkInTime, checkOutTime) VALUES (?, ?, NOW(), NULL)";
+	private static final String CHECK_OUT = "UPDATE seating SET checkOutTime = NOW() WHERE seatingID = ?";
+	private static final String INSERT_WAITING = "INSERT INTO waiting_list (reservationID, status, priority) VALUES (?, 'WAITING', 1)";
+	private static final String CALL_WAITING = "UPDATE waiting_list SET status = 'CALLED' WHERE reservationID = ?";
+
+	private final TableDAO tableDAO = new TableDAO();
+	private final SeatingDAO seatingDAO = new SeatingDAO();
+	private final WaitingListDAO waitingListDAO = new WaitingListDAO();
+	private final List<Integer> freed = new CopyOnWriteArrayList<>();
+	private int reservationID;
+
+	@BeforeClass
+	public static void startDatabase() {
+		EmbeddedTestDatabase.start();
+	}
+
+	@Before
+	public void insertReservation() throws SQLException {
+		try (Connection conn = DBManager.getConnection();
+			 PreparedStatement ps = conn.prepareStatement(INSERT_RESERVATION, Statement.RETURN_GENERATED_KEYS)) {
+			ps.setInt(1, CODE);
+			ps.executeUpdate();
+			try (ResultSet rs = ps.getGeneratedKeys()) {
+				rs.next();
+				reservationID = rs.getInt(1);
+			}
+		}
+		FloorModel.setTableFreedListener(freed::add);
+	}
+
+	@After
+	public void cleanUp() throws SQLException {
+		FloorModel.setTableFreedListener(null);
+		try (Connection conn = DBManager.getConnection()) {
+			for (String table : List.of("seating", "waiting_list", "reservation")) {
+				try (PreparedStatement ps = conn.prepareStatement("DELETE FROM " + table + " WHERE reservationID = ?")) {
+					ps.setInt(1, reservationID);
+					ps.executeUpdate();
+				}
+			}
+			FloorModel.reload(conn, tableDAO, seatingDAO);
+			WaitingQueue.reload(conn, waitingListDAO);
+		}
+	}
+
+	@Test
+	public void tableCheckedOutElsewhereIsFreed() throws SQLException {
+		int tableID = tableID(TEN_TOP);
+		int seatingID;
+		try (Connection conn = DBManager.getConnection()) {
+			conn.setAutoCommit(false);
+			try {
+				assertTrue(tableDAO.claimTable(conn, tableID));
+				seatingID = seatingDAO.checkIn(conn, tableID, reservationID);
+				conn.commit();
+			} finally {
+				conn.setAutoCommit(true);
+			}
+			assertEquals(FloorModel.TableStatus.OCCUPIED, FloorModel.getTable(tableID).getStatus());
+
+			try (PreparedStatement ps = conn.prepareStatement(CHECK_OUT)) {
+				ps.setInt(1, seatingID);
+				assertEquals(1, ps.executeUpdate());
+			}
+			assertTrue(FloorModel.reconcile(conn, tableDAO, seatingDAO) > 0);
+		}
+		assertEquals(FloorModel.TableStatus.FREE, FloorModel.getTable(tableID).getStatus());
+		assertTrue(FloorModel.getTablesBySeating(seatingID).isEmpty());
+		assertEquals(List.of(tableID), freed);
+	}
+
+	@Test
+	public void tableSeatedElsewhereIsTaken() throws SQLException {
+		int tableID = tableID(TEN_TOP);
+		try (Connection conn = DBManager.getConnection()) {
+			try (PreparedStatement ps = conn.prepareStatement(INSERT_OPEN_SEATING)) {
+				ps.setInt(1, tableID);
+				ps.setInt(2, reservationID);
+				ps.executeUpdate();
+			}
+			assertEquals(FloorModel.TableStatus.FREE, FloorModel.getTable(tableID).getStatus());
+			assertTrue(FloorModel.reconcile(conn, tableDAO, seatingDAO) > 0);
+		}
+		FloorModel.TableState state = FloorModel.getTable(tableID);
+		assertEquals(FloorModel.TableStatus.OCCUPIED, state.getStatus());
+		assertEquals(reservationID, (int) state.getReservationID());
+		assertTrue(freed.isEmpty());
+	}
+
+	@Test
+	public void uncommittedSeatingIsLeftAlone() throws SQLException {
+		int tableID = tableID(TEN_TOP);
+		try (Connection conn = DBManager.getConnection()) {
+			conn.setAutoCommit(false);
+			try {
+				assertTrue(tableDAO.claimTable(conn, tableID));
+				int seatingID = seatingDAO.checkIn(conn, tableID, reservationID);
+				try (Connection other = DBManager.getConnection()) {
+					FloorModel.reconcile(other, tableDAO, seatingDAO);
+				}
+				FloorModel.TableState state = FloorModel.getTable(tableID);
+				assertEquals(FloorModel.TableStatus.OCCUPIED, state.getStatus());
+				assertEquals(seatingID, (int) state.getSeatingID());
+			} finally {
+				conn.rollback();
+				conn.setAutoCommit(true);
+			}
+		}
+		assertEquals(FloorModel.TableStatus.FREE, FloorModel.getTable(tableID).getStatus());
+	}
+
+	@Test
+	public void waitingEntriesWrittenElsewhereArePickedUp() throws SQLException {
+		try (Connection conn = DBManager.getConnection()) {
+			int waiting = WaitingQueue.size();
+			try (PreparedStatement ps = conn.prepareStatement(INSERT_WAITING)) {
+				ps.setInt(1, reservationID);
+				ps.executeUpdate();
+			}
+			assertEquals(1, WaitingQueue.reconcile(conn, waitingListDAO));
+			assertEquals(waiting + 1, WaitingQueue.size());
+
+			try (PreparedStatement ps = conn.prepareStatement(CALL_WAITING)) {
+				ps.setInt(1, reservationID);
+				assertEquals(1, ps.executeUpdate());
+			}
+			assertEquals(0, WaitingQueue.reconcile(conn, waitingListDAO));
+			assertEquals(waiting, WaitingQueue.size());
+		}
+	}
+
+	private static int tableID(int tableNumber) {
+		for (FloorModel.TableState state : FloorModel.snapshot()) {
+			if (state.getTableNumber() == tableNumber) return state.getTableID();
+		}
+		throw new AssertionError("no table " + tableNumber + " in the seed");
+	}
+}
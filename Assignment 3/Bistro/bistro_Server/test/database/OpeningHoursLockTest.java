@@ -0,0 +1,141 @@
+package database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Integration tests of {@link OpeningHoursDAO#lockOpeningHour}, the per-date lock that serializes reservation
+ * admission: a second admission for the date waits, and once it gets the lock it sees the first one's booking.
+ */
+public class OpeningHoursLockTest {
+
+	private static final int CODE = 870_000_001;
+	private static final LocalDate DAY = LocalDate.now().plusDays(3);
+
+	private static final String INSERT_RESERVATION =
+			"INSERT INTO reservation (reservationDate, status, partySize, allocatedCapacity, confirmationCode, startTime) "
+			+ "VALUES (?, 'CONFIRMED', 2, 2, ?, '19:00:00')";
+	private static final String COUNT_RESERVATIONS = "SELECT COUNT(*) FROM reservation WHERE confirmationCode = ?";
+
+	private final OpeningHoursDAO dao = new OpeningHoursDAO();
+	private final ExecutorService other = Executors.newSingleThreadExecutor();
+
+	@BeforeClass
+	public static void startDatabase() {
+		EmbeddedTestDatabase.start();
+	}
+
+	@After
+	public void cleanUp() throws SQLException {
+		other.shutdownNow();
+		try (Connection conn = DBManager.getConnection();
+			 PreparedStatement ps = conn.prepareStatement("DELETE FROM reservation WHERE confirmationCode = ?")) {
+			ps.setInt(1, CODE);
+			ps.executeUpdate();
+		}
+	}
+
+	@Test
+	public void dateWithoutOpeningHoursIsNotLocked() throws SQLException {
+		try (Connection conn = DBManager.getConnection()) {
+			conn.setAutoCommit(false);
+			try {
+				assertFalse(dao.lockOpeningHour(conn, LocalDate.now().minusYears(5)));
+			} finally {
+				conn.rollback();
+				conn.setAutoCommit(true);
+			}
+		}
+	}
+
+	@Test
+	public void secondAdmissionWaitsAndSeesTheFirstBooking() throws Exception {
+		try (Connection first = DBManager.getConnection()) {
+			first.setAutoCommit(false);
+			assertTrue(dao.lockOpeningHour(first, DAY));
+
+			Future<Integer> second = other.submit(() -> {
+				try (Connection conn = DBManager.getConnection()) {
+					conn.setAutoCommit(false);
+					try {
+						dao.lockOpeningHour(conn, DAY);
+						return count(conn);
+					} finally {
+						conn.rollback();
+						conn.setAutoCommit(true);
+					}
+				}
+			});
+			try {
+				second.get(500, TimeUnit.MILLISECONDS);
+				fail("the second admission did not wait for the date's lock");
+			} catch (TimeoutException expected) {
+				// blocked on the row lock
+			}
+
+			try (PreparedStatement ps = first.prepareStatement(INSERT_RESERVATION)) {
+				ps.setDate(1, java.sql.Date.valueOf(DAY));
+				ps.setInt(2, CODE);
+				ps.executeUpdate();
+			}
+			first.commit();
+			first.setAutoCommit(true);
+
+			assertEquals(1, (int) second.get(10, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void otherDatesDoNotWait() throws Exception {
+		try (Connection first = DBManager.getConnection()) {
+			first.setAutoCommit(false);
+			try {
+				assertTrue(dao.lockOpeningHour(first, DAY));
+				Future<Boolean> second = other.submit(() -> {
+					try (Connection conn = DBManager.getConnection()) {
+						conn.setAutoCommit(false);
+						try (Statement st = conn.createStatement()) {
+							st.execute("SET SESSION innodb_lock_wait_timeout = 2");
+							return dao.lockOpeningHour(conn, DAY.plusDays(1));
+						} finally {
+							conn.rollback();
+							conn.setAutoCommit(true);
+						}
+					}
+				});
+				assertTrue(second.get(10, TimeUnit.SECONDS));
+			} finally {
+				first.rollback();
+				first.setAutoCommit(true);
+			}
+		}
+	}
+
+	private static int count(Connection conn) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(COUNT_RESERVATIONS)) {
+			ps.setInt(1, CODE);
+			try (ResultSet rs = ps.executeQuery()) {
+				rs.next();
+				return rs.getInt(1);
+			}
+		}
+	}
+}
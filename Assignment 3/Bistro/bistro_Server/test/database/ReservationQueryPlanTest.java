@@ -0,0 +1,155 @@
+package database;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Runs {@code EXPLAIN} on the reservation time-window queries of {@link ReservationDAO} against the migrated schema:
+ * every read of {@code reservation} must go through one of the {@code idx_} indexes of {@link SchemaMigrator}, never a
+ * full scan. A query that wraps {@code startTime} in {@code TIMESTAMP()}/{@code ADDTIME()} again fails here.
+ *
+ * <p>The optimizer only prefers an index over a scan on a table of some size, so the class loads a few thousand
+ * reservations spread over three months (confirmation codes from {@value #FIRST_CODE}) and removes them afterwards.</p>
+ */
+public class ReservationQueryPlanTest {
+
+	private static final int FIRST_CODE = 880_000_000;
+	private static final int ROWS = 3000;
+
+	private static final String INSERT_PLAN_RESERVATIONS =
+			"INSERT INTO reservation (reservationDate, status, partySize, allocatedCapacity, confirmationCode, startTime) "
+			+ "WITH RECURSIVE d (i) AS (SELECT 0 UNION ALL SELECT i + 1 FROM d WHERE i < 59), "
+			// the server caps recursion at 1000 rows, so the rows are a cross join of two small sequences
+			+ "n (i) AS (SELECT a.i * 60 + b.i FROM d a CROSS JOIN d b) "
+			+ "SELECT CURDATE() + INTERVAL (i % 90) - 30 DAY, "
+			+ "ELT(1 + i % 4, 'CONFIRMED', 'COMPLETED', 'CANCELLED', 'NO_SHOW'), "
+			+ "2 + i % 5, 2 * (1 + i % 5), ? + i, MAKETIME(10 + i % 12, 30 * (i % 2), 0) FROM n WHERE i < ?";
+	private static final String DELETE_PLAN_RESERVATIONS = "DELETE FROM reservation WHERE confirmationCode >= ?";
+
+	private static final LocalDate DAY = LocalDate.now().plusDays(7);
+
+	@BeforeClass
+	public static void loadReservations() throws SQLException {
+		EmbeddedTestDatabase.start();
+		try (Connection conn = DBManager.getConnection()) {
+			try (PreparedStatement ps = conn.prepareStatement(INSERT_PLAN_RESERVATIONS)) {
+				ps.setInt(1, FIRST_CODE);
+				ps.setInt(2, ROWS);
+				ps.executeUpdate();
+			}
+			try (Statement st = conn.createStatement()) {
+				st.execute("ANALYZE TABLE reservation");
+			}
+		}
+	}
+
+	@AfterClass
+	public static void removeReservations() throws SQLException {
+		try (Connection conn = DBManager.getConnection();
+			 PreparedStatement ps = conn.prepareStatement(DELETE_PLAN_RESERVATIONS)) {
+			ps.setInt(1, FIRST_CODE);
+			ps.executeUpdate();
+		}
+	}
+
+	@Test
+	public void usedSeatsUseDateStatusStartIndex() throws Exception {
+		assertIndexed("SELECT_amountOfUsedSeats", date(DAY), at(DAY, 18, 0), at(DAY, 20, 0));
+	}
+
+	@Test
+	public void noShowScanUsesDateStatusStartIndex() throws Exception {
+		assertIndexed("SELECT_RESERVATIONS_DUE_FOR_NO_SHOW_PARAM", date(DAY), at(DAY, 12, 0));
+	}
+
+	@Test
+	public void cancellationPicksUseDateStatusStartIndex() throws Exception {
+		assertIndexed("SELECT_OVERLAPPING_RESERVATIONS_TO_CANCEL", date(DAY), 6, at(DAY, 20, 0), at(DAY, 18, 0), 5);
+	}
+
+	@Test
+	public void closeHoursOverlapUsesDateIndex() throws Exception {
+		assertIndexed("SELECT_RESERVATIONS_OVERLAPING_WITH_CLOSE_HOURS", date(DAY), at(DAY, 12, 0), at(DAY, 20, 0));
+	}
+
+	@Test
+	public void overbookedSlotsUseIndexes() throws Exception {
+		assertIndexed("SELECT_OVERBOOKED_SLOTS", 4, 4, 3);
+	}
+
+	@Test
+	public void remindersUseStatusStartIndex() throws Exception {
+		assertIndexed("SELECT_RESERVATIONS_DUE_FOR_REMINDER", at(DAY, 19, 0));
+	}
+
+	@Test
+	public void upcomingPartySizesUseStatusStartIndex() throws Exception {
+		assertIndexed("SELECT_UPCOMING_PARTY_SIZES", at(DAY, 18, 0), at(DAY, 20, 0));
+	}
+
+	/**
+	 * explains the named {@link ReservationDAO} query with the given binds and checks every {@code reservation} row
+	 * of the plan
+	 * @param constant name of the SQL constant in {@link ReservationDAO}
+	 * @param binds bind values in parameter order
+	 */
+	private static void assertIndexed(String constant, Object... binds) throws Exception {
+		List<String> checked = new ArrayList<>();
+		try (Connection conn = DBManager.getConnection();
+			 PreparedStatement ps = conn.prepareStatement("EXPLAIN " + sql(constant))) {
+			for (int i = 0; i < binds.length; i++) {
+				ps.setObject(i + 1, binds[i]);
+			}
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					String table = rs.getString("table");
+					if (table == null || table.startsWith("<")) continue; // derived tables and unions
+					String key = rs.getString("key");
+					String plan = constant + " on " + table + ": type=" + rs.getString("type") + ", key=" + key;
+					assertNotEquals(plan, "ALL", rs.getString("type"));
+					assertNotNull(plan, key);
+					assertTrue(plan, key.startsWith("idx_"));
+					checked.add(plan);
+				}
+			}
+		}
+		assertFalse(constant + ": no reservation row in the plan", checked.isEmpty());
+	}
+
+	/**
+	 * @param constant name of a SQL constant of {@link ReservationDAO}
+	 * @return its text
+	 */
+	private static String sql(String constant) throws ReflectiveOperationException {
+		Field field = ReservationDAO.class.getDeclaredField(constant);
+		field.setAccessible(true);
+		return (String) field.get(null);
+	}
+
+	private static Date date(LocalDate day) {
+		return Date.valueOf(day);
+	}
+
+	private static Timestamp at(LocalDate day, int hour, int minute) {
+		return Timestamp.valueOf(day.atTime(LocalTime.of(hour, minute)));
+	}
+}
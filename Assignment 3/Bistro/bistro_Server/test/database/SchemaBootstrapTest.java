@@ -0,0 +1,135 @@
+package database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Integration tests of the embedded profile: the rebuilt schema, the seed, and the guards against wiping a real
+ * database.
+ */
+public class SchemaBootstrapTest {
+
+	@BeforeClass
+	public static void startDatabase() {
+		EmbeddedTestDatabase.start();
+	}
+
+	@Test
+	public void embeddedProfileBuildsMigratedAndSeededSchema() throws Exception {
+		try (Connection conn = DBManager.getConnection()) {
+			assertEquals(3, count(conn, "SELECT COUNT(*) FROM user"));
+			assertEquals(10, count(conn, "SELECT COUNT(*) FROM restaurant_table"));
+			assertEquals(30, count(conn, "SELECT COUNT(*) FROM opening_hours WHERE date >= CURDATE()"));
+			assertEquals(1, count(conn, "SELECT COUNT(*) FROM " + SchemaBootstrap.MARKER_TABLE));
+			assertEquals(11, count(conn, "SELECT MAX(version) FROM schema_version"));
+		}
+	}
+
+	@Test
+	public void rebuildOfMarkedSchemaStartsOver() throws Exception {
+		try (Connection conn = DBManager.getConnection()) {
+			try (Statement st = conn.createStatement()) {
+				st.execute("CREATE TABLE scratch_table (id INT)");
+			}
+			SchemaBootstrap.rebuild(conn, "G13_Assignment3_DB.sql", "embedded_seed.sql");
+			assertEquals(0, count(conn, "SELECT COUNT(*) FROM information_schema.tables "
+					+ "WHERE table_schema = DATABASE() AND table_name = 'scratch_table'"));
+			assertEquals(3, count(conn, "SELECT COUNT(*) FROM user"));
+		}
+	}
+
+	@Test
+	public void seededSchemaTakesGeneratedWorkload() throws Exception {
+		try (Connection conn = DBManager.getConnection()) {
+			try (Statement st = conn.createStatement()) {
+				st.execute("CREATE DATABASE IF NOT EXISTS bistro_generated");
+			}
+			String home = conn.getCatalog();
+			conn.setCatalog("bistro_generated");
+			try {
+				DBManager.buildEmbedded(conn, "G13_Assignment3_DB.sql", "embedded_seed.sql", 500);
+				assertEquals("manager", string(conn, "SELECT username FROM user WHERE userID = 'U-00001'"));
+				assertTrue(count(conn, "SELECT COUNT(*) FROM user") > 3);
+				assertEquals(10, count(conn, "SELECT COUNT(*) FROM restaurant_table WHERE tableNumber <= 10"));
+				assertTrue(count(conn, "SELECT COUNT(*) FROM restaurant_table") > 10);
+				assertEquals(0, count(conn, "SELECT COUNT(*) FROM seating s "
+						+ "JOIN restaurant_table t ON t.tableID = s.tableID WHERE t.tableNumber <= 10"));
+				assertEquals(count(conn, "SELECT COUNT(DISTINCT date) FROM opening_hours"),
+						count(conn, "SELECT COUNT(*) FROM opening_hours"));
+				assertTrue(count(conn, "SELECT COUNT(*) FROM reservation") > 400);
+			} finally {
+				conn.setCatalog(home);
+				try (Statement st = conn.createStatement()) {
+					st.execute("DROP DATABASE bistro_generated");
+				}
+			}
+		}
+	}
+
+	@Test
+	public void rebuildRefusesSchemaWithoutMarker() throws Exception {
+		try (Connection conn = DBManager.getConnection()) {
+			try (Statement st = conn.createStatement()) {
+				st.execute("CREATE DATABASE IF NOT EXISTS bistro_not_throwaway");
+				st.execute("CREATE TABLE IF NOT EXISTS bistro_not_throwaway.reservation (id INT)");
+			}
+			String home = conn.getCatalog();
+			conn.setCatalog("bistro_not_throwaway");
+			try {
+				SchemaBootstrap.rebuild(conn, "G13_Assignment3_DB.sql", null);
+				fail("rebuild wiped a schema without the marker table");
+			} catch (SQLException expected) {
+				assertTrue(expected.getMessage().contains(SchemaBootstrap.MARKER_TABLE));
+			} finally {
+				conn.setCatalog(home);
+			}
+			assertEquals(1, count(conn, "SELECT COUNT(*) FROM information_schema.tables "
+					+ "WHERE table_schema = 'bistro_not_throwaway' AND table_name = 'reservation'"));
+			try (Statement st = conn.createStatement()) {
+				st.execute("DROP DATABASE bistro_not_throwaway");
+			}
+		}
+	}
+
+	@Test
+	public void onlyLocalUrlsAreRebuilt() throws Exception {
+		assertTrue(SchemaBootstrap.isLocalUrl("jdbc:mysql://localhost:3306/bistro?useSSL=false"));
+		assertTrue(SchemaBootstrap.isLocalUrl("jdbc:mysql://127.0.0.1/bistro"));
+		assertTrue(SchemaBootstrap.isLocalUrl("jdbc:mariadb://[::1]:3307/bistro"));
+		assertFalse(SchemaBootstrap.isLocalUrl("jdbc:mysql://db.example.com:3306/bistro"));
+		assertFalse(SchemaBootstrap.isLocalUrl("jdbc:mysql://localhost:3306,db.example.com:3306/bistro"));
+		assertFalse(SchemaBootstrap.isLocalUrl("jdbc:mysql://localhost.example.com/bistro"));
+		assertFalse(SchemaBootstrap.isLocalUrl(null));
+		try {
+			SchemaBootstrap.requireThrowAway("jdbc:mysql://db.example.com/bistro", List.of());
+			fail("a remote URL was accepted");
+		} catch (SQLException expected) {
+			// refused before anything is dropped
+		}
+	}
+
+	private static int count(Connection conn, String sql) throws SQLException {
+		try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+
+	private static String string(Connection conn, String sql) throws SQLException {
+		try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+			rs.next();
+			return rs.getString(1);
+		}
+	}
+}
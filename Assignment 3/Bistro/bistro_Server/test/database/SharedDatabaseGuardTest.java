@@ -0,0 +1,206 @@
+package database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import allocation.AllocationPolicy;
+import entities.Table;
+
+/**
+ * Integration tests of the database guards behind {@link FloorModel} and {@link WaitingQueue}: a seating or a call made
+ * by another server, which this server's in-memory state does not know about, is found when the table or the waiting
+ * entry is claimed, and is never handed out a second time. "Another server" is a write with plain SQL.
+ */
+public class SharedDatabaseGuardTest {
+
+	private static final int CODE = 870_000_101;
+	private static final int TEN_TOP = 10;
+
+	private static final String INSERT_RESERVATION =
+			"INSERT INTO reservation (reservationDate, status, partySize, allocatedCapacity, confirmationCode, startTime) "
+			+ "VALUES (CURDATE(), 'CONFIRMED', 2, 2, ?, CURTIME())";
+	private static final String INSERT_OPEN_SEATING =
+			"INSERT INTO seating (tableID, reservationID, checkInTime, checkOutTime) VALUES (?, ?, NOW(), NULL)";
+	private static final String CALL_WAITING = "UPDATE waiting_list SET status = 'CALLED' WHERE reservationID = ?";
+	private static final String CHECK_OUT = "UPDATE seating SET checkOutTime = NOW(3) WHERE reservationID = ?";
+	/** any consistent read: it fixes the snapshot of a REPEATABLE READ transaction */
+	private static final String TAKE_SNAPSHOT = "SELECT COUNT(*) FROM seating";
+
+	private final TableDAO tableDAO = new TableDAO();
+	private final WaitingListDAO waitingListDAO = new WaitingListDAO();
+	private int reservationID;
+
+	@BeforeClass
+	public static void startDatabase() {
+		EmbeddedTestDatabase.start();
+	}
+
+	@Before
+	public void insertReservation() throws SQLException {
+		try (Connection conn = DBManager.getConnection();
+			 PreparedStatement ps = conn.prepareStatement(INSERT_RESERVATION, Statement.RETURN_GENERATED_KEYS)) {
+			ps.setInt(1, CODE);
+			ps.executeUpdate();
+			try (ResultSet rs = ps.getGeneratedKeys()) {
+				rs.next();
+				reservationID = rs.getInt(1);
+			}
+		}
+	}
+
+	@After
+	public void cleanUp() throws SQLException {
+		try (Connection conn = DBManager.getConnection()) {
+			for (String table : List.of("seating", "waiting_list", "reservation")) {
+				try (PreparedStatement ps = conn.prepareStatement("DELETE FROM " + table + " WHERE reservationID = ?")) {
+					ps.setInt(1, reservationID);
+					ps.executeUpdate();
+				}
+			}
+			FloorModel.reload(conn, tableDAO, new SeatingDAO());
+			WaitingQueue.reload(conn, waitingListDAO);
+		}
+	}
+
+	@Test
+	public void tableSeatedElsewhereIsNotClaimed() throws SQLException {
+		int tableID = tableID(TEN_TOP);
+		seatElsewhere(tableID);
+		assertEquals(FloorModel.TableStatus.FREE, FloorModel.getTable(tableID).getStatus());
+
+		try (Connection conn = DBManager.getConnection()) {
+			conn.setAutoCommit(false);
+			try {
+				assertFalse(tableDAO.claimTable(conn, tableID));
+			} finally {
+				conn.rollback();
+				conn.setAutoCommit(true);
+			}
+		}
+		FloorModel.TableState state = FloorModel.getTable(tableID);
+		assertEquals(FloorModel.TableStatus.OCCUPIED, state.getStatus());
+		assertEquals(reservationID, (int) state.getReservationID());
+	}
+
+	@Test
+	public void allocationPicksAgainAroundATableSeatedElsewhere() throws SQLException {
+		int tableID = tableID(TEN_TOP);
+		seatElsewhere(tableID);
+
+		try (Connection conn = DBManager.getConnection()) {
+			conn.setAutoCommit(false);
+			try {
+				List<Table> tables = tableDAO.findAvailableTables(conn, AllocationPolicy.configured(), 10, List.of());
+				if (tables != null) {
+					for (Table t : tables) {
+						assertTrue("picked the table seated elsewhere", t.getTableID() != tableID);
+						assertEquals(FloorModel.TableStatus.CLAIMED, FloorModel.getTable(t.getTableID()).getStatus());
+					}
+				}
+			} finally {
+				conn.rollback();
+				conn.setAutoCommit(true);
+			}
+		}
+		assertEquals(FloorModel.TableStatus.OCCUPIED, FloorModel.getTable(tableID).getStatus());
+	}
+
+	@Test
+	public void checkoutCommittedAfterSnapshotFreesTable() throws SQLException {
+		int tableID = tableID(TEN_TOP);
+		seatElsewhere(tableID);
+
+		try (Connection conn = DBManager.getConnection()) {
+			conn.setAutoCommit(false);
+			try {
+				takeSnapshot(conn);
+				try (Connection other = DBManager.getConnection();
+					 PreparedStatement ps = other.prepareStatement(CHECK_OUT)) {
+					ps.setInt(1, reservationID);
+					assertEquals(1, ps.executeUpdate());
+				}
+				assertTrue(tableDAO.claimTable(conn, tableID));
+			} finally {
+				conn.rollback();
+				conn.setAutoCommit(true);
+			}
+		}
+		assertEquals(FloorModel.TableStatus.FREE, FloorModel.getTable(tableID).getStatus());
+	}
+
+	@Test
+	public void seatingCommittedAfterSnapshotIsSeen() throws SQLException {
+		int tableID = tableID(TEN_TOP);
+
+		try (Connection conn = DBManager.getConnection()) {
+			conn.setAutoCommit(false);
+			try {
+				takeSnapshot(conn);
+				seatElsewhere(tableID);
+				assertFalse(tableDAO.claimTable(conn, tableID));
+			} finally {
+				conn.rollback();
+				conn.setAutoCommit(true);
+			}
+		}
+		assertEquals(FloorModel.TableStatus.OCCUPIED, FloorModel.getTable(tableID).getStatus());
+	}
+
+	@Test
+	public void waitingEntryCalledElsewhereIsSkipped() throws SQLException {
+		try (Connection conn = DBManager.getConnection()) {
+			assertTrue(waitingListDAO.insertNewWait(conn, reservationID, "WAITING", 1, 2));
+			int waiting = WaitingQueue.size();
+			try (PreparedStatement ps = conn.prepareStatement(CALL_WAITING)) {
+				ps.setInt(1, reservationID);
+				assertEquals(1, ps.executeUpdate());
+			}
+
+			conn.setAutoCommit(false);
+			try {
+				assertNull(waitingListDAO.getNextWaitingThatFits(conn, 2));
+			} finally {
+				conn.rollback();
+				conn.setAutoCommit(true);
+			}
+			assertEquals(waiting - 1, WaitingQueue.size());
+		}
+	}
+
+	private void seatElsewhere(int tableID) throws SQLException {
+		try (Connection conn = DBManager.getConnection();
+			 PreparedStatement ps = conn.prepareStatement(INSERT_OPEN_SEATING)) {
+			ps.setInt(1, tableID);
+			ps.setInt(2, reservationID);
+			ps.executeUpdate();
+		}
+	}
+
+	private static void takeSnapshot(Connection conn) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(TAKE_SNAPSHOT);
+			 ResultSet rs = ps.executeQuery()) {
+			rs.next();
+		}
+	}
+
+	private static int tableID(int tableNumber) {
+		for (FloorModel.TableState state : FloorModel.snapshot()) {
+			if (state.getTableNumber() == tableNumber) return state.getTableID();
+		}
+		throw new AssertionError("no table " + tableNumber + " in the seed");
+	}
+}
@@ -0,0 +1,81 @@
+package database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link SqlStatistics}: statement names of the DAO constants and masking of bind values in the slow-SQL
+ * log. No database needed.
+ */
+public class SqlStatisticsTest {
+
+	private static final String LOGIN_SQL = "SELECT userID FROM `user` WHERE username = ? AND password = ?";
+	private static final String TABLE_SQL = "SELECT * FROM `restaurant_table` WHERE tableNumber = ? AND capacity = ?";
+
+	@After
+	public void restoreDefaults() {
+		SqlStatistics.setLogBindValues(false);
+		SqlStatistics.reset();
+	}
+
+	@Test
+	public void everyDaoSqlConstantIsNamedAfterItsField() throws Exception {
+		for (Class<?> owner : SqlStatistics.SQL_OWNERS) {
+			for (Field field : owner.getDeclaredFields()) {
+				if (field.getType() != String.class || !field.getName().matches("[A-Z][A-Za-z0-9_]*_[A-Za-z0-9_]*")) continue;
+				String constant = owner.getSimpleName() + "." + field.getName();
+				assertTrue(constant + " is not static final", Modifier.isStatic(field.getModifiers())
+						&& Modifier.isFinal(field.getModifiers()));
+
+				field.setAccessible(true);
+				String sql = (String) field.get(null);
+				String name = SqlStatistics.statsFor(sql).getName();
+				// identical SQL text under two constants is named after one of them
+				assertEquals(constant, sql, sqlOf(name));
+			}
+		}
+	}
+
+	@Test
+	public void bindValuesAreMaskedByDefault() {
+		String binds = SqlStatistics.describeBinds(SqlStatistics.statsFor(TABLE_SQL), Map.of(2, 4, 1, 7));
+		assertEquals("{1=***, 2=***}", binds);
+	}
+
+	@Test
+	public void bindValuesAreShownWhenEnabled() {
+		SqlStatistics.setLogBindValues(true);
+		String binds = SqlStatistics.describeBinds(SqlStatistics.statsFor(TABLE_SQL), Map.of(2, 4, 1, 7));
+		assertEquals("{1=7, 2=4}", binds);
+	}
+
+	@Test
+	public void passwordStatementsAreAlwaysMasked() {
+		SqlStatistics.setLogBindValues(true);
+		String binds = SqlStatistics.describeBinds(SqlStatistics.statsFor(LOGIN_SQL), Map.of(1, "manager", 2, "secret"));
+		assertEquals("{1=***, 2=***}", binds);
+	}
+
+	/**
+	 * @param name {@code Owner.FIELD} statement name
+	 * @return the value of that field
+	 */
+	private static String sqlOf(String name) throws ReflectiveOperationException {
+		int dot = name.indexOf('.');
+		for (Class<?> owner : SqlStatistics.SQL_OWNERS) {
+			if (owner.getSimpleName().equals(name.substring(0, Math.max(dot, 0)))) {
+				Field field = owner.getDeclaredField(name.substring(dot + 1));
+				field.setAccessible(true);
+				return (String) field.get(null);
+			}
+		}
+		return "<unnamed: " + name + ">";
+	}
+}
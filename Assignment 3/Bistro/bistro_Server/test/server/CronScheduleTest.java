@@ -0,0 +1,74 @@
+package server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.time.LocalDateTime;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link CronSchedule#next(LocalDateTime)}: the next fire time rolls over minute, hour, day, month and
+ * year boundaries, and honours short months and leap days.
+ */
+public class CronScheduleTest {
+
+	@Test
+	public void everyMinuteFiresOnTheNextWholeMinute() {
+		CronSchedule cron = CronSchedule.parse("* * * * *");
+		assertEquals(LocalDateTime.of(2026, 3, 10, 12, 1), cron.next(LocalDateTime.of(2026, 3, 10, 12, 0, 0)));
+		assertEquals(LocalDateTime.of(2026, 3, 10, 12, 1), cron.next(LocalDateTime.of(2026, 3, 10, 12, 0, 59, 999_000_000)));
+		assertEquals(LocalDateTime.of(2027, 1, 1, 0, 0), cron.next(LocalDateTime.of(2026, 12, 31, 23, 59, 30)));
+	}
+
+	@Test
+	public void dailyJobRollsOverToTheNextDayAndMonth() {
+		CronSchedule cron = CronSchedule.parse("10 0 * * *");
+		assertEquals(LocalDateTime.of(2026, 3, 10, 0, 10), cron.next(LocalDateTime.of(2026, 3, 10, 0, 9)));
+		assertEquals(LocalDateTime.of(2026, 3, 11, 0, 10), cron.next(LocalDateTime.of(2026, 3, 10, 0, 10)));
+		assertEquals(LocalDateTime.of(2026, 5, 1, 0, 10), cron.next(LocalDateTime.of(2026, 4, 30, 12, 0)));
+	}
+
+	@Test
+	public void monthlyJobRollsOverToTheNextMonthAndYear() {
+		CronSchedule cron = CronSchedule.parse("5 0 1 * *");
+		assertEquals(LocalDateTime.of(2026, 4, 1, 0, 5), cron.next(LocalDateTime.of(2026, 3, 1, 0, 5)));
+		assertEquals(LocalDateTime.of(2027, 1, 1, 0, 5), cron.next(LocalDateTime.of(2026, 12, 15, 8, 0)));
+	}
+
+	@Test
+	public void dayOfMonthSkipsShortMonths() {
+		CronSchedule cron = CronSchedule.parse("0 12 31 * *");
+		assertEquals(LocalDateTime.of(2026, 5, 31, 12, 0), cron.next(LocalDateTime.of(2026, 4, 1, 0, 0)));
+		assertEquals(LocalDateTime.of(2026, 3, 31, 12, 0), cron.next(LocalDateTime.of(2026, 1, 31, 12, 0)));
+	}
+
+	@Test
+	public void leapDayWaitsForALeapYear() {
+		CronSchedule cron = CronSchedule.parse("0 0 29 2 *");
+		assertEquals(LocalDateTime.of(2028, 2, 29, 0, 0), cron.next(LocalDateTime.of(2026, 3, 1, 0, 0)));
+		assertNull(CronSchedule.parse("0 0 30 2 *").next(LocalDateTime.of(2026, 1, 1, 0, 0)));
+	}
+
+	@Test
+	public void restrictedDayFieldsMatchEitherDay() {
+		// 2026-03-10 is a Tuesday: the next Sunday is the 15th, before the 20th
+		CronSchedule cron = CronSchedule.parse("0 9 20 * 7");
+		assertEquals(LocalDateTime.of(2026, 3, 15, 9, 0), cron.next(LocalDateTime.of(2026, 3, 10, 9, 0)));
+		assertEquals(LocalDateTime.of(2026, 3, 20, 9, 0), cron.next(LocalDateTime.of(2026, 3, 15, 9, 0)));
+	}
+
+	@Test
+	public void stepsAndListsExpandWithinTheirRange() {
+		CronSchedule cron = CronSchedule.parse("*/20 8-9,22 * * *");
+		assertEquals(LocalDateTime.of(2026, 3, 10, 8, 40), cron.next(LocalDateTime.of(2026, 3, 10, 8, 20)));
+		assertEquals(LocalDateTime.of(2026, 3, 10, 9, 0), cron.next(LocalDateTime.of(2026, 3, 10, 8, 40)));
+		assertEquals(LocalDateTime.of(2026, 3, 10, 22, 0), cron.next(LocalDateTime.of(2026, 3, 10, 9, 40)));
+		assertEquals(LocalDateTime.of(2026, 3, 11, 8, 0), cron.next(LocalDateTime.of(2026, 3, 10, 22, 40)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void outOfRangeValueIsRefused() {
+		CronSchedule.parse("60 * * * *");
+	}
+}
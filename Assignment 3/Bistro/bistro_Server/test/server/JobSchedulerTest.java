@@ -0,0 +1,106 @@
+package server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of the rejection handling of {@link JobScheduler}: with a single worker blocked and its queue full,
+ * fire-and-forget work is dropped, {@link JobScheduler#runNow(String)} is refused, and a one-shot task is deferred
+ * (counted once) and runs once the pool has room again.
+ */
+public class JobSchedulerTest {
+
+	/** Matches the scheduler's queue capacity. */
+	private static final int QUEUE_CAPACITY = 1024;
+	private static final String JOB = "yearly";
+	private static final String ONE_SHOT = "one-shot";
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private JobScheduler scheduler;
+
+	@Before
+	public void startScheduler() {
+		System.setProperty("scheduler_Threads", "1");
+		try {
+			scheduler = new JobScheduler("test");
+			scheduler.register(JOB, "0 0 1 1 *", 0, false, () -> 0);
+			scheduler.start();
+		} finally {
+			System.clearProperty("scheduler_Threads");
+		}
+	}
+
+	@After
+	public void stopScheduler() {
+		release.countDown();
+		scheduler.stop();
+	}
+
+	@Test
+	public void fullPoolDropsWorkAndRefusesRunNow() throws InterruptedException {
+		fillPool();
+
+		assertFalse(scheduler.execute(() -> {}));
+		assertFalse(scheduler.runNow(JOB));
+		assertFalse(scheduler.isRunning(JOB));
+		assertEquals(2, scheduler.getRejected());
+		assertEquals(1, stats(JOB).getRejected());
+	}
+
+	@Test
+	public void deferredOneShotRunsOnceThePoolHasRoom() throws InterruptedException {
+		fillPool();
+		CountDownLatch ran = new CountDownLatch(1);
+		assertNotNull(scheduler.schedule(ONE_SHOT, LocalDateTime.now().minusSeconds(1), () -> {
+			ran.countDown();
+			return 1;
+		}));
+
+		// let the wheel hand the task over at least twice while the pool is full
+		Thread.sleep(2500);
+		assertEquals(1, ran.getCount());
+		assertEquals(1, scheduler.getRejected());
+
+		release.countDown();
+		assertTrue(ran.await(10, TimeUnit.SECONDS));
+		scheduler.stop(); // waits for the run to record its stats
+		JobScheduler.JobStats stats = stats(ONE_SHOT);
+		assertEquals(1, stats.getRejected());
+		assertEquals(1, stats.getLastRows());
+		assertTrue(stats.isLastSuccess());
+	}
+
+	/** blocks the only worker and fills its queue */
+	private void fillPool() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		assertTrue(scheduler.execute(() -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		for (int i = 0; i < QUEUE_CAPACITY; i++) {
+			assertTrue(scheduler.execute(() -> {}));
+		}
+	}
+
+	private JobScheduler.JobStats stats(String jobName) {
+		for (JobScheduler.JobStats s : scheduler.stats()) {
+			if (s.getName().equals(jobName)) return s;
+		}
+		throw new AssertionError("no stats for " + jobName);
+	}
+}
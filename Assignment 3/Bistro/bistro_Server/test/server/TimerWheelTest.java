@@ -0,0 +1,137 @@
+package server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link TimerWheel} on a manual clock: a 1 ms tick, 4 slots and 2 levels, so level 0 covers 3 ticks,
+ * level 1 covers 15 and later deadlines wait in the overflow list. Each test moves the clock and waits for a probe
+ * timeout of the same tick, which proves the driver has processed that tick.
+ */
+public class TimerWheelTest {
+
+	private static final long ORIGIN = 1_000_000L;
+
+	private final AtomicLong clock = new AtomicLong(ORIGIN);
+	private final List<String> ran = new CopyOnWriteArrayList<>();
+	private TimerWheel wheel;
+
+	@After
+	public void stopWheel() {
+		if (wheel != null) wheel.stop();
+	}
+
+	@Test
+	public void taskRunsOnItsTick() throws InterruptedException {
+		start(Runnable::run);
+		wheel.schedule(ORIGIN + 3, () -> ran.add("a"));
+
+		advanceTo(2);
+		assertTrue(ran.isEmpty());
+		advanceTo(3);
+		assertEquals(List.of("a"), ran);
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void deadlinesCascadeFromUpperLevelsAndOverflow() throws InterruptedException {
+		start(Runnable::run);
+		wheel.schedule(ORIGIN + 10, () -> ran.add("level1"));
+		wheel.schedule(ORIGIN + 40, () -> ran.add("overflow"));
+
+		advanceTo(9);
+		assertTrue(ran.isEmpty());
+		advanceTo(10);
+		assertEquals(List.of("level1"), ran);
+		advanceTo(39);
+		assertEquals(List.of("level1"), ran);
+		advanceTo(40);
+		assertEquals(List.of("level1", "overflow"), ran);
+	}
+
+	@Test
+	public void missedTicksAreCaughtUp() throws InterruptedException {
+		start(Runnable::run);
+		wheel.schedule(ORIGIN + 2, () -> ran.add("a"));
+		wheel.schedule(ORIGIN + 21, () -> ran.add("b"));
+
+		advanceTo(30);
+		assertEquals(List.of("a", "b"), ran);
+	}
+
+	@Test
+	public void cancelledTaskDoesNotRun() throws InterruptedException {
+		start(Runnable::run);
+		TimerWheel.Timeout timeout = wheel.schedule(ORIGIN + 5, () -> ran.add("a"));
+
+		assertTrue(timeout.cancel());
+		assertTrue(timeout.isDone());
+		assertFalse(timeout.cancel());
+		advanceTo(5);
+		assertTrue(ran.isEmpty());
+	}
+
+	@Test
+	public void rejectedTaskIsHandedOverAgainOnTheNextTick() throws InterruptedException {
+		AtomicInteger rejections = new AtomicInteger(2);
+		start(task -> {
+			if (task instanceof Probe) {
+				task.run();
+			} else if (rejections.getAndDecrement() > 0) {
+				throw new RejectedExecutionException("full");
+			} else {
+				task.run();
+			}
+		});
+		CountDownLatch done = new CountDownLatch(1);
+		TimerWheel.Timeout timeout = wheel.schedule(ORIGIN + 3, done::countDown);
+
+		advanceTo(3);
+		assertFalse(timeout.isDone());
+		advanceTo(4);
+		advanceTo(5);
+		// the re-placed task may sit behind the probe of its tick
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertTrue(timeout.isDone());
+		assertEquals("executor calls", -1, rejections.get());
+	}
+
+	private void start(Executor executor) {
+		wheel = new TimerWheel("testWheel", 1, 2, 2, executor, clock::get);
+		wheel.start();
+	}
+
+	/**
+	 * moves the clock to a tick and waits until the driver has processed it
+	 * @param tick ticks after {@link #ORIGIN}
+	 */
+	private void advanceTo(long tick) throws InterruptedException {
+		Probe probe = new Probe();
+		wheel.schedule(ORIGIN + tick, probe);
+		clock.set(ORIGIN + tick);
+		assertTrue("tick " + tick + " not processed", probe.done.await(5, TimeUnit.SECONDS));
+	}
+
+	/** Timeout that marks a tick as processed; scheduled after the tested tasks, so it runs after those of its tick. */
+	private static final class Probe implements Runnable {
+		final CountDownLatch done = new CountDownLatch(1);
+
+		@Override
+		public void run() {
+			done.countDown();
+		}
+	}
+}
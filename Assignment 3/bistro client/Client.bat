@@ -7,8 +7,12 @@ set FX_HOME=C:\Users\oaSIS\Desktop\bistro client\javafx-sdk-25.0.1
 rem --- Make sure native DLLs can be found ---
 set PATH=%FX_HOME%\bin;%PATH%
 
+rem --- Class-data sharing archive: written on the first run, reused by later runs (see README) ---
+set CDS=-XX:SharedArchiveFile=G13_client.jsa -XX:+AutoCreateSharedArchive
+
 rem --- Run server ---
 java ^
+  %CDS% ^
   --enable-native-access=javafx.graphics ^
   --module-path "%FX_HOME%\lib" ^
   --add-modules javafx.controls,javafx.fxml,javafx.graphics ^